@@ -0,0 +1,179 @@
+package projectTest;
+
+import java.util.Arrays;
+
+import net.finmath.functions.NormalDistribution;
+
+/**
+ * This class implements a compact tape for reverse-mode algorithmic differentiation (AAD) of scalar computations.
+ *
+ * Every operation records one node holding its value, its (at most two) arguments and the partial derivatives with respect to them,
+ * calculated during the forward sweep. The nodes are stored in primitive arrays which grow on demand and are reused after <code>reset()</code>,
+ * such that recording the computation of a path does not allocate once the tape has reached its size.
+ * The reverse sweep
+ * \[
+ * 	\bar{x}_{a} \mathrel{+}= \bar{x}_{i} \frac{\partial x_{i}}{\partial x_{a}} \text{,} \quad i = n-1, \ldots, 0 \text{,}
+ * \]
+ * propagates the adjoints from an output to all nodes in one pass, i.e., the gradient with respect to all inputs costs a small multiple
+ * of the cost of the forward sweep, independent of the number of inputs.
+ *
+ * Nodes are referenced by their index. Inputs are created by <code>newVariable</code>, constants may be passed as <code>double</code>.
+ *
+ * @author A V L
+ * @see MertonJumpDiffusionAdjointSensitivities
+ * @version 1.0
+ */
+public class AdjointTape {
+
+	private static final int NO_ARGUMENT = -1;
+
+	private double[]	values;
+	private int[]		firstArguments;
+	private int[]		secondArguments;
+	private double[]	firstPartials;
+	private double[]	secondPartials;
+	private double[]	adjoints;
+
+	private int numberOfNodes;
+
+	/**
+	 * @param initialCapacity The initial number of nodes of the tape.
+	 */
+	public AdjointTape(int initialCapacity) {
+		super();
+		initialCapacity = Math.max(initialCapacity, 16);
+		values			= new double[initialCapacity];
+		firstArguments	= new int[initialCapacity];
+		secondArguments	= new int[initialCapacity];
+		firstPartials	= new double[initialCapacity];
+		secondPartials	= new double[initialCapacity];
+		adjoints		= new double[initialCapacity];
+	}
+
+	/**
+	 * Removes all nodes from the tape (keeping its memory).
+	 */
+	public void reset() {
+		numberOfNodes = 0;
+	}
+
+	/**
+	 * @return The number of nodes recorded on the tape.
+	 */
+	public int getNumberOfNodes() {
+		return numberOfNodes;
+	}
+
+	/**
+	 * @param value The value of the input.
+	 * @return The node of a new input.
+	 */
+	public int newVariable(double value) {
+		return record(value, NO_ARGUMENT, 0.0, NO_ARGUMENT, 0.0);
+	}
+
+	/**
+	 * @param node A node.
+	 * @return The value of the node.
+	 */
+	public double getValue(int node) {
+		return values[node];
+	}
+
+	public int add(int a, int b) {
+		return record(values[a] + values[b], a, 1.0, b, 1.0);
+	}
+
+	public int add(int a, double b) {
+		return record(values[a] + b, a, 1.0, NO_ARGUMENT, 0.0);
+	}
+
+	public int sub(int a, int b) {
+		return record(values[a] - values[b], a, 1.0, b, -1.0);
+	}
+
+	public int mult(int a, int b) {
+		return record(values[a] * values[b], a, values[b], b, values[a]);
+	}
+
+	public int mult(int a, double b) {
+		return record(values[a] * b, a, b, NO_ARGUMENT, 0.0);
+	}
+
+	public int div(int a, int b) {
+		double quotient = values[a] / values[b];
+		return record(quotient, a, 1.0 / values[b], b, -quotient / values[b]);
+	}
+
+	public int exp(int a) {
+		double value = Math.exp(values[a]);
+		return record(value, a, value, NO_ARGUMENT, 0.0);
+	}
+
+	public int log(int a) {
+		return record(Math.log(values[a]), a, 1.0 / values[a], NO_ARGUMENT, 0.0);
+	}
+
+	public int sqrt(int a) {
+		double value = Math.sqrt(values[a]);
+		return record(value, a, 0.5 / value, NO_ARGUMENT, 0.0);
+	}
+
+	/**
+	 * @return The node of max(a, b), with derivative 1 if a &gt; b and 0 otherwise.
+	 */
+	public int max(int a, double b) {
+		return values[a] > b ? record(values[a], a, 1.0, NO_ARGUMENT, 0.0) : record(b, NO_ARGUMENT, 0.0, NO_ARGUMENT, 0.0);
+	}
+
+	/**
+	 * @return The node of the standard normal distribution function at a.
+	 */
+	public int cumulativeNormal(int a) {
+		return record(NormalDistribution.cumulativeDistribution(values[a]), a, NormalDistribution.density(values[a]), NO_ARGUMENT, 0.0);
+	}
+
+	/**
+	 * Runs the reverse sweep from the given output, afterwards <code>getAdjoint(node)</code> is the derivative of the output with respect to the node.
+	 *
+	 * @param output The output node.
+	 */
+	public void reverse(int output) {
+		Arrays.fill(adjoints, 0, output + 1, 0.0);
+		adjoints[output] = 1.0;
+		for(int node = output; node >= 0; node--) {
+			double adjoint = adjoints[node];
+			if(adjoint == 0.0) continue;
+			if(firstArguments[node] != NO_ARGUMENT)		adjoints[firstArguments[node]]	+= adjoint * firstPartials[node];
+			if(secondArguments[node] != NO_ARGUMENT)	adjoints[secondArguments[node]]	+= adjoint * secondPartials[node];
+		}
+	}
+
+	/**
+	 * @param node A node (before the output of the last reverse sweep).
+	 * @return The derivative of the output of the last reverse sweep with respect to the node.
+	 */
+	public double getAdjoint(int node) {
+		return adjoints[node];
+	}
+
+	private int record(double value, int firstArgument, double firstPartial, int secondArgument, double secondPartial) {
+		if(numberOfNodes == values.length) grow();
+		values[numberOfNodes]			= value;
+		firstArguments[numberOfNodes]	= firstArgument;
+		firstPartials[numberOfNodes]	= firstPartial;
+		secondArguments[numberOfNodes]	= secondArgument;
+		secondPartials[numberOfNodes]	= secondPartial;
+		return numberOfNodes++;
+	}
+
+	private void grow() {
+		int capacity = 2 * values.length;
+		values			= Arrays.copyOf(values, capacity);
+		firstArguments	= Arrays.copyOf(firstArguments, capacity);
+		secondArguments	= Arrays.copyOf(secondArguments, capacity);
+		firstPartials	= Arrays.copyOf(firstPartials, capacity);
+		secondPartials	= Arrays.copyOf(secondPartials, capacity);
+		adjoints		= Arrays.copyOf(adjoints, capacity);
+	}
+}
@@ -0,0 +1,106 @@
+package projectTest;
+
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.stochastic.RandomVariableInterface;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements a Brownian motion with antithetic paths.
+ *
+ * The first half of the paths are the paths of a given Brownian motion, the path <code>path + numberOfPaths/2</code>
+ * is the mirrored path <code>path</code>, i.e., it has the negative increments. Hence only half of the random numbers are drawn and stored,
+ * the increments of all paths are created on every call and are not stored.
+ *
+ * @author A V L
+ * @see AntitheticCompoundPoissonProcess
+ * @see AntitheticPairAveragedProduct
+ * @version 1.0
+ */
+public class AntitheticBrownianMotion implements BrownianMotionInterface {
+
+	private final BrownianMotionInterface brownianMotion;
+
+	private final AbstractRandomVariableFactory randomVariableFactory = new RandomVariableFactory();
+
+	/**
+	 * @param brownianMotion The Brownian motion providing the first half of the paths.
+	 */
+	public AntitheticBrownianMotion(BrownianMotionInterface brownianMotion) {
+		super();
+		this.brownianMotion = brownianMotion;
+	}
+
+	/**
+	 * @param timeDiscretization The time discretization of the Brownian motion.
+	 * @param numberOfFactors The number of factors.
+	 * @param numberOfPaths The number of paths, has to be even.
+	 * @param seed The seed of the random number generator.
+	 */
+	public AntitheticBrownianMotion(TimeDiscretizationInterface timeDiscretization, int numberOfFactors, int numberOfPaths, int seed) {
+		this(new BrownianMotion(timeDiscretization, numberOfFactors, getNumberOfPairs(numberOfPaths), seed));
+	}
+
+	/**
+	 * @param numberOfPaths The number of paths, has to be even.
+	 * @return The number of antithetic pairs.
+	 */
+	static int getNumberOfPairs(int numberOfPaths) {
+		if(numberOfPaths % 2 != 0) throw new IllegalArgumentException("The number of paths has to be even for antithetic paths.");
+		return numberOfPaths / 2;
+	}
+
+	/**
+	 * The increments are created on every call; they are not stored.
+	 */
+	@Override
+	public RandomVariableInterface getBrownianIncrement(int timeIndex, int factor) {
+		RandomVariableInterface brownianIncrement = brownianMotion.getBrownianIncrement(timeIndex, factor);
+
+		final int numberOfPairs = brownianMotion.getNumberOfPaths();
+		double[] increments = new double[2 * numberOfPairs];
+		for(int path=0; path<numberOfPairs; path++) {
+			double increment = brownianIncrement.get(path);
+			increments[path]				= increment;
+			increments[path+numberOfPairs]	= -increment;
+		}
+		return randomVariableFactory.createRandomVariable(getTimeDiscretization().getTime(timeIndex+1), increments);
+	}
+
+	@Override
+	public RandomVariableInterface getIncrement(int timeIndex, int factor) {
+		return getBrownianIncrement(timeIndex, factor);
+	}
+
+	@Override
+	public TimeDiscretizationInterface getTimeDiscretization() {
+		return brownianMotion.getTimeDiscretization();
+	}
+
+	@Override
+	public int getNumberOfFactors() {
+		return brownianMotion.getNumberOfFactors();
+	}
+
+	@Override
+	public int getNumberOfPaths() {
+		return 2 * brownianMotion.getNumberOfPaths();
+	}
+
+	@Override
+	public RandomVariableInterface getRandomVariableForConstant(double value) {
+		return brownianMotion.getRandomVariableForConstant(value);
+	}
+
+	@Override
+	public BrownianMotionInterface getCloneWithModifiedSeed(int seed) {
+		return new AntitheticBrownianMotion(brownianMotion.getCloneWithModifiedSeed(seed));
+	}
+
+	@Override
+	public BrownianMotionInterface getCloneWithModifiedTimeDiscretization(TimeDiscretizationInterface newTimeDiscretization) {
+		return new AntitheticBrownianMotion(brownianMotion.getCloneWithModifiedTimeDiscretization(newTimeDiscretization));
+	}
+}
@@ -0,0 +1,108 @@
+package projectTest;
+
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.stochastic.RandomVariableInterface;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements a compound Poisson process with antithetic paths.
+ *
+ * The first half of the paths are the paths of a given compound Poisson process, the path <code>path + numberOfPaths/2</code>
+ * has the same jump times as the path <code>path</code> (the Poisson counts are shared) and the antithetic jump sizes
+ * of the jump size distribution, e.g. for log-normal jumps log(1+Y) is mirrored at its mean.
+ *
+ * @author A V L
+ * @see AntitheticBrownianMotion
+ * @version 1.0
+ */
+public class AntitheticCompoundPoissonProcess implements PointProcessInterface {
+
+	private final AbstractRandomVariableFactory randomVariableFactory = new RandomVariableFactory();
+
+	private final PointProcessInterface			compoundPoissonProcess;
+	private final JumpSizeDistributionInterface	jumpSizeDistribution;
+	private final TimeDiscretizationInterface	timeDiscretization;
+
+	private JumpEvents		jumpEvents;
+	private PointProcessValues	values;
+	private final Object	jumpEventsLazyInitLock = new Object();
+
+	/**
+	 * @param compoundPoissonProcess The compound Poisson process providing the first half of the paths.
+	 * @param jumpSizeDistribution The distribution of its jump-height.
+	 * @param timeDiscretization The time discretization of the process.
+	 */
+	public AntitheticCompoundPoissonProcess(PointProcessInterface compoundPoissonProcess, JumpSizeDistributionInterface jumpSizeDistribution,
+			TimeDiscretizationInterface timeDiscretization) {
+		super();
+		this.compoundPoissonProcess = compoundPoissonProcess;
+		this.jumpSizeDistribution = jumpSizeDistribution;
+		this.timeDiscretization = timeDiscretization;
+	}
+
+	/**
+	 * @param intensity The intensity of the Poisson Process
+	 * @param jumpSizeDistribution The distribution of the jump-height
+	 * @param timeDiscretization The time discretization.
+	 * @param numberOfPaths The number of paths, has to be even.
+	 * @param seed The seed of the random number generator.
+	 */
+	public AntitheticCompoundPoissonProcess(double intensity, JumpSizeDistributionInterface jumpSizeDistribution,
+			TimeDiscretizationInterface timeDiscretization, int numberOfPaths, int seed) {
+		this(new CompoundPoissonProcess(intensity, jumpSizeDistribution, timeDiscretization, AntitheticBrownianMotion.getNumberOfPairs(numberOfPaths), seed, true /* isParallel */),
+				jumpSizeDistribution, timeDiscretization);
+	}
+
+	/**
+	 * The values are a running sum of the jumps, the value of the last requested time index is kept.
+	 */
+	@Override
+	public RandomVariableInterface getProcess(int timeIndex) {
+		return getValues().getValue(timeIndex);
+	}
+
+	/**
+	 * The increments are created from the jump events on every call; they are not stored.
+	 */
+	@Override
+	public RandomVariableInterface getProcessIncrements(int timeIndex) {
+		double time = timeDiscretization.getTime(timeIndex+1);
+		return randomVariableFactory.createRandomVariable(time, getJumpEvents().getIncrements(timeIndex));
+	}
+
+	private synchronized PointProcessValues getValues() {
+		if(values == null) values = new PointProcessValues(getJumpEvents(), timeDiscretization, randomVariableFactory);
+		return values;
+	}
+
+	@Override
+	public JumpEvents getJumpEvents() {
+		synchronized(jumpEventsLazyInitLock) {
+			if(jumpEvents == null) {
+				JumpEvents jumpEventsOfPairs = compoundPoissonProcess.getJumpEvents();
+
+				final int numberOfPairs = jumpEventsOfPairs.getNumberOfPaths();
+				final int numberOfJumps = jumpEventsOfPairs.getNumberOfJumps();
+
+				int[]		firstJumpOfPath	= new int[2 * numberOfPairs + 1];
+				int[]		jumpTimeIndices	= new int[2 * numberOfJumps];
+				double[]	jumpSizes		= new double[2 * numberOfJumps];
+				int jumpIndex = 0;
+				for(int antithetic=0; antithetic<2; antithetic++) {
+					for(int path=0; path<numberOfPairs; path++) {
+						for(int jump=0; jump<jumpEventsOfPairs.getNumberOfJumpsOnPath(path); jump++) {
+							double jumpSize = jumpEventsOfPairs.getJumpSize(path, jump);
+							jumpTimeIndices[jumpIndex]	= jumpEventsOfPairs.getJumpTimeIndex(path, jump);
+							jumpSizes[jumpIndex]		= antithetic == 0 ? jumpSize : jumpSizeDistribution.getAntitheticJumpSize(jumpSize);
+							jumpIndex++;
+						}
+						firstJumpOfPath[antithetic * numberOfPairs + path + 1] = jumpIndex;
+					}
+				}
+				jumpEvents = new JumpEvents(jumpEventsOfPairs.getNumberOfTimeSteps(), firstJumpOfPath, jumpTimeIndices, jumpSizes);
+			}
+		}
+		return jumpEvents;
+	}
+}
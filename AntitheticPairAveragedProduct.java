@@ -0,0 +1,49 @@
+package projectTest;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.RandomVariable;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationInterface;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.stochastic.RandomVariableInterface;
+
+/**
+ * This class averages the value of a product over the antithetic pairs of paths of an antithetic <code>MonteCarloMertonJumpDiffusionModel</code>.
+ *
+ * The returned random variable has one realization per pair, the average of the values on the paths <code>path</code> and
+ * <code>path + numberOfPaths/2</code>. Its average is the value of the product and its standard error is the
+ * standard error of the antithetic estimator (the values on the two paths of a pair are not independent).
+ *
+ * @author A V L
+ * @see AntitheticBrownianMotion
+ * @version 1.0
+ */
+public class AntitheticPairAveragedProduct extends AbstractAssetMonteCarloProduct {
+
+	private final AbstractAssetMonteCarloProduct product;
+
+	/**
+	 * @param product The product to value.
+	 */
+	public AntitheticPairAveragedProduct(AbstractAssetMonteCarloProduct product) {
+		super();
+		this.product = product;
+	}
+
+	@Override
+	public RandomVariableInterface getValue(double evaluationTime, AssetModelMonteCarloSimulationInterface model) throws CalculationException {
+		if(!(model instanceof MonteCarloMertonJumpDiffusionModel) || !((MonteCarloMertonJumpDiffusionModel)model).isAntithetic()) {
+			throw new IllegalArgumentException("The model does not have antithetic paths.");
+		}
+
+		RandomVariableInterface values = product.getValue(evaluationTime, model);
+
+		final int numberOfPairs = model.getNumberOfPaths() / 2;
+		if(values.isDeterministic()) return values;
+
+		double[] averageOfPairs = new double[numberOfPairs];
+		for(int path=0; path<numberOfPairs; path++) {
+			averageOfPairs[path] = 0.5 * (values.get(path) + values.get(path + numberOfPairs));
+		}
+		return new RandomVariable(evaluationTime, averageOfPairs);
+	}
+}
@@ -0,0 +1,199 @@
+package projectTest;
+
+import java.util.Arrays;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.RandomVariable;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationInterface;
+import net.finmath.stochastic.RandomVariableInterface;
+
+/**
+ * This class implements a hedge simulator for the Black-Scholes delta hedge of an European option
+ * for several rebalancing schedules at once.
+ *
+ * All replication portfolios are carried forward together in one sweep over the time discretization of the model.
+ * On a time index which is a rebalancing date of more than one schedule, the delta is calculated once and reused,
+ * such that the cost is about the cost of the finest schedule alone.
+ *
+ * For a given number of hedging times the rebalancing dates are those of
+ * <code>BlackScholesHedgedPortfolioWithModifiedTimeDiscretization</code>, such that the portfolio values agree.
+ *
+ * @author A V L
+ * @see BlackScholesHedgedPortfolioWithModifiedTimeDiscretization
+ * @version 1.0
+ */
+public class BlackScholesHedgeSimulator {
+
+	// Properties of the European option we wish to replicate
+	private final double maturity;
+	private final double strike;
+
+	// Model assumptions for the hedge
+	private final double riskFreeRate;
+	private final double volatility;
+
+	// Either the numbers of hedging times or explicit rebalancing time indices
+	private final double[]	numbersOfHedgingTimes;
+	private final int[][]	rebalancingTimeIndices;
+
+	/**
+	 * Construction of delta hedge portfolios assuming a Black-Scholes model, one for each number of hedging times.
+	 *
+	 * @param maturity		Maturity of the option we wish to replicate.
+	 * @param strike		Strike of the option we wish to replicate.
+	 * @param riskFreeRate	Model riskFreeRate assumption for our delta hedge.
+	 * @param volatility	Model volatility assumption for our delta hedge.
+	 * @param numbersOfHedgingTimes The numbers of hedging times, one for each portfolio.
+	 */
+	public BlackScholesHedgeSimulator(double maturity, double strike, double riskFreeRate, double volatility, double[] numbersOfHedgingTimes) {
+		super();
+		this.maturity = maturity;
+		this.strike = strike;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+		this.numbersOfHedgingTimes = numbersOfHedgingTimes.clone();
+		this.rebalancingTimeIndices = null;
+	}
+
+	/**
+	 * Construction of delta hedge portfolios assuming a Black-Scholes model, one for each rebalancing schedule.
+	 *
+	 * @param maturity		Maturity of the option we wish to replicate.
+	 * @param strike		Strike of the option we wish to replicate.
+	 * @param riskFreeRate	Model riskFreeRate assumption for our delta hedge.
+	 * @param volatility	Model volatility assumption for our delta hedge.
+	 * @param rebalancingTimeIndices For each portfolio the increasing time indices (of the model) at which the portfolio is rebalanced.
+	 */
+	public BlackScholesHedgeSimulator(double maturity, double strike, double riskFreeRate, double volatility, int[][] rebalancingTimeIndices) {
+		super();
+		this.maturity = maturity;
+		this.strike = strike;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+		this.numbersOfHedgingTimes = null;
+		this.rebalancingTimeIndices = new int[rebalancingTimeIndices.length][];
+		for(int i=0; i<rebalancingTimeIndices.length; i++) this.rebalancingTimeIndices[i] = rebalancingTimeIndices[i].clone();
+	}
+
+	/**
+	 * @return The number of replication portfolios.
+	 */
+	public int getNumberOfPortfolios() {
+		return numbersOfHedgingTimes != null ? numbersOfHedgingTimes.length : rebalancingTimeIndices.length;
+	}
+
+	/**
+	 * Returns the values of all replication portfolios at evaluation time.
+	 *
+	 * @param evaluationTime The time at which the portfolios are valued.
+	 * @param model The model providing the paths of the underlying.
+	 * @return For each portfolio the random variable of its value at evaluation time.
+	 * @throws CalculationException Thrown if the model fails to provide the paths.
+	 */
+	public RandomVariableInterface[] getValues(double evaluationTime, AssetModelMonteCarloSimulationInterface model) throws CalculationException {
+
+		final int numberOfPortfolios		= getNumberOfPortfolios();
+		final int timeIndexEvaluationTime	= model.getTimeIndex(evaluationTime);
+		final int[][] schedules				= getRebalancingTimeIndices(model, timeIndexEvaluationTime);
+
+		// Initialize the portfolios to zero stocks and as much cash as the Black-Scholes Model predicts we need.
+		RandomVariableInterface underlyingToday = model.getAssetValue(0.0,0);
+		RandomVariableInterface numeraireToday  = model.getNumeraire(0.0);
+
+		// The generation of the paths (on first request of the underlying) is measured by the process
+		SimulationMetrics.Measurement measurement = SimulationMetrics.start(SimulationMetrics.Phase.DELTA_HEDGE);
+
+		final int numberOfPaths = model.getNumberOfPaths();
+		double[][] amountOfNumeraireAsset = new double[numberOfPortfolios][numberOfPaths];
+		double[][] amountOfUderlyingAsset = new double[numberOfPortfolios][numberOfPaths];
+		if(numberOfPortfolios > 0) {
+			DeltaHedgeKernel.initialize(underlyingToday, numeraireToday, riskFreeRate, volatility, maturity, strike, amountOfNumeraireAsset[0], amountOfUderlyingAsset[0]);
+		}
+		for(int portfolio = 1; portfolio < numberOfPortfolios; portfolio++) {
+			System.arraycopy(amountOfNumeraireAsset[0], 0, amountOfNumeraireAsset[portfolio], 0, numberOfPaths);
+		}
+
+		// One sweep over time, every portfolio advances to its next rebalancing date
+		int[] nextRebalancing = new int[numberOfPortfolios];
+		double[] underlyingAtTimeIndex	= new double[numberOfPaths];
+		double[] delta					= new double[numberOfPaths];
+		for(int timeIndex = 0; timeIndex<timeIndexEvaluationTime; timeIndex++) {
+			RandomVariableInterface numeraireAtTimeIndex = null;
+
+			for(int portfolio = 0; portfolio < numberOfPortfolios; portfolio++) {
+				int[] schedule = schedules[portfolio];
+				if(nextRebalancing[portfolio] >= schedule.length || schedule[nextRebalancing[portfolio]] != timeIndex) continue;
+				nextRebalancing[portfolio]++;
+
+				// Delta of option to replicate, shared by all portfolios rebalancing at this time
+				if(numeraireAtTimeIndex == null) {
+					DeltaHedgeKernel.getRealizations(model.getAssetValue(timeIndex,0), underlyingAtTimeIndex);
+					numeraireAtTimeIndex = model.getNumeraire(timeIndex);
+					DeltaHedgeKernel.calculateDelta(
+							underlyingAtTimeIndex,
+							riskFreeRate,
+							volatility,
+							maturity-model.getTime(timeIndex),	// remaining time
+							strike,
+							delta);
+				}
+
+				// Determine the delta hedge, ensure self financing and update the portfolio
+				DeltaHedgeKernel.rebalance(delta, underlyingAtTimeIndex, numeraireAtTimeIndex, amountOfNumeraireAsset[portfolio], amountOfUderlyingAsset[portfolio]);
+			}
+		}
+
+		/*
+		 * At maturity, calculate the value of the replication portfolios
+		 */
+		RandomVariableInterface underlyingAtEvaluationTime	= model.getAssetValue(evaluationTime,0);
+		RandomVariableInterface numeraireAtEvaluationTime	= model.getNumeraire(evaluationTime);
+
+		RandomVariableInterface[] portfolioValues = new RandomVariableInterface[numberOfPortfolios];
+		for(int portfolio = 0; portfolio < numberOfPortfolios; portfolio++) {
+			portfolioValues[portfolio] = new RandomVariable(evaluationTime,
+					DeltaHedgeKernel.getPortfolioValue(underlyingAtEvaluationTime, numeraireAtEvaluationTime, amountOfNumeraireAsset[portfolio], amountOfUderlyingAsset[portfolio]));
+		}
+
+		measurement.stop(numberOfPaths);
+		return portfolioValues;
+	}
+
+	/**
+	 * Returns the rebalancing time indices (before evaluation time) of every portfolio.
+	 *
+	 * @param model The model.
+	 * @param timeIndexEvaluationTime The time index of the evaluation time.
+	 * @return For each portfolio the increasing rebalancing time indices.
+	 */
+	public int[][] getRebalancingTimeIndices(AssetModelMonteCarloSimulationInterface model, int timeIndexEvaluationTime) {
+		int[][] schedules = new int[getNumberOfPortfolios()][];
+		for(int portfolio = 0; portfolio < schedules.length; portfolio++) {
+			if(rebalancingTimeIndices != null) {
+				int numberOfDates = 0;
+				while(numberOfDates < rebalancingTimeIndices[portfolio].length && rebalancingTimeIndices[portfolio][numberOfDates] < timeIndexEvaluationTime) numberOfDates++;
+				schedules[portfolio] = Arrays.copyOf(rebalancingTimeIndices[portfolio], numberOfDates);
+			}
+			else {
+				schedules[portfolio] = getRebalancingTimeIndices(model.getTimeDiscretization().getNumberOfTimeSteps(), numbersOfHedgingTimes[portfolio], timeIndexEvaluationTime);
+			}
+		}
+		return schedules;
+	}
+
+	/**
+	 * The rebalancing time indices of <code>BlackScholesHedgedPortfolioWithModifiedTimeDiscretization</code>.
+	 */
+	static int[] getRebalancingTimeIndices(int numberOfTimeSteps, double numberOfHedgingTimes, int timeIndexEvaluationTime) {
+		int[] schedule = new int[16];
+		int numberOfDates = 0;
+		for(int timeIndex = 0; timeIndex<timeIndexEvaluationTime; ) {
+			if(numberOfDates == schedule.length) schedule = Arrays.copyOf(schedule, 2 * numberOfDates);
+			schedule[numberOfDates++] = timeIndex;
+
+			int nextTimeIndex = (int) (timeIndex+numberOfTimeSteps/numberOfHedgingTimes);
+			timeIndex = Math.max(nextTimeIndex, timeIndex+1);
+		}
+		return Arrays.copyOf(schedule, numberOfDates);
+	}
+}
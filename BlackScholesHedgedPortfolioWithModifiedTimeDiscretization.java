@@ -10,7 +10,7 @@ package projectTest;
 
 
 import net.finmath.exception.CalculationException;
-import net.finmath.functions.AnalyticFormulas;
+import net.finmath.montecarlo.RandomVariable;
 import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationInterface;
 import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
 import net.finmath.stochastic.RandomVariableInterface;
@@ -67,45 +67,35 @@ public class BlackScholesHedgedPortfolioWithModifiedTimeDiscretization extends A
      RandomVariableInterface underlyingToday = model.getAssetValue(0.0,0);
      RandomVariableInterface numeraireToday  = model.getNumeraire(0.0);
 
-     RandomVariableInterface valueOfOptionAccordingBlackScholes = 	AnalyticFormulas.blackScholesGeneralizedOptionValue(
-             underlyingToday.mult(Math.exp(riskFreeRate * (maturity - 0.0))),
-             model.getRandomVariableForConstant(volatility),
-             maturity - 0.0,
-             strike,
-             model.getRandomVariableForConstant(Math.exp(-riskFreeRate * (maturity - 0.0))));
+     // The generation of the paths (on first request of the underlying) is measured by the process
+     SimulationMetrics.Measurement measurement = SimulationMetrics.start(SimulationMetrics.Phase.DELTA_HEDGE);
 
-     // We store the composition of the hedge portfolio (depending on the path)
-     RandomVariableInterface amountOfNumeraireAsset = valueOfOptionAccordingBlackScholes.div(numeraireToday);
-     RandomVariableInterface amountOfUderlyingAsset = model.getRandomVariableForConstant(0.0);
+     // We store the composition of the hedge portfolio (depending on the path), updated in place
+     final int numberOfPaths = model.getNumberOfPaths();
+     double[] amountOfNumeraireAsset = new double[numberOfPaths];
+     double[] amountOfUderlyingAsset = new double[numberOfPaths];
+     DeltaHedgeKernel.initialize(underlyingToday, numeraireToday, riskFreeRate, volatility, maturity, strike, amountOfNumeraireAsset, amountOfUderlyingAsset);
+
+     double[] underlyingAtTimeIndex = new double[numberOfPaths];
 //I modified the for-loop to account for variable dates of discretization
      for(int timeIndex = 0; timeIndex<timeIndexEvaluationTime; timeIndex=(int) (timeIndex+(model.getTimeDiscretization().getNumberOfTimeSteps())/numberOfTimesOfHedgingTimes)) {
          // Get value of underlying and numeraire assets
-         RandomVariableInterface underlyingAtTimeIndex = model.getAssetValue(timeIndex,0);
+         DeltaHedgeKernel.getRealizations(model.getAssetValue(timeIndex,0), underlyingAtTimeIndex);
          RandomVariableInterface numeraireAtTimeIndex  = model.getNumeraire(timeIndex);
 
-         // Delta of option to replicate
-         RandomVariableInterface delta = AnalyticFormulas.blackScholesOptionDelta(
-                 underlyingAtTimeIndex,
-                 model.getRandomVariableForConstant(riskFreeRate),
-                 model.getRandomVariableForConstant(volatility),
-                 maturity-model.getTime(timeIndex),	// remaining time
-                 strike);
-
 			/*
-			 * Change the portfolio according to the trading strategy
+			 * Change the portfolio according to the trading strategy: delta of option to replicate,
+			 * stocks to buy and numeraire assets to sell (self financing) in one loop over the paths
 			 */
-
-         // Determine the delta hedge
-         RandomVariableInterface newNumberOfStocks	    	= delta;
-         RandomVariableInterface stocksToBuy			    	= newNumberOfStocks.sub(amountOfUderlyingAsset);
-
-         // Ensure self financing
-         RandomVariableInterface numeraireAssetsToSell   	= stocksToBuy.mult(underlyingAtTimeIndex).div(numeraireAtTimeIndex);
-         RandomVariableInterface newNumberOfNumeraireAsset	= amountOfNumeraireAsset.sub(numeraireAssetsToSell);
-
-         // Update portfolio
-         amountOfNumeraireAsset	= newNumberOfNumeraireAsset;
-         amountOfUderlyingAsset	= newNumberOfStocks;
+         DeltaHedgeKernel.calculateDeltaAndRebalance(
+                 underlyingAtTimeIndex,
+                 numeraireAtTimeIndex,
+                 riskFreeRate,
+                 volatility,
+                 maturity-model.getTime(timeIndex),	// remaining time
+                 strike,
+                 amountOfNumeraireAsset,
+                 amountOfUderlyingAsset);
      }
 
      /*
@@ -116,9 +106,10 @@ public class BlackScholesHedgedPortfolioWithModifiedTimeDiscretization extends A
      RandomVariableInterface underlyingAtEvaluationTime	= model.getAssetValue(evaluationTime,0);
      RandomVariableInterface numeraireAtEvaluationTime	= model.getNumeraire(evaluationTime);
 
-     RandomVariableInterface portfolioValue = amountOfNumeraireAsset.mult(numeraireAtEvaluationTime)
-             .add(amountOfUderlyingAsset.mult(underlyingAtEvaluationTime));
+     RandomVariableInterface portfolioValue = new RandomVariable(evaluationTime,
+             DeltaHedgeKernel.getPortfolioValue(underlyingAtEvaluationTime, numeraireAtEvaluationTime, amountOfNumeraireAsset, amountOfUderlyingAsset));
 
+     measurement.stop(numberOfPaths);
      return portfolioValue;
  }
 }
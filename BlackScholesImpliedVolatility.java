@@ -0,0 +1,101 @@
+package projectTest;
+
+import net.finmath.functions.NormalDistribution;
+
+/**
+ * This class calculates the Black-Scholes implied volatilities of call options for a grid of strikes with the same maturity.
+ *
+ * The strikes are solved in the given order and the solution of a strike is the initial guess of the next one (usually its neighbour),
+ * such that a smooth smile needs two or three Newton iterations per strike. A Newton step leaving the bracket of the solution
+ * is replaced by a bisection step, such that the iteration always converges.
+ *
+ * The values and the vega are calculated in one evaluation of the Black-Scholes formula (in terms of the forward),
+ * which agrees with <code>AnalyticFormulas.blackScholesOptionImpliedVolatility</code>.
+ *
+ * @author A V L
+ * @see EuropeanOptionStrikeGrid
+ * @version 1.0
+ */
+public class BlackScholesImpliedVolatility {
+
+	private static final int	MAXIMUM_NUMBER_OF_ITERATIONS	= 100;
+	private static final double	ACCURACY						= 1E-12;
+	private static final double	MAXIMUM_VOLATILITY				= 10.0;
+
+	private BlackScholesImpliedVolatility() {
+	}
+
+	/**
+	 * Calculates the implied volatilities of call options with the same maturity.
+	 *
+	 * @param forward The forward of the underlying.
+	 * @param maturity The maturity of the options.
+	 * @param strikes The strikes of the options.
+	 * @param payoffUnit The discount factor of the maturity.
+	 * @param optionValues The values of the options.
+	 * @return The implied volatilities, NaN if a value is outside the no-arbitrage bounds.
+	 */
+	public static double[] getImpliedVolatilities(double forward, double maturity, double[] strikes, double payoffUnit, double[] optionValues) {
+		double[] impliedVolatilities = new double[strikes.length];
+
+		double initialGuess = Double.NaN;
+		for(int strikeIndex=0; strikeIndex<strikes.length; strikeIndex++) {
+			impliedVolatilities[strikeIndex] = getImpliedVolatility(forward, maturity, strikes[strikeIndex], payoffUnit, optionValues[strikeIndex], initialGuess);
+			if(!Double.isNaN(impliedVolatilities[strikeIndex])) initialGuess = impliedVolatilities[strikeIndex];
+		}
+		return impliedVolatilities;
+	}
+
+	/**
+	 * Calculates the implied volatility of a call option.
+	 *
+	 * @param forward The forward of the underlying.
+	 * @param maturity The maturity of the option.
+	 * @param strike The strike of the option.
+	 * @param payoffUnit The discount factor of the maturity.
+	 * @param optionValue The value of the option.
+	 * @param initialGuess The initial guess, or NaN to use the approximation of Brenner and Subrahmanyam.
+	 * @return The implied volatility, NaN if the value is outside the no-arbitrage bounds.
+	 */
+	public static double getImpliedVolatility(double forward, double maturity, double strike, double payoffUnit, double optionValue, double initialGuess) {
+		final double undiscountedValue	= optionValue / payoffUnit;
+		final double intrinsicValue		= Math.max(forward - strike, 0.0);
+		if(!(undiscountedValue > intrinsicValue) || !(undiscountedValue < forward)) {
+			return undiscountedValue == intrinsicValue ? 0.0 : Double.NaN;
+		}
+
+		double volatility = !Double.isNaN(initialGuess) && initialGuess > 0 ?
+				initialGuess : Math.max(undiscountedValue / forward * Math.sqrt(2.0 * Math.PI / maturity), 0.01);
+
+		final double squareRootOfTime = Math.sqrt(maturity);
+		final double logMoneyness = Math.log(forward / strike);
+
+		double lowerBound = 0.0, upperBound = MAXIMUM_VOLATILITY;
+		for(int iteration=0; iteration<MAXIMUM_NUMBER_OF_ITERATIONS; iteration++) {
+			double standardDeviation = volatility * squareRootOfTime;
+			double dPlus	= logMoneyness / standardDeviation + 0.5 * standardDeviation;
+			double dMinus	= dPlus - standardDeviation;
+
+			double value	= forward * NormalDistribution.cumulativeDistribution(dPlus) - strike * NormalDistribution.cumulativeDistribution(dMinus);
+			double vega		= forward * NormalDistribution.density(dPlus) * squareRootOfTime;
+
+			double error = value - undiscountedValue;
+			if(Math.abs(error) < ACCURACY * forward) break;
+
+			if(error > 0)	upperBound = volatility;
+			else			lowerBound = volatility;
+
+			double nextVolatility = vega > 0 ? volatility - error / vega : Double.NaN;
+			if(!(nextVolatility > lowerBound && nextVolatility < upperBound)) {
+				nextVolatility = 0.5 * (lowerBound + upperBound);
+			}
+			if(Math.abs(nextVolatility - volatility) < ACCURACY * volatility) {
+				volatility = nextVolatility;
+				break;
+			}
+			volatility = nextVolatility;
+		}
+
+		return volatility;
+	}
+}
@@ -0,0 +1,198 @@
+package projectTest;
+
+import net.finmath.functions.NormalDistribution;
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.stochastic.RandomVariableInterface;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements a Brownian motion driven by a (digitally shifted) Sobol sequence using the Brownian bridge construction.
+ *
+ * The Brownian motion is first sampled at the last time, then at the (index) midpoints of the intervals found so far,
+ * conditional on the values at the ends of the interval, i.e., for \( t_{l} &lt; t_{m} &lt; t_{r} \)
+ * \[
+ * 	W(t_{m}) = \frac{t_{r} - t_{m}}{t_{r} - t_{l}} W(t_{l}) + \frac{t_{m} - t_{l}}{t_{r} - t_{l}} W(t_{r}) + \sqrt{\frac{(t_{m} - t_{l})(t_{r} - t_{m})}{t_{r} - t_{l}}} Z \text{.}
+ * \]
+ * The k-th point of this construction uses the dimensions <code>firstDimension + k * numberOfFactors + factor</code> of the sequence,
+ * such that the first (most important) dimensions of the Sobol sequence determine the coarse shape of the paths.
+ * The time discretization may be non-uniform.
+ *
+ * @author A V L
+ * @see SobolSequence
+ * @version 1.0
+ */
+public class BrownianBridgeSobolBrownianMotion implements BrownianMotionInterface {
+
+	private final TimeDiscretizationInterface	timeDiscretization;
+	private final int							numberOfFactors;
+	private final int							numberOfPaths;
+	private final SobolSequence					sobolSequence;
+	private final int							firstDimension;
+
+	private final AbstractRandomVariableFactory randomVariableFactory = new RandomVariableFactory();
+
+	/*
+	 * The construction of the bridge: the point, the points to the left and to the right and the weights.
+	 */
+	private final int[]		bridgeIndex;
+	private final int[]		leftIndex;
+	private final int[]		rightIndex;
+	private final double[]	leftWeight;
+	private final double[]	rightWeight;
+	private final double[]	standardDeviation;
+
+	private transient RandomVariableInterface[][]	brownianIncrements;
+	private final Object							brownianIncrementsLazyInitLock = new Object();
+
+	/**
+	 * @param timeDiscretization The time discretization of the Brownian motion.
+	 * @param numberOfFactors The number of factors.
+	 * @param numberOfPaths The number of paths.
+	 * @param sobolSequence The Sobol sequence, with at least firstDimension + numberOfTimeSteps * numberOfFactors dimensions.
+	 * @param firstDimension The first dimension of the Sobol sequence used by this Brownian motion.
+	 */
+	public BrownianBridgeSobolBrownianMotion(TimeDiscretizationInterface timeDiscretization, int numberOfFactors, int numberOfPaths,
+			SobolSequence sobolSequence, int firstDimension) {
+		super();
+		this.timeDiscretization = timeDiscretization;
+		this.numberOfFactors = numberOfFactors;
+		this.numberOfPaths = numberOfPaths;
+		this.sobolSequence = sobolSequence;
+		this.firstDimension = firstDimension;
+
+		final int numberOfTimeSteps = timeDiscretization.getNumberOfTimeSteps();
+		if(firstDimension + numberOfTimeSteps * numberOfFactors > sobolSequence.getNumberOfDimensions()) {
+			throw new IllegalArgumentException("The Sobol sequence requires " + (firstDimension + numberOfTimeSteps * numberOfFactors) + " dimensions.");
+		}
+
+		bridgeIndex			= new int[numberOfTimeSteps];
+		leftIndex			= new int[numberOfTimeSteps];
+		rightIndex			= new int[numberOfTimeSteps];
+		leftWeight			= new double[numberOfTimeSteps];
+		rightWeight			= new double[numberOfTimeSteps];
+		standardDeviation	= new double[numberOfTimeSteps];
+
+		// The last point, conditional on W(t_0) = 0
+		bridgeIndex[0]			= numberOfTimeSteps;
+		leftIndex[0]			= 0;
+		rightIndex[0]			= numberOfTimeSteps;
+		standardDeviation[0]	= Math.sqrt(timeDiscretization.getTime(numberOfTimeSteps) - timeDiscretization.getTime(0));
+
+		// Bisection of the intervals, breadth first (every interval of two or more steps is split in two, hence at most 2n-1 intervals)
+		int[] intervalLeft	= new int[2 * numberOfTimeSteps];
+		int[] intervalRight	= new int[2 * numberOfTimeSteps];
+		int numberOfIntervals = 0, nextInterval = 0, numberOfPoints = 1;
+		intervalLeft[numberOfIntervals] = 0;
+		intervalRight[numberOfIntervals++] = numberOfTimeSteps;
+		while(nextInterval < numberOfIntervals) {
+			int left	= intervalLeft[nextInterval];
+			int right	= intervalRight[nextInterval++];
+			if(right - left < 2) continue;
+
+			int middle = (left + right) / 2;
+			double timeLeft		= timeDiscretization.getTime(left);
+			double timeMiddle	= timeDiscretization.getTime(middle);
+			double timeRight	= timeDiscretization.getTime(right);
+
+			bridgeIndex[numberOfPoints]			= middle;
+			leftIndex[numberOfPoints]			= left;
+			rightIndex[numberOfPoints]			= right;
+			leftWeight[numberOfPoints]			= (timeRight - timeMiddle) / (timeRight - timeLeft);
+			rightWeight[numberOfPoints]			= (timeMiddle - timeLeft) / (timeRight - timeLeft);
+			standardDeviation[numberOfPoints]	= Math.sqrt((timeMiddle - timeLeft) * (timeRight - timeMiddle) / (timeRight - timeLeft));
+			numberOfPoints++;
+
+			intervalLeft[numberOfIntervals]		= left;
+			intervalRight[numberOfIntervals++]	= middle;
+			intervalLeft[numberOfIntervals]		= middle;
+			intervalRight[numberOfIntervals++]	= right;
+		}
+	}
+
+	@Override
+	public RandomVariableInterface getBrownianIncrement(int timeIndex, int factor) {
+		synchronized(brownianIncrementsLazyInitLock) {
+			if(brownianIncrements == null) doGenerateBrownianMotion();
+		}
+		return brownianIncrements[timeIndex][factor];
+	}
+
+	@Override
+	public RandomVariableInterface getIncrement(int timeIndex, int factor) {
+		return getBrownianIncrement(timeIndex, factor);
+	}
+
+	private void doGenerateBrownianMotion() {
+		final int numberOfTimeSteps = timeDiscretization.getNumberOfTimeSteps();
+
+		brownianIncrements = new RandomVariableInterface[numberOfTimeSteps][numberOfFactors];
+		for(int factor=0; factor<numberOfFactors; factor++) {
+			// The Brownian motion at the times of the discretization, W(t_0) = 0
+			double[][] brownianMotion = new double[numberOfTimeSteps+1][];
+			brownianMotion[0] = new double[numberOfPaths];
+
+			for(int point=0; point<numberOfTimeSteps; point++) {
+				double[] values = sobolSequence.getPoints(firstDimension + point * numberOfFactors + factor, numberOfPaths);
+				double[] valuesLeft		= brownianMotion[leftIndex[point]];
+				double[] valuesRight	= brownianMotion[rightIndex[point]];
+				for(int path=0; path<numberOfPaths; path++) {
+					double normal = NormalDistribution.inverseCumulativeDistribution(values[path]);
+					values[path] = point == 0 ?
+							standardDeviation[point] * normal
+							: leftWeight[point] * valuesLeft[path] + rightWeight[point] * valuesRight[path] + standardDeviation[point] * normal;
+				}
+				brownianMotion[bridgeIndex[point]] = values;
+			}
+
+			// The increments, overwriting the values of the Brownian motion from the end
+			for(int timeIndex=numberOfTimeSteps; timeIndex>0; timeIndex--) {
+				double[] increments = brownianMotion[timeIndex];
+				double[] previous = brownianMotion[timeIndex-1];
+				for(int path=0; path<numberOfPaths; path++) increments[path] -= previous[path];
+				brownianIncrements[timeIndex-1][factor] = randomVariableFactory.createRandomVariable(timeDiscretization.getTime(timeIndex), increments);
+			}
+		}
+	}
+
+	@Override
+	public TimeDiscretizationInterface getTimeDiscretization() {
+		return timeDiscretization;
+	}
+
+	@Override
+	public int getNumberOfFactors() {
+		return numberOfFactors;
+	}
+
+	@Override
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	@Override
+	public RandomVariableInterface getRandomVariableForConstant(double value) {
+		return randomVariableFactory.createRandomVariable(value);
+	}
+
+	/**
+	 * @return The Sobol sequence driving this Brownian motion.
+	 */
+	public SobolSequence getSobolSequence() {
+		return sobolSequence;
+	}
+
+	/**
+	 * The seed is the seed of the digital shift of the Sobol sequence.
+	 */
+	@Override
+	public BrownianMotionInterface getCloneWithModifiedSeed(int seed) {
+		return new BrownianBridgeSobolBrownianMotion(timeDiscretization, numberOfFactors, numberOfPaths, sobolSequence.getCloneWithModifiedSeed(seed), firstDimension);
+	}
+
+	@Override
+	public BrownianMotionInterface getCloneWithModifiedTimeDiscretization(TimeDiscretizationInterface newTimeDiscretization) {
+		return new BrownianBridgeSobolBrownianMotion(newTimeDiscretization, numberOfFactors, numberOfPaths, sobolSequence, firstDimension);
+	}
+}
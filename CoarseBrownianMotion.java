@@ -0,0 +1,96 @@
+package projectTest;
+
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.stochastic.RandomVariableInterface;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements a Brownian motion on a coarse time discretization from a Brownian motion on a fine time discretization,
+ * where every coarse time step consists of a fixed number of consecutive fine time steps.
+ * The increment of a coarse time step is the sum of the increments of its fine time steps, such that both Brownian motions have the same paths.
+ *
+ * The increments are created on every call; they are not stored.
+ *
+ * @author A V L
+ * @see MultilevelMonteCarloMertonJumpDiffusion
+ * @version 1.0
+ */
+public class CoarseBrownianMotion implements BrownianMotionInterface {
+
+	private final BrownianMotionInterface		brownianMotion;
+	private final TimeDiscretizationInterface	timeDiscretization;
+	private final int							numberOfTimeStepsPerCoarseTimeStep;
+
+	private final AbstractRandomVariableFactory randomVariableFactory = new RandomVariableFactory();
+
+	/**
+	 * @param brownianMotion The Brownian motion on the fine time discretization.
+	 * @param timeDiscretization The coarse time discretization, consisting of every n-th time of the fine time discretization.
+	 */
+	public CoarseBrownianMotion(BrownianMotionInterface brownianMotion, TimeDiscretizationInterface timeDiscretization) {
+		super();
+		final int numberOfFineTimeSteps = brownianMotion.getTimeDiscretization().getNumberOfTimeSteps();
+		if(numberOfFineTimeSteps % timeDiscretization.getNumberOfTimeSteps() != 0) {
+			throw new IllegalArgumentException("The number of time steps of the coarse time discretization has to divide the number of fine time steps.");
+		}
+		this.brownianMotion = brownianMotion;
+		this.timeDiscretization = timeDiscretization;
+		this.numberOfTimeStepsPerCoarseTimeStep = numberOfFineTimeSteps / timeDiscretization.getNumberOfTimeSteps();
+	}
+
+	@Override
+	public RandomVariableInterface getBrownianIncrement(int timeIndex, int factor) {
+		final int numberOfPaths = brownianMotion.getNumberOfPaths();
+
+		double[] increments = new double[numberOfPaths];
+		for(int fineTimeIndex = timeIndex * numberOfTimeStepsPerCoarseTimeStep; fineTimeIndex < (timeIndex+1) * numberOfTimeStepsPerCoarseTimeStep; fineTimeIndex++) {
+			RandomVariableInterface fineIncrement = brownianMotion.getBrownianIncrement(fineTimeIndex, factor);
+			for(int path=0; path<numberOfPaths; path++) increments[path] += fineIncrement.get(path);
+		}
+		return randomVariableFactory.createRandomVariable(timeDiscretization.getTime(timeIndex+1), increments);
+	}
+
+	@Override
+	public RandomVariableInterface getIncrement(int timeIndex, int factor) {
+		return getBrownianIncrement(timeIndex, factor);
+	}
+
+	/**
+	 * @return The number of fine time steps per coarse time step.
+	 */
+	public int getNumberOfTimeStepsPerCoarseTimeStep() {
+		return numberOfTimeStepsPerCoarseTimeStep;
+	}
+
+	@Override
+	public TimeDiscretizationInterface getTimeDiscretization() {
+		return timeDiscretization;
+	}
+
+	@Override
+	public int getNumberOfFactors() {
+		return brownianMotion.getNumberOfFactors();
+	}
+
+	@Override
+	public int getNumberOfPaths() {
+		return brownianMotion.getNumberOfPaths();
+	}
+
+	@Override
+	public RandomVariableInterface getRandomVariableForConstant(double value) {
+		return brownianMotion.getRandomVariableForConstant(value);
+	}
+
+	@Override
+	public BrownianMotionInterface getCloneWithModifiedSeed(int seed) {
+		return new CoarseBrownianMotion(brownianMotion.getCloneWithModifiedSeed(seed), timeDiscretization);
+	}
+
+	@Override
+	public BrownianMotionInterface getCloneWithModifiedTimeDiscretization(TimeDiscretizationInterface newTimeDiscretization) {
+		return brownianMotion.getCloneWithModifiedTimeDiscretization(newTimeDiscretization);
+	}
+}
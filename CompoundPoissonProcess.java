@@ -1,8 +1,10 @@
 package projectTest;
 
+import java.util.Arrays;
+
 import net.finmath.stochastic.RandomVariableInterface;
 import net.finmath.time.TimeDiscretizationInterface;
-import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
 import net.finmath.montecarlo.RandomVariableFactory;
 import net.finmath.montecarlo.AbstractRandomVariableFactory;
 
@@ -13,6 +15,9 @@ import net.finmath.montecarlo.AbstractRandomVariableFactory;
  * \]
  * and Z is normally distributed.
  * 
+ * Other distributions of the jump-height may be provided by a <code>JumpSizeDistributionInterface</code>,
+ * e.g. the double exponential jumps of the Kou model.
+ * 
  * @author A V L
  * @see PointProcessInterface
  * @version 1.0
@@ -22,15 +27,15 @@ public class CompoundPoissonProcess implements PointProcessInterface {
 	
 	private AbstractRandomVariableFactory randomVariableFactory = new RandomVariableFactory();
 	
-	private RandomVariableInterface[] compoundPoissonProcess;
-	private RandomVariableInterface[] compoundPoissonProcessIncrements;
+	private JumpEvents jumpEvents;
+	private PointProcessValues values;
 	
 	private double intensity;
-	private double mean;
-	private double variance;
+	private JumpSizeDistributionInterface jumpSizeDistribution;
 	private TimeDiscretizationInterface timeDiscretization;	
 	private int numberOfPaths;
 	private int seed;
+	private boolean isParallel;
 
 	
 	private final		Object						compoundPoissonProcessIncrementsLazyInitLock = new Object();
@@ -44,83 +49,137 @@ public class CompoundPoissonProcess implements PointProcessInterface {
 	public CompoundPoissonProcess(double intensity, double mean, double variance,
 			TimeDiscretizationInterface timeDiscretization, int numberOfPaths,
 			int seed) {
+		this(intensity, mean, variance, timeDiscretization, numberOfPaths, seed, false);
+	}
+
+	/**
+	 * @param intensity The intensity of the Poisson Process
+	 * @param mean The mean and variance of the jumps
+	 * @param variance exp (mean + variance * Z) - 1,  Z normally distributed
+	 * @param isParallel If true, the blocks of paths are generated in parallel (the paths do not depend on this flag)
+	 * @see PathBlocks
+	 */
+	public CompoundPoissonProcess(double intensity, double mean, double variance,
+			TimeDiscretizationInterface timeDiscretization, int numberOfPaths,
+			int seed, boolean isParallel) {
+		this(intensity, new LogNormalJumpSizeDistribution(mean, variance), timeDiscretization, numberOfPaths, seed, isParallel);
+	}
+
+	/**
+	 * @param intensity The intensity of the Poisson Process
+	 * @param jumpSizeDistribution The distribution of the jump-height
+	 */
+	public CompoundPoissonProcess(double intensity, JumpSizeDistributionInterface jumpSizeDistribution,
+			TimeDiscretizationInterface timeDiscretization, int numberOfPaths,
+			int seed) {
+		this(intensity, jumpSizeDistribution, timeDiscretization, numberOfPaths, seed, false);
+	}
+
+	/**
+	 * @param intensity The intensity of the Poisson Process
+	 * @param jumpSizeDistribution The distribution of the jump-height
+	 * @param isParallel If true, the blocks of paths are generated in parallel (the paths do not depend on this flag)
+	 * @see PathBlocks
+	 */
+	public CompoundPoissonProcess(double intensity, JumpSizeDistributionInterface jumpSizeDistribution,
+			TimeDiscretizationInterface timeDiscretization, int numberOfPaths,
+			int seed, boolean isParallel) {
 		super();
 		this.intensity = intensity;
-		this.mean = mean;
-		this.variance = variance;
+		this.jumpSizeDistribution = jumpSizeDistribution;
 		this.timeDiscretization = timeDiscretization;
 		this.numberOfPaths = numberOfPaths;
 		this.seed = seed;
-		this.compoundPoissonProcess = null;
-		this.compoundPoissonProcessIncrements = null;
+		this.isParallel = isParallel;
+		this.jumpEvents = null;
 	}
 
+	/**
+	 * The values are a running sum of the jumps, the value of the last requested time index is kept.
+	 */
 	@Override
 	public RandomVariableInterface getProcess(int timeIndex) {
-		synchronized(compoundPoissonProcessIncrementsLazyInitLock) {
-			if (compoundPoissonProcess == null) doGenerateCompoundPoissonProcess();
-		}
-		return compoundPoissonProcess[timeIndex];
+		return getValues().getValue(timeIndex);
 	}
 
+	/**
+	 * The increments are created from the jump events on every call; they are not stored.
+	 */
 	@Override
 	public RandomVariableInterface getProcessIncrements(int timeIndex) {
+		double time = timeDiscretization.getTime(timeIndex+1);
+		return randomVariableFactory.createRandomVariable(time, getJumpEvents().getIncrements(timeIndex));
+	}
+
+	private synchronized PointProcessValues getValues() {
+		if(values == null) values = new PointProcessValues(getJumpEvents(), timeDiscretization, randomVariableFactory);
+		return values;
+	}
+
+	/**
+	 * @return The distribution of the jump-height.
+	 */
+	public JumpSizeDistributionInterface getJumpSizeDistribution() {
+		return jumpSizeDistribution;
+	}
+
+	@Override
+	public JumpEvents getJumpEvents() {
+		// A thread waiting for the generation by another thread records its lock wait time (with no paths)
+		SimulationMetrics.Measurement measurement = jumpEvents == null ? SimulationMetrics.start(SimulationMetrics.Phase.COMPOUND_POISSON_PROCESS) : SimulationMetrics.NO_MEASUREMENT;
+		boolean isGenerated = false;
 		synchronized(compoundPoissonProcessIncrementsLazyInitLock) {
-			if (compoundPoissonProcess == null) doGenerateCompoundPoissonProcess();
+			if (jumpEvents == null) {
+				doGenerateCompoundPoissonProcess();
+				isGenerated = true;
+			}
 		}
-		return compoundPoissonProcessIncrements[timeIndex];
+		measurement.stop(isGenerated ? numberOfPaths : 0);
+		return jumpEvents;
 	}
 	
 	private void doGenerateCompoundPoissonProcess(){
 		
-		if (compoundPoissonProcess != null) return;
-		
-		MersenneTwister64		mersenneTwister		= new MersenneTwister64(seed);
-		PointProcessInterface poissonProcess = new PoissonProcess(intensity, timeDiscretization, numberOfPaths, seed);
+		if (jumpEvents != null) return;
 		
-		double[][] compoundPoissonProcessArray = new double[timeDiscretization.getNumberOfTimes()][numberOfPaths];
-		double[][] compoundPoissonProcessIncrementsArray = new double[timeDiscretization.getNumberOfTimes()][numberOfPaths];
+		final JumpEvents[] jumpEventsOfBlocks = new JumpEvents[PathBlocks.getNumberOfBlocks(numberOfPaths)];
 		
-		for (int path = 0; path < numberOfPaths; path++){
-			compoundPoissonProcessArray[0][path] = 0.0;
-			for (int timeIndex = 1; timeIndex < timeDiscretization.getNumberOfTimes(); timeIndex ++){
-				compoundPoissonProcessArray[timeIndex][path] = compoundPoissonProcessArray[timeIndex-1][path];
-				int difference = (int)(poissonProcess.getProcess(timeIndex).get(path) - poissonProcess.getProcess(timeIndex-1).get(path));
-				if (difference > 0){
-					for (int i = 1; i<=difference; i++){
-						double uniformNumber = mersenneTwister.nextDouble();
-						compoundPoissonProcessArray[timeIndex][path] += Math.exp(mean + variance * net.finmath.functions.NormalDistribution.inverseCumulativeDistribution(uniformNumber))-1;
+		/*
+		 * Single pass over the blocks of paths: the arrivals of all paths of a block are drawn first, then the jump heights of the block
+		 * are sampled in one batch, both from the random number stream of the block, without creating an intermediate Poisson process.
+		 */
+		PathBlocks.generate(numberOfPaths, seed, isParallel, new PathBlocks.BlockGenerator() {
+			@Override
+			public void generate(int blockIndex, int firstPath, int lastPath, RandomEngine randomEngine) {
+				PoissonArrivalSampler arrivalSampler = new PoissonArrivalSampler(intensity, timeDiscretization);
+
+				int[] numberOfArrivalsOnPath = new int[lastPath - firstPath];
+				int[] arrivalTimeIndices = new int[Math.max(16, (int)Math.ceil(intensity * timeDiscretization.getTime(timeDiscretization.getNumberOfTimeSteps()) * numberOfArrivalsOnPath.length * 1.5))];
+				int numberOfArrivalsInBlock = 0;
+				for (int path = firstPath; path < lastPath; path++){
+					int numberOfArrivals = arrivalSampler.sampleArrivals(randomEngine);
+					if (numberOfArrivalsInBlock + numberOfArrivals > arrivalTimeIndices.length) {
+						arrivalTimeIndices = Arrays.copyOf(arrivalTimeIndices, 2 * (numberOfArrivalsInBlock + numberOfArrivals));
 					}
+					for (int arrival = 0; arrival < numberOfArrivals; arrival++){
+						arrivalTimeIndices[numberOfArrivalsInBlock++] = arrivalSampler.getArrivalTimeIndex(arrival);
+					}
+					numberOfArrivalsOnPath[path - firstPath] = numberOfArrivals;
+				}
+
+				double[] jumpSizes = new double[numberOfArrivalsInBlock];
+				jumpSizeDistribution.sample(jumpSizes, numberOfArrivalsInBlock, randomEngine);
+
+				int[] firstJumpOfPath = new int[numberOfArrivalsOnPath.length + 1];
+				for (int path = 0; path < numberOfArrivalsOnPath.length; path++){
+					firstJumpOfPath[path+1] = firstJumpOfPath[path] + numberOfArrivalsOnPath[path];
 				}
+				jumpEventsOfBlocks[blockIndex] = new JumpEvents(timeDiscretization.getNumberOfTimeSteps(), firstJumpOfPath,
+						Arrays.copyOf(arrivalTimeIndices, numberOfArrivalsInBlock), jumpSizes);
 			}
-		}
-		
-		for (int path = 0; path<numberOfPaths;path++){
-			for (int timeIncrements = 0; timeIncrements < timeDiscretization.getNumberOfTimeSteps();timeIncrements++){
-				compoundPoissonProcessIncrementsArray[timeIncrements][path] = 
-						compoundPoissonProcessArray[timeIncrements+1][path]
-								- compoundPoissonProcessArray[timeIncrements][path];
-			}	
-		}
-		
-		compoundPoissonProcess = new RandomVariableInterface[timeDiscretization.getNumberOfTimes()];
-		compoundPoissonProcessIncrements = new RandomVariableInterface[timeDiscretization.getNumberOfTimeSteps()];
-		
-		for(int timeIndex=0; timeIndex<timeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
-			double time = timeDiscretization.getTime(timeIndex+1);	
-			compoundPoissonProcessIncrements[timeIndex] =
-					randomVariableFactory.createRandomVariable(time, compoundPoissonProcessIncrementsArray[timeIndex]);		
-		}
-		
-		for(int timeIndex=0; timeIndex<timeDiscretization.getNumberOfTimes();timeIndex++){
-			double time = timeDiscretization.getTime(timeIndex);
-			compoundPoissonProcess[timeIndex]=
-					randomVariableFactory.createRandomVariable(time, compoundPoissonProcessArray[timeIndex]);
-					
-		}
-		
-		
+		});
 		
+		jumpEvents = JumpEvents.concatenate(jumpEventsOfBlocks);
 	}
 	
 	
@@ -0,0 +1,183 @@
+package projectTest;
+
+import java.util.Arrays;
+
+import net.finmath.functions.AnalyticFormulas;
+import net.finmath.functions.NormalDistribution;
+import net.finmath.stochastic.RandomVariableInterface;
+
+/**
+ * This class implements the per path kernels of the Black-Scholes delta hedge on primitive arrays.
+ *
+ * The arrays holding the composition of the replication portfolio are updated in place and the terms which are constant
+ * for a rebalancing date (time to maturity, numeraire, the drift term of d<sub>+</sub>) are calculated once per date,
+ * such that a rebalancing date does not allocate any temporary random variables.
+ *
+ * The delta is calculated with the same operations (in the same order) as
+ * <code>AnalyticFormulas.blackScholesOptionDelta</code> on random variables.
+ *
+ * @author A V L
+ * @see BlackScholesHedgedPortfolioWithModifiedTimeDiscretization
+ * @see BlackScholesHedgeSimulator
+ * @version 1.0
+ */
+public class DeltaHedgeKernel {
+
+	private DeltaHedgeKernel() {
+	}
+
+	/**
+	 * Copies the realizations of a random variable to an array (expanding a deterministic random variable).
+	 *
+	 * @param randomVariable The random variable.
+	 * @param realizations The array receiving the realizations, of length numberOfPaths.
+	 * @return The array realizations.
+	 */
+	public static double[] getRealizations(RandomVariableInterface randomVariable, double[] realizations) {
+		if(randomVariable.isDeterministic()) {
+			Arrays.fill(realizations, randomVariable.get(0));
+		}
+		else {
+			for(int path=0; path<realizations.length; path++) realizations[path] = randomVariable.get(path);
+		}
+		return realizations;
+	}
+
+	/**
+	 * Initializes the portfolio to zero stocks and as much cash as the Black-Scholes model predicts we need.
+	 *
+	 * @param underlyingToday The value of the underlying at time 0.
+	 * @param numeraireToday The value of the numeraire at time 0.
+	 * @param riskFreeRate Model riskFreeRate assumption for the delta hedge.
+	 * @param volatility Model volatility assumption for the delta hedge.
+	 * @param maturity Maturity of the option.
+	 * @param strike Strike of the option.
+	 * @param amountOfNumeraireAsset The array receiving the amount of the numeraire asset on every path.
+	 * @param amountOfUnderlyingAsset The array receiving the amount of the underlying asset on every path.
+	 */
+	public static void initialize(RandomVariableInterface underlyingToday, RandomVariableInterface numeraireToday,
+			double riskFreeRate, double volatility, double maturity, double strike,
+			double[] amountOfNumeraireAsset, double[] amountOfUnderlyingAsset) {
+		final double compoundingFactor	= Math.exp(riskFreeRate * maturity);
+		final double discountFactor		= Math.exp(-riskFreeRate * maturity);
+
+		for(int path=0; path<amountOfNumeraireAsset.length; path++) {
+			if(path > 0 && underlyingToday.isDeterministic() && numeraireToday.isDeterministic()) {
+				amountOfNumeraireAsset[path] = amountOfNumeraireAsset[0];
+			}
+			else {
+				double valueOfOption = AnalyticFormulas.blackScholesGeneralizedOptionValue(
+						underlyingToday.get(path) * compoundingFactor, volatility, maturity, strike, discountFactor);
+				amountOfNumeraireAsset[path] = valueOfOption / numeraireToday.get(path);
+			}
+			amountOfUnderlyingAsset[path] = 0.0;
+		}
+	}
+
+	/**
+	 * Calculates the Black-Scholes delta on every path.
+	 *
+	 * @param underlying The value of the underlying on every path.
+	 * @param riskFreeRate Model riskFreeRate assumption for the delta hedge.
+	 * @param volatility Model volatility assumption for the delta hedge.
+	 * @param remainingTime The remaining time to maturity.
+	 * @param strike Strike of the option.
+	 * @param delta The array receiving the delta.
+	 */
+	public static void calculateDelta(double[] underlying, double riskFreeRate, double volatility, double remainingTime, double strike, double[] delta) {
+		if(remainingTime < 0) {
+			Arrays.fill(delta, 0.0);
+			return;
+		}
+
+		final double driftTerm				= (volatility * volatility * 0.5 + riskFreeRate) * remainingTime;
+		final double squareRootOfTime		= Math.sqrt(remainingTime);
+
+		for(int path=0; path<underlying.length; path++) {
+			double dPlus = (Math.log(underlying[path] / strike) + driftTerm) / volatility / squareRootOfTime;
+			delta[path] = NormalDistribution.cumulativeDistribution(dPlus);
+		}
+	}
+
+	/**
+	 * Rebalances the portfolio to the given delta, financed by the numeraire asset.
+	 *
+	 * @param delta The new amount of the underlying asset on every path.
+	 * @param underlying The value of the underlying on every path.
+	 * @param numeraire The value of the numeraire.
+	 * @param amountOfNumeraireAsset The amount of the numeraire asset on every path, updated in place.
+	 * @param amountOfUnderlyingAsset The amount of the underlying asset on every path, updated in place.
+	 */
+	public static void rebalance(double[] delta, double[] underlying, RandomVariableInterface numeraire,
+			double[] amountOfNumeraireAsset, double[] amountOfUnderlyingAsset) {
+		if(numeraire.isDeterministic()) {
+			final double numeraireValue = numeraire.get(0);
+			for(int path=0; path<delta.length; path++) {
+				double stocksToBuy = delta[path] - amountOfUnderlyingAsset[path];
+				amountOfNumeraireAsset[path]	-= stocksToBuy * underlying[path] / numeraireValue;
+				amountOfUnderlyingAsset[path]	= delta[path];
+			}
+		}
+		else {
+			for(int path=0; path<delta.length; path++) {
+				double stocksToBuy = delta[path] - amountOfUnderlyingAsset[path];
+				amountOfNumeraireAsset[path]	-= stocksToBuy * underlying[path] / numeraire.get(path);
+				amountOfUnderlyingAsset[path]	= delta[path];
+			}
+		}
+	}
+
+	/**
+	 * Calculates the Black-Scholes delta and rebalances the portfolio in one fused loop over the paths.
+	 *
+	 * @param underlying The value of the underlying on every path.
+	 * @param numeraire The value of the numeraire.
+	 * @param riskFreeRate Model riskFreeRate assumption for the delta hedge.
+	 * @param volatility Model volatility assumption for the delta hedge.
+	 * @param remainingTime The remaining time to maturity.
+	 * @param strike Strike of the option.
+	 * @param amountOfNumeraireAsset The amount of the numeraire asset on every path, updated in place.
+	 * @param amountOfUnderlyingAsset The amount of the underlying asset on every path, updated in place.
+	 */
+	public static void calculateDeltaAndRebalance(double[] underlying, RandomVariableInterface numeraire,
+			double riskFreeRate, double volatility, double remainingTime, double strike,
+			double[] amountOfNumeraireAsset, double[] amountOfUnderlyingAsset) {
+		if(remainingTime < 0 || !numeraire.isDeterministic()) {
+			double[] delta = new double[underlying.length];
+			calculateDelta(underlying, riskFreeRate, volatility, remainingTime, strike, delta);
+			rebalance(delta, underlying, numeraire, amountOfNumeraireAsset, amountOfUnderlyingAsset);
+			return;
+		}
+
+		final double driftTerm			= (volatility * volatility * 0.5 + riskFreeRate) * remainingTime;
+		final double squareRootOfTime	= Math.sqrt(remainingTime);
+		final double numeraireValue		= numeraire.get(0);
+
+		for(int path=0; path<underlying.length; path++) {
+			double dPlus	= (Math.log(underlying[path] / strike) + driftTerm) / volatility / squareRootOfTime;
+			double delta	= NormalDistribution.cumulativeDistribution(dPlus);
+
+			double stocksToBuy = delta - amountOfUnderlyingAsset[path];
+			amountOfNumeraireAsset[path]	-= stocksToBuy * underlying[path] / numeraireValue;
+			amountOfUnderlyingAsset[path]	= delta;
+		}
+	}
+
+	/**
+	 * Calculates the value of the portfolio.
+	 *
+	 * @param underlying The value of the underlying.
+	 * @param numeraire The value of the numeraire.
+	 * @param amountOfNumeraireAsset The amount of the numeraire asset on every path.
+	 * @param amountOfUnderlyingAsset The amount of the underlying asset on every path.
+	 * @return The value of the portfolio on every path.
+	 */
+	public static double[] getPortfolioValue(RandomVariableInterface underlying, RandomVariableInterface numeraire,
+			double[] amountOfNumeraireAsset, double[] amountOfUnderlyingAsset) {
+		double[] portfolioValue = new double[amountOfNumeraireAsset.length];
+		for(int path=0; path<portfolioValue.length; path++) {
+			portfolioValue[path] = amountOfNumeraireAsset[path] * numeraire.get(path) + amountOfUnderlyingAsset[path] * underlying.get(path);
+		}
+		return portfolioValue;
+	}
+}
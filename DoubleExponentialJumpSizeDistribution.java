@@ -0,0 +1,68 @@
+package projectTest;
+
+import cern.jet.random.engine.RandomEngine;
+
+/**
+ * This class implements the jump sizes of the Kou model, i.e., Y = \exp(X) - 1, where X has the asymmetric double exponential density
+ * \[
+ * 	p \eta_{1} e^{-\eta_{1} x} 1_{x \geq 0} + (1-p) \eta_{2} e^{\eta_{2} x} 1_{x < 0} \text{.}
+ * \]
+ *
+ * Every jump consumes one uniform number U: for U &lt; p the jump is upwards with X = -log(U/p)/\eta_{1},
+ * otherwise downwards with X = log((1-U)/(1-p))/\eta_{2}.
+ *
+ * @author A V L
+ * @see CompoundPoissonProcess
+ * @version 1.0
+ */
+public class DoubleExponentialJumpSizeDistribution implements JumpSizeDistributionInterface {
+
+	private final double probabilityOfUpwardJump;
+	private final double rateOfUpwardJump;
+	private final double rateOfDownwardJump;
+
+	/**
+	 * @param probabilityOfUpwardJump The probability p of an upward jump.
+	 * @param rateOfUpwardJump The rate \eta_{1} of the upward jumps of log(1+Y), has to be greater than 1 for E[Y] to exist.
+	 * @param rateOfDownwardJump The rate \eta_{2} of the downward jumps of log(1+Y).
+	 */
+	public DoubleExponentialJumpSizeDistribution(double probabilityOfUpwardJump, double rateOfUpwardJump, double rateOfDownwardJump) {
+		super();
+		if(probabilityOfUpwardJump < 0 || probabilityOfUpwardJump > 1) throw new IllegalArgumentException("The probability of an upward jump has to be in [0,1].");
+		if(rateOfUpwardJump <= 0 || rateOfDownwardJump <= 0) throw new IllegalArgumentException("The rates of the jumps have to be positive.");
+		this.probabilityOfUpwardJump = probabilityOfUpwardJump;
+		this.rateOfUpwardJump = rateOfUpwardJump;
+		this.rateOfDownwardJump = rateOfDownwardJump;
+	}
+
+	@Override
+	public void sample(double[] jumpSizes, int numberOfJumps, RandomEngine randomEngine) {
+		for(int jump=0; jump<numberOfJumps; jump++) jumpSizes[jump] = randomEngine.nextDouble();
+
+		for(int jump=0; jump<numberOfJumps; jump++) jumpSizes[jump] = getJumpSize(jumpSizes[jump]);
+	}
+
+	@Override
+	public double getJumpSize(double uniform) {
+		double logarithmOfJump = uniform < probabilityOfUpwardJump ?
+				-Math.log(uniform / probabilityOfUpwardJump) / rateOfUpwardJump
+				: Math.log((1.0 - uniform) / (1.0 - probabilityOfUpwardJump)) / rateOfDownwardJump;
+		return Math.exp(logarithmOfJump) - 1.0;
+	}
+
+	@Override
+	public double getAntitheticJumpSize(double jumpSize) {
+		double logarithmOfJump = Math.log(1.0 + jumpSize);
+		double uniform = logarithmOfJump >= 0 ?
+				probabilityOfUpwardJump * Math.exp(-rateOfUpwardJump * logarithmOfJump)
+				: 1.0 - (1.0 - probabilityOfUpwardJump) * Math.exp(rateOfDownwardJump * logarithmOfJump);
+		return getJumpSize(1.0 - uniform);
+	}
+
+	@Override
+	public double getExpectation() {
+		if(rateOfUpwardJump <= 1) return Double.POSITIVE_INFINITY;
+		return probabilityOfUpwardJump * rateOfUpwardJump / (rateOfUpwardJump - 1.0)
+				+ (1.0 - probabilityOfUpwardJump) * rateOfDownwardJump / (rateOfDownwardJump + 1.0) - 1.0;
+	}
+}
@@ -66,9 +66,11 @@ public class Ecercise02 {
     			+ "---------------------");
     	System.out.println("Merton-Jump-Diffusion-Model:");
 		System.out.println("intensity | Option price");
+		/*the brownian motion and the jumps are generated once, the intensities are obtained by thinning (common random numbers)*/
+		MertonJumpDiffusionIntensitySweep sweep = new MertonJumpDiffusionIntensitySweep(times,
+				numberOfPaths, initialValue, riskFreeRate, volatility, intensityVector, mu, sigma);
 		for (int i=0; i<intensityVector.length;i++){
-			AssetModelMonteCarloSimulationInterface jump = new MonteCarloMertonJumpDiffusionModel(times,
-					numberOfPaths, initialValue, riskFreeRate, volatility, intensityVector[i], mu, sigma);
+			AssetModelMonteCarloSimulationInterface jump = sweep.getModel(i);
 			System.out.println(intensityVector[i] + "        "   + formatterSci6.format(product.getValue(maturity,jump).getAverage()));
 
 		}
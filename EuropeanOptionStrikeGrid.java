@@ -0,0 +1,152 @@
+package projectTest;
+
+import java.util.Arrays;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationInterface;
+import net.finmath.stochastic.RandomVariableInterface;
+
+/**
+ * This class implements the valuation of European call options with one maturity and a grid of strikes
+ * (on the asset with index 0 of the model), in one scan of the value of the asset at maturity.
+ *
+ * The paths are sorted once by the value S of the asset at maturity. With the (discounting and Monte-Carlo) factor c of a path,
+ * the value for a strike K is
+ * \[
+ * 	\frac{1}{n} \sum_{S_{p} &gt; K} c_{p} (S_{p} - K) = \frac{1}{n} \left( \sum_{S_{p} &gt; K} c_{p} S_{p} - K \sum_{S_{p} &gt; K} c_{p} \right) \text{,}
+ * \]
+ * where the sums over the paths above the strike are suffix sums of the sorted paths, found by a binary search.
+ * Hence the cost is O(n log n) for the sort plus O(log n) per strike, i.e., a smile with hundreds of strikes costs about the same as one strike.
+ * The standard errors are calculated from the suffix sums of c<sup>2</sup>, c<sup>2</sup>S and c<sup>2</sup>S<sup>2</sup> the same way.
+ *
+ * The values agree with those of <code>EuropeanOption</code> for every strike.
+ *
+ * @author A V L
+ * @see net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption
+ * @version 1.0
+ */
+public class EuropeanOptionStrikeGrid {
+
+	private final double	maturity;
+	private final double[]	strikes;
+
+	/**
+	 * @param maturity The maturity T in the option payoff max(S(T)-K,0)
+	 * @param strikes The strikes K in the option payoff max(S(T)-K,0).
+	 */
+	public EuropeanOptionStrikeGrid(double maturity, double[] strikes) {
+		super();
+		this.maturity = maturity;
+		this.strikes = strikes.clone();
+	}
+
+	/**
+	 * @param evaluationTime The time on which the values should be observed.
+	 * @param model The model used to price the options.
+	 * @return The values of the options (discounted to evaluation time), one for each strike.
+	 * @throws CalculationException Thrown if the valuation fails.
+	 */
+	public double[] getValues(double evaluationTime, AssetModelMonteCarloSimulationInterface model) throws CalculationException {
+		return getValuesAndStandardErrors(evaluationTime, model)[0];
+	}
+
+	/**
+	 * @param model The model used to price the options.
+	 * @return The values of the options at time 0, one for each strike.
+	 * @throws CalculationException Thrown if the valuation fails.
+	 */
+	public double[] getValues(AssetModelMonteCarloSimulationInterface model) throws CalculationException {
+		return getValues(0.0, model);
+	}
+
+	/**
+	 * @param evaluationTime The time on which the values should be observed.
+	 * @param model The model used to price the options.
+	 * @return An array containing the values and an array containing the standard errors of the options, one for each strike.
+	 * @throws CalculationException Thrown if the valuation fails.
+	 */
+	public double[][] getValuesAndStandardErrors(double evaluationTime, AssetModelMonteCarloSimulationInterface model) throws CalculationException {
+		final int numberOfPaths = model.getNumberOfPaths();
+
+		RandomVariableInterface underlyingAtMaturity		= model.getAssetValue(maturity, 0);
+		RandomVariableInterface numeraireAtMaturity			= model.getNumeraire(maturity);
+		RandomVariableInterface monteCarloWeights			= model.getMonteCarloWeights(maturity);
+		RandomVariableInterface numeraireAtEvalTime			= model.getNumeraire(evaluationTime);
+		RandomVariableInterface monteCarloProbabilitiesAtEvalTime	= model.getMonteCarloWeights(evaluationTime);
+
+		// Sort the paths by the value of the underlying, carrying the factor of the path
+		double[] sortedUnderlying	= new double[numberOfPaths];
+		double[] sortedFactor		= new double[numberOfPaths];
+		for(int path=0; path<numberOfPaths; path++) sortedUnderlying[path] = underlyingAtMaturity.get(path);
+		if(monteCarloWeights.isDeterministic() && numeraireAtMaturity.isDeterministic()
+				&& numeraireAtEvalTime.isDeterministic() && monteCarloProbabilitiesAtEvalTime.isDeterministic()) {
+			// The same factor on all paths, sorting the values is sufficient
+			Arrays.sort(sortedUnderlying);
+			Arrays.fill(sortedFactor, monteCarloWeights.get(0) / numeraireAtMaturity.get(0) * numeraireAtEvalTime.get(0) / monteCarloProbabilitiesAtEvalTime.get(0));
+		}
+		else {
+			final double[] underlying = sortedUnderlying.clone();
+			Integer[] paths = new Integer[numberOfPaths];
+			for(int path=0; path<numberOfPaths; path++) paths[path] = path;
+			Arrays.sort(paths, (path1, path2) -> Double.compare(underlying[path1], underlying[path2]));
+
+			for(int index=0; index<numberOfPaths; index++) {
+				int path = paths[index];
+				sortedUnderlying[index]	= underlying[path];
+				sortedFactor[index]		= monteCarloWeights.get(path) / numeraireAtMaturity.get(path)
+						* numeraireAtEvalTime.get(path) / monteCarloProbabilitiesAtEvalTime.get(path);
+			}
+		}
+
+		// Suffix sums: sum over the paths index, ..., numberOfPaths-1
+		double[] sumOfFactor						= new double[numberOfPaths+1];
+		double[] sumOfFactorTimesUnderlying			= new double[numberOfPaths+1];
+		double[] sumOfSquaredFactor					= new double[numberOfPaths+1];
+		double[] sumOfSquaredFactorTimesUnderlying	= new double[numberOfPaths+1];
+		double[] sumOfSquaredFactorTimesSquaredUnderlying = new double[numberOfPaths+1];
+		for(int index=numberOfPaths-1; index>=0; index--) {
+			double factor			= sortedFactor[index];
+			double factorUnderlying	= factor * sortedUnderlying[index];
+			sumOfFactor[index]						= sumOfFactor[index+1] + factor;
+			sumOfFactorTimesUnderlying[index]		= sumOfFactorTimesUnderlying[index+1] + factorUnderlying;
+			sumOfSquaredFactor[index]				= sumOfSquaredFactor[index+1] + factor * factor;
+			sumOfSquaredFactorTimesUnderlying[index]	= sumOfSquaredFactorTimesUnderlying[index+1] + factor * factorUnderlying;
+			sumOfSquaredFactorTimesSquaredUnderlying[index] = sumOfSquaredFactorTimesSquaredUnderlying[index+1] + factorUnderlying * factorUnderlying;
+		}
+
+		double[] values			= new double[strikes.length];
+		double[] standardErrors	= new double[strikes.length];
+		for(int strikeIndex=0; strikeIndex<strikes.length; strikeIndex++) {
+			double strike = strikes[strikeIndex];
+
+			// First path with underlying > strike
+			int position = Arrays.binarySearch(sortedUnderlying, strike);
+			int first = position >= 0 ? position : -position-1;
+			while(first < numberOfPaths && sortedUnderlying[first] <= strike) first++;
+
+			double mean = (sumOfFactorTimesUnderlying[first] - strike * sumOfFactor[first]) / numberOfPaths;
+			double meanOfSquares = (sumOfSquaredFactorTimesSquaredUnderlying[first]
+					- 2.0 * strike * sumOfSquaredFactorTimesUnderlying[first]
+					+ strike * strike * sumOfSquaredFactor[first]) / numberOfPaths;
+
+			values[strikeIndex]			= mean;
+			standardErrors[strikeIndex]	= Math.sqrt(Math.max(meanOfSquares - mean * mean, 0.0) / numberOfPaths);
+		}
+
+		return new double[][] { values, standardErrors };
+	}
+
+	/**
+	 * @return The maturity of the options.
+	 */
+	public double getMaturity() {
+		return maturity;
+	}
+
+	/**
+	 * @return The strikes of the options.
+	 */
+	public double[] getStrikes() {
+		return strikes.clone();
+	}
+}
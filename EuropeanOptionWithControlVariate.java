@@ -0,0 +1,177 @@
+package projectTest;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.functions.AnalyticFormulas;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.RandomVariable;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationInterface;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.stochastic.RandomVariableInterface;
+
+/**
+ * This class implements the valuation of a European call option on a <code>MonteCarloMertonJumpDiffusionModel</code>
+ * using a control variate with known expectation.
+ *
+ * For the discounted payoff Y and the control C the estimator is
+ * \[
+ * 	Y - b (C - E[C]) \text{,} \quad b = \frac{Cov(Y,C)}{Var(C)} \text{,}
+ * \]
+ * where the optimal coefficient b is estimated from the same paths (in one pass accumulating the sums of Y, C, YC and C<sup>2</sup>).
+ * The returned random variable contains the controlled values on the paths, such that its average is the controlled estimator
+ * and its standard error is the standard error of the controlled estimator.
+ *
+ * The available controls are
+ * <ul>
+ * 	<li><code>BLACK_SCHOLES</code>: the payoff of the same option on the Black-Scholes model driven by the same Brownian increments,
+ * 	with expectation given by the Black-Scholes formula,</li>
+ * 	<li><code>JUMP_CONDITIONED</code>: the analytic value conditional on the number of jumps of the path until maturity,
+ * 	with expectation given by the Merton series.</li>
+ * </ul>
+ *
+ * @author A V L
+ * @see MertonJumpDiffusionAnalyticPricer
+ * @version 1.0
+ */
+public class EuropeanOptionWithControlVariate extends AbstractAssetMonteCarloProduct {
+
+	public enum ControlVariate {
+		BLACK_SCHOLES,
+		JUMP_CONDITIONED
+	}
+
+	private final double			maturity;
+	private final double			strike;
+	private final ControlVariate	controlVariate;
+
+	/**
+	 * Construct a product representing an European option on an asset S (where S the asset with index 0 from the model - single asset case).
+	 *
+	 * @param maturity The maturity T in the option payoff max(S(T)-K,0)
+	 * @param strike The strike K in the option payoff max(S(T)-K,0).
+	 * @param controlVariate The control variate to use.
+	 */
+	public EuropeanOptionWithControlVariate(double maturity, double strike, ControlVariate controlVariate) {
+		super();
+		this.maturity		= maturity;
+		this.strike			= strike;
+		this.controlVariate	= controlVariate;
+	}
+
+	/**
+	 * This method returns the value random variable of the product within the specified model, evaluated at a given evalutationTime.
+	 * Note: For a lattice this is often the value conditional to evalutationTime, for a Monte-Carlo simulation this is the (sum of) value discounted to evaluation time.
+	 * Cashflows prior evaluationTime are not considered.
+	 *
+	 * @param evaluationTime The time on which this products value should be observed.
+	 * @param model The model used to price the product, has to be a <code>MonteCarloMertonJumpDiffusionModel</code> whose time discretization contains the maturity.
+	 * @return The random variable representing the value of the product discounted to evaluation time
+	 * @throws net.finmath.exception.CalculationException Thrown if the valuation fails, specific cause may be available via the <code>cause()</code> method.
+	 */
+	@Override
+	public RandomVariableInterface getValue(double evaluationTime, AssetModelMonteCarloSimulationInterface model) throws CalculationException {
+		if(!(model instanceof MonteCarloMertonJumpDiffusionModel)) {
+			throw new IllegalArgumentException("The control variate requires a MonteCarloMertonJumpDiffusionModel.");
+		}
+		MonteCarloMertonJumpDiffusionModel mertonModel = (MonteCarloMertonJumpDiffusionModel)model;
+		if(mertonModel.getTimeIndex(maturity) < 0) {
+			throw new IllegalArgumentException("The maturity " + maturity + " is not a time of the time discretization of the model.");
+		}
+
+		final int numberOfPaths = model.getNumberOfPaths();
+
+		RandomVariableInterface underlyingAtMaturity	= model.getAssetValue(maturity, 0);
+		RandomVariableInterface numeraireAtMaturity		= model.getNumeraire(maturity);
+
+		double[] control = getControl(mertonModel);
+		double expectationOfControl = getExpectationOfControl(mertonModel) / model.getNumeraire(0.0).get(0);
+
+		// Discounted payoff and online estimation of the optimal coefficient
+		double[] discountedPayoff = new double[numberOfPaths];
+		double sumOfPayoff = 0.0, sumOfControl = 0.0, sumOfPayoffTimesControl = 0.0, sumOfControlSquared = 0.0;
+		for(int path=0; path<numberOfPaths; path++) {
+			double numeraire = numeraireAtMaturity.get(path);
+			discountedPayoff[path]	= Math.max(underlyingAtMaturity.get(path) - strike, 0.0) / numeraire;
+			control[path]			= control[path] / numeraire;
+
+			sumOfPayoff				+= discountedPayoff[path];
+			sumOfControl			+= control[path];
+			sumOfPayoffTimesControl	+= discountedPayoff[path] * control[path];
+			sumOfControlSquared		+= control[path] * control[path];
+		}
+		double covariance	= sumOfPayoffTimesControl / numberOfPaths - sumOfPayoff / numberOfPaths * sumOfControl / numberOfPaths;
+		double variance		= sumOfControlSquared / numberOfPaths - sumOfControl / numberOfPaths * sumOfControl / numberOfPaths;
+		double coefficient	= variance > 0 ? covariance / variance : 0.0;
+
+		double[] controlledPayoff = new double[numberOfPaths];
+		for(int path=0; path<numberOfPaths; path++) {
+			controlledPayoff[path] = discountedPayoff[path] - coefficient * (control[path] - expectationOfControl);
+		}
+
+		RandomVariableInterface values = new RandomVariable(maturity, controlledPayoff);
+
+		// Apply Monte-Carlo weights and discount to evaluation time
+		RandomVariableInterface monteCarloWeights					= model.getMonteCarloWeights(maturity);
+		RandomVariableInterface numeraireAtEvalTime					= model.getNumeraire(evaluationTime);
+		RandomVariableInterface monteCarloProbabilitiesAtEvalTime	= model.getMonteCarloWeights(evaluationTime);
+		values = values.mult(monteCarloWeights).mult(numeraireAtEvalTime).div(monteCarloProbabilitiesAtEvalTime);
+
+		return values;
+	}
+
+	/**
+	 * @return The (undiscounted) control on every path.
+	 */
+	private double[] getControl(MonteCarloMertonJumpDiffusionModel model) throws CalculationException {
+		final int numberOfPaths			= model.getNumberOfPaths();
+		final int timeIndexOfMaturity	= model.getTimeIndex(maturity);
+
+		double[] control = new double[numberOfPaths];
+		switch(controlVariate) {
+		case BLACK_SCHOLES:
+		default:
+		{
+			// Black-Scholes asset on the same Brownian increments
+			BrownianMotionInterface brownianMotion = model.getProcess().getBrownianMotion();
+			double[] brownianMotionAtMaturity = new double[numberOfPaths];
+			for(int timeIndex=0; timeIndex<timeIndexOfMaturity; timeIndex++) {
+				RandomVariableInterface brownianIncrement = brownianMotion.getBrownianIncrement(timeIndex, 0);
+				for(int path=0; path<numberOfPaths; path++) brownianMotionAtMaturity[path] += brownianIncrement.get(path);
+			}
+
+			double drift = (model.getRiskFreeRate() - 0.5 * model.getVolatility() * model.getVolatility()) * model.getTime(timeIndexOfMaturity);
+			for(int path=0; path<numberOfPaths; path++) {
+				double underlying = model.getInitialAssetValue() * Math.exp(drift + model.getVolatility() * brownianMotionAtMaturity[path]);
+				control[path] = Math.max(underlying - strike, 0.0);
+			}
+			break;
+		}
+		case JUMP_CONDITIONED:
+		{
+			// Analytic value conditional on the number of jumps, compounded to maturity
+			MertonJumpDiffusionAnalyticPricer pricer = new MertonJumpDiffusionAnalyticPricer(model);
+			JumpEvents jumpEvents = model.getCompoundPoissonProcess().getJumpEvents();
+			double compoundingFactor = Math.exp(model.getRiskFreeRate() * maturity);
+			for(int path=0; path<numberOfPaths; path++) {
+				int numberOfJumps = 0;
+				while(numberOfJumps < jumpEvents.getNumberOfJumpsOnPath(path) && jumpEvents.getJumpTimeIndex(path, numberOfJumps) < timeIndexOfMaturity) numberOfJumps++;
+				control[path] = pricer.getConditionalCallValue(maturity, strike, numberOfJumps) * compoundingFactor;
+			}
+			break;
+		}
+		}
+		return control;
+	}
+
+	/**
+	 * @return The value of the control at time 0.
+	 */
+	private double getExpectationOfControl(MonteCarloMertonJumpDiffusionModel model) {
+		switch(controlVariate) {
+		case JUMP_CONDITIONED:
+			return new MertonJumpDiffusionAnalyticPricer(model).getCallValue(maturity, strike);
+		case BLACK_SCHOLES:
+		default:
+			return AnalyticFormulas.blackScholesOptionValue(model.getInitialAssetValue(), model.getRiskFreeRate(), model.getVolatility(), maturity, strike);
+		}
+	}
+}
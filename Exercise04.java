@@ -11,8 +11,6 @@ import java.text.DecimalFormat;
 import net.finmath.exception.CalculationException;
 import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationInterface;
 import net.finmath.montecarlo.assetderivativevaluation.MonteCarloBlackScholesModel;
-import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
-import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
 import net.finmath.time.TimeDiscretization;
 import net.finmath.time.TimeDiscretizationInterface;
 
@@ -70,36 +68,41 @@ public class Exercise04 {
 		 *===================Computation=======================
 		  =====================================================*/
 		
-		//calculate prices of the european option at time t0 = 0
-		double[] priceOfBlackScholes = new double[12];
-		double[] priceOfJumpProcess = new double[12];
-		for (int i = 0; i < 12; i++){
-			AbstractAssetMonteCarloProduct product = new EuropeanOption(maturity, strikes[i]);
-			priceOfBlackScholes[i] = product.getValue(black)
-					/*net.finmath.functions.AnalyticFormulas.blackScholesGeneralizedOptionValue(initialValue * Math.exp(riskFreeRate * (maturity - t0)), volatility, maturity, strikes[i], Math.exp(-riskFreeRate * maturity))*/;
-			priceOfJumpProcess[i] = product.getValue(jump);
+		//calculate prices of the european option at time t0 = 0, all strikes in one scan of the paths
+		EuropeanOptionStrikeGrid options = new EuropeanOptionStrikeGrid(maturity, strikes);
+		double[] priceOfBlackScholes = options.getValues(black);
+		double[] priceOfJumpProcess = options.getValues(jump);
 
+		//randomized quasi monte carlo (sobol + brownian bridge, exact scheme on 8 steps to the maturity): 16 replicates of 1024 paths (run with -DprojectTest.quasiMonteCarlo=true)
+		boolean isQuasiMonteCarlo = Boolean.getBoolean("projectTest.quasiMonteCarlo");
+		double[] priceOfJumpProcessQuasiMonteCarlo = null;
+		double[] standardErrorOfJumpProcessQuasiMonteCarlo = null;
+		if(isQuasiMonteCarlo) {
+			RandomizedQuasiMonteCarloMertonJumpDiffusion quasiMonteCarlo = new RandomizedQuasiMonteCarloMertonJumpDiffusion(
+					new TimeDiscretization(t0, 8, maturity / 8), 1024, 16, initialValue, riskFreeRate, volatility, intensity, mu, sigma);
+			double[][] valuesAndStandardErrors = quasiMonteCarlo.getValuesAndStandardErrors(options);
+			priceOfJumpProcessQuasiMonteCarlo = valuesAndStandardErrors[0];
+			standardErrorOfJumpProcessQuasiMonteCarlo = valuesAndStandardErrors[1];
 		}
 
-		//calculate the implied volatility of the jump process and black-scholes model by plugging price
-		double[] impliedVolatilityBlackScholesByPrice = new double[12];
-		double[] impliedVolatilityJumpProcessByPrice = new double[12];
-		double forward = initialValue * Math.exp(riskFreeRate * (maturity - t0));
-		for (int i = 0; i<12; i++){
-			impliedVolatilityBlackScholesByPrice[i] = net.finmath.functions.AnalyticFormulas.blackScholesOptionImpliedVolatility(
-					forward,
-					maturity,
-					strikes[i],
-					Math.exp(-riskFreeRate * (maturity - t0)),
-					priceOfBlackScholes[i]);
-			impliedVolatilityJumpProcessByPrice[i] = net.finmath.functions.AnalyticFormulas.blackScholesOptionImpliedVolatility(
-					forward,
-					maturity,
-					strikes[i],
-					Math.exp(-riskFreeRate * (maturity - t0)),
-					priceOfJumpProcess[i]);
+		//analytic prices of the jump process as reference for the simulation
+		double[] analyticPriceOfJumpProcess = new MertonJumpDiffusionAnalyticPricer(initialValue, riskFreeRate, volatility, intensity, mu, sigma)
+				.getCallValues(maturity, strikes);
 
-		}
+		//calculate the implied volatility of the jump process and black-scholes model by plugging price, each strike starting from its neighbour
+		double forward = initialValue * Math.exp(riskFreeRate * (maturity - t0));
+		double[] impliedVolatilityBlackScholesByPrice = BlackScholesImpliedVolatility.getImpliedVolatilities(
+				forward,
+				maturity,
+				strikes,
+				Math.exp(-riskFreeRate * (maturity - t0)),
+				priceOfBlackScholes);
+		double[] impliedVolatilityJumpProcessByPrice = BlackScholesImpliedVolatility.getImpliedVolatilities(
+				forward,
+				maturity,
+				strikes,
+				Math.exp(-riskFreeRate * (maturity - t0)),
+				priceOfJumpProcess);
 		
 		/**====================================================
 		 *===================Printing==========================
@@ -113,11 +116,15 @@ public class Exercise04 {
     	System.out.println("---------------------------------------------"
     			+ "---------------------");
     	System.out.println("Merton-Jump-Diffusion-Model:");
-		System.out.println("Strike |" + " " + "Option Price |" + " "  + "implied volatility");
+		System.out.println("Strike |" + " " + "Option Price |" + " "  + "implied volatility |" + " " + "analytic Option Price"
+				+ (isQuasiMonteCarlo ? " |" + " " + "QMC Option Price |" + " " + "QMC standard error" : ""));
 		for (int i = 0; i < 12; i++){
 			System.out.println(strikes[i]
 					+ "  " + formatterSci6.format(priceOfJumpProcess[i])
-					+ "  " + formatterSci6.format(impliedVolatilityJumpProcessByPrice[i]));
+					+ "  " + formatterSci6.format(impliedVolatilityJumpProcessByPrice[i])
+					+ "  " + formatterSci6.format(analyticPriceOfJumpProcess[i])
+					+ (isQuasiMonteCarlo ? "  " + formatterSci6.format(priceOfJumpProcessQuasiMonteCarlo[i])
+					+ "  " + formatterSci6.format(standardErrorOfJumpProcessQuasiMonteCarlo[i]) : ""));
 		}
     	System.out.println("---------------------------------------------"
     			+ "---------------------");
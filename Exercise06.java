@@ -7,6 +7,8 @@ import net.finmath.stochastic.RandomVariableInterface;
 
 
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.text.DecimalFormat;
 
  
@@ -29,7 +31,7 @@ import net.finmath.montecarlo.assetderivativevaluation.products.BlackScholesHedg
 
 public class Exercise06 {
 	static final DecimalFormat formatterSci6 = new DecimalFormat (" 0.000000000  ; -0.000000000 ");
-	public static void main(String[] args) throws CalculationException {
+	public static void main(String[] args) throws CalculationException, IOException {
 		
 		/**====================================================
 		 *================INITIALIZATION=======================
@@ -57,9 +59,11 @@ public class Exercise06 {
         double t0 = 0.0;
         TimeDiscretizationInterface times = new TimeDiscretization(t0, (int)(maturity/deltaT), deltaT);
         
-        /*Jump Diffusion Model*/
-        AssetModelMonteCarloSimulationInterface jump = new MonteCarloMertonJumpDiffusionModel(times,
-				numberOfPaths, initialValue, riskFreeRate, volatility, intensity, mu, sigma);
+        /*Jump Diffusion Model (read from the scenario store if the system property projectTest.scenarioStore names its directory)*/
+        String scenarioStoreDirectory = System.getProperty("projectTest.scenarioStore");
+        AssetModelMonteCarloSimulationInterface jump = scenarioStoreDirectory != null
+        		? new ScenarioStore(Paths.get(scenarioStoreDirectory)).getModel(times, numberOfPaths, initialValue, riskFreeRate, volatility, intensity, mu, sigma)
+        		: new MonteCarloMertonJumpDiffusionModel(times, numberOfPaths, initialValue, riskFreeRate, volatility, intensity, mu, sigma);
         /*Black Scholes Model*/
 		AssetModelMonteCarloSimulationInterface black = new MonteCarloBlackScholesModel(times, numberOfPaths, initialValue, riskFreeRate, volatility);
 		
@@ -90,14 +94,19 @@ public class Exercise06 {
 		 *================Computation & Printing===============
 		  =====================================================*/
   		
+  		/*all hedge frequencies are simulated together in one sweep over the time discretization*/
+  		double[] numberOfHedgingTimes = new double[sizeOfHedgingTimesVector];
+  		for (int i=0;i<sizeOfHedgingTimesVector;i++) numberOfHedgingTimes[i] = numberOfHedgingTimesVector[i];
+  		BlackScholesHedgeSimulator hedgeSimulator = new BlackScholesHedgeSimulator(maturity,strike,riskFreeRate,volatility,numberOfHedgingTimes);
+  		RandomVariableInterface[] portfolioValuesJump = hedgeSimulator.getValues(maturity, jump);
+  		RandomVariableInterface[] portfolioValuesBlackScholes = hedgeSimulator.getValues(maturity, black);
+  		
   		/*loop over numberOfHedgingTimes to get pathwise relative profit and loss, the printing is done in an inner loop over numberOfPaths*/
+  		SimulationMetrics.Measurement statisticsMeasurement = SimulationMetrics.start(SimulationMetrics.Phase.STATISTICS);
         for (int i=0;i<sizeOfHedgingTimesVector;i++){
         	
-        	BlackScholesHedgedPortfolioWithModifiedTimeDiscretization hedgingPortfolioValue = 
-        			new BlackScholesHedgedPortfolioWithModifiedTimeDiscretization(maturity,strike,riskFreeRate,volatility,numberOfHedgingTimesVector[i]);
-        	
-        	RandomVariableInterface portfolioValueJump = hedgingPortfolioValue.getValue(maturity, jump);
-        	RandomVariableInterface portfolioValueBlackScholes = hedgingPortfolioValue.getValue(maturity, black);
+        	RandomVariableInterface portfolioValueJump = portfolioValuesJump[i];
+        	RandomVariableInterface portfolioValueBlackScholes = portfolioValuesBlackScholes[i];
         	
         	differencePortfolioToOptionPriceJump[i] = portfolioValueJump.sub(valueJumpEuropeanOptionAtMaturity);
         	differencePortfolioToOptionPriceBlackScholes[i] = portfolioValueBlackScholes.sub(valueBlackScholesEuropeanOptionAtMaturity);
@@ -121,6 +130,7 @@ public class Exercise06 {
         	System.out.println("Variance: " + formatterSci6.format(relativePandLBlackScholes[i].getVariance()) + " " +formatterSci6.format(relativePandLJump[i].getVariance()));
         	System.out.println("==================================================================");
         }
+        statisticsMeasurement.stop(numberOfPaths);
         
         
 		/**====================================================
@@ -154,6 +164,9 @@ public class Exercise06 {
     	System.out.println("| Merton-Jump-Diffusion-Model via Delta-Gamma-Hedging ");
   		System.out.println("Mean" + formatterSci6.format(relativePandLBlackJumpDeltaGamma.getAverage()));
   		System.out.println("Variance" + formatterSci6.format(relativePandLBlackJumpDeltaGamma.getVariance()));
+
+  		/*time, paths per second, allocations and lock waits per phase (run with -DprojectTest.metrics=true)*/
+  		if (SimulationMetrics.isEnabled()) System.out.println(SimulationMetrics.getSnapshot());
         
     }
 	
@@ -0,0 +1,17 @@
+package projectTest;
+
+/**
+ * Interface for the discretization schemes of a jump diffusion, giving access to the jump driver of the process.
+ * 
+ * @author A V L
+ * @see MertonJumpDiffusionProcessEulerScheme
+ * @see MertonJumpDiffusionProcessExactScheme
+ * @version 1.0
+ */
+public interface JumpDiffusionProcessInterface {
+
+	/**
+	 * @return The compound Poisson process driving the jumps of the process.
+	 */
+	public PointProcessInterface getCompoundPoissonProcess();
+}
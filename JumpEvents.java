@@ -0,0 +1,427 @@
+package projectTest;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * This class stores the jumps of a point process in sparse form.
+ *
+ * For every path it stores the time indices of the jumps and the jump sizes in compressed row form, i.e.,
+ * the jumps of path <code>p</code> are the entries <code>firstJumpOfPath[p], ..., firstJumpOfPath[p+1]-1</code>
+ * of the arrays <code>jumpTimeIndices</code> and <code>jumpSizes</code>, ordered by time.
+ * A jump with time index <code>i</code> happens in the time step from \( t_{i} \) to \( t_{i+1} \), such that it is part of the
+ * process increment with index <code>i</code>.
+ *
+ * The view by time step (which paths jump in a given time step) is built on first use.
+ * Memory and access costs scale with the number of jumps, not with the number of paths times the number of time steps.
+ *
+ * @author A V L
+ * @see PointProcessInterface
+ * @version 1.0
+ */
+public class JumpEvents {
+
+	private final int		numberOfPaths;
+	private final int		numberOfTimeSteps;
+
+	private final int[]		firstJumpOfPath;
+	private final int[]		jumpTimeIndices;
+	private final double[]	jumpSizes;
+
+	/*
+	 * The compressed column view (by time step), built on first use.
+	 */
+	private transient volatile int[]	firstJumpOfTimeStep;
+	private transient int[]		jumpPathsByTimeStep;
+	private transient double[]	jumpSizesByTimeStep;
+
+	/**
+	 * Creates the jump events from their compressed row representation.
+	 *
+	 * @param numberOfTimeSteps The number of time steps of the time discretization.
+	 * @param firstJumpOfPath Array of length numberOfPaths+1, the jumps of path p are the entries firstJumpOfPath[p] to firstJumpOfPath[p+1]-1.
+	 * @param jumpTimeIndices The time indices of the jumps, ordered by path and time.
+	 * @param jumpSizes The sizes of the jumps, ordered by path and time.
+	 */
+	public JumpEvents(int numberOfTimeSteps, int[] firstJumpOfPath, int[] jumpTimeIndices, double[] jumpSizes) {
+		super();
+		this.numberOfPaths		= firstJumpOfPath.length - 1;
+		this.numberOfTimeSteps	= numberOfTimeSteps;
+		this.firstJumpOfPath	= firstJumpOfPath;
+		this.jumpTimeIndices	= jumpTimeIndices;
+		this.jumpSizes			= jumpSizes;
+	}
+
+	/**
+	 * Concatenates the jump events of consecutive blocks of paths.
+	 *
+	 * @param blocks The jump events of the blocks, in the order of the paths.
+	 * @return The jump events of all paths.
+	 */
+	public static JumpEvents concatenate(JumpEvents[] blocks) {
+		int numberOfPaths = 0;
+		int numberOfJumps = 0;
+		for(JumpEvents block : blocks) {
+			numberOfPaths += block.getNumberOfPaths();
+			numberOfJumps += block.getNumberOfJumps();
+		}
+
+		int[]		firstJumpOfPath	= new int[numberOfPaths+1];
+		int[]		jumpTimeIndices	= new int[numberOfJumps];
+		double[]	jumpSizes		= new double[numberOfJumps];
+
+		int pathOffset = 0;
+		int jumpOffset = 0;
+		for(JumpEvents block : blocks) {
+			for(int path=0; path<block.getNumberOfPaths(); path++) firstJumpOfPath[pathOffset + path] = jumpOffset + block.firstJumpOfPath[path];
+			System.arraycopy(block.jumpTimeIndices, 0, jumpTimeIndices, jumpOffset, block.getNumberOfJumps());
+			System.arraycopy(block.jumpSizes, 0, jumpSizes, jumpOffset, block.getNumberOfJumps());
+			pathOffset += block.getNumberOfPaths();
+			jumpOffset += block.getNumberOfJumps();
+		}
+		firstJumpOfPath[numberOfPaths] = numberOfJumps;
+
+		int numberOfTimeSteps = blocks.length > 0 ? blocks[0].getNumberOfTimeSteps() : 0;
+		return new JumpEvents(numberOfTimeSteps, firstJumpOfPath, jumpTimeIndices, jumpSizes);
+	}
+
+	/**
+	 * Returns the same jumps on a coarser time discretization, where every coarse time step consists of
+	 * <code>numberOfTimeStepsPerCoarseTimeStep</code> consecutive time steps of this time discretization.
+	 * The paths, the order and the sizes of the jumps are the same; the time indices are shared if the factor is 1.
+	 *
+	 * @param numberOfTimeStepsPerCoarseTimeStep The number of time steps per coarse time step, has to divide the number of time steps.
+	 * @return The jump events on the coarse time discretization.
+	 */
+	public JumpEvents getJumpEventsOnCoarseTimeDiscretization(int numberOfTimeStepsPerCoarseTimeStep) {
+		if(numberOfTimeStepsPerCoarseTimeStep < 1 || numberOfTimeSteps % numberOfTimeStepsPerCoarseTimeStep != 0) {
+			throw new IllegalArgumentException("The number of time steps per coarse time step has to divide the number of time steps.");
+		}
+		if(numberOfTimeStepsPerCoarseTimeStep == 1) return this;
+
+		int[] coarseJumpTimeIndices = new int[jumpTimeIndices.length];
+		for(int jump=0; jump<coarseJumpTimeIndices.length; jump++) coarseJumpTimeIndices[jump] = jumpTimeIndices[jump] / numberOfTimeStepsPerCoarseTimeStep;
+
+		return new JumpEvents(numberOfTimeSteps / numberOfTimeStepsPerCoarseTimeStep, firstJumpOfPath, coarseJumpTimeIndices, jumpSizes);
+	}
+
+	/**
+	 * Returns the jumps kept by thinning: jump j (in the order of this object) is kept if uniforms[j] &lt; probabilityOfJump.
+	 * The kept jumps of a compound Poisson process with intensity \lambda form a compound Poisson process with intensity
+	 * probabilityOfJump \cdot \lambda and the same jump size distribution.
+	 *
+	 * @param uniforms Uniform numbers, one for each jump.
+	 * @param probabilityOfJump The probability that a jump is kept.
+	 * @return The jump events of the kept jumps.
+	 */
+	public JumpEvents getThinnedJumpEvents(double[] uniforms, double probabilityOfJump) {
+		int[]		thinnedFirstJumpOfPath	= new int[numberOfPaths+1];
+		int[]		thinnedJumpTimeIndices	= new int[getNumberOfJumps()];
+		double[]	thinnedJumpSizes		= new double[getNumberOfJumps()];
+		int numberOfKeptJumps = 0;
+		for(int path=0; path<numberOfPaths; path++) {
+			for(int jump=firstJumpOfPath[path]; jump<firstJumpOfPath[path+1]; jump++) {
+				if(uniforms[jump] < probabilityOfJump) {
+					thinnedJumpTimeIndices[numberOfKeptJumps]	= jumpTimeIndices[jump];
+					thinnedJumpSizes[numberOfKeptJumps]			= jumpSizes[jump];
+					numberOfKeptJumps++;
+				}
+			}
+			thinnedFirstJumpOfPath[path+1] = numberOfKeptJumps;
+		}
+
+		return new JumpEvents(numberOfTimeSteps, thinnedFirstJumpOfPath,
+				Arrays.copyOf(thinnedJumpTimeIndices, numberOfKeptJumps), Arrays.copyOf(thinnedJumpSizes, numberOfKeptJumps));
+	}
+
+	/**
+	 * Returns the same jumps with transformed sizes.
+	 *
+	 * @param transform The transformation of the jump sizes.
+	 * @return The jump events with the transformed sizes.
+	 */
+	public JumpEvents getJumpEventsWithTransformedSizes(DoubleUnaryOperator transform) {
+		double[] transformedJumpSizes = new double[jumpSizes.length];
+		for(int jump=0; jump<jumpSizes.length; jump++) transformedJumpSizes[jump] = transform.applyAsDouble(jumpSizes[jump]);
+
+		return new JumpEvents(numberOfTimeSteps, firstJumpOfPath, jumpTimeIndices, transformedJumpSizes);
+	}
+
+	/**
+	 * Merges the jumps of two point processes on the same paths and time discretization (per path in the order of time).
+	 * The superposition of two independent compound Poisson processes with intensities \lambda<sub>1</sub>, \lambda<sub>2</sub>
+	 * and the same jump size distribution is a compound Poisson process with intensity \lambda<sub>1</sub> + \lambda<sub>2</sub>.
+	 *
+	 * @param jumpEvents1 The first jump events.
+	 * @param jumpEvents2 The second jump events.
+	 * @return The jump events containing the jumps of both.
+	 */
+	public static JumpEvents merge(JumpEvents jumpEvents1, JumpEvents jumpEvents2) {
+		if(jumpEvents1.numberOfPaths != jumpEvents2.numberOfPaths || jumpEvents1.numberOfTimeSteps != jumpEvents2.numberOfTimeSteps) {
+			throw new IllegalArgumentException("The jump events have a different number of paths or time steps.");
+		}
+
+		final int numberOfPaths = jumpEvents1.numberOfPaths;
+		int[]		mergedFirstJumpOfPath	= new int[numberOfPaths+1];
+		int[]		mergedJumpTimeIndices	= new int[jumpEvents1.getNumberOfJumps() + jumpEvents2.getNumberOfJumps()];
+		double[]	mergedJumpSizes			= new double[mergedJumpTimeIndices.length];
+		int numberOfMergedJumps = 0;
+		for(int path=0; path<numberOfPaths; path++) {
+			int jump1 = jumpEvents1.firstJumpOfPath[path];
+			int jump2 = jumpEvents2.firstJumpOfPath[path];
+			while(jump1 < jumpEvents1.firstJumpOfPath[path+1] || jump2 < jumpEvents2.firstJumpOfPath[path+1]) {
+				boolean isFirst = jump2 >= jumpEvents2.firstJumpOfPath[path+1]
+						|| (jump1 < jumpEvents1.firstJumpOfPath[path+1] && jumpEvents1.jumpTimeIndices[jump1] <= jumpEvents2.jumpTimeIndices[jump2]);
+				if(isFirst) {
+					mergedJumpTimeIndices[numberOfMergedJumps]	= jumpEvents1.jumpTimeIndices[jump1];
+					mergedJumpSizes[numberOfMergedJumps]		= jumpEvents1.jumpSizes[jump1++];
+				}
+				else {
+					mergedJumpTimeIndices[numberOfMergedJumps]	= jumpEvents2.jumpTimeIndices[jump2];
+					mergedJumpSizes[numberOfMergedJumps]		= jumpEvents2.jumpSizes[jump2++];
+				}
+				numberOfMergedJumps++;
+			}
+			mergedFirstJumpOfPath[path+1] = numberOfMergedJumps;
+		}
+
+		return new JumpEvents(jumpEvents1.numberOfTimeSteps, mergedFirstJumpOfPath, mergedJumpTimeIndices, mergedJumpSizes);
+	}
+
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	public int getNumberOfTimeSteps() {
+		return numberOfTimeSteps;
+	}
+
+	/**
+	 * @return The total number of jumps on all paths.
+	 */
+	public int getNumberOfJumps() {
+		return firstJumpOfPath[numberOfPaths];
+	}
+
+	/**
+	 * @param path The path.
+	 * @return The number of jumps on the given path.
+	 */
+	public int getNumberOfJumpsOnPath(int path) {
+		return firstJumpOfPath[path+1] - firstJumpOfPath[path];
+	}
+
+	/**
+	 * @param path The path.
+	 * @param jump The index of the jump on the path, 0 &le; jump &lt; getNumberOfJumpsOnPath(path).
+	 * @return The time index of the time step in which the jump happens.
+	 */
+	public int getJumpTimeIndex(int path, int jump) {
+		return jumpTimeIndices[firstJumpOfPath[path] + jump];
+	}
+
+	/**
+	 * @param path The path.
+	 * @param jump The index of the jump on the path, 0 &le; jump &lt; getNumberOfJumpsOnPath(path).
+	 * @return The size of the jump.
+	 */
+	public double getJumpSize(int path, int jump) {
+		return jumpSizes[firstJumpOfPath[path] + jump];
+	}
+
+	/**
+	 * @param timeIndex The index of the time step.
+	 * @return The number of jumps (on all paths) in the given time step.
+	 */
+	public int getNumberOfJumpsInTimeStep(int timeIndex) {
+		buildTimeStepView();
+		return firstJumpOfTimeStep[timeIndex+1] - firstJumpOfTimeStep[timeIndex];
+	}
+
+	/**
+	 * @param timeIndex The index of the time step.
+	 * @param jump The index of the jump in the time step, 0 &le; jump &lt; getNumberOfJumpsInTimeStep(timeIndex).
+	 * @return The path on which the jump happens. A path may appear more than once if it jumps more than once in the time step.
+	 */
+	public int getPathOfJumpInTimeStep(int timeIndex, int jump) {
+		buildTimeStepView();
+		return jumpPathsByTimeStep[firstJumpOfTimeStep[timeIndex] + jump];
+	}
+
+	/**
+	 * @param timeIndex The index of the time step.
+	 * @param jump The index of the jump in the time step, 0 &le; jump &lt; getNumberOfJumpsInTimeStep(timeIndex).
+	 * @return The size of the jump.
+	 */
+	public double getSizeOfJumpInTimeStep(int timeIndex, int jump) {
+		buildTimeStepView();
+		return jumpSizesByTimeStep[firstJumpOfTimeStep[timeIndex] + jump];
+	}
+
+	/**
+	 * Returns the jumps (on all paths) in a given time step as a sparse column, without copying them.
+	 *
+	 * @param timeIndex The index of the time step.
+	 * @return The view of the jumps in the given time step.
+	 */
+	public TimeStep getJumpsInTimeStep(int timeIndex) {
+		buildTimeStepView();
+		return new TimeStep(firstJumpOfTimeStep[timeIndex], firstJumpOfTimeStep[timeIndex+1]);
+	}
+
+	/**
+	 * Returns the value of the process at a given time index, i.e., the sum of all jumps before that time.
+	 *
+	 * @param timeIndex The time index.
+	 * @return The (dense) vector of the values on all paths.
+	 */
+	public double[] getValues(int timeIndex) {
+		double[] values = new double[numberOfPaths];
+		for(int path=0; path<numberOfPaths; path++) {
+			for(int jump=firstJumpOfPath[path]; jump<firstJumpOfPath[path+1] && jumpTimeIndices[jump] < timeIndex; jump++) {
+				values[path] += jumpSizes[jump];
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the increment of the process in a given time step, i.e., the sum of all jumps in that time step.
+	 *
+	 * @param timeIndex The index of the time step.
+	 * @return The (dense) vector of the increments on all paths.
+	 */
+	public double[] getIncrements(int timeIndex) {
+		buildTimeStepView();
+		double[] increments = new double[numberOfPaths];
+		for(int jump=firstJumpOfTimeStep[timeIndex]; jump<firstJumpOfTimeStep[timeIndex+1]; jump++) {
+			increments[jumpPathsByTimeStep[jump]] += jumpSizesByTimeStep[jump];
+		}
+		return increments;
+	}
+
+	/**
+	 * Builds the compressed column view by a counting sort of the jumps by time index.
+	 */
+	private void buildTimeStepView() {
+		if(firstJumpOfTimeStep != null) return;
+		synchronized(this) {
+			if(firstJumpOfTimeStep == null) doBuildTimeStepView();
+		}
+	}
+
+	private void doBuildTimeStepView() {
+		int numberOfJumps = getNumberOfJumps();
+		int[]		firstJump	= new int[numberOfTimeSteps+1];
+		int[]		paths		= new int[numberOfJumps];
+		double[]	sizes		= new double[numberOfJumps];
+
+		for(int jump=0; jump<numberOfJumps; jump++) firstJump[jumpTimeIndices[jump]+1]++;
+		for(int timeIndex=0; timeIndex<numberOfTimeSteps; timeIndex++) firstJump[timeIndex+1] += firstJump[timeIndex];
+
+		int[] position = Arrays.copyOf(firstJump, numberOfTimeSteps);
+		for(int path=0; path<numberOfPaths; path++) {
+			for(int jump=firstJumpOfPath[path]; jump<firstJumpOfPath[path+1]; jump++) {
+				int index = position[jumpTimeIndices[jump]]++;
+				paths[index] = path;
+				sizes[index] = jumpSizes[jump];
+			}
+		}
+
+		jumpPathsByTimeStep		= paths;
+		jumpSizesByTimeStep		= sizes;
+		firstJumpOfTimeStep		= firstJump;
+	}
+
+	/**
+	 * The jumps in one time step, i.e., one column of the compressed column view.
+	 * A path may appear more than once if it jumps more than once in the time step.
+	 */
+	public class TimeStep {
+		private final int firstJump;
+		private final int endOfJumps;
+
+		private TimeStep(int firstJump, int endOfJumps) {
+			this.firstJump	= firstJump;
+			this.endOfJumps	= endOfJumps;
+		}
+
+		public int getNumberOfJumps() {
+			return endOfJumps - firstJump;
+		}
+
+		/**
+		 * @param jump The index of the jump in the time step, 0 &le; jump &lt; getNumberOfJumps().
+		 * @return The path on which the jump happens.
+		 */
+		public int getPath(int jump) {
+			return jumpPathsByTimeStep[firstJump + jump];
+		}
+
+		/**
+		 * @param jump The index of the jump in the time step, 0 &le; jump &lt; getNumberOfJumps().
+		 * @return The size of the jump.
+		 */
+		public double getSize(int jump) {
+			return jumpSizesByTimeStep[firstJump + jump];
+		}
+
+		/**
+		 * Adds the jumps of the time step to a vector of values on all paths.
+		 *
+		 * @param values The values on all paths, modified in place.
+		 */
+		public void addTo(double[] values) {
+			for(int jump=firstJump; jump<endOfJumps; jump++) values[jumpPathsByTimeStep[jump]] += jumpSizesByTimeStep[jump];
+		}
+	}
+
+	/**
+	 * Collects the jumps of consecutive paths. The jumps of a path have to be added in the order of time.
+	 */
+	public static class Builder {
+		private final int numberOfTimeSteps;
+
+		private int[]		firstJumpOfPath	= new int[16];
+		private int[]		jumpTimeIndices	= new int[16];
+		private double[]	jumpSizes		= new double[16];
+		private int			numberOfPaths	= 0;
+		private int			numberOfJumps	= 0;
+
+		public Builder(int numberOfTimeSteps) {
+			this.numberOfTimeSteps = numberOfTimeSteps;
+		}
+
+		/**
+		 * Adds a jump to the current path.
+		 *
+		 * @param timeIndex The index of the time step in which the jump happens.
+		 * @param size The size of the jump.
+		 */
+		public void addJump(int timeIndex, double size) {
+			if(numberOfJumps == jumpTimeIndices.length) {
+				jumpTimeIndices	= Arrays.copyOf(jumpTimeIndices, 2 * numberOfJumps);
+				jumpSizes		= Arrays.copyOf(jumpSizes, 2 * numberOfJumps);
+			}
+			jumpTimeIndices[numberOfJumps]	= timeIndex;
+			jumpSizes[numberOfJumps]		= size;
+			numberOfJumps++;
+		}
+
+		/**
+		 * Completes the current path, subsequent jumps belong to the next path.
+		 */
+		public void endPath() {
+			if(numberOfPaths+2 > firstJumpOfPath.length) firstJumpOfPath = Arrays.copyOf(firstJumpOfPath, 2 * firstJumpOfPath.length);
+			numberOfPaths++;
+			firstJumpOfPath[numberOfPaths] = numberOfJumps;
+		}
+
+		public JumpEvents build() {
+			return new JumpEvents(numberOfTimeSteps,
+					Arrays.copyOf(firstJumpOfPath, numberOfPaths+1),
+					Arrays.copyOf(jumpTimeIndices, numberOfJumps),
+					Arrays.copyOf(jumpSizes, numberOfJumps));
+		}
+	}
+}
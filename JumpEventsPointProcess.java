@@ -0,0 +1,87 @@
+package projectTest;
+
+import java.util.function.Supplier;
+
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.stochastic.RandomVariableInterface;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements a point process with given jump events, e.g. the jumps of another process on a coarser time discretization.
+ * The jump events may be given directly or be derived from another process on first use (e.g. by thinning or by transforming the sizes).
+ *
+ * @author A V L
+ * @see JumpEvents
+ * @version 1.0
+ */
+public class JumpEventsPointProcess implements PointProcessInterface {
+
+	private final AbstractRandomVariableFactory randomVariableFactory = new RandomVariableFactory();
+
+	private final TimeDiscretizationInterface	timeDiscretization;
+
+	private JumpEvents				jumpEvents;
+	private PointProcessValues		values;
+	private Supplier<JumpEvents>	jumpEventsSupplier;
+	private final Object			jumpEventsLazyInitLock = new Object();
+
+	/**
+	 * @param jumpEvents The jump events.
+	 * @param timeDiscretization The time discretization of the jump events.
+	 */
+	public JumpEventsPointProcess(JumpEvents jumpEvents, TimeDiscretizationInterface timeDiscretization) {
+		super();
+		if(jumpEvents.getNumberOfTimeSteps() != timeDiscretization.getNumberOfTimeSteps()) {
+			throw new IllegalArgumentException("The jump events and the time discretization have a different number of time steps.");
+		}
+		this.jumpEvents = jumpEvents;
+		this.timeDiscretization = timeDiscretization;
+	}
+
+	/**
+	 * @param jumpEventsSupplier The supplier of the jump events, called once on first use.
+	 * @param timeDiscretization The time discretization of the jump events.
+	 */
+	public JumpEventsPointProcess(Supplier<JumpEvents> jumpEventsSupplier, TimeDiscretizationInterface timeDiscretization) {
+		super();
+		this.jumpEventsSupplier = jumpEventsSupplier;
+		this.timeDiscretization = timeDiscretization;
+	}
+
+	/**
+	 * The values are a running sum of the jumps, the value of the last requested time index is kept.
+	 */
+	@Override
+	public RandomVariableInterface getProcess(int timeIndex) {
+		return getValues().getValue(timeIndex);
+	}
+
+	/**
+	 * The increments are created from the jump events on every call; they are not stored.
+	 */
+	@Override
+	public RandomVariableInterface getProcessIncrements(int timeIndex) {
+		double time = timeDiscretization.getTime(timeIndex+1);
+		return randomVariableFactory.createRandomVariable(time, getJumpEvents().getIncrements(timeIndex));
+	}
+
+	private synchronized PointProcessValues getValues() {
+		if(values == null) values = new PointProcessValues(getJumpEvents(), timeDiscretization, randomVariableFactory);
+		return values;
+	}
+
+	@Override
+	public JumpEvents getJumpEvents() {
+		synchronized(jumpEventsLazyInitLock) {
+			if(jumpEvents == null) {
+				jumpEvents = jumpEventsSupplier.get();
+				jumpEventsSupplier = null;
+				if(jumpEvents.getNumberOfTimeSteps() != timeDiscretization.getNumberOfTimeSteps()) {
+					throw new IllegalArgumentException("The jump events and the time discretization have a different number of time steps.");
+				}
+			}
+		}
+		return jumpEvents;
+	}
+}
@@ -0,0 +1,47 @@
+package projectTest;
+
+import cern.jet.random.engine.RandomEngine;
+
+/**
+ * Interface for the distribution of the jump sizes Y of a compound Poisson process,
+ * where a jump multiplies the asset by (1 + Y).
+ *
+ * The sizes are sampled in batches, such that the transformation of the random numbers is a loop over an array.
+ *
+ * @author A V L
+ * @see CompoundPoissonProcess
+ * @version 1.0
+ */
+public interface JumpSizeDistributionInterface {
+
+	/**
+	 * Samples jump sizes, consuming random numbers of the given stream.
+	 *
+	 * @param jumpSizes The array receiving the jump sizes.
+	 * @param numberOfJumps The number of jump sizes to sample, stored in jumpSizes[0], ..., jumpSizes[numberOfJumps-1].
+	 * @param randomEngine The random number stream.
+	 */
+	void sample(double[] jumpSizes, int numberOfJumps, RandomEngine randomEngine);
+
+	/**
+	 * Returns the jump size for a uniform number by the inverse of the distribution function,
+	 * e.g. for quasi random numbers, where every jump has to consume exactly one coordinate.
+	 *
+	 * @param uniform A uniform number in (0,1).
+	 * @return The jump size.
+	 */
+	double getJumpSize(double uniform);
+
+	/**
+	 * Returns the antithetic jump size, i.e., the jump size for the uniform number 1-U if the given jump size is the one for U.
+	 *
+	 * @param jumpSize A jump size.
+	 * @return The antithetic jump size.
+	 */
+	double getAntitheticJumpSize(double jumpSize);
+
+	/**
+	 * @return The expectation E[Y] of the jump size.
+	 */
+	double getExpectation();
+}
@@ -0,0 +1,88 @@
+package projectTest;
+
+import cern.jet.random.engine.RandomEngine;
+import net.finmath.functions.NormalDistribution;
+
+/**
+ * This class implements log-normal jump sizes
+ * \[
+ * 	Y = \exp(\mu + \nu Z) - 1 \text{,}
+ * \]
+ * where Z is standard normal (the jumps of the Merton model).
+ *
+ * The normal numbers are generated pairwise by the polar method (no inverse of the normal distribution),
+ * the exponential is applied in a separate loop over the batch.
+ *
+ * @author A V L
+ * @see CompoundPoissonProcess
+ * @version 1.0
+ */
+public class LogNormalJumpSizeDistribution implements JumpSizeDistributionInterface {
+
+	private final double mean;
+	private final double standardDeviation;
+
+	/**
+	 * @param mean The mean \mu of log(1+Y).
+	 * @param standardDeviation The standard deviation \nu of log(1+Y).
+	 */
+	public LogNormalJumpSizeDistribution(double mean, double standardDeviation) {
+		super();
+		this.mean = mean;
+		this.standardDeviation = standardDeviation;
+	}
+
+	@Override
+	public void sample(double[] jumpSizes, int numberOfJumps, RandomEngine randomEngine) {
+		// Standard normal numbers, pairwise by the polar method
+		for(int jump=0; jump<numberOfJumps; jump+=2) {
+			double x, y, radiusSquared;
+			do {
+				x = 2.0 * randomEngine.nextDouble() - 1.0;
+				y = 2.0 * randomEngine.nextDouble() - 1.0;
+				radiusSquared = x * x + y * y;
+			} while(radiusSquared >= 1.0 || radiusSquared == 0.0);
+			double scale = Math.sqrt(-2.0 * Math.log(radiusSquared) / radiusSquared);
+
+			jumpSizes[jump] = x * scale;
+			if(jump+1 < numberOfJumps) jumpSizes[jump+1] = y * scale;
+		}
+
+		// Transformation to the jump sizes
+		for(int jump=0; jump<numberOfJumps; jump++) {
+			jumpSizes[jump] = Math.exp(mean + standardDeviation * jumpSizes[jump]) - 1.0;
+		}
+	}
+
+	@Override
+	public double getJumpSize(double uniform) {
+		return Math.exp(mean + standardDeviation * NormalDistribution.inverseCumulativeDistribution(uniform)) - 1.0;
+	}
+
+	/**
+	 * The antithetic jump size mirrors log(1+Y) at its mean, i.e., it is exp(2 \mu) / (1+Y) - 1.
+	 */
+	@Override
+	public double getAntitheticJumpSize(double jumpSize) {
+		return Math.exp(2.0 * mean) / (1.0 + jumpSize) - 1.0;
+	}
+
+	@Override
+	public double getExpectation() {
+		return Math.exp(mean + 0.5 * standardDeviation * standardDeviation) - 1.0;
+	}
+
+	/**
+	 * @return The mean \mu of log(1+Y).
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * @return The standard deviation \nu of log(1+Y).
+	 */
+	public double getStandardDeviation() {
+		return standardDeviation;
+	}
+}
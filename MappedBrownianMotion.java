@@ -0,0 +1,88 @@
+package projectTest;
+
+import java.nio.DoubleBuffer;
+
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.stochastic.RandomVariableInterface;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements a Brownian motion whose increments are read from a scenario file of the <code>ScenarioStore</code>.
+ *
+ * The increment of a time step is copied from the mapped file into a random variable on every request, only the increment of the
+ * last requested time step is kept (as for <code>StreamingBrownianMotion</code>), i.e., a forward pass copies every time step once.
+ * Clones with a modified seed or time discretization are <code>StreamingBrownianMotion</code>s, the clone with a modified time discretization
+ * with the seed of the file, i.e., they are generated again.
+ *
+ * @author A V L
+ * @see MappedScenarios
+ * @version 1.0
+ */
+public class MappedBrownianMotion implements BrownianMotionInterface {
+
+	private final MappedScenarios scenarios;
+
+	private final AbstractRandomVariableFactory randomVariableFactory = new RandomVariableFactory();
+
+	private transient int						lastTimeIndex = -1;
+	private transient RandomVariableInterface	lastBrownianIncrement;
+
+	/**
+	 * @param scenarios The scenarios providing the Brownian increments.
+	 */
+	public MappedBrownianMotion(MappedScenarios scenarios) {
+		super();
+		this.scenarios = scenarios;
+	}
+
+	@Override
+	public RandomVariableInterface getBrownianIncrement(int timeIndex, int factor) {
+		synchronized(this) {
+			if(timeIndex != lastTimeIndex) {
+				DoubleBuffer block = scenarios.getBrownianIncrementBlock(timeIndex);
+				double[] increments = new double[block.remaining()];
+				block.get(increments);
+				lastBrownianIncrement	= randomVariableFactory.createRandomVariable(getTimeDiscretization().getTime(timeIndex+1), increments);
+				lastTimeIndex			= timeIndex;
+			}
+			return lastBrownianIncrement;
+		}
+	}
+
+	@Override
+	public RandomVariableInterface getIncrement(int timeIndex, int factor) {
+		return getBrownianIncrement(timeIndex, factor);
+	}
+
+	@Override
+	public TimeDiscretizationInterface getTimeDiscretization() {
+		return scenarios.getTimeDiscretization();
+	}
+
+	@Override
+	public int getNumberOfFactors() {
+		return 1;
+	}
+
+	@Override
+	public int getNumberOfPaths() {
+		return scenarios.getNumberOfPaths();
+	}
+
+	@Override
+	public RandomVariableInterface getRandomVariableForConstant(double value) {
+		return randomVariableFactory.createRandomVariable(value);
+	}
+
+	@Override
+	public BrownianMotionInterface getCloneWithModifiedSeed(int seed) {
+		return new StreamingBrownianMotion(getTimeDiscretization(), 1 /* numberOfFactors */, getNumberOfPaths(), seed);
+	}
+
+	@Override
+	public BrownianMotionInterface getCloneWithModifiedTimeDiscretization(TimeDiscretizationInterface newTimeDiscretization) {
+		return new StreamingBrownianMotion(newTimeDiscretization, 1 /* numberOfFactors */, getNumberOfPaths(), scenarios.getSeed());
+	}
+}
@@ -0,0 +1,154 @@
+package projectTest;
+
+import java.nio.DoubleBuffer;
+import java.util.Map;
+
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.IndependentIncrementsInterface;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.montecarlo.model.AbstractModelInterface;
+import net.finmath.montecarlo.process.AbstractProcess;
+import net.finmath.montecarlo.process.AbstractProcessInterface;
+import net.finmath.stochastic.RandomVariableInterface;
+
+/**
+ * This class implements the paths of a jump diffusion read from a scenario file of the <code>ScenarioStore</code>.
+ *
+ * The values at a time index are copied from the mapped file into a random variable on every request, only the values of the
+ * last requested time index are kept, i.e., the heap holds one time index of the paths and only the pages of the requested time
+ * indices are loaded from disk. For an access without any copy, <code>getProcessBlock</code> returns the values as a view of the mapped file.
+ *
+ * The Brownian motion and the compound Poisson process are those of the file, such that a model created by
+ * <code>getCloneWithModifiedData</code> (e.g., for a bumped volatility) evolves an Euler scheme on the stored random numbers.
+ *
+ * @author A V L
+ * @see ScenarioStore
+ * @version 1.0
+ */
+public class MappedJumpDiffusionProcess extends AbstractProcess implements JumpDiffusionProcessInterface {
+
+	private final MappedScenarios			scenarios;
+	private final BrownianMotionInterface	brownianMotion;
+	private final PointProcessInterface		compoundPoissonProcess;
+
+	private final AbstractRandomVariableFactory randomVariableFactory = new RandomVariableFactory();
+
+	private transient int						lastTimeIndex = -1;
+	private transient RandomVariableInterface	lastProcessValue;
+	private transient RandomVariableInterface	monteCarloWeights;
+
+	private MonteCarloMertonJumpDiffusionModel model;
+
+	/**
+	 * @param scenarios The scenarios providing the paths.
+	 */
+	public MappedJumpDiffusionProcess(MappedScenarios scenarios) {
+		super(scenarios.getTimeDiscretization());
+		this.scenarios				= scenarios;
+		this.brownianMotion			= new MappedBrownianMotion(scenarios);
+		this.compoundPoissonProcess	= new JumpEventsPointProcess(scenarios::getJumpEvents, scenarios.getTimeDiscretization());
+	}
+
+	@Override
+	public void setModel(AbstractModelInterface model) {
+		super.setModel(model);
+		this.model = model instanceof MonteCarloMertonJumpDiffusionModel ? (MonteCarloMertonJumpDiffusionModel)model : null;
+	}
+
+	/**
+	 * @param timeIndex The time index.
+	 * @return The values of the process on all paths at the time index, as a read-only view of the mapped file.
+	 */
+	public DoubleBuffer getProcessBlock(int timeIndex) {
+		return scenarios.getProcessBlock(timeIndex);
+	}
+
+	/**
+	 * @return The scenarios providing the paths.
+	 */
+	public MappedScenarios getScenarios() {
+		return scenarios;
+	}
+
+	@Override
+	public RandomVariableInterface getProcessValue(int timeIndex, int componentIndex) {
+		synchronized(this) {
+			if(timeIndex != lastTimeIndex) {
+				DoubleBuffer block = scenarios.getProcessBlock(timeIndex);
+				double[] values = new double[block.remaining()];
+				block.get(values);
+				lastProcessValue	= randomVariableFactory.createRandomVariable(getTimeDiscretization().getTime(timeIndex), values);
+				lastTimeIndex		= timeIndex;
+			}
+			return lastProcessValue;
+		}
+	}
+
+	@Override
+	public RandomVariableInterface getMonteCarloWeights(int timeIndex) {
+		synchronized(this) {
+			if(monteCarloWeights == null) monteCarloWeights = brownianMotion.getRandomVariableForConstant(1.0 / getNumberOfPaths());
+			return monteCarloWeights;
+		}
+	}
+
+	@Override
+	public int getNumberOfPaths() {
+		return scenarios.getNumberOfPaths();
+	}
+
+	@Override
+	public int getNumberOfFactors() {
+		return 1;
+	}
+
+	@Override
+	public BrownianMotionInterface getBrownianMotion() {
+		return brownianMotion;
+	}
+
+	@Override
+	public IndependentIncrementsInterface getStochasticDriver() {
+		return getBrownianMotion();
+	}
+
+	@Override
+	public PointProcessInterface getCompoundPoissonProcess() {
+		return compoundPoissonProcess;
+	}
+
+	/* (non-Javadoc)
+	 * @see net.finmath.montecarlo.process.AbstractProcess#clone()
+	 */
+	@Override
+	public MappedJumpDiffusionProcess clone() {
+		return new MappedJumpDiffusionProcess(scenarios);
+	}
+
+	/* (non-Javadoc)
+	 * @see net.finmath.montecarlo.process.AbstractProcess#getCloneWithModifiedSeed(int)
+	 */
+	@Override
+	public Object getCloneWithModifiedSeed(int seed) {
+		// New random numbers for the parameters of the file (S0, r, sigma, lambda, mu, nu)
+		double[] parameters = scenarios.getParameters();
+		return new MertonJumpDiffusionProcessEulerScheme(brownianMotion.getCloneWithModifiedSeed(seed),
+				new CompoundPoissonProcess(parameters[3], parameters[4], parameters[5], getTimeDiscretization(), getNumberOfPaths(), MonteCarloMertonJumpDiffusionModel.getSeedOfJumps(seed), true /* isParallel */));
+	}
+
+	/**
+	 * Returns the process of the model with modified data (see <code>MonteCarloMertonJumpDiffusionModel.getCloneWithModifiedData</code>).
+	 *
+	 * @param dataModified Key-value-map of parameters to modify.
+	 * @return The process of the model with the modified data.
+	 * @throws IllegalStateException Thrown if the process is not linked to a <code>MonteCarloMertonJumpDiffusionModel</code>.
+	 */
+	@Override
+	public AbstractProcessInterface getCloneWithModifiedData(Map<String, Object> dataModified) {
+		if(model == null) {
+			throw new IllegalStateException("The process is not linked to a MonteCarloMertonJumpDiffusionModel.");
+		}
+		return model.getCloneWithModifiedData(dataModified).getProcess();
+	}
+}
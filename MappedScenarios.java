@@ -0,0 +1,217 @@
+package projectTest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements the read access to a scenario file of the <code>ScenarioStore</code> through memory mapped buffers.
+ *
+ * The file is columnar (little endian), with the sections
+ * <ol>
+ * 	<li>the header (96 bytes): magic number, format version, number of paths, number of times, seed, key, number of jumps
+ * 	and the model parameters S<sub>0</sub>, r, \sigma, \lambda, \mu, \nu,</li>
+ * 	<li>the times of the time discretization,</li>
+ * 	<li>the process, one contiguous block of <code>numberOfPaths</code> doubles per time index,</li>
+ * 	<li>the Brownian increments, one contiguous block of <code>numberOfPaths</code> doubles per time step,</li>
+ * 	<li>the jump events in compressed sparse row layout: the jump sizes (doubles), the index of the first jump of every path
+ * 	and the time indices of the jumps (ints).</li>
+ * </ol>
+ * The blocks are mapped in segments of at most 1 GB (a block never spans two segments), such that files beyond 2 GB can be mapped.
+ * A block is returned as a read-only <code>DoubleBuffer</code> view of the mapped file, i.e., without copying; the pages are loaded
+ * by the operating system on access and shared by all processes mapping the same file.
+ *
+ * @author A V L
+ * @see ScenarioStore
+ * @version 1.0
+ */
+public class MappedScenarios {
+
+	static final long	MAGIC_NUMBER	= 0x4D4552544F4E5343L;	// "MERTONSC"
+	static final int	FORMAT_VERSION	= 3;	// 2: the jumps are drawn from the stream MonteCarloMertonJumpDiffusionModel.getSeedOfJumps, 3: the Brownian increments are those of StreamingBrownianMotion
+	static final int	HEADER_SIZE		= 96;
+
+	private static final long MAXIMUM_SEGMENT_SIZE = 1L << 30;
+
+	private final int		numberOfPaths;
+	private final int		seed;
+	private final long		key;
+	private final double[]	parameters;
+
+	private final TimeDiscretizationInterface timeDiscretization;
+
+	private final ByteBuffer[]	processSegments;
+	private final ByteBuffer[]	brownianIncrementSegments;
+	private final int			blocksPerSegment;
+
+	private final FileChannel	channel;
+	private final long			jumpEventsOffset;
+	private final long			numberOfJumps;
+
+	private JumpEvents		jumpEvents;
+	private final Object	jumpEventsLazyInitLock = new Object();
+
+	private MappedScenarios(FileChannel channel) throws IOException {
+		this.channel = channel;
+
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		if(header.getLong(0) != MAGIC_NUMBER || header.getInt(8) != FORMAT_VERSION) {
+			throw new IOException("The file is not a scenario file of format version " + FORMAT_VERSION + ".");
+		}
+		numberOfPaths		= header.getInt(12);
+		int numberOfTimes	= header.getInt(16);
+		seed				= header.getInt(20);
+		key					= header.getLong(24);
+		numberOfJumps		= header.getLong(32);
+		parameters = new double[6];
+		for(int parameter=0; parameter<parameters.length; parameter++) parameters[parameter] = header.getDouble(40 + 8 * parameter);
+
+		// Times
+		DoubleBuffer timesBuffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, 8L * numberOfTimes).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		double[] times = new double[numberOfTimes];
+		timesBuffer.get(times);
+		timeDiscretization = new TimeDiscretization(times);
+
+		// Blocks of the process and of the Brownian increments
+		final long blockSize = 8L * numberOfPaths;
+		blocksPerSegment = (int)Math.max(1, MAXIMUM_SEGMENT_SIZE / blockSize);
+		long processOffset				= HEADER_SIZE + 8L * numberOfTimes;
+		long brownianIncrementOffset	= processOffset + numberOfTimes * blockSize;
+		processSegments				= mapBlocks(processOffset, numberOfTimes, blockSize);
+		brownianIncrementSegments	= mapBlocks(brownianIncrementOffset, numberOfTimes - 1, blockSize);
+		jumpEventsOffset = brownianIncrementOffset + (numberOfTimes - 1) * blockSize;
+
+		if(channel.size() != getFileSize(numberOfPaths, numberOfTimes, numberOfJumps)) {
+			throw new IOException("The scenario file is incomplete.");
+		}
+	}
+
+	/**
+	 * Opens a scenario file.
+	 *
+	 * @param file The file.
+	 * @return The scenarios of the file.
+	 * @throws IOException Thrown if the file cannot be read or is not a (complete) scenario file.
+	 */
+	public static MappedScenarios open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return new MappedScenarios(channel);
+		}
+		catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return The size of a scenario file in bytes.
+	 */
+	static long getFileSize(int numberOfPaths, int numberOfTimes, long numberOfJumps) {
+		return HEADER_SIZE + 8L * numberOfTimes + 8L * numberOfPaths * (2L * numberOfTimes - 1)
+				+ 8L * numberOfJumps + 4L * (numberOfPaths + 1) + 4L * numberOfJumps;
+	}
+
+	private ByteBuffer[] mapBlocks(long offset, int numberOfBlocks, long blockSize) throws IOException {
+		ByteBuffer[] segments = new ByteBuffer[(numberOfBlocks + blocksPerSegment - 1) / blocksPerSegment];
+		for(int segment=0; segment<segments.length; segment++) {
+			int blocksInSegment = Math.min(blocksPerSegment, numberOfBlocks - segment * blocksPerSegment);
+			segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, offset + segment * blocksPerSegment * blockSize, blocksInSegment * blockSize);
+		}
+		return segments;
+	}
+
+	private DoubleBuffer getBlock(ByteBuffer[] segments, int block) {
+		ByteBuffer segment = segments[block / blocksPerSegment].duplicate();
+		int position = (block % blocksPerSegment) * 8 * numberOfPaths;
+		segment.position(position);
+		segment.limit(position + 8 * numberOfPaths);
+		return segment.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().asReadOnlyBuffer();
+	}
+
+	/**
+	 * @param timeIndex The time index.
+	 * @return The values of the process on all paths at the time index (a view of the mapped file).
+	 */
+	public DoubleBuffer getProcessBlock(int timeIndex) {
+		return getBlock(processSegments, timeIndex);
+	}
+
+	/**
+	 * @param timeIndex The time index of the start of the time step.
+	 * @return The Brownian increments on all paths of the time step (a view of the mapped file).
+	 */
+	public DoubleBuffer getBrownianIncrementBlock(int timeIndex) {
+		return getBlock(brownianIncrementSegments, timeIndex);
+	}
+
+	/**
+	 * The jump events are read from the file on first use.
+	 *
+	 * @return The jump events.
+	 */
+	public JumpEvents getJumpEvents() {
+		synchronized(jumpEventsLazyInitLock) {
+			if(jumpEvents == null) {
+				try {
+					long sizeOfJumpSizes = 8L * numberOfJumps, sizeOfFirstJumpOfPath = 4L * (numberOfPaths + 1);
+					DoubleBuffer jumpSizesBuffer = channel.map(FileChannel.MapMode.READ_ONLY, jumpEventsOffset, sizeOfJumpSizes).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+					IntBuffer firstJumpOfPathBuffer = channel.map(FileChannel.MapMode.READ_ONLY, jumpEventsOffset + sizeOfJumpSizes, sizeOfFirstJumpOfPath).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+					IntBuffer jumpTimeIndicesBuffer = channel.map(FileChannel.MapMode.READ_ONLY, jumpEventsOffset + sizeOfJumpSizes + sizeOfFirstJumpOfPath, 4L * numberOfJumps).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+					double[]	jumpSizes		= new double[(int)numberOfJumps];
+					int[]		firstJumpOfPath	= new int[numberOfPaths + 1];
+					int[]		jumpTimeIndices	= new int[(int)numberOfJumps];
+					jumpSizesBuffer.get(jumpSizes);
+					firstJumpOfPathBuffer.get(firstJumpOfPath);
+					jumpTimeIndicesBuffer.get(jumpTimeIndices);
+					jumpEvents = new JumpEvents(timeDiscretization.getNumberOfTimeSteps(), firstJumpOfPath, jumpTimeIndices, jumpSizes);
+				}
+				catch(IOException e) {
+					throw new IllegalStateException("Reading the jump events of the scenario file failed.", e);
+				}
+			}
+		}
+		return jumpEvents;
+	}
+
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	public TimeDiscretizationInterface getTimeDiscretization() {
+		return timeDiscretization;
+	}
+
+	public int getSeed() {
+		return seed;
+	}
+
+	public long getKey() {
+		return key;
+	}
+
+	/**
+	 * @return The model parameters S<sub>0</sub>, r, \sigma, \lambda, \mu, \nu of the scenarios.
+	 */
+	public double[] getParameters() {
+		return parameters.clone();
+	}
+
+	/**
+	 * Closes the file. The mapped buffers stay valid until they are garbage collected.
+	 *
+	 * @throws IOException Thrown if closing the file fails.
+	 */
+	public void close() throws IOException {
+		channel.close();
+	}
+}
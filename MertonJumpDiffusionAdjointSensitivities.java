@@ -0,0 +1,282 @@
+package projectTest;
+
+import java.util.stream.IntStream;
+
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.stochastic.RandomVariableInterface;
+
+/**
+ * This class implements the sensitivities of the value of a European call option and of the profit and loss of its Black-Scholes
+ * delta hedge to all inputs of a <code>MonteCarloMertonJumpDiffusionModel</code> by adjoint (reverse-mode) algorithmic differentiation.
+ *
+ * For every path the Euler scheme of <code>MertonJumpDiffusionProcessEulerScheme</code> and the hedge of
+ * <code>BlackScholesHedgedPortfolioWithModifiedTimeDiscretization</code> are recorded on an <code>AdjointTape</code>
+ * (on the Brownian increments and jumps of the model) and one reverse sweep per output gives the derivatives with respect to
+ * <ul>
+ * 	<li>the initial value, the risk free rate and the volatility of the model, where the volatility is an input for every time step
+ * 	(the derivatives with respect to these are the vegas of the time buckets, their sum is the vega),</li>
+ * 	<li>the mean \mu and the standard deviation \nu of log(1+Y), where the jump sizes are \( Y = \exp(\mu + \nu Z) - 1 \) for the
+ * 	normal Z of the generated jumps,</li>
+ * 	<li>the risk free rate and the volatility assumed by the hedge.</li>
+ * </ul>
+ * The jump times do not depend continuously on the intensity, hence there is no pathwise derivative with respect to the intensity
+ * (see <code>MertonJumpDiffusionGreeks</code> for the likelihood ratio estimator).
+ *
+ * The profit and loss of the hedge is the value of the replication portfolio minus the payoff of the option at maturity,
+ * both discounted to time 0. All values and derivatives are averages over the paths.
+ *
+ * @author A V L
+ * @see AdjointTape
+ * @see MertonJumpDiffusionGreeks
+ * @version 1.0
+ */
+public class MertonJumpDiffusionAdjointSensitivities {
+
+	public enum Output {
+		OPTION_VALUE,
+		HEDGE_PROFIT_AND_LOSS
+	}
+
+	public enum Input {
+		INITIAL_VALUE,
+		RISK_FREE_RATE,
+		VOLATILITY,
+		JUMP_MEAN,
+		JUMP_VARIANCE,
+		HEDGE_RISK_FREE_RATE,
+		HEDGE_VOLATILITY
+	}
+
+	/**
+	 * The values and the derivatives of the outputs.
+	 */
+	public static class Sensitivities {
+		private final double[]		values;
+		private final double[][]	derivatives;
+		private final double[][]	volatilityBucketDerivatives;
+
+		private Sensitivities(double[] values, double[][] derivatives, double[][] volatilityBucketDerivatives) {
+			this.values = values;
+			this.derivatives = derivatives;
+			this.volatilityBucketDerivatives = volatilityBucketDerivatives;
+		}
+
+		public double getValue(Output output) {
+			return values[output.ordinal()];
+		}
+
+		public double getDerivative(Output output, Input input) {
+			return derivatives[output.ordinal()][input.ordinal()];
+		}
+
+		/**
+		 * @param output The output.
+		 * @return The derivatives with respect to the volatility of the time steps 0, ..., m-1 until maturity.
+		 */
+		public double[] getVolatilityBucketDerivatives(Output output) {
+			return volatilityBucketDerivatives[output.ordinal()].clone();
+		}
+	}
+
+	// Properties of the European option
+	private final double maturity;
+	private final double strike;
+
+	// Assumptions of the hedge
+	private final double hedgeRiskFreeRate;
+	private final double hedgeVolatility;
+	private final double numberOfHedgingTimes;
+
+	private final boolean isParallel;
+
+	/**
+	 * @param maturity Maturity of the option.
+	 * @param strike Strike of the option.
+	 * @param hedgeRiskFreeRate Model riskFreeRate assumption for the delta hedge.
+	 * @param hedgeVolatility Model volatility assumption for the delta hedge.
+	 * @param numberOfHedgingTimes The number of hedging times (as in <code>BlackScholesHedgedPortfolioWithModifiedTimeDiscretization</code>).
+	 * @param isParallel If true, the blocks of paths are differentiated in parallel (this does not change the result).
+	 */
+	public MertonJumpDiffusionAdjointSensitivities(double maturity, double strike, double hedgeRiskFreeRate, double hedgeVolatility,
+			double numberOfHedgingTimes, boolean isParallel) {
+		super();
+		this.maturity = maturity;
+		this.strike = strike;
+		this.hedgeRiskFreeRate = hedgeRiskFreeRate;
+		this.hedgeVolatility = hedgeVolatility;
+		this.numberOfHedgingTimes = numberOfHedgingTimes;
+		this.isParallel = isParallel;
+	}
+
+	/**
+	 * @param model The model providing the Brownian increments and the jumps.
+	 * @return The values and the derivatives of the outputs.
+	 */
+	public Sensitivities getSensitivities(final MonteCarloMertonJumpDiffusionModel model) {
+		final int numberOfPaths			= model.getNumberOfPaths();
+		final int timeIndexOfMaturity	= model.getTimeIndex(maturity);
+		final int numberOfOutputs		= Output.values().length;
+		final int numberOfInputs		= Input.values().length;
+		final int[] rebalancingTimeIndices = BlackScholesHedgeSimulator.getRebalancingTimeIndices(
+				model.getTimeDiscretization().getNumberOfTimeSteps(), numberOfHedgingTimes, timeIndexOfMaturity);
+
+		final BrownianMotionInterface brownianMotion = model.getProcess().getBrownianMotion();
+		final RandomVariableInterface[] brownianIncrements = new RandomVariableInterface[timeIndexOfMaturity];
+		for(int timeIndex=0; timeIndex<timeIndexOfMaturity; timeIndex++) brownianIncrements[timeIndex] = brownianMotion.getBrownianIncrement(timeIndex, 0);
+		final JumpEvents jumpEvents = model.getCompoundPoissonProcess().getJumpEvents();
+
+		/*
+		 * Every block of paths has its own tape and sums, the sums of the blocks are added in the order of the blocks.
+		 */
+		final int numberOfBlocks = PathBlocks.getNumberOfBlocks(numberOfPaths);
+		final double[][] sumsOfBlocks = new double[numberOfBlocks][];
+		IntStream blockIndices = IntStream.range(0, numberOfBlocks);
+		if(isParallel) blockIndices = blockIndices.parallel();
+		blockIndices.forEach(blockIndex -> {
+			int firstPath	= blockIndex * PathBlocks.NUMBER_OF_PATHS_PER_BLOCK;
+			int lastPath	= Math.min(firstPath + PathBlocks.NUMBER_OF_PATHS_PER_BLOCK, numberOfPaths);
+
+			AdjointTape tape = new AdjointTape(16 * (timeIndexOfMaturity + rebalancingTimeIndices.length + 16));
+			int[] inputs = new int[numberOfInputs];
+			int[] volatilities = new int[timeIndexOfMaturity];
+			int[] underlying = new int[timeIndexOfMaturity + 1];
+
+			// Per output: the value, the derivatives with respect to the inputs and to the volatility buckets
+			double[] sums = new double[numberOfOutputs * (1 + numberOfInputs + timeIndexOfMaturity)];
+			for(int path=firstPath; path<lastPath; path++) {
+				tape.reset();
+				int[] outputs = recordPath(tape, model, path, timeIndexOfMaturity, rebalancingTimeIndices, brownianIncrements, jumpEvents, inputs, volatilities, underlying);
+
+				for(int output=0; output<numberOfOutputs; output++) {
+					int offset = output * (1 + numberOfInputs + timeIndexOfMaturity);
+					tape.reverse(outputs[output]);
+					sums[offset] += tape.getValue(outputs[output]);
+					for(int input=0; input<numberOfInputs; input++) {
+						if(input == Input.VOLATILITY.ordinal()) continue;
+						sums[offset + 1 + input] += tape.getAdjoint(inputs[input]);
+					}
+					for(int timeIndex=0; timeIndex<timeIndexOfMaturity; timeIndex++) {
+						double volatilityBucketDerivative = tape.getAdjoint(volatilities[timeIndex]);
+						sums[offset + 1 + numberOfInputs + timeIndex]	+= volatilityBucketDerivative;
+						sums[offset + 1 + Input.VOLATILITY.ordinal()]	+= volatilityBucketDerivative;
+					}
+				}
+			}
+			sumsOfBlocks[blockIndex] = sums;
+		});
+
+		double[]	values = new double[numberOfOutputs];
+		double[][]	derivatives = new double[numberOfOutputs][numberOfInputs];
+		double[][]	volatilityBucketDerivatives = new double[numberOfOutputs][timeIndexOfMaturity];
+		for(double[] sums : sumsOfBlocks) {
+			for(int output=0; output<numberOfOutputs; output++) {
+				int offset = output * (1 + numberOfInputs + timeIndexOfMaturity);
+				values[output] += sums[offset] / numberOfPaths;
+				for(int input=0; input<numberOfInputs; input++) derivatives[output][input] += sums[offset + 1 + input] / numberOfPaths;
+				for(int timeIndex=0; timeIndex<timeIndexOfMaturity; timeIndex++) volatilityBucketDerivatives[output][timeIndex] += sums[offset + 1 + numberOfInputs + timeIndex] / numberOfPaths;
+			}
+		}
+
+		return new Sensitivities(values, derivatives, volatilityBucketDerivatives);
+	}
+
+	/**
+	 * Records the Euler scheme and the hedge of one path on the tape.
+	 *
+	 * @return The nodes of the outputs.
+	 */
+	private int[] recordPath(AdjointTape tape, MonteCarloMertonJumpDiffusionModel model, int path, int timeIndexOfMaturity, int[] rebalancingTimeIndices,
+			RandomVariableInterface[] brownianIncrements, JumpEvents jumpEvents, int[] inputs, int[] volatilities, int[] underlying) {
+
+		// Inputs
+		inputs[Input.INITIAL_VALUE.ordinal()]			= tape.newVariable(model.getInitialAssetValue());
+		inputs[Input.RISK_FREE_RATE.ordinal()]			= tape.newVariable(model.getRiskFreeRate());
+		inputs[Input.JUMP_MEAN.ordinal()]				= tape.newVariable(model.getJumpMean());
+		inputs[Input.JUMP_VARIANCE.ordinal()]			= tape.newVariable(model.getJumpVariance());
+		inputs[Input.HEDGE_RISK_FREE_RATE.ordinal()]	= tape.newVariable(hedgeRiskFreeRate);
+		inputs[Input.HEDGE_VOLATILITY.ordinal()]		= tape.newVariable(hedgeVolatility);
+		for(int timeIndex=0; timeIndex<timeIndexOfMaturity; timeIndex++) volatilities[timeIndex] = tape.newVariable(model.getVolatility());
+
+		final int riskFreeRate	= inputs[Input.RISK_FREE_RATE.ordinal()];
+		final int jumpMean		= inputs[Input.JUMP_MEAN.ordinal()];
+		final int jumpVariance	= inputs[Input.JUMP_VARIANCE.ordinal()];
+
+		/*
+		 * Euler scheme S(t_{i+1}) = S(t_{i}) + r S(t_{i}) dt + sigma_{i} S(t_{i}) dW + S(t_{i}) sum of Y
+		 */
+		underlying[0] = inputs[Input.INITIAL_VALUE.ordinal()];
+		int jump = 0;
+		final int numberOfJumpsOnPath = jumpEvents.getNumberOfJumpsOnPath(path);
+		for(int timeIndex=0; timeIndex<timeIndexOfMaturity; timeIndex++) {
+			double deltaT = model.getTime(timeIndex + 1) - model.getTime(timeIndex);
+			int value = underlying[timeIndex];
+			int drift		= tape.mult(tape.mult(value, riskFreeRate), deltaT);
+			int diffusion	= tape.mult(tape.mult(value, volatilities[timeIndex]), brownianIncrements[timeIndex].get(path));
+			int nextValue	= tape.add(tape.add(value, drift), diffusion);
+
+			for(; jump<numberOfJumpsOnPath && jumpEvents.getJumpTimeIndex(path, jump) == timeIndex; jump++) {
+				// Recover the normal Z of the jump size Y = exp(mu + nu Z) - 1
+				double normal = model.getJumpVariance() > 0 ? (Math.log(1.0 + jumpEvents.getJumpSize(path, jump)) - model.getJumpMean()) / model.getJumpVariance() : 0.0;
+				int jumpSize = tape.add(tape.exp(tape.add(jumpMean, tape.mult(jumpVariance, normal))), -1.0);
+				nextValue = tape.add(nextValue, tape.mult(value, jumpSize));
+			}
+			underlying[timeIndex + 1] = nextValue;
+		}
+
+		/*
+		 * Delta hedge, initialized with the Black-Scholes value of the option
+		 */
+		final int hedgeRate			= inputs[Input.HEDGE_RISK_FREE_RATE.ordinal()];
+		final int hedgeVolatility	= inputs[Input.HEDGE_VOLATILITY.ordinal()];
+		final double timeOfMaturity = model.getTime(timeIndexOfMaturity);
+
+		int numeraireToday = tape.exp(tape.mult(riskFreeRate, model.getTime(0)));
+		int amountOfNumeraireAsset	= tape.div(getBlackScholesValue(tape, underlying[0], hedgeRate, hedgeVolatility, maturity), numeraireToday);
+		int amountOfUnderlyingAsset	= tape.newVariable(0.0);
+		for(int timeIndex : rebalancingTimeIndices) {
+			double remainingTime = maturity - model.getTime(timeIndex);
+			int delta = remainingTime < 0 ? tape.newVariable(0.0) : getBlackScholesDelta(tape, underlying[timeIndex], hedgeRate, hedgeVolatility, remainingTime);
+			int numeraire = tape.exp(tape.mult(riskFreeRate, model.getTime(timeIndex)));
+
+			int stocksToBuy = tape.sub(delta, amountOfUnderlyingAsset);
+			amountOfNumeraireAsset	= tape.sub(amountOfNumeraireAsset, tape.div(tape.mult(stocksToBuy, underlying[timeIndex]), numeraire));
+			amountOfUnderlyingAsset	= delta;
+		}
+
+		/*
+		 * Outputs discounted to time 0
+		 */
+		int numeraireAtMaturity = tape.exp(tape.mult(riskFreeRate, timeOfMaturity));
+		int payoff = tape.max(tape.add(underlying[timeIndexOfMaturity], -strike), 0.0);
+		int portfolioValue = tape.add(tape.mult(amountOfNumeraireAsset, numeraireAtMaturity), tape.mult(amountOfUnderlyingAsset, underlying[timeIndexOfMaturity]));
+
+		int[] outputs = new int[Output.values().length];
+		outputs[Output.OPTION_VALUE.ordinal()]			= tape.div(tape.mult(payoff, numeraireToday), numeraireAtMaturity);
+		outputs[Output.HEDGE_PROFIT_AND_LOSS.ordinal()]	= tape.div(tape.mult(tape.sub(portfolioValue, payoff), numeraireToday), numeraireAtMaturity);
+		return outputs;
+	}
+
+	/**
+	 * Records <code>AnalyticFormulas.blackScholesGeneralizedOptionValue(S exp(r T), sigma, T, K, exp(-r T))</code>.
+	 */
+	private int getBlackScholesValue(AdjointTape tape, int underlying, int riskFreeRate, int volatility, double optionMaturity) {
+		int discountFactor	= tape.exp(tape.mult(riskFreeRate, -optionMaturity));
+		int forward			= tape.div(underlying, discountFactor);
+		int volatilityOfMaturity = tape.mult(volatility, Math.sqrt(optionMaturity));
+
+		int dPlus	= tape.div(tape.add(tape.log(tape.mult(forward, 1.0 / strike)), tape.mult(tape.mult(volatilityOfMaturity, volatilityOfMaturity), 0.5)), volatilityOfMaturity);
+		int dMinus	= tape.sub(dPlus, volatilityOfMaturity);
+
+		int undiscountedValue = tape.sub(tape.mult(forward, tape.cumulativeNormal(dPlus)), tape.mult(tape.cumulativeNormal(dMinus), strike));
+		return tape.mult(undiscountedValue, discountFactor);
+	}
+
+	/**
+	 * Records the delta of <code>DeltaHedgeKernel.calculateDelta</code>.
+	 */
+	private int getBlackScholesDelta(AdjointTape tape, int underlying, int riskFreeRate, int volatility, double remainingTime) {
+		int driftTerm	= tape.mult(tape.add(tape.mult(tape.mult(volatility, volatility), 0.5), riskFreeRate), remainingTime);
+		int dPlus		= tape.div(tape.add(tape.log(tape.mult(underlying, 1.0 / strike)), driftTerm), tape.mult(volatility, Math.sqrt(remainingTime)));
+		return tape.cumulativeNormal(dPlus);
+	}
+}
@@ -0,0 +1,296 @@
+package projectTest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.finmath.functions.NormalDistribution;
+
+/**
+ * This class implements the analytic valuation of European options under the Merton jump diffusion model
+ * \[
+ * 	dS = r S dt + \sigma S dW + S dJ \text{,}
+ * \]
+ * where J is a compound Poisson process with intensity \lambda and jumps \( \exp(\mu + \nu Z) - 1 \), Z normally distributed
+ * (the same model and parameters as <code>MonteCarloMertonJumpDiffusionModel</code>).
+ *
+ * Conditional on n jumps until maturity T, log S(T) is normally distributed, such that the option value is the Poisson weighted series
+ * \[
+ * 	V = \sum_{n \geq 0} e^{-\lambda T} \frac{(\lambda T)^n}{n!} V^{BS}(F_{n}, \sigma_{n}, T, K) \text{,} \quad
+ * 	F_{n} = S_{0} e^{r T} (1+k)^n \text{,} \quad \sigma_{n}^2 = \sigma^2 + \frac{n \nu^2}{T} \text{,}
+ * \]
+ * with \( k = \exp(\mu + \frac{1}{2} \nu^2) - 1 \) and V<sup>BS</sup> the Black-Scholes value with discount factor \( e^{-r T} \).
+ *
+ * The series is truncated adaptively once the remaining Poisson probability is below a tolerance.
+ * The terms of the series (Poisson weights, forward factors and jump variances) depend on (maturity, intensity, jumpMean, jumpVariance) only
+ * and are cached, such that a whole strike grid (and any volatility) reuses them.
+ *
+ * @author A V L
+ * @see MonteCarloMertonJumpDiffusionModel
+ * @version 1.0
+ */
+public class MertonJumpDiffusionAnalyticPricer {
+
+	private static final double	TRUNCATION_TOLERANCE		= 1E-14;
+	private static final int	MAXIMUM_NUMBER_OF_TERMS		= 10000;
+	private static final int	MAXIMUM_NUMBER_OF_CACHED	= 1024;
+
+	private static final Map<SeriesKey, SeriesTerms> seriesTermsCache = new LinkedHashMap<SeriesKey, SeriesTerms>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<SeriesKey, SeriesTerms> eldest) {
+			return size() > MAXIMUM_NUMBER_OF_CACHED;
+		}
+	};
+
+	private final double initialValue;
+	private final double riskFreeRate;
+	private final double volatility;
+	private final double poissonIntensity;
+	private final double jumpMean;
+	private final double jumpVariance;
+
+	/**
+	 * @param initialValue Spot value.
+	 * @param riskFreeRate The risk free rate.
+	 * @param volatility The log volatility.
+	 * @param poissonIntensity The intensity of the Poisson Process
+	 * @param jumpMean The mean and variance of the jumps
+	 * @param jumpVariance exp (mean + variance * Z) - 1,  Z normally distributed
+	 */
+	public MertonJumpDiffusionAnalyticPricer(double initialValue, double riskFreeRate, double volatility,
+			double poissonIntensity, double jumpMean, double jumpVariance) {
+		super();
+		this.initialValue		= initialValue;
+		this.riskFreeRate		= riskFreeRate;
+		this.volatility			= volatility;
+		this.poissonIntensity	= poissonIntensity;
+		this.jumpMean			= jumpMean;
+		this.jumpVariance		= jumpVariance;
+	}
+
+	/**
+	 * Creates the analytic pricer for the parameters of a Monte-Carlo model.
+	 *
+	 * @param model The Monte-Carlo model.
+	 */
+	public MertonJumpDiffusionAnalyticPricer(MonteCarloMertonJumpDiffusionModel model) {
+		this(model.getInitialAssetValue(), model.getRiskFreeRate(), model.getVolatility(),
+				model.getPoissonIntensity(), model.getJumpMean(), model.getJumpVariance());
+	}
+
+	/**
+	 * @param maturity The maturity of the option.
+	 * @param strike The strike of the option.
+	 * @return The value of the European call option at time 0.
+	 */
+	public double getCallValue(double maturity, double strike) {
+		return getValueOrSensitivity(maturity, strike, Quantity.VALUE, true);
+	}
+
+	/**
+	 * @param maturity The maturity of the option.
+	 * @param strike The strike of the option.
+	 * @return The value of the European put option at time 0.
+	 */
+	public double getPutValue(double maturity, double strike) {
+		return getValueOrSensitivity(maturity, strike, Quantity.VALUE, false);
+	}
+
+	/**
+	 * @param maturity The maturity of the option.
+	 * @param strike The strike of the option.
+	 * @return The delta (with respect to the initial value) of the European call option.
+	 */
+	public double getCallDelta(double maturity, double strike) {
+		return getValueOrSensitivity(maturity, strike, Quantity.DELTA, true);
+	}
+
+	/**
+	 * @param maturity The maturity of the option.
+	 * @param strike The strike of the option.
+	 * @return The delta (with respect to the initial value) of the European put option.
+	 */
+	public double getPutDelta(double maturity, double strike) {
+		return getValueOrSensitivity(maturity, strike, Quantity.DELTA, false);
+	}
+
+	/**
+	 * @param maturity The maturity of the option.
+	 * @param strike The strike of the option.
+	 * @return The gamma of the European call or put option.
+	 */
+	public double getGamma(double maturity, double strike) {
+		return getValueOrSensitivity(maturity, strike, Quantity.GAMMA, true);
+	}
+
+	/**
+	 * Returns the value of the European call option conditional on a given number of jumps until maturity,
+	 * i.e., the Black-Scholes value with forward \( F_{n} \) and volatility \( \sigma_{n} \).
+	 *
+	 * @param maturity The maturity of the option.
+	 * @param strike The strike of the option.
+	 * @param numberOfJumps The number of jumps until maturity.
+	 * @return The value of the European call option at time 0, conditional on the number of jumps.
+	 */
+	public double getConditionalCallValue(double maturity, double strike, int numberOfJumps) {
+		double discountFactor		= Math.exp(-riskFreeRate * maturity);
+		double forwardOfTerm		= initialValue * Math.exp(riskFreeRate * maturity + numberOfJumps * (jumpMean + 0.5 * jumpVariance * jumpVariance));
+		double standardDeviation	= Math.sqrt(volatility * volatility * maturity + numberOfJumps * jumpVariance * jumpVariance);
+
+		if(standardDeviation <= 0.0) return discountFactor * Math.max(forwardOfTerm - strike, 0.0);
+
+		double dPlus	= (Math.log(forwardOfTerm / strike) + 0.5 * standardDeviation * standardDeviation) / standardDeviation;
+		double dMinus	= dPlus - standardDeviation;
+		return discountFactor * (forwardOfTerm * NormalDistribution.cumulativeDistribution(dPlus) - strike * NormalDistribution.cumulativeDistribution(dMinus));
+	}
+
+	/**
+	 * Values European call options for a grid of strikes, reusing the terms of the series.
+	 *
+	 * @param maturity The maturity of the options.
+	 * @param strikes The strikes of the options.
+	 * @return The values of the European call options at time 0.
+	 */
+	public double[] getCallValues(double maturity, double[] strikes) {
+		double[] values = new double[strikes.length];
+		for(int i=0; i<strikes.length; i++) values[i] = getCallValue(maturity, strikes[i]);
+		return values;
+	}
+
+	private enum Quantity { VALUE, DELTA, GAMMA }
+
+	private double getValueOrSensitivity(double maturity, double strike, Quantity quantity, boolean isCall) {
+		SeriesTerms terms = getSeriesTerms(maturity, poissonIntensity, jumpMean, jumpVariance);
+
+		double discountFactor	= Math.exp(-riskFreeRate * maturity);
+		double forward			= initialValue * Math.exp(riskFreeRate * maturity);
+
+		double result = 0.0;
+		for(int n=0; n<terms.weights.length; n++) {
+			double forwardOfTerm		= forward * terms.forwardFactors[n];
+			double standardDeviation	= Math.sqrt(volatility * volatility * maturity + terms.jumpVariances[n]);
+
+			double valueOfTerm;
+			if(standardDeviation <= 0.0) {
+				// Deterministic conditional distribution
+				boolean isInTheMoney = isCall ? forwardOfTerm > strike : forwardOfTerm < strike;
+				switch(quantity) {
+				case VALUE:	valueOfTerm = discountFactor * Math.max(isCall ? forwardOfTerm - strike : strike - forwardOfTerm, 0.0); break;
+				case DELTA:	valueOfTerm = isInTheMoney ? (isCall ? 1.0 : -1.0) * discountFactor * forwardOfTerm / initialValue : 0.0; break;
+				default:	valueOfTerm = 0.0;
+				}
+			}
+			else {
+				double dPlus	= (Math.log(forwardOfTerm / strike) + 0.5 * standardDeviation * standardDeviation) / standardDeviation;
+				double dMinus	= dPlus - standardDeviation;
+
+				switch(quantity) {
+				case VALUE:
+					valueOfTerm = isCall
+					? discountFactor * (forwardOfTerm * NormalDistribution.cumulativeDistribution(dPlus) - strike * NormalDistribution.cumulativeDistribution(dMinus))
+					: discountFactor * (strike * NormalDistribution.cumulativeDistribution(-dMinus) - forwardOfTerm * NormalDistribution.cumulativeDistribution(-dPlus));
+					break;
+				case DELTA:
+					// d F_n / d S_0 = F_n / S_0
+					valueOfTerm = discountFactor * forwardOfTerm / initialValue * (NormalDistribution.cumulativeDistribution(dPlus) - (isCall ? 0.0 : 1.0));
+					break;
+				default:
+					double densityOfDPlus = Math.exp(-0.5 * dPlus * dPlus) / Math.sqrt(2.0 * Math.PI);
+					valueOfTerm = discountFactor * forwardOfTerm / (initialValue * initialValue) * densityOfDPlus / standardDeviation;
+				}
+			}
+
+			result += terms.weights[n] * valueOfTerm;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the (cached) terms of the series for the given maturity and jump parameters.
+	 */
+	private static SeriesTerms getSeriesTerms(double maturity, double poissonIntensity, double jumpMean, double jumpVariance) {
+		SeriesKey key = new SeriesKey(maturity, poissonIntensity, jumpMean, jumpVariance);
+		synchronized(seriesTermsCache) {
+			SeriesTerms terms = seriesTermsCache.get(key);
+			if(terms != null) return terms;
+		}
+
+		SeriesTerms terms = new SeriesTerms(maturity, poissonIntensity, jumpMean, jumpVariance);
+		synchronized(seriesTermsCache) {
+			seriesTermsCache.put(key, terms);
+		}
+		return terms;
+	}
+
+	private static class SeriesTerms {
+		private final double[] weights;			// Poisson probabilities of n jumps
+		private final double[] forwardFactors;	// (1+k)^n
+		private final double[] jumpVariances;	// n nu^2
+
+		SeriesTerms(double maturity, double poissonIntensity, double jumpMean, double jumpVariance) {
+			double expectedNumberOfJumps	= poissonIntensity * maturity;
+			double logOfOnePlusK			= jumpMean + 0.5 * jumpVariance * jumpVariance;
+
+			double[] weightsOfTerms			= new double[16];
+			double[] forwardFactorsOfTerms	= new double[16];
+			double[] jumpVariancesOfTerms	= new double[16];
+
+			int numberOfTerms = 0;
+			double logWeight = -expectedNumberOfJumps;
+			double sumOfWeights = 0.0;
+			do {
+				if(numberOfTerms == weightsOfTerms.length) {
+					weightsOfTerms			= Arrays.copyOf(weightsOfTerms, 2 * numberOfTerms);
+					forwardFactorsOfTerms	= Arrays.copyOf(forwardFactorsOfTerms, 2 * numberOfTerms);
+					jumpVariancesOfTerms	= Arrays.copyOf(jumpVariancesOfTerms, 2 * numberOfTerms);
+				}
+				if(numberOfTerms > 0) logWeight += Math.log(expectedNumberOfJumps / numberOfTerms);
+
+				weightsOfTerms[numberOfTerms]			= Math.exp(logWeight);
+				forwardFactorsOfTerms[numberOfTerms]	= Math.exp(numberOfTerms * logOfOnePlusK);
+				jumpVariancesOfTerms[numberOfTerms]		= numberOfTerms * jumpVariance * jumpVariance;
+
+				sumOfWeights += weightsOfTerms[numberOfTerms];
+				numberOfTerms++;
+			}
+			while(expectedNumberOfJumps > 0 && numberOfTerms < MAXIMUM_NUMBER_OF_TERMS
+					&& (numberOfTerms <= expectedNumberOfJumps || 1.0 - sumOfWeights > TRUNCATION_TOLERANCE));
+
+			this.weights			= Arrays.copyOf(weightsOfTerms, numberOfTerms);
+			this.forwardFactors		= Arrays.copyOf(forwardFactorsOfTerms, numberOfTerms);
+			this.jumpVariances		= Arrays.copyOf(jumpVariancesOfTerms, numberOfTerms);
+		}
+	}
+
+	private static class SeriesKey {
+		private final double maturity;
+		private final double poissonIntensity;
+		private final double jumpMean;
+		private final double jumpVariance;
+
+		SeriesKey(double maturity, double poissonIntensity, double jumpMean, double jumpVariance) {
+			this.maturity			= maturity;
+			this.poissonIntensity	= poissonIntensity;
+			this.jumpMean			= jumpMean;
+			this.jumpVariance		= jumpVariance;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if(!(other instanceof SeriesKey)) return false;
+			SeriesKey key = (SeriesKey)other;
+			return Double.compare(maturity, key.maturity) == 0
+					&& Double.compare(poissonIntensity, key.poissonIntensity) == 0
+					&& Double.compare(jumpMean, key.jumpMean) == 0
+					&& Double.compare(jumpVariance, key.jumpVariance) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(new double[] { maturity, poissonIntensity, jumpMean, jumpVariance });
+		}
+	}
+}
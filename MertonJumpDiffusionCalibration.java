@@ -0,0 +1,222 @@
+package projectTest;
+
+import java.util.ArrayList;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.functions.AnalyticFormulas;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
+import net.finmath.optimizer.LevenbergMarquardt;
+import net.finmath.optimizer.SolverException;
+import net.finmath.time.TimeDiscretization;
+
+/**
+ * This class calibrates the volatility \sigma, the intensity \lambda and the jump parameters \mu, \nu of the
+ * Merton jump diffusion model to a smile of market implied volatilities (for one or several maturities).
+ *
+ * The objective uses the analytic prices of <code>MertonJumpDiffusionAnalyticPricer</code>: the residual of a quote is the
+ * difference of the model price and the market price divided by the Black-Scholes vega of the market quote, which is the
+ * implied volatility error to first order and does not require an inversion of the Black-Scholes formula.
+ * The quotes are valued in parallel. The parameters are optimized by a Levenberg-Marquardt algorithm in the transformed coordinates
+ * (log \sigma, log \lambda, \mu, log \nu), such that \sigma, \lambda and \nu stay positive.
+ *
+ * A calibration starts from the parameters of the previous calibration of the same instance (warm start), such that
+ * a recalibration to slightly changed market data needs a few iterations only.
+ *
+ * The calibrated parameters can be checked by Monte-Carlo: <code>getMonteCarloImpliedVolatilities</code> reprices all quotes
+ * on one <code>MonteCarloMertonJumpDiffusionModel</code> with the exact scheme on the maturities and fixed seeds, i.e., with common random numbers
+ * for all quotes and for all calibrations.
+ *
+ * @author A V L
+ * @see MertonJumpDiffusionAnalyticPricer
+ * @version 1.0
+ */
+public class MertonJumpDiffusionCalibration {
+
+	private static final int	MAXIMUM_NUMBER_OF_ITERATIONS	= 200;
+	private static final int	SEED							= 3141;
+
+	private final double initialValue;
+	private final double riskFreeRate;
+
+	// Calibrated parameters, the initial guess of the next calibration
+	private double volatility;
+	private double poissonIntensity;
+	private double jumpMean;
+	private double jumpVariance;
+
+	private double	rootMeanSquaredError	= Double.NaN;
+	private int		numberOfIterations		= 0;
+
+	/**
+	 * @param initialValue Spot value.
+	 * @param riskFreeRate The risk free rate.
+	 * @param volatility The initial guess of the log volatility.
+	 * @param poissonIntensity The initial guess of the intensity of the Poisson Process
+	 * @param jumpMean The initial guess of the mean of the jumps
+	 * @param jumpVariance The initial guess of the variance of the jumps, exp (mean + variance * Z) - 1,  Z normally distributed
+	 */
+	public MertonJumpDiffusionCalibration(double initialValue, double riskFreeRate,
+			double volatility, double poissonIntensity, double jumpMean, double jumpVariance) {
+		super();
+		this.initialValue		= initialValue;
+		this.riskFreeRate		= riskFreeRate;
+		this.volatility			= volatility;
+		this.poissonIntensity	= poissonIntensity;
+		this.jumpMean			= jumpMean;
+		this.jumpVariance		= jumpVariance;
+	}
+
+	/**
+	 * Calibrates the parameters to the given quotes, starting from the current parameters.
+	 *
+	 * @param maturities The maturities of the quotes.
+	 * @param strikes The strikes of the quotes.
+	 * @param impliedVolatilities The market implied volatilities of the quotes.
+	 * @return The calibrated parameters (volatility, poissonIntensity, jumpMean, jumpVariance).
+	 * @throws SolverException Thrown if the optimizer fails.
+	 */
+	public double[] calibrate(final double[] maturities, final double[] strikes, final double[] impliedVolatilities) throws SolverException {
+		final int numberOfQuotes = strikes.length;
+
+		// Market prices and vegas, used to scale the price residuals to implied volatility residuals
+		final double[] marketPrices	= new double[numberOfQuotes];
+		final double[] marketVegas	= new double[numberOfQuotes];
+		for(int quote=0; quote<numberOfQuotes; quote++) {
+			marketPrices[quote]	= AnalyticFormulas.blackScholesOptionValue(initialValue, riskFreeRate, impliedVolatilities[quote], maturities[quote], strikes[quote]);
+			marketVegas[quote]	= Math.max(AnalyticFormulas.blackScholesOptionVega(initialValue, riskFreeRate, impliedVolatilities[quote], maturities[quote], strikes[quote]), 1E-8);
+		}
+
+		double[] initialParameters = new double[] { Math.log(volatility), Math.log(Math.max(poissonIntensity, 1E-8)), jumpMean, Math.log(jumpVariance) };
+
+		LevenbergMarquardt optimizer = new LevenbergMarquardt(initialParameters, new double[numberOfQuotes] /* targetValues */, MAXIMUM_NUMBER_OF_ITERATIONS, 1 /* numberOfThreads */) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void setValues(double[] parameters, final double[] values) {
+				final MertonJumpDiffusionAnalyticPricer pricer = getPricer(parameters);
+
+				// The quotes are independent, the terms of the series are shared via the cache of the pricer
+				IntStream.range(0, numberOfQuotes).parallel().forEach(quote -> {
+					double modelPrice = pricer.getCallValue(maturities[quote], strikes[quote]);
+					values[quote] = (modelPrice - marketPrices[quote]) / marketVegas[quote];
+				});
+			}
+		};
+		optimizer.run();
+
+		double[] bestFitParameters = optimizer.getBestFitParameters();
+		volatility			= Math.exp(bestFitParameters[0]);
+		poissonIntensity	= Math.exp(bestFitParameters[1]);
+		jumpMean			= bestFitParameters[2];
+		jumpVariance		= Math.exp(bestFitParameters[3]);
+
+		rootMeanSquaredError	= optimizer.getRootMeanSquaredError();
+		numberOfIterations		= optimizer.getIterations();
+
+		return getParameters();
+	}
+
+	private MertonJumpDiffusionAnalyticPricer getPricer(double[] parameters) {
+		return new MertonJumpDiffusionAnalyticPricer(initialValue, riskFreeRate,
+				Math.exp(parameters[0]), Math.exp(parameters[1]), parameters[2], Math.exp(parameters[3]));
+	}
+
+	/**
+	 * Returns the implied volatilities of the calibrated model (from the analytic prices).
+	 *
+	 * @param maturities The maturities of the quotes.
+	 * @param strikes The strikes of the quotes.
+	 * @return The implied volatilities of the model.
+	 */
+	public double[] getImpliedVolatilities(double[] maturities, double[] strikes) {
+		final MertonJumpDiffusionAnalyticPricer pricer = getPricer();
+		double[] impliedVolatilities = new double[strikes.length];
+		IntStream.range(0, strikes.length).parallel().forEach(quote -> {
+			double price = pricer.getCallValue(maturities[quote], strikes[quote]);
+			impliedVolatilities[quote] = getImpliedVolatility(maturities[quote], strikes[quote], price);
+		});
+		return impliedVolatilities;
+	}
+
+	/**
+	 * Reprices the quotes by Monte-Carlo with the calibrated parameters. All quotes are valued on the same paths
+	 * (exact scheme on the maturities) with fixed seeds, i.e., with common random numbers.
+	 *
+	 * @param maturities The maturities of the quotes.
+	 * @param strikes The strikes of the quotes.
+	 * @param numberOfPaths The number of paths.
+	 * @return The Monte-Carlo implied volatilities of the quotes.
+	 * @throws CalculationException Thrown if the valuation fails.
+	 */
+	public double[] getMonteCarloImpliedVolatilities(double[] maturities, double[] strikes, int numberOfPaths) throws CalculationException {
+		TreeSet<Double> times = new TreeSet<Double>();
+		times.add(0.0);
+		for(double maturity : maturities) times.add(maturity);
+		TimeDiscretization timeDiscretization = new TimeDiscretization(new ArrayList<Double>(times));
+
+		MertonJumpDiffusionProcessExactScheme process = new MertonJumpDiffusionProcessExactScheme(
+				new BrownianMotion(timeDiscretization, 1 /* numberOfFactors */, numberOfPaths, SEED),
+				new CompoundPoissonProcess(poissonIntensity, jumpMean, jumpVariance, timeDiscretization, numberOfPaths, SEED + 300, true /* isParallel */));
+		MonteCarloMertonJumpDiffusionModel model = new MonteCarloMertonJumpDiffusionModel(initialValue, riskFreeRate, volatility, process,
+				poissonIntensity, jumpMean, jumpVariance);
+
+		double[] impliedVolatilities = new double[strikes.length];
+		for(int quote=0; quote<strikes.length; quote++) {
+			double price = new EuropeanOption(maturities[quote], strikes[quote]).getValue(model);
+			impliedVolatilities[quote] = getImpliedVolatility(maturities[quote], strikes[quote], price);
+		}
+		return impliedVolatilities;
+	}
+
+	private double getImpliedVolatility(double maturity, double strike, double price) {
+		return AnalyticFormulas.blackScholesOptionImpliedVolatility(
+				initialValue * Math.exp(riskFreeRate * maturity), maturity, strike, Math.exp(-riskFreeRate * maturity), price);
+	}
+
+	/**
+	 * @return The analytic pricer with the calibrated parameters.
+	 */
+	public MertonJumpDiffusionAnalyticPricer getPricer() {
+		return new MertonJumpDiffusionAnalyticPricer(initialValue, riskFreeRate, volatility, poissonIntensity, jumpMean, jumpVariance);
+	}
+
+	/**
+	 * @return The calibrated parameters (volatility, poissonIntensity, jumpMean, jumpVariance).
+	 */
+	public double[] getParameters() {
+		return new double[] { volatility, poissonIntensity, jumpMean, jumpVariance };
+	}
+
+	public double getVolatility() {
+		return volatility;
+	}
+
+	public double getPoissonIntensity() {
+		return poissonIntensity;
+	}
+
+	public double getJumpMean() {
+		return jumpMean;
+	}
+
+	public double getJumpVariance() {
+		return jumpVariance;
+	}
+
+	/**
+	 * @return The root mean squared (vega scaled) residual of the last calibration, about the root mean squared implied volatility error.
+	 */
+	public double getRootMeanSquaredError() {
+		return rootMeanSquaredError;
+	}
+
+	/**
+	 * @return The number of iterations of the last calibration.
+	 */
+	public int getNumberOfIterations() {
+		return numberOfIterations;
+	}
+}
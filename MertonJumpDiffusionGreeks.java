@@ -0,0 +1,182 @@
+package projectTest;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationInterface;
+import net.finmath.stochastic.RandomVariableInterface;
+
+/**
+ * This class implements the value and the sensitivities of a European call option on a <code>MonteCarloMertonJumpDiffusionModel</code>
+ * with the Euler scheme, all calculated from the same paths in one pass.
+ *
+ * With the discounted payoff \( P = e^{-rT} (S(T) - K)^{+} \) and the tangent processes D = dS/dS<sub>0</sub> and V = dS/d\sigma of
+ * <code>MertonJumpDiffusionProcessEulerScheme</code>, the estimators are
+ * <ul>
+ * 	<li>delta (pathwise): \( e^{-rT} 1_{S(T) &gt; K} D(T) \),</li>
+ * 	<li>vega (pathwise): \( e^{-rT} 1_{S(T) &gt; K} V(T) \),</li>
+ * 	<li>gamma (pathwise delta differentiated by likelihood ratio): \( e^{-rT} 1_{S(T) &gt; K} D(T) (\ell_{S_{0}} - 1/S_{0}) \), where
+ * 	\( \ell_{S_{0}} = -1/S_{0} + \Delta W_{0} (1 + r \Delta t_{0} + \sum_{j} Y_{j} + \sigma \Delta W_{0}) / (S_{0} \sigma \Delta t_{0}) \)
+ * 	is the score of the (conditionally normal) first Euler step,</li>
+ * 	<li>the sensitivities to the jump parameters (likelihood ratio): \( P \cdot \ell \) with the scores of the jumps until maturity,
+ * 	\( \ell_{\lambda} = N(T) / \lambda - T \), \( \ell_{\mu} = \sum_{j} (L_{j} - \mu) / \nu^2 \) and
+ * 	\( \ell_{\nu} = \sum_{j} ((L_{j} - \mu)^2 / \nu^3 - 1 / \nu) \), where \( L_{j} = \log(1 + Y_{j}) \).</li>
+ * </ul>
+ * Here \nu is the parameter <code>jumpVariance</code> of the model, i.e., the standard deviation of log(1+Y).
+ * For \lambda = 0 no path jumps and the likelihood ratio of the intensity is not defined; the sensitivity to the intensity
+ * (and its standard error) is then reported as 0.
+ * The standard errors are those of the means over the paths (for antithetic paths they ignore the pairing and are hence conservative).
+ *
+ * If the process of the model does not evolve the tangent processes, an Euler scheme with tangent processes on the same Brownian motion
+ * and jumps is created (such that the random numbers are reused, but the Euler evolution is repeated once).
+ *
+ * @author A V L
+ * @see MertonJumpDiffusionProcessEulerScheme
+ * @version 1.0
+ */
+public class MertonJumpDiffusionGreeks {
+
+	public enum Greek {
+		VALUE,
+		DELTA,
+		GAMMA,
+		VEGA,
+		POISSON_INTENSITY,
+		JUMP_MEAN,
+		JUMP_VARIANCE
+	}
+
+	private final double maturity;
+	private final double strike;
+
+	/**
+	 * @param maturity The maturity T in the option payoff max(S(T)-K,0)
+	 * @param strike The strike K in the option payoff max(S(T)-K,0).
+	 */
+	public MertonJumpDiffusionGreeks(double maturity, double strike) {
+		super();
+		this.maturity	= maturity;
+		this.strike		= strike;
+	}
+
+	/**
+	 * @param model The model, has to be a <code>MonteCarloMertonJumpDiffusionModel</code> with the Euler scheme.
+	 * @return The value and the sensitivities at time 0, indexed by the ordinal of <code>Greek</code>.
+	 * @throws CalculationException Thrown if the model fails to provide the paths.
+	 */
+	public double[] getValues(AssetModelMonteCarloSimulationInterface model) throws CalculationException {
+		return getValuesAndStandardErrors(model)[0];
+	}
+
+	/**
+	 * @param model The model, has to be a <code>MonteCarloMertonJumpDiffusionModel</code> with the Euler scheme.
+	 * @return An array containing the values and an array containing the standard errors, indexed by the ordinal of <code>Greek</code>.
+	 * @throws CalculationException Thrown if the model fails to provide the paths.
+	 */
+	public double[][] getValuesAndStandardErrors(AssetModelMonteCarloSimulationInterface model) throws CalculationException {
+		if(!(model instanceof MonteCarloMertonJumpDiffusionModel) || !(((MonteCarloMertonJumpDiffusionModel)model).getProcess() instanceof MertonJumpDiffusionProcessEulerScheme)) {
+			throw new IllegalArgumentException("The Greeks require a MonteCarloMertonJumpDiffusionModel with a MertonJumpDiffusionProcessEulerScheme.");
+		}
+		MonteCarloMertonJumpDiffusionModel mertonModel = (MonteCarloMertonJumpDiffusionModel)model;
+
+		final int timeIndexOfMaturity = mertonModel.getTimeIndex(maturity);
+		MertonJumpDiffusionProcessEulerScheme process = (MertonJumpDiffusionProcessEulerScheme)mertonModel.getProcess();
+		if(!process.isCalculatingTangentProcesses()) {
+			// Same random numbers, the process is stored at maturity only
+			process = new MertonJumpDiffusionProcessEulerScheme(process.getBrownianMotion(), process.getCompoundPoissonProcess(), new int[] { timeIndexOfMaturity }, true,
+					process.isSinglePrecision(), process.isOffHeap());
+			mertonModel = new MonteCarloMertonJumpDiffusionModel(mertonModel.getInitialAssetValue(), mertonModel.getRiskFreeRate(), mertonModel.getVolatility(), process,
+					mertonModel.getPoissonIntensity(), mertonModel.getJumpMean(), mertonModel.getJumpVariance());
+		}
+
+		final int		numberOfPaths		= mertonModel.getNumberOfPaths();
+		final double	initialValue		= mertonModel.getInitialAssetValue();
+		final double	riskFreeRate		= mertonModel.getRiskFreeRate();
+		final double	volatility			= mertonModel.getVolatility();
+		final double	poissonIntensity	= mertonModel.getPoissonIntensity();
+		final double	jumpMean			= mertonModel.getJumpMean();
+		final double	jumpVariance		= mertonModel.getJumpVariance();
+
+		RandomVariableInterface underlyingAtMaturity	= mertonModel.getAssetValue(timeIndexOfMaturity, 0);
+		RandomVariableInterface initialValueTangent		= process.getInitialValueTangent(timeIndexOfMaturity);
+		RandomVariableInterface volatilityTangent		= process.getVolatilityTangent(timeIndexOfMaturity);
+		RandomVariableInterface numeraireAtMaturity		= mertonModel.getNumeraire(timeIndexOfMaturity);
+		final double numeraireToday = mertonModel.getNumeraire(0.0).get(0);
+
+		// Data of the first Euler step for the score of the initial value
+		BrownianMotionInterface brownianMotion = process.getBrownianMotion();
+		RandomVariableInterface firstBrownianIncrement = brownianMotion.getBrownianIncrement(0, 0);
+		final double firstDeltaT = mertonModel.getTime(1) - mertonModel.getTime(0);
+		final JumpEvents jumpEvents = process.getCompoundPoissonProcess().getJumpEvents();
+		double[] firstJumps = new double[numberOfPaths];
+		for(int jump=0; jump<jumpEvents.getNumberOfJumpsInTimeStep(0); jump++) {
+			firstJumps[jumpEvents.getPathOfJumpInTimeStep(0, jump)] += jumpEvents.getSizeOfJumpInTimeStep(0, jump);
+		}
+		final double timeToMaturity = mertonModel.getTime(timeIndexOfMaturity) - mertonModel.getTime(0);
+
+		final int numberOfGreeks = Greek.values().length;
+		double[] sum			= new double[numberOfGreeks];
+		double[] sumOfSquares	= new double[numberOfGreeks];
+		double[] estimator		= new double[numberOfGreeks];
+		for(int path=0; path<numberOfPaths; path++) {
+			double underlying		= underlyingAtMaturity.get(path);
+			double discountFactor	= numeraireToday / numeraireAtMaturity.get(path);
+			double discountedPayoff	= Math.max(underlying - strike, 0.0) * discountFactor;
+			double discountedDigital	= underlying > strike ? discountFactor : 0.0;
+
+			// Score of the first step with respect to the initial value
+			double brownianIncrement	= firstBrownianIncrement.get(path);
+			double scoreOfInitialValue	= -1.0 / initialValue
+					+ brownianIncrement * (1.0 + riskFreeRate * firstDeltaT + firstJumps[path] + volatility * brownianIncrement) / (initialValue * volatility * firstDeltaT);
+
+			// Scores of the jumps until maturity
+			int numberOfJumps = 0;
+			double sumOfDeviations = 0.0, sumOfSquaredDeviations = 0.0;
+			for(int jump=0; jump<jumpEvents.getNumberOfJumpsOnPath(path) && jumpEvents.getJumpTimeIndex(path, jump) < timeIndexOfMaturity; jump++) {
+				double deviation = Math.log(1.0 + jumpEvents.getJumpSize(path, jump)) - jumpMean;
+				sumOfDeviations			+= deviation;
+				sumOfSquaredDeviations	+= deviation * deviation;
+				numberOfJumps++;
+			}
+			double scoreOfPoissonIntensity	= poissonIntensity > 0 ? numberOfJumps / poissonIntensity - timeToMaturity : 0.0;
+			double scoreOfJumpMean			= numberOfJumps > 0 ? sumOfDeviations / (jumpVariance * jumpVariance) : 0.0;
+			double scoreOfJumpVariance		= numberOfJumps > 0 ? sumOfSquaredDeviations / (jumpVariance * jumpVariance * jumpVariance) - numberOfJumps / jumpVariance : 0.0;
+
+			estimator[Greek.VALUE.ordinal()]				= discountedPayoff;
+			estimator[Greek.DELTA.ordinal()]				= discountedDigital * initialValueTangent.get(path);
+			estimator[Greek.GAMMA.ordinal()]				= discountedDigital * initialValueTangent.get(path) * (scoreOfInitialValue - 1.0 / initialValue);
+			estimator[Greek.VEGA.ordinal()]					= discountedDigital * volatilityTangent.get(path);
+			estimator[Greek.POISSON_INTENSITY.ordinal()]	= discountedPayoff * scoreOfPoissonIntensity;
+			estimator[Greek.JUMP_MEAN.ordinal()]			= discountedPayoff * scoreOfJumpMean;
+			estimator[Greek.JUMP_VARIANCE.ordinal()]		= discountedPayoff * scoreOfJumpVariance;
+
+			for(int greek=0; greek<numberOfGreeks; greek++) {
+				sum[greek]			+= estimator[greek];
+				sumOfSquares[greek]	+= estimator[greek] * estimator[greek];
+			}
+		}
+
+		double[] values			= new double[numberOfGreeks];
+		double[] standardErrors	= new double[numberOfGreeks];
+		for(int greek=0; greek<numberOfGreeks; greek++) {
+			values[greek]			= sum[greek] / numberOfPaths;
+			double variance			= sumOfSquares[greek] / numberOfPaths - values[greek] * values[greek];
+			standardErrors[greek]	= Math.sqrt(Math.max(variance, 0.0) / numberOfPaths);
+		}
+
+		return new double[][] { values, standardErrors };
+	}
+
+	/**
+	 * @return The maturity of the option.
+	 */
+	public double getMaturity() {
+		return maturity;
+	}
+
+	/**
+	 * @return The strike of the option.
+	 */
+	public double getStrike() {
+		return strike;
+	}
+}
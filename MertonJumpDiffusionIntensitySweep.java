@@ -0,0 +1,150 @@
+package projectTest;
+
+import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements a sweep of the Merton jump diffusion model over several intensities with common random numbers.
+ *
+ * The Brownian motion and the compound Poisson process with the maximum intensity \( \lambda_{max} \) are generated once.
+ * The jumps of the model with intensity \lambda are the jumps of this process which are kept by thinning:
+ * every jump j has a uniform number U<sub>j</sub> and is kept if \( U_{j} &lt; \lambda / \lambda_{max} \),
+ * which gives a compound Poisson process with intensity \lambda and the same jump size distribution.
+ * Since the jumps kept for a smaller intensity are also kept for a larger one, the paths (and the values of a product)
+ * change smoothly along the sweep and the differences between sweep points have a small variance.
+ *
+ * The models of the sweep are created on request and are not stored, the random numbers are shared by all models.
+ *
+ * @author A V L
+ * @see MonteCarloMertonJumpDiffusionModel
+ * @version 1.0
+ */
+public class MertonJumpDiffusionIntensitySweep {
+
+	private final TimeDiscretizationInterface timeDiscretization;
+
+	private final double	initialValue;
+	private final double	riskFreeRate;
+	private final double	volatility;
+	private final double[]	poissonIntensities;
+	private final double	jumpMean;
+	private final double	jumpVariance;
+
+	private final int		seed = 3141;
+
+	private final double					maximumIntensity;
+	private final BrownianMotionInterface	brownianMotion;
+	private final CompoundPoissonProcess	compoundPoissonProcess;
+
+	private double[]		thinningUniforms;
+
+	/**
+	 * @param timeDiscretization The time discretization.
+	 * @param numberOfPaths The number of Monte-Carlo path to be used.
+	 * @param initialValue Spot value.
+	 * @param riskFreeRate The risk free rate.
+	 * @param volatility The log volatility.
+	 * @param poissonIntensities The intensities of the Poisson Process of the sweep.
+	 * @param jumpMean The mean and variance of the jumps
+	 * @param jumpVariance exp (mean + variance * Z) - 1,  Z normally distributed
+	 */
+	public MertonJumpDiffusionIntensitySweep(
+			TimeDiscretizationInterface timeDiscretization,
+			int numberOfPaths,
+			double initialValue,
+			double riskFreeRate,
+			double volatility,
+			double[] poissonIntensities,
+			double jumpMean,
+			double jumpVariance) {
+		super();
+		this.timeDiscretization = timeDiscretization;
+		this.initialValue = initialValue;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+		this.poissonIntensities = poissonIntensities.clone();
+		this.jumpMean = jumpMean;
+		this.jumpVariance = jumpVariance;
+
+		double maximumIntensity = 0.0;
+		for(double poissonIntensity : poissonIntensities) {
+			if(poissonIntensity < 0) throw new IllegalArgumentException("The intensities have to be non-negative.");
+			maximumIntensity = Math.max(maximumIntensity, poissonIntensity);
+		}
+		this.maximumIntensity = maximumIntensity;
+
+		// The random numbers shared by the sweep, with the seeds of MonteCarloMertonJumpDiffusionModel
+		this.brownianMotion = new BrownianMotion(timeDiscretization, 1 /* numberOfFactors */, numberOfPaths, seed);
+		this.compoundPoissonProcess = new CompoundPoissonProcess(maximumIntensity, jumpMean, jumpVariance, timeDiscretization, numberOfPaths, seed + 300, true /* isParallel */);
+	}
+
+	/**
+	 * @return The number of points of the sweep.
+	 */
+	public int getNumberOfSweepPoints() {
+		return poissonIntensities.length;
+	}
+
+	/**
+	 * @param sweepIndex The index of the point of the sweep.
+	 * @return The intensity of the point of the sweep.
+	 */
+	public double getPoissonIntensity(int sweepIndex) {
+		return poissonIntensities[sweepIndex];
+	}
+
+	/**
+	 * Creates the model of a point of the sweep (not stored).
+	 *
+	 * @param sweepIndex The index of the point of the sweep.
+	 * @return The model with the intensity of the point of the sweep.
+	 */
+	public MonteCarloMertonJumpDiffusionModel getModel(int sweepIndex) {
+		PointProcessInterface thinnedCompoundPoissonProcess = new JumpEventsPointProcess(getJumpEvents(poissonIntensities[sweepIndex]), timeDiscretization);
+		return new MonteCarloMertonJumpDiffusionModel(initialValue, riskFreeRate, volatility,
+				new MertonJumpDiffusionProcessEulerScheme(brownianMotion, thinnedCompoundPoissonProcess),
+				poissonIntensities[sweepIndex], jumpMean, jumpVariance);
+	}
+
+	/**
+	 * Values a product at every point of the sweep.
+	 *
+	 * @param product The product.
+	 * @return The values of the product at time 0, one for each intensity.
+	 * @throws CalculationException Thrown if the valuation fails.
+	 */
+	public double[] getValues(AbstractAssetMonteCarloProduct product) throws CalculationException {
+		double[] values = new double[poissonIntensities.length];
+		for(int sweepIndex=0; sweepIndex<poissonIntensities.length; sweepIndex++) {
+			values[sweepIndex] = product.getValue(getModel(sweepIndex));
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the jumps of the process with the maximum intensity which are kept for the given intensity.
+	 *
+	 * @param poissonIntensity The intensity.
+	 * @return The jump events of the compound Poisson process with the given intensity.
+	 */
+	public JumpEvents getJumpEvents(double poissonIntensity) {
+		JumpEvents jumpEvents = compoundPoissonProcess.getJumpEvents();
+		final double probabilityOfJump = maximumIntensity > 0 ? poissonIntensity / maximumIntensity : 0.0;
+
+		return jumpEvents.getThinnedJumpEvents(getThinningUniforms(jumpEvents.getNumberOfJumps()), probabilityOfJump);
+	}
+
+	private synchronized double[] getThinningUniforms(int numberOfJumps) {
+		if(thinningUniforms == null) {
+			RandomEngine randomEngine = new MersenneTwister64(seed + 600);
+			thinningUniforms = new double[numberOfJumps];
+			for(int jump=0; jump<numberOfJumps; jump++) thinningUniforms[jump] = randomEngine.nextDouble();
+		}
+		return thinningUniforms;
+	}
+}
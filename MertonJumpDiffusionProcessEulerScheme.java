@@ -2,8 +2,17 @@ package projectTest;
 
 
 
+import java.util.Arrays;
+import java.util.Map;
+
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
 import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.IndependentIncrementsInterface;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.montecarlo.RandomVariableLowMemory;
+import net.finmath.montecarlo.model.AbstractModelInterface;
 import net.finmath.montecarlo.process.AbstractProcess;
+import net.finmath.montecarlo.process.AbstractProcessInterface;
 
 import net.finmath.stochastic.RandomVariableInterface;
 
@@ -29,29 +38,177 @@ import net.finmath.stochastic.RandomVariableInterface;
 	 * @see AbstractProcessInterface The interface definition contains more details.
 	 * @version 1.4
 	 */
-	public class MertonJumpDiffusionProcessEulerScheme extends AbstractProcess {
+	public class MertonJumpDiffusionProcessEulerScheme extends AbstractProcess implements JumpDiffusionProcessInterface {
+
 
+		private AbstractRandomVariableFactory randomVariableFactory = new RandomVariableFactory();
 
 		private BrownianMotionInterface brownianMotion;
 		private PointProcessInterface compoundPoissonProcess;
 
+		/*
+		 * The registered observation time indices (streaming mode), null if every time index is stored.
+		 */
+		private final int[]		observationTimeIndices;
+		private final boolean[]	isObservationTimeIndex;
+
+		/*
+		 * If true, the tangent processes dS/dS0 and dS/dsigma are evolved alongside the state (stored at the same time indices).
+		 */
+		private final boolean	isCalculatingTangentProcesses;
+
+		/*
+		 * The model linked to this process if it is a MonteCarloMertonJumpDiffusionModel (providing r and sigma to the tangent processes), else null.
+		 */
+		private MonteCarloMertonJumpDiffusionModel mertonModel;
 
 		/*
 		 * The storage of the simulated stochastic process.
 		 */
 		private transient RandomVariableInterface[][]	discreteProcess = null;
 		private transient RandomVariableInterface[]		discreteProcessWeights;
+		private transient RandomVariableInterface[]		discreteInitialValueTangent;
+		private transient RandomVariableInterface[]		discreteVolatilityTangent;
+
+		/*
+		 * If true, the stored process and tangents (except at time index 0) are kept in single precision (see isSinglePrecision()).
+		 */
+		private final boolean	isSinglePrecision;
+		private transient double		maximumRelativeRoundingError;
+
+		/*
+		 * If true, the stored process and tangents (except at time index 0) are kept off the Java heap (see isOffHeap()).
+		 */
+		private final boolean	isOffHeap;
+		private transient OffHeapPathMatrix	offHeapProcess;
+		private transient OffHeapPathMatrix	offHeapInitialValueTangent;
+		private transient OffHeapPathMatrix	offHeapVolatilityTangent;
+		private transient int[]				offHeapSliceOfTimeIndex;
+
+		/*
+		 * The last slice read from the off-heap matrices for every component and for the two tangents (in this order),
+		 * such that repeated requests of the same time index do not copy the slice to the heap again.
+		 */
+		private transient OffHeapSlice[]	offHeapLastSlices;
+
+		private static class OffHeapSlice {
+			private final int						timeIndex;
+			private final RandomVariableInterface	value;
+
+			private OffHeapSlice(int timeIndex, RandomVariableInterface value) {
+				this.timeIndex = timeIndex;
+				this.value = value;
+			}
+		}
 
 		/**
 		 * @param brownianMotion The Brownian driver of the process
 		 */
 
 		public MertonJumpDiffusionProcessEulerScheme(BrownianMotionInterface brownianMotion, PointProcessInterface compoundPoissonProcess) {
+			this(brownianMotion, compoundPoissonProcess, null);
+		}
+
+		/**
+		 * Creates the scheme in streaming mode: the state is advanced forward only and the process is stored at the given
+		 * time indices only (and at time index 0), such that the memory of the stored process is proportional to the number of observations
+		 * instead of the number of time steps. Requesting the process at any other time index throws an <code>IllegalArgumentException</code>.
+		 * The peak memory of the simulation is proportional to the number of observations times the number of paths only if the
+		 * Brownian motion generates its increments time step by time step, e.g. <code>StreamingBrownianMotion</code>;
+		 * <code>BrownianMotion</code> stores <code>numberOfTimeSteps</code> times <code>numberOfPaths</code> increments.
+		 * 
+		 * @param brownianMotion The Brownian driver of the process
+		 * @param compoundPoissonProcess The jump driver of the process
+		 * @param observationTimeIndices The time indices at which the process will be observed, or null to store every time index.
+		 */
+		public MertonJumpDiffusionProcessEulerScheme(BrownianMotionInterface brownianMotion, PointProcessInterface compoundPoissonProcess, int[] observationTimeIndices) {
+			this(brownianMotion, compoundPoissonProcess, observationTimeIndices, false);
+		}
+
+		/**
+		 * Creates the scheme, optionally evolving the tangent processes \( \partial S / \partial S_{0} \) and \( \partial S / \partial \sigma \)
+		 * alongside the state. Differentiating the Euler step of the Merton model gives
+		 * \[
+		 * 	D(t_{i+1}) = D(t_{i}) \cdot G_{i} \text{,} \quad V(t_{i+1}) = V(t_{i}) \cdot G_{i} + S(t_{i}) \Delta W(t_{i}) \text{,} \quad G_{i} = 1 + r \Delta t_{i} + \sigma \Delta W(t_{i}) + \sum_{j} Y_{j} \text{,}
+		 * \]
+		 * where the sum runs over the jumps in the time step, D(0) = 1 and V(0) = 0. The tangents are stored at the same time indices as the process.
+		 * The tangent processes require the model of the process to be a <code>MonteCarloMertonJumpDiffusionModel</code>.
+		 *
+		 * @param brownianMotion The Brownian driver of the process
+		 * @param compoundPoissonProcess The jump driver of the process
+		 * @param observationTimeIndices The time indices at which the process will be observed, or null to store every time index.
+		 * @param isCalculatingTangentProcesses If true, the tangent processes are evolved alongside the state.
+		 * @see MertonJumpDiffusionGreeks
+		 */
+		public MertonJumpDiffusionProcessEulerScheme(BrownianMotionInterface brownianMotion, PointProcessInterface compoundPoissonProcess, int[] observationTimeIndices,
+				boolean isCalculatingTangentProcesses) {
+			this(brownianMotion, compoundPoissonProcess, observationTimeIndices, isCalculatingTangentProcesses, false);
+		}
+
+		/**
+		 * Creates the scheme, optionally storing the process in single precision.
+		 *
+		 * In single precision mode the state is evolved in double precision and only the stored values are rounded to <code>float</code>,
+		 * which halves the memory of the stored paths (and the memory traffic of storing them). The values are stored as float-backed
+		 * <code>RandomVariableLowMemory</code>s, which are returned by <code>getProcessValue</code> as they are (no copy is made on a call).
+		 * Their arithmetic is carried out in double precision, but its results are again stored in single precision, i.e., every operation of
+		 * a product on the process rounds to <code>float</code>; statistics (e.g. the average) are accumulated in double precision.
+		 * Since the rounding errors do not propagate along the path, the relative error of every value is at most 2<sup>-24</sup>
+		 * (about 6E-8), the maximum observed error is given by <code>getMaximumRelativeRoundingError()</code>.
+		 *
+		 * @param brownianMotion The Brownian driver of the process
+		 * @param compoundPoissonProcess The jump driver of the process
+		 * @param observationTimeIndices The time indices at which the process will be observed, or null to store every time index.
+		 * @param isCalculatingTangentProcesses If true, the tangent processes are evolved alongside the state.
+		 * @param isSinglePrecision If true, the process and the tangent processes are stored in single precision.
+		 */
+		public MertonJumpDiffusionProcessEulerScheme(BrownianMotionInterface brownianMotion, PointProcessInterface compoundPoissonProcess, int[] observationTimeIndices,
+				boolean isCalculatingTangentProcesses, boolean isSinglePrecision) {
+			this(brownianMotion, compoundPoissonProcess, observationTimeIndices, isCalculatingTangentProcesses, isSinglePrecision, false);
+		}
+
+		/**
+		 * Creates the scheme, optionally storing the process off the Java heap.
+		 *
+		 * In off-heap mode the stored process and tangent processes are kept in <code>OffHeapPathMatrix</code>es, which are allocated in full
+		 * (for the stored time indices only) before the evolution starts and hold the values in double precision or, if
+		 * <code>isSinglePrecision</code> is true, in single precision. The random variables returned by <code>getProcessValue</code> are copied
+		 * to the heap; only the last requested time index of every component is kept there. The memory is released by <code>free()</code>.
+		 * To keep the Brownian increments off the heap as well, use a Brownian motion which generates them time step by time step,
+		 * e.g. <code>StreamingBrownianMotion</code> (<code>BrownianMotion</code> stores <code>numberOfTimeSteps</code> times <code>numberOfPaths</code> increments on the heap).
+		 *
+		 * @param brownianMotion The Brownian driver of the process
+		 * @param compoundPoissonProcess The jump driver of the process
+		 * @param observationTimeIndices The time indices at which the process will be observed, or null to store every time index.
+		 * @param isCalculatingTangentProcesses If true, the tangent processes are evolved alongside the state.
+		 * @param isSinglePrecision If true, the process and the tangent processes are stored in single precision.
+		 * @param isOffHeap If true, the process and the tangent processes are stored off the Java heap.
+		 */
+		public MertonJumpDiffusionProcessEulerScheme(BrownianMotionInterface brownianMotion, PointProcessInterface compoundPoissonProcess, int[] observationTimeIndices,
+				boolean isCalculatingTangentProcesses, boolean isSinglePrecision, boolean isOffHeap) {
 			// compare timediscr of brownian and compound
 			super(brownianMotion.getTimeDiscretization());
 			this.brownianMotion = brownianMotion;
 			this.compoundPoissonProcess = compoundPoissonProcess;
+			this.isCalculatingTangentProcesses = isCalculatingTangentProcesses;
+			this.isSinglePrecision = isSinglePrecision;
+			this.isOffHeap = isOffHeap;
+			this.observationTimeIndices = observationTimeIndices != null ? observationTimeIndices.clone() : null;
+			if(observationTimeIndices != null) {
+				this.isObservationTimeIndex = new boolean[brownianMotion.getTimeDiscretization().getNumberOfTimes()];
+				this.isObservationTimeIndex[0] = true;
+				for(int timeIndex : observationTimeIndices) this.isObservationTimeIndex[timeIndex] = true;
+			}
+			else {
+				this.isObservationTimeIndex = null;
+			}
+		}
+		@Override
+		public void setModel(AbstractModelInterface model) {
+			super.setModel(model);
+			this.mertonModel = model instanceof MonteCarloMertonJumpDiffusionModel ? (MonteCarloMertonJumpDiffusionModel)model : null;
 		}
+
 		/**
 		 * This method returns the realization of the process at a certain time index.
 		 * 
@@ -67,6 +224,14 @@ import net.finmath.stochastic.RandomVariableInterface;
 				}
 			}
 
+			if(isObservationTimeIndex != null && !isObservationTimeIndex[timeIndex]) {
+				throw new IllegalArgumentException("Time index " + timeIndex + " has not been registered as an observation time index of the process.");
+			}
+
+			if(isOffHeap && timeIndex > 0) {
+				return getOffHeapValue(offHeapProcess, offHeapSliceOfTimeIndex[timeIndex] * getNumberOfComponents() + componentIndex, componentIndex, timeIndex);
+			}
+
 			if(discreteProcess[timeIndex][componentIndex] == null) {
 				throw new NullPointerException("Generation of process component " + componentIndex + " at time index " + timeIndex + " failed. Likely due to out of memory");
 			}
@@ -94,8 +259,139 @@ import net.finmath.stochastic.RandomVariableInterface;
 			return discreteProcessWeights[timeIndex];
 		}
 
+		/**
+		 * This method returns the tangent process \( \partial S / \partial S_{0} \) at a certain time index.
+		 *
+		 * @param timeIndex Time index at which the tangent process should be observed
+		 * @return A vector of realizations of the tangent process (on path)
+		 */
+		public RandomVariableInterface getInitialValueTangent(int timeIndex) {
+			return getTangentProcessValue(timeIndex, true);
+		}
+
+		/**
+		 * This method returns the tangent process \( \partial S / \partial \sigma \) at a certain time index.
+		 *
+		 * @param timeIndex Time index at which the tangent process should be observed
+		 * @return A vector of realizations of the tangent process (on path)
+		 */
+		public RandomVariableInterface getVolatilityTangent(int timeIndex) {
+			return getTangentProcessValue(timeIndex, false);
+		}
+
+		private RandomVariableInterface getTangentProcessValue(int timeIndex, boolean isInitialValueTangent) {
+			if(!isCalculatingTangentProcesses) {
+				throw new IllegalStateException("The process has been created without tangent processes.");
+			}
+
+			// Thread safe lazy initialization
+			synchronized(this) {
+				if (discreteProcess == null || discreteProcess.length == 0) {
+					doPrecalculateProcess();
+				}
+			}
+
+			if(isObservationTimeIndex != null && !isObservationTimeIndex[timeIndex]) {
+				throw new IllegalArgumentException("Time index " + timeIndex + " has not been registered as an observation time index of the process.");
+			}
+
+			if(isOffHeap && timeIndex > 0) {
+				OffHeapPathMatrix tangent = isInitialValueTangent ? offHeapInitialValueTangent : offHeapVolatilityTangent;
+				return getOffHeapValue(tangent, offHeapSliceOfTimeIndex[timeIndex], getNumberOfComponents() + (isInitialValueTangent ? 0 : 1), timeIndex);
+			}
+			return isInitialValueTangent ? discreteInitialValueTangent[timeIndex] : discreteVolatilityTangent[timeIndex];
+		}
+
+		/*
+		 * Returns the slice of an off-heap matrix on the heap, reusing the last slice of the same entry if it has the same time index.
+		 * A race between two threads only copies the slice twice.
+		 */
+		private RandomVariableInterface getOffHeapValue(OffHeapPathMatrix matrix, int slice, int entry, int timeIndex) {
+			OffHeapSlice lastSlice = offHeapLastSlices[entry];
+			if(lastSlice != null && lastSlice.timeIndex == timeIndex) return lastSlice.value;
+
+			RandomVariableInterface value = randomVariableFactory.createRandomVariable(getTime(timeIndex), matrix.getSlice(slice));
+			offHeapLastSlices[entry] = new OffHeapSlice(timeIndex, value);
+			return value;
+		}
+
+		/**
+		 * @return True if the process is stored in single precision.
+		 */
+		public boolean isSinglePrecision() {
+			return isSinglePrecision;
+		}
+
+		/**
+		 * @return True if the process is stored off the Java heap.
+		 */
+		public boolean isOffHeap() {
+			return isOffHeap;
+		}
+
+		/**
+		 * Releases the off-heap memory of the stored process (if any) and resets the process, such that a subsequent access
+		 * calculates the process again. The method must not be called while another thread accesses the process.
+		 */
+		public synchronized void free() {
+			if (offHeapProcess != null)				offHeapProcess.free();
+			if (offHeapInitialValueTangent != null)	offHeapInitialValueTangent.free();
+			if (offHeapVolatilityTangent != null)	offHeapVolatilityTangent.free();
+			reset();
+		}
+
+		/**
+		 * Returns the maximum relative rounding error \( |x - \mathrm{float}(x)| / |x| \) of the values stored in single precision
+		 * (the process and the tangent processes), i.e., 0 if the process is stored in double precision.
+		 *
+		 * @return The maximum relative rounding error of the stored values.
+		 */
+		public double getMaximumRelativeRoundingError() {
+			// Thread safe lazy initialization
+			synchronized(this) {
+				if (discreteProcess == null || discreteProcess.length == 0) {
+					doPrecalculateProcess();
+				}
+			}
+			return maximumRelativeRoundingError;
+		}
+
+		private float[] toSinglePrecision(RandomVariableInterface randomVariable) {
+			float[] values = new float[getNumberOfPaths()];
+			for (int path = 0; path < values.length; path++) values[path] = roundToSinglePrecision(randomVariable.get(path));
+			return values;
+		}
+
+		private float[] toSinglePrecision(double[] randomVariable) {
+			float[] values = new float[randomVariable.length];
+			for (int path = 0; path < values.length; path++) values[path] = roundToSinglePrecision(randomVariable[path]);
+			return values;
+		}
+
+		private float roundToSinglePrecision(double value) {
+			float roundedValue = (float)value;
+			if (value != 0.0) maximumRelativeRoundingError = Math.max(maximumRelativeRoundingError, Math.abs((value - roundedValue) / value));
+			return roundedValue;
+		}
+
+		private RandomVariableInterface toSinglePrecisionRandomVariable(int timeIndex, double[] values) {
+			return new RandomVariableLowMemory(getTime(timeIndex), toSinglePrecision(values));
+		}
+
+		private RandomVariableInterface toSinglePrecisionRandomVariable(int timeIndex, RandomVariableInterface values) {
+			return new RandomVariableLowMemory(getTime(timeIndex), toSinglePrecision(values));
+		}
+
+		/**
+		 * @return True if the tangent processes are evolved alongside the state.
+		 */
+		public boolean isCalculatingTangentProcesses() {
+			return isCalculatingTangentProcesses;
+		}
+
 		/**
 		 * Calculates the whole (discrete) process.
+		 * In streaming mode only the registered observation time indices are kept.
 		 */
 		private void doPrecalculateProcess() {
 			if (discreteProcess != null && discreteProcess.length != 0)	return;
@@ -107,6 +403,29 @@ import net.finmath.stochastic.RandomVariableInterface;
 			// Allocate Memory
 			discreteProcess			= new RandomVariableInterface[getTimeDiscretization().getNumberOfTimeSteps() + 1][getNumberOfComponents()];
 			discreteProcessWeights	= new RandomVariableInterface[getTimeDiscretization().getNumberOfTimeSteps() + 1];
+			maximumRelativeRoundingError = 0.0;
+			if (isOffHeap) {
+				// The slices of the stored time indices (after time index 0) are allocated up front
+				offHeapSliceOfTimeIndex = new int[getTimeDiscretization().getNumberOfTimeSteps() + 1];
+				int numberOfSlices = 0;
+				for (int timeIndex = 1; timeIndex < offHeapSliceOfTimeIndex.length; timeIndex++) {
+					offHeapSliceOfTimeIndex[timeIndex] = (isObservationTimeIndex == null || isObservationTimeIndex[timeIndex]) ? numberOfSlices++ : -1;
+				}
+				offHeapProcess = new OffHeapPathMatrix(numberOfSlices * numberOfComponents, numberOfPaths, isSinglePrecision);
+				offHeapLastSlices = new OffHeapSlice[numberOfComponents + 2];
+				if (isCalculatingTangentProcesses) {
+					offHeapInitialValueTangent	= new OffHeapPathMatrix(numberOfSlices, numberOfPaths, isSinglePrecision);
+					offHeapVolatilityTangent	= new OffHeapPathMatrix(numberOfSlices, numberOfPaths, isSinglePrecision);
+				}
+			}
+
+			// The random numbers (generated on first use) and the jumps are measured as phases of their own
+			SimulationMetrics.Measurement randomNumbersMeasurement = SimulationMetrics.start(SimulationMetrics.Phase.RANDOM_NUMBERS);
+			brownianMotion.getBrownianIncrement(0, 0);
+			randomNumbersMeasurement.stop(numberOfPaths);
+			final JumpEvents jumpEvents = compoundPoissonProcess.getJumpEvents();
+
+			SimulationMetrics.Measurement measurement = SimulationMetrics.start(SimulationMetrics.Phase.EULER_SCHEME);
 
 			// Set initial Monte-Carlo weights
 			discreteProcessWeights[0] = brownianMotion.getRandomVariableForConstant(1.0 / numberOfPaths);
@@ -114,15 +433,43 @@ import net.finmath.stochastic.RandomVariableInterface;
 			// Set initial value
 			RandomVariableInterface[] initialState = getInitialState();
 			final RandomVariableInterface[] currentState = new RandomVariableInterface[numberOfComponents];
+			RandomVariableInterface[] previousValue = new RandomVariableInterface[numberOfComponents];
 			for (int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
 				currentState[componentIndex] = initialState[componentIndex];
-				discreteProcess[0][componentIndex] = applyStateSpaceTransform(componentIndex, currentState[componentIndex]);
+				previousValue[componentIndex] = applyStateSpaceTransform(componentIndex, currentState[componentIndex]);
+				discreteProcess[0][componentIndex] = previousValue[componentIndex];
 			}
 
 			/*
 			 * Evolve the process using an Euler scheme.
+			 * The jumps are applied only to the paths which jump in the given time step.
 			 */
 
+			/*
+			 * The tangent processes are evolved on primitive arrays, with the step factor G = 1 + r dt + sigma dW + sum of jumps.
+			 */
+			double[] initialValueTangent	= null;
+			double[] volatilityTangent		= null;
+			double[] stepFactor				= null;
+			double riskFreeRate = 0.0, volatility = 0.0;
+			if(isCalculatingTangentProcesses) {
+				if(mertonModel == null) {
+					throw new IllegalStateException("The tangent processes require a MonteCarloMertonJumpDiffusionModel.");
+				}
+				riskFreeRate	= mertonModel.getRiskFreeRate();
+				volatility		= mertonModel.getVolatility();
+
+				initialValueTangent	= new double[numberOfPaths];
+				volatilityTangent	= new double[numberOfPaths];
+				stepFactor			= new double[numberOfPaths];
+				Arrays.fill(initialValueTangent, 1.0);
+
+				discreteInitialValueTangent	= new RandomVariableInterface[getTimeDiscretization().getNumberOfTimeSteps() + 1];
+				discreteVolatilityTangent	= new RandomVariableInterface[getTimeDiscretization().getNumberOfTimeSteps() + 1];
+				discreteInitialValueTangent[0]	= brownianMotion.getRandomVariableForConstant(1.0);
+				discreteVolatilityTangent[0]	= brownianMotion.getRandomVariableForConstant(0.0);
+			}
+
 
 			// Evolve process
 			for (int timeIndex2 = 1; timeIndex2 < getTimeDiscretization().getNumberOfTimeSteps()+1; timeIndex2++) {
@@ -131,12 +478,10 @@ import net.finmath.stochastic.RandomVariableInterface;
 				final double deltaT = getTime(timeIndex) - getTime(timeIndex - 1);
 
 				// Fetch drift vector
-				RandomVariableInterface[] drift = getDrift(timeIndex - 1, discreteProcess[timeIndex - 1], null);
-				RandomVariableInterface[] jump = new RandomVariableInterface[numberOfComponents];
-				for (int comp = 0; comp < numberOfComponents;comp++){
-					jump[comp] = discreteProcess[timeIndex-1][comp].mult(compoundPoissonProcess.getProcessIncrements(timeIndex-1));
-					
-				}
+				RandomVariableInterface[] drift = getDrift(timeIndex - 1, previousValue, null);
+				final RandomVariableInterface[] value = previousValue.clone();
+				final JumpEvents.TimeStep jumpsInTimeStep = jumpEvents.getJumpsInTimeStep(timeIndex - 1);
+				final int numberOfJumps = jumpsInTimeStep.getNumberOfJumps();
 
 				// Calculate new realization
 				for (int componentIndex2 = 0; componentIndex2 < numberOfComponents; componentIndex2++) {
@@ -144,40 +489,82 @@ import net.finmath.stochastic.RandomVariableInterface;
 					final int componentIndex = componentIndex2;
 
 					final RandomVariableInterface	driftOfComponent	= drift[componentIndex];
-					final RandomVariableInterface 	jumpOfComponent 	= jump[componentIndex];
 
 					// Check if the component process has stopped to evolve
 					if (driftOfComponent == null) continue;
 
-					RandomVariableInterface[]	factorLoadings		= getFactorLoading(timeIndex - 1, componentIndex, discreteProcess[timeIndex - 1]);
-
-							// Check if the component process has stopped to evolve
-					
-							// Temp storage for variance and diffusion
-					RandomVariableInterface diffusionOfComponent	= brownianMotion.getRandomVariableForConstant(0.0);
+					RandomVariableInterface[]	factorLoadings		= getFactorLoading(timeIndex - 1, componentIndex, previousValue);
 
-							// Generate values for diffusionOfComponent and varianceOfComponent 
+					// The new state is built in one primitive array: state + drift dt + sum of factor loading dW, then the jumps in place
+					final RandomVariableInterface stateOfComponent = currentState[componentIndex];
+					final double[] state = new double[numberOfPaths];
+					for (int path = 0; path < numberOfPaths; path++) state[path] = stateOfComponent.get(path) + driftOfComponent.get(path) * deltaT;
 					for (int factor = 0; factor < numberOfFactors; factor++) {
 						RandomVariableInterface factorLoading		= factorLoadings[factor];
 						RandomVariableInterface brownianIncrement	= brownianMotion.getBrownianIncrement(timeIndex - 1, factor);
-
-						diffusionOfComponent = diffusionOfComponent.addProduct(factorLoading, brownianIncrement);
+						for (int path = 0; path < numberOfPaths; path++) state[path] += factorLoading.get(path) * brownianIncrement.get(path);
 					}
 
-					RandomVariableInterface increment = diffusionOfComponent;
-					if(driftOfComponent != null) increment = increment.addProduct(driftOfComponent, deltaT).add(jumpOfComponent);
-					
-					//if (componentIndex2 == 0) System.out.println(increment.get(0));
-
-							// Add increment to state and applyStateSpaceTransform
-					currentState[componentIndex] = currentState[componentIndex].add(increment);
+					// Add the jumps S(t_{i}) dJ on the paths which jump
+					final RandomVariableInterface valueBeforeJump = previousValue[componentIndex];
+					for (int jump = 0; jump < numberOfJumps; jump++) {
+						int path = jumpsInTimeStep.getPath(jump);
+						state[path] += valueBeforeJump.get(path) * jumpsInTimeStep.getSize(jump);
+					}
+					currentState[componentIndex] = randomVariableFactory.createRandomVariable(getTime(timeIndex), state);
 							
 							// Transform the state space to the value space and return it.
 					//applyStateSpaceTransform(componentIndex, currentState[componentIndex]);
-					discreteProcess[timeIndex][componentIndex] = applyStateSpaceTransform(componentIndex, currentState[componentIndex]);
+					value[componentIndex] = applyStateSpaceTransform(componentIndex, currentState[componentIndex]);
 					//System.out.println(currentState[componentIndex].get(0));
 				}
 
+				// Evolve the tangent processes (using the state before the step)
+				if (isCalculatingTangentProcesses) {
+					RandomVariableInterface brownianIncrement = brownianMotion.getBrownianIncrement(timeIndex - 1, 0);
+					for (int path = 0; path < numberOfPaths; path++) stepFactor[path] = 1.0 + riskFreeRate * deltaT + volatility * brownianIncrement.get(path);
+					for (int jump = 0; jump < numberOfJumps; jump++) {
+						stepFactor[jumpsInTimeStep.getPath(jump)] += jumpsInTimeStep.getSize(jump);
+					}
+					for (int path = 0; path < numberOfPaths; path++) {
+						volatilityTangent[path]		= volatilityTangent[path] * stepFactor[path] + previousValue[0].get(path) * brownianIncrement.get(path);
+						initialValueTangent[path]	= initialValueTangent[path] * stepFactor[path];
+					}
+				}
+
+				// Keep the realization only if it is observed, the previous one is released
+				if ((isObservationTimeIndex == null || isObservationTimeIndex[timeIndex]) && isOffHeap) {
+					int slice = offHeapSliceOfTimeIndex[timeIndex];
+					for (int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) {
+						if (isSinglePrecision)	offHeapProcess.setSlice(slice * numberOfComponents + componentIndex, toSinglePrecision(value[componentIndex]));
+						else					offHeapProcess.setSlice(slice * numberOfComponents + componentIndex, value[componentIndex]);
+					}
+					if (isCalculatingTangentProcesses && isSinglePrecision) {
+						offHeapInitialValueTangent.setSlice(slice, toSinglePrecision(initialValueTangent));
+						offHeapVolatilityTangent.setSlice(slice, toSinglePrecision(volatilityTangent));
+					}
+					else if (isCalculatingTangentProcesses) {
+						offHeapInitialValueTangent.setSlice(slice, initialValueTangent);
+						offHeapVolatilityTangent.setSlice(slice, volatilityTangent);
+					}
+				}
+				else if ((isObservationTimeIndex == null || isObservationTimeIndex[timeIndex]) && isSinglePrecision) {
+					// The state stays in double precision, only the stored copy is rounded
+					for (int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) discreteProcess[timeIndex][componentIndex] = toSinglePrecisionRandomVariable(timeIndex, value[componentIndex]);
+					if (isCalculatingTangentProcesses) {
+						discreteInitialValueTangent[timeIndex]	= toSinglePrecisionRandomVariable(timeIndex, initialValueTangent);
+						discreteVolatilityTangent[timeIndex]	= toSinglePrecisionRandomVariable(timeIndex, volatilityTangent);
+					}
+				}
+				else if (isObservationTimeIndex == null || isObservationTimeIndex[timeIndex]) {
+					for (int componentIndex = 0; componentIndex < numberOfComponents; componentIndex++) discreteProcess[timeIndex][componentIndex] = value[componentIndex];
+					if (isCalculatingTangentProcesses) {
+						discreteInitialValueTangent[timeIndex]	= randomVariableFactory.createRandomVariable(getTime(timeIndex), initialValueTangent.clone());
+						discreteVolatilityTangent[timeIndex]	= randomVariableFactory.createRandomVariable(getTime(timeIndex), volatilityTangent.clone());
+					}
+				}
+				previousValue = value;
+
 
 
 				
@@ -191,6 +578,8 @@ import net.finmath.stochastic.RandomVariableInterface;
 	 // End for(timeIndex)
 	}
 
+			measurement.stop(numberOfPaths);
+
 
 }
 
@@ -201,6 +590,13 @@ import net.finmath.stochastic.RandomVariableInterface;
 		private synchronized void reset() {
 			this.discreteProcess = null;
 			this.discreteProcessWeights = null;
+			this.discreteInitialValueTangent = null;
+			this.discreteVolatilityTangent = null;
+			this.offHeapProcess = null;
+			this.offHeapInitialValueTangent = null;
+			this.offHeapVolatilityTangent = null;
+			this.offHeapSliceOfTimeIndex = null;
+			this.offHeapLastSlices = null;
 		}
 
 		/**
@@ -242,6 +638,11 @@ import net.finmath.stochastic.RandomVariableInterface;
 			return brownianMotion;
 		}
 
+		@Override
+		public IndependentIncrementsInterface getStochasticDriver() {
+			return getBrownianMotion();
+		}
+
 		/**
 		 * @param brownianMotion The brownianMotion to set.
 		 * @deprecated Do not use anymore. Processes should be immutable.
@@ -254,16 +655,24 @@ import net.finmath.stochastic.RandomVariableInterface;
 			this.reset();
 		}
 
+		@Override
 		public PointProcessInterface getCompoundPoissonProcess(){
 			return compoundPoissonProcess;
 		}
 	
+		/**
+		 * @return The registered observation time indices or null if every time index is stored.
+		 */
+		public int[] getObservationTimeIndices() {
+			return observationTimeIndices != null ? observationTimeIndices.clone() : null;
+		}
+
 		/* (non-Javadoc)
 		 * @see net.finmath.montecarlo.process.AbstractProcess#clone()
 		 */
 		@Override
 		public MertonJumpDiffusionProcessEulerScheme clone() {
-			return new MertonJumpDiffusionProcessEulerScheme(getBrownianMotion(), getCompoundPoissonProcess());
+			return new MertonJumpDiffusionProcessEulerScheme(getBrownianMotion(), getCompoundPoissonProcess(), observationTimeIndices, isCalculatingTangentProcesses, isSinglePrecision, isOffHeap);
 		}
 
 		/* (non-Javadoc)
@@ -271,7 +680,22 @@ import net.finmath.stochastic.RandomVariableInterface;
 		 */
 		@Override
 		public Object getCloneWithModifiedSeed(int seed) {
-			return new MertonJumpDiffusionProcessEulerScheme(getBrownianMotion(), getCompoundPoissonProcess());
+			return new MertonJumpDiffusionProcessEulerScheme(getBrownianMotion(), getCompoundPoissonProcess(), observationTimeIndices, isCalculatingTangentProcesses, isSinglePrecision, isOffHeap);
+		}
+
+		/**
+		 * Returns the process of the model with modified data (see <code>MonteCarloMertonJumpDiffusionModel.getCloneWithModifiedData</code>).
+		 *
+		 * @param dataModified Key-value-map of parameters to modify.
+		 * @return The process of the model with the modified data.
+		 * @throws IllegalStateException Thrown if the process is not linked to a <code>MonteCarloMertonJumpDiffusionModel</code>.
+		 */
+		@Override
+		public AbstractProcessInterface getCloneWithModifiedData(Map<String, Object> dataModified) {
+			if(mertonModel == null) {
+				throw new IllegalStateException("The process is not linked to a MonteCarloMertonJumpDiffusionModel.");
+			}
+			return mertonModel.getCloneWithModifiedData(dataModified).getProcess();
 		}
 		
 
@@ -0,0 +1,235 @@
+package projectTest;
+
+import java.util.Map;
+
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.IndependentIncrementsInterface;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.montecarlo.model.AbstractModelInterface;
+import net.finmath.montecarlo.process.AbstractProcess;
+import net.finmath.montecarlo.process.AbstractProcessInterface;
+import net.finmath.stochastic.RandomVariableInterface;
+
+/**
+ * This class implements an exact (in distribution) discretization of the Merton jump diffusion
+ * \[
+ * 	dS = r S dt + \sigma S dW + S dJ \text{,}
+ * \]
+ * where J is a compound Poisson process with jumps \( Y_{j} = \exp(\mu + \nu Z_{j}) - 1 \).
+ *
+ * Between two grid points the scheme samples log S exactly, i.e.,
+ * \[
+ * 	S(t_{i+1}) = S(t_{i}) \cdot \exp\left( (r - \frac{1}{2} \sigma^2) \Delta t_{i} + \sigma \Delta W(t_{i}) \right) \cdot \prod_{j} (1 + Y_{j}) \text{,}
+ * \]
+ * where the product runs over the jumps in the time step. Hence there is no discretization bias and the time discretization
+ * only needs to contain the event dates of the product (e.g. the maturity or the hedge dates), e.g.
+ * <pre>
+ * TimeDiscretizationInterface eventTimes = new TimeDiscretization(0.0, 1, maturity);
+ * AbstractProcess process = new MertonJumpDiffusionProcessExactScheme(
+ * 		new BrownianMotion(eventTimes, 1, numberOfPaths, seed),
+ * 		new CompoundPoissonProcess(intensity, jumpMean, jumpVariance, eventTimes, numberOfPaths, MonteCarloMertonJumpDiffusionModel.getSeedOfJumps(seed)));
+ * model = new MonteCarloMertonJumpDiffusionModel(initialValue, riskFreeRate, volatility, process, intensity, jumpMean, jumpVariance, seed);
+ * </pre>
+ *
+ * The model parameters r and \sigma are taken from the <code>MonteCarloMertonJumpDiffusionModel</code> linked to this process,
+ * the jumps are taken from the jump events of the compound Poisson process.
+ *
+ * @author A V L
+ * @see MertonJumpDiffusionProcessEulerScheme
+ * @version 1.0
+ */
+public class MertonJumpDiffusionProcessExactScheme extends AbstractProcess implements JumpDiffusionProcessInterface {
+
+	private AbstractRandomVariableFactory randomVariableFactory = new RandomVariableFactory();
+
+	private BrownianMotionInterface brownianMotion;
+	private PointProcessInterface compoundPoissonProcess;
+
+	/*
+	 * The model linked to this process (by setModel), providing r and sigma.
+	 */
+	private MonteCarloMertonJumpDiffusionModel model;
+
+	/*
+	 * The storage of the simulated stochastic process.
+	 */
+	private transient RandomVariableInterface[]	discreteProcess = null;
+	private transient RandomVariableInterface[]	discreteProcessWeights;
+
+	/**
+	 * @param brownianMotion The Brownian driver of the process
+	 * @param compoundPoissonProcess The jump driver of the process, on the same time discretization as the Brownian driver
+	 */
+	public MertonJumpDiffusionProcessExactScheme(BrownianMotionInterface brownianMotion, PointProcessInterface compoundPoissonProcess) {
+		super(brownianMotion.getTimeDiscretization());
+		this.brownianMotion = brownianMotion;
+		this.compoundPoissonProcess = compoundPoissonProcess;
+	}
+
+	/**
+	 * Links the model to this process. The scheme requires a <code>MonteCarloMertonJumpDiffusionModel</code>.
+	 *
+	 * @param model The model.
+	 */
+	@Override
+	public void setModel(AbstractModelInterface model) {
+		if(!(model instanceof MonteCarloMertonJumpDiffusionModel)) {
+			throw new IllegalArgumentException("The exact scheme requires a MonteCarloMertonJumpDiffusionModel.");
+		}
+		super.setModel(model);
+		this.model = (MonteCarloMertonJumpDiffusionModel)model;
+	}
+
+	/**
+	 * This method returns the realization of the process at a certain time index.
+	 *
+	 * @param timeIndex Time index at which the process should be observed
+	 * @param componentIndex The component of the process (only component 0 exists)
+	 * @return A vector of process realizations (on path)
+	 */
+	@Override
+	public RandomVariableInterface getProcessValue(int timeIndex, int componentIndex) {
+		// Thread safe lazy initialization
+		synchronized(this) {
+			if (discreteProcess == null || discreteProcess.length == 0) {
+				doPrecalculateProcess();
+			}
+		}
+
+		if(discreteProcess[timeIndex] == null) {
+			throw new NullPointerException("Generation of process component " + componentIndex + " at time index " + timeIndex + " failed. Likely due to out of memory");
+		}
+
+		return discreteProcess[timeIndex];
+	}
+
+	/**
+	 * This method returns the weights of a weighted Monte Carlo method (the probability density).
+	 *
+	 * @param timeIndex Time index at which the process should be observed
+	 * @return A vector of positive weights
+	 */
+	@Override
+	public RandomVariableInterface getMonteCarloWeights(int timeIndex) {
+		// Thread safe lazy initialization
+		synchronized(this) {
+			if (discreteProcessWeights == null || discreteProcessWeights.length == 0) {
+				doPrecalculateProcess();
+			}
+		}
+
+		return discreteProcessWeights[timeIndex];
+	}
+
+	/**
+	 * Calculates the whole (discrete) process.
+	 */
+	private void doPrecalculateProcess() {
+		if (discreteProcess != null && discreteProcess.length != 0)	return;
+
+		if(model == null) {
+			throw new IllegalStateException("The process has not been linked to a MonteCarloMertonJumpDiffusionModel.");
+		}
+		final double riskFreeRate	= model.getRiskFreeRate();
+		final double volatility		= model.getVolatility();
+
+		final int numberOfPaths = this.getNumberOfPaths();
+		final JumpEvents jumpEvents = compoundPoissonProcess.getJumpEvents();
+
+		// Allocate Memory
+		discreteProcess			= new RandomVariableInterface[getTimeDiscretization().getNumberOfTimeSteps() + 1];
+		discreteProcessWeights	= new RandomVariableInterface[getTimeDiscretization().getNumberOfTimeSteps() + 1];
+
+		// Set initial value and Monte-Carlo weights
+		discreteProcess[0]			= getInitialState()[0];
+		discreteProcessWeights[0]	= brownianMotion.getRandomVariableForConstant(1.0 / numberOfPaths);
+
+		for (int timeIndex = 1; timeIndex < getTimeDiscretization().getNumberOfTimeSteps()+1; timeIndex++) {
+			final double deltaT = getTime(timeIndex) - getTime(timeIndex - 1);
+			final double drift = (riskFreeRate - 0.5 * volatility * volatility) * deltaT;
+
+			// Diffusion: exact log-normal step, on one primitive array per time step
+			final RandomVariableInterface previousValue = discreteProcess[timeIndex - 1];
+			final RandomVariableInterface brownianIncrement = brownianMotion.getBrownianIncrement(timeIndex - 1, 0);
+			final double[] value = new double[numberOfPaths];
+			for (int path = 0; path < numberOfPaths; path++) value[path] = previousValue.get(path) * Math.exp(drift + volatility * brownianIncrement.get(path));
+
+			// Jumps: multiply by (1 + Y) in place on the paths which jump in this time step
+			final JumpEvents.TimeStep jumpsInTimeStep = jumpEvents.getJumpsInTimeStep(timeIndex - 1);
+			for (int jump = 0; jump < jumpsInTimeStep.getNumberOfJumps(); jump++) {
+				value[jumpsInTimeStep.getPath(jump)] *= 1.0 + jumpsInTimeStep.getSize(jump);
+			}
+
+			discreteProcess[timeIndex] = randomVariableFactory.createRandomVariable(getTime(timeIndex), value);
+
+			// Set Monte-Carlo weights
+			discreteProcessWeights[timeIndex] = discreteProcessWeights[timeIndex - 1];
+		}
+	}
+
+	/**
+	 * @return Returns the numberOfPaths.
+	 */
+	@Override
+	public int getNumberOfPaths() {
+		return this.brownianMotion.getNumberOfPaths();
+	}
+
+	/**
+	 * @return Returns the numberOfFactors.
+	 */
+	@Override
+	public int getNumberOfFactors() {
+		return this.brownianMotion.getNumberOfFactors();
+	}
+
+	/**
+	 * @return Returns the Brownian motion used in the generation of the process
+	 */
+	@Override
+	public BrownianMotionInterface getBrownianMotion() {
+		return brownianMotion;
+	}
+
+	@Override
+	public IndependentIncrementsInterface getStochasticDriver() {
+		return getBrownianMotion();
+	}
+
+	@Override
+	public PointProcessInterface getCompoundPoissonProcess(){
+		return compoundPoissonProcess;
+	}
+
+	/* (non-Javadoc)
+	 * @see net.finmath.montecarlo.process.AbstractProcess#clone()
+	 */
+	@Override
+	public MertonJumpDiffusionProcessExactScheme clone() {
+		return new MertonJumpDiffusionProcessExactScheme(getBrownianMotion(), getCompoundPoissonProcess());
+	}
+
+	/* (non-Javadoc)
+	 * @see net.finmath.montecarlo.process.AbstractProcess#getCloneWithModifiedSeed(int)
+	 */
+	@Override
+	public Object getCloneWithModifiedSeed(int seed) {
+		return new MertonJumpDiffusionProcessExactScheme(getBrownianMotion(), getCompoundPoissonProcess());
+	}
+
+	/**
+	 * Returns the process of the model with modified data (see <code>MonteCarloMertonJumpDiffusionModel.getCloneWithModifiedData</code>).
+	 *
+	 * @param dataModified Key-value-map of parameters to modify.
+	 * @return The process of the model with the modified data.
+	 * @throws IllegalStateException Thrown if the process is not linked to a <code>MonteCarloMertonJumpDiffusionModel</code>.
+	 */
+	@Override
+	public AbstractProcessInterface getCloneWithModifiedData(Map<String, Object> dataModified) {
+		if(model == null) {
+			throw new IllegalStateException("The process is not linked to a MonteCarloMertonJumpDiffusionModel.");
+		}
+		return model.getCloneWithModifiedData(dataModified).getProcess();
+	}
+}
@@ -8,17 +8,18 @@ package projectTest;
 import java.util.ArrayList;
 import java.util.Map;
 
+import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
 import net.finmath.exception.CalculationException;
 import net.finmath.montecarlo.BrownianMotion;
 import net.finmath.montecarlo.BrownianMotionInterface;
 import net.finmath.montecarlo.model.AbstractModel;
 import net.finmath.montecarlo.process.AbstractProcess;
-import net.finmath.montecarlo.process.ProcessEulerScheme;
+import net.finmath.montecarlo.process.AbstractProcessInterface;
 import net.finmath.stochastic.RandomVariableInterface;
 import net.finmath.time.TimeDiscretization;
 import net.finmath.time.TimeDiscretizationInterface;
 import net.finmath.montecarlo.assetderivativevaluation.AssetModelMonteCarloSimulationInterface;
-import projectTest.JumpProcessEulerScheme;
 
 
 /**
@@ -41,6 +42,18 @@ import projectTest.JumpProcessEulerScheme;
  * 
  * The stateSpaceTransform f is set to id.
  * 
+ * The process may be the Euler scheme <code>MertonJumpDiffusionProcessEulerScheme</code> (the default) or the exact scheme
+ * <code>MertonJumpDiffusionProcessExactScheme</code>, which has no discretization bias and may hence be used on a time discretization
+ * consisting of the event dates of the product only.
+ * 
+ * The clones of the model keep the scheme and the jumps. A clone with a modified initial value only rescales the paths of this model
+ * (the model is linear in S), a clone with modified diffusion or jump parameters reuses the Brownian motion and the jumps of this model
+ * (see <code>getCloneWithModifiedData</code>).
+ * 
+ * The random numbers are derived from the seed of the model, which the clones inherit: the Brownian motion uses the seed itself, the jumps,
+ * the uniforms thinning the jumps and the jumps added for a larger intensity draw from streams derived by <code>PathBlocks.getSeedForBlock</code>.
+ * The streams of thinning and added jumps are further derived from the number of times the jumps have been derived this way,
+ * such that a clone of a clone does not draw the jumps of its parent again.
  * 
  */
 public class MonteCarloMertonJumpDiffusionModel extends AbstractModel implements AssetModelMonteCarloSimulationInterface {
@@ -52,7 +65,24 @@ public class MonteCarloMertonJumpDiffusionModel extends AbstractModel implements
 	private final double jumpMean;
 	private final double jumpVariance;
 	
-	private final int seed = 3141;
+	/**
+	 * The seed of the models created without a seed.
+	 */
+	public static final int DEFAULT_SEED = 3141;
+
+	/*
+	 * The indices of the random number streams derived from the seed (by PathBlocks.getSeedForBlock).
+	 */
+	private static final int STREAM_OF_JUMPS				= 1;
+	private static final int STREAM_OF_THINNING			= 2;
+	private static final int STREAM_OF_ADDITIONAL_JUMPS	= 3;
+
+	private final int seed;
+
+	/*
+	 * The number of times the jumps of this model have been derived from the jumps of another model by thinning or adding jumps.
+	 */
+	private final int numberOfJumpDerivations;
 
 	private final RandomVariableInterface[]	initialValueVector	= new RandomVariableInterface[1];
 	private final RandomVariableInterface	drift;
@@ -79,6 +109,65 @@ public class MonteCarloMertonJumpDiffusionModel extends AbstractModel implements
 			double poissonIntensity,
 			double jumpMean,
 			double jumpVariance) {
+		this(timeDiscretization, numberOfPaths, initialValue, riskFreeRate, volatility, poissonIntensity, jumpMean, jumpVariance, false);
+	}
+
+	/**
+	 * Create a Monte-Carlo simulation using given time discretization, optionally with antithetic paths.
+	 * 
+	 * With antithetic paths, the path <code>path + numberOfPaths/2</code> has the mirrored Brownian increments of the path <code>path</code>,
+	 * the same jump times and the mirrored jump sizes (see <code>AntitheticBrownianMotion</code> and <code>AntitheticCompoundPoissonProcess</code>).
+	 * Only the random numbers of half of the paths are drawn. Use <code>AntitheticPairAveragedProduct</code> to get the standard error of the
+	 * antithetic estimator.
+	 * 
+	 * @param timeDiscretization The time discretization.
+	 * @param numberOfPaths The number of Monte-Carlo path to be used, has to be even for antithetic paths.
+	 * @param initialValue Spot value.
+	 * @param riskFreeRate The risk free rate.
+	 * @param volatility The log volatility.
+	 * @param poissonIntensity The intensity of the Poisson Process
+	 * @param jumpMean The mean and variance of the jumps
+	 * @param jumpVariance exp (mean + variance * Z) - 1,  Z normally distributed
+	 * @param isAntithetic If true, the paths are antithetic pairs.
+	 */
+	public MonteCarloMertonJumpDiffusionModel(
+			TimeDiscretizationInterface timeDiscretization,
+			int numberOfPaths,
+			double initialValue,
+			double riskFreeRate,
+			double volatility,
+			double poissonIntensity,
+			double jumpMean,
+			double jumpVariance,
+			boolean isAntithetic) {
+		this(timeDiscretization, numberOfPaths, initialValue, riskFreeRate, volatility, poissonIntensity, jumpMean, jumpVariance, isAntithetic, DEFAULT_SEED);
+	}
+
+	/**
+	 * Create a Monte-Carlo simulation using given time discretization and seed, optionally with antithetic paths.
+	 * 
+	 * @param timeDiscretization The time discretization.
+	 * @param numberOfPaths The number of Monte-Carlo path to be used, has to be even for antithetic paths.
+	 * @param initialValue Spot value.
+	 * @param riskFreeRate The risk free rate.
+	 * @param volatility The log volatility.
+	 * @param poissonIntensity The intensity of the Poisson Process
+	 * @param jumpMean The mean and variance of the jumps
+	 * @param jumpVariance exp (mean + variance * Z) - 1,  Z normally distributed
+	 * @param isAntithetic If true, the paths are antithetic pairs.
+	 * @param seed The seed of the random numbers (inherited by the clones).
+	 */
+	public MonteCarloMertonJumpDiffusionModel(
+			TimeDiscretizationInterface timeDiscretization,
+			int numberOfPaths,
+			double initialValue,
+			double riskFreeRate,
+			double volatility,
+			double poissonIntensity,
+			double jumpMean,
+			double jumpVariance,
+			boolean isAntithetic,
+			int seed) {
 		super();
 
 		this.initialValue	= initialValue;
@@ -87,9 +176,19 @@ public class MonteCarloMertonJumpDiffusionModel extends AbstractModel implements
 		this.poissonIntensity = poissonIntensity;
 		this.jumpMean = jumpMean;
 		this.jumpVariance = jumpVariance;
+		this.seed = seed;
+		this.numberOfJumpDerivations = 0;
 		// Create a corresponding MC process
-		AbstractProcess process = new JumpProcessEulerScheme(new BrownianMotion(timeDiscretization, 1 /* numberOfFactors */, numberOfPaths, seed),
-															new CompoundPoissonProcess(poissonIntensity, jumpMean, jumpVariance, timeDiscretization, numberOfPaths, seed + 300));
+		// The jumps are generated in parallel, this does not change the paths
+		AbstractProcess process;
+		if(isAntithetic) {
+			process = new MertonJumpDiffusionProcessEulerScheme(new AntitheticBrownianMotion(timeDiscretization, 1 /* numberOfFactors */, numberOfPaths, seed),
+					new AntitheticCompoundPoissonProcess(poissonIntensity, new LogNormalJumpSizeDistribution(jumpMean, jumpVariance), timeDiscretization, numberOfPaths, getSeedOfJumps(seed)));
+		}
+		else {
+			process = new MertonJumpDiffusionProcessEulerScheme(new BrownianMotion(timeDiscretization, 1 /* numberOfFactors */, numberOfPaths, seed),
+					new CompoundPoissonProcess(poissonIntensity, jumpMean, jumpVariance, timeDiscretization, numberOfPaths, getSeedOfJumps(seed), true /* isParallel */));
+		}
 		
 
 		
@@ -120,6 +219,40 @@ public class MonteCarloMertonJumpDiffusionModel extends AbstractModel implements
 			double poissonIntensity,
 			double jumpMean,
 			double jumpVariance) {
+		this(initialValue, riskFreeRate, volatility, process, poissonIntensity, jumpMean, jumpVariance, DEFAULT_SEED);
+	}
+
+	/**
+	 * Create a Monte-Carlo simulation using given process discretization scheme and seed.
+	 * 
+	 * @param initialValue Spot value
+	 * @param riskFreeRate The risk free rate
+	 * @param volatility The log volatility
+	 * @param process The process discretization scheme which should be used for the simulation.
+	 * @param seed The seed from which the clones derive their random numbers (new jumps, thinning, additional jumps).
+	 */
+	public MonteCarloMertonJumpDiffusionModel(
+			double initialValue,
+			double riskFreeRate,
+			double volatility,
+			AbstractProcess process,
+			double poissonIntensity,
+			double jumpMean,
+			double jumpVariance,
+			int seed) {
+		this(initialValue, riskFreeRate, volatility, process, poissonIntensity, jumpMean, jumpVariance, seed, 0);
+	}
+
+	private MonteCarloMertonJumpDiffusionModel(
+			double initialValue,
+			double riskFreeRate,
+			double volatility,
+			AbstractProcess process,
+			double poissonIntensity,
+			double jumpMean,
+			double jumpVariance,
+			int seed,
+			int numberOfJumpDerivations) {
 		super();
 
 		this.initialValue	= initialValue;
@@ -128,6 +261,8 @@ public class MonteCarloMertonJumpDiffusionModel extends AbstractModel implements
 		this.poissonIntensity = poissonIntensity;
 		this.jumpMean = jumpMean;
 		this.jumpVariance = jumpVariance;
+		this.seed = seed;
+		this.numberOfJumpDerivations = numberOfJumpDerivations;
 
 		/*
 		 * The interface definition requires that we provide the drift and the volatility in terms of random variables.
@@ -167,6 +302,15 @@ public class MonteCarloMertonJumpDiffusionModel extends AbstractModel implements
 		return new RandomVariableInterface[] { volatilityOnPaths.mult(realizationAtTimeIndex[0]) };
 	}
 
+	/**
+	 * Returns the initial value parameter of this model.
+	 *
+	 * @return Returns the initialValue.
+	 */
+	public double getInitialAssetValue() {
+		return initialValue;
+	}
+
 	public double getPoissonIntensity() {
 		return poissonIntensity;
 	}
@@ -179,6 +323,23 @@ public class MonteCarloMertonJumpDiffusionModel extends AbstractModel implements
 		return jumpVariance;
 	}
 
+	/**
+	 * @return True if the paths of this model are antithetic pairs (path, path + numberOfPaths/2).
+	 */
+	public boolean isAntithetic() {
+		return getProcess().getBrownianMotion() instanceof AntitheticBrownianMotion;
+	}
+
+	/**
+	 * Returns the compound Poisson process driving the jumps of this model.
+	 *
+	 * @return The compound Poisson process or null if the process of this model has no jumps.
+	 */
+	public PointProcessInterface getCompoundPoissonProcess() {
+		if(getProcess() instanceof JumpDiffusionProcessInterface) return ((JumpDiffusionProcessInterface)getProcess()).getCompoundPoissonProcess();
+		return null;
+	}
+
 	/* (non-Javadoc)
 	 * @see net.finmath.montecarlo.model.AbstractModelInterface#applyStateSpaceTransform(int, net.finmath.stochastic.RandomVariableInterface)
 	 * StateSpaceTransformation modified to identity. We are not consiedering the log-Euler scheme in the Diffusion Process
@@ -287,7 +448,7 @@ public class MonteCarloMertonJumpDiffusionModel extends AbstractModel implements
 	}
 
 	@Override
-	public AssetModelMonteCarloSimulationInterface getCloneWithModifiedData(Map<String, Object> dataModified) {
+	public MonteCarloMertonJumpDiffusionModel getCloneWithModifiedData(Map<String, Object> dataModified) {
 		/*
 		 * Determine the new model parameters from the provided parameter map.
 		 */
@@ -302,13 +463,26 @@ public class MonteCarloMertonJumpDiffusionModel extends AbstractModel implements
 		double newJumpMean 			= dataModified.get("jumpMean") != null ? ((Number)dataModified.get("jumpMean")).doubleValue() : jumpMean;
 		double newJumpVariance		= dataModified.get("jumpVariance") != null ? ((Number)dataModified.get("jumpVariance")).doubleValue() : jumpVariance;
 
+		/*
+		 * If only the initial value has changed, the paths of this model are rescaled (the model is linear in S).
+		 */
+		double timeShift = newInitialTime - getTime(0);
+		boolean isSeedModified = dataModified.get("seed") != null;
+		if(!isSeedModified && timeShift == 0 && initialValue != 0
+				&& newRiskFreeRate == riskFreeRate && newVolatility == volatility
+				&& newPoissonIntensity == poissonIntensity && newJumpMean == jumpMean && newJumpVariance == jumpVariance) {
+			AbstractProcess process = new RescaledJumpDiffusionProcess((AbstractProcess)getProcess(), newInitialValue / initialValue);
+			return new MonteCarloMertonJumpDiffusionModel(newInitialValue, newRiskFreeRate, newVolatility, process,
+					newPoissonIntensity, newJumpMean, newJumpVariance, seed, numberOfJumpDerivations);
+		}
+
 		/*
 		 * Create a new model with the new model parameters
 		 */
 		BrownianMotionInterface brownianMotion;
-		if(dataModified.get("seed") != null) {
+		if(isSeedModified) {
 			// The seed has changed. Hence we have to create a new BrownianMotion.
-			brownianMotion = new BrownianMotion(this.getTimeDiscretization(), 1, this.getNumberOfPaths(), newSeed);
+			brownianMotion = this.getProcess().getBrownianMotion().getCloneWithModifiedSeed(newSeed);
 		}
 		else
 		{
@@ -316,7 +490,6 @@ public class MonteCarloMertonJumpDiffusionModel extends AbstractModel implements
 			brownianMotion = this.getProcess().getBrownianMotion();
 		}
 
-		double timeShift = newInitialTime - getTime(0);
 		if(timeShift != 0) {
 			ArrayList<Double> newTimes = new ArrayList<Double>();
 			newTimes.add(newInitialTime);
@@ -324,18 +497,145 @@ public class MonteCarloMertonJumpDiffusionModel extends AbstractModel implements
 			TimeDiscretizationInterface newTimeDiscretization = new TimeDiscretization(newTimes);
 			brownianMotion = brownianMotion.getCloneWithModifiedTimeDiscretization(newTimeDiscretization);
 		}
-		
-		/* selfmade : new parameters in constructor*/
-		AbstractProcess process = new ProcessEulerScheme(brownianMotion);
-		return new MonteCarloMertonJumpDiffusionModel(newInitialValue, newRiskFreeRate, newVolatility, process, 
-				newPoissonIntensity, newJumpMean, newJumpVariance);    		
+
+		PointProcessInterface compoundPoissonProcess;
+		int newNumberOfJumpDerivations;
+		if(isSeedModified || timeShift != 0) {
+			// New random numbers or a new time discretization. Hence we have to create new jumps.
+			compoundPoissonProcess = createCompoundPoissonProcess(brownianMotion.getTimeDiscretization(), newPoissonIntensity, newJumpMean, newJumpVariance, getSeedOfJumps(newSeed));
+			newNumberOfJumpDerivations = 0;
+		}
+		else {
+			// We may reuse the jumps of the original model
+			compoundPoissonProcess = getCompoundPoissonProcessWithModifiedJumps(newPoissonIntensity, newJumpMean, newJumpVariance);
+			if(compoundPoissonProcess == getCompoundPoissonProcess())			newNumberOfJumpDerivations = numberOfJumpDerivations;
+			else if(compoundPoissonProcess instanceof JumpEventsPointProcess)	newNumberOfJumpDerivations = numberOfJumpDerivations + 1;
+			else																newNumberOfJumpDerivations = 0;
+		}
+
+		AbstractProcess process = createProcess(brownianMotion, compoundPoissonProcess, timeShift == 0);
+		return new MonteCarloMertonJumpDiffusionModel(newInitialValue, newRiskFreeRate, newVolatility, process,
+				newPoissonIntensity, newJumpMean, newJumpVariance, newSeed, newNumberOfJumpDerivations);
 	}
 
 	@Override
 	public AssetModelMonteCarloSimulationInterface getCloneWithModifiedSeed(int seed) {
-		// Create a corresponding MC process
-		AbstractProcess process = new ProcessEulerScheme(new BrownianMotion(this.getTimeDiscretization(), 1 /* numberOfFactors */, this.getNumberOfPaths(), seed));
-		return new MonteCarloMertonJumpDiffusionModel(initialValue, riskFreeRate, volatility, process, poissonIntensity, jumpMean, jumpVariance);
+		// Create a corresponding MC process (of the same scheme and with the same kind of paths)
+		BrownianMotionInterface brownianMotion = getProcess().getBrownianMotion().getCloneWithModifiedSeed(seed);
+		PointProcessInterface compoundPoissonProcess = createCompoundPoissonProcess(brownianMotion.getTimeDiscretization(), poissonIntensity, jumpMean, jumpVariance, getSeedOfJumps(seed));
+
+		AbstractProcess process = createProcess(brownianMotion, compoundPoissonProcess, true);
+		return new MonteCarloMertonJumpDiffusionModel(initialValue, riskFreeRate, volatility, process, poissonIntensity, jumpMean, jumpVariance, seed);
+	}
+
+	/**
+	 * Creates a process of the same scheme as the process of this model.
+	 *
+	 * @param brownianMotion The Brownian driver of the process.
+	 * @param compoundPoissonProcess The jump driver of the process.
+	 * @param isSameTimeDiscretization If true, the observation time indices of an Euler scheme in streaming mode are kept.
+	 * (An Euler scheme keeps its tangent processes and its storage mode in any case.)
+	 * @return The process.
+	 */
+	private AbstractProcess createProcess(BrownianMotionInterface brownianMotion, PointProcessInterface compoundPoissonProcess, boolean isSameTimeDiscretization) {
+		AbstractProcessInterface scheme = getProcess();
+		if(scheme instanceof RescaledJumpDiffusionProcess) scheme = ((RescaledJumpDiffusionProcess)scheme).getUnderlyingProcess();
+
+		if(scheme instanceof MertonJumpDiffusionProcessExactScheme) {
+			return new MertonJumpDiffusionProcessExactScheme(brownianMotion, compoundPoissonProcess);
+		}
+
+		int[] observationTimeIndices = null;
+		boolean isCalculatingTangentProcesses = false;
+		boolean isSinglePrecision = false;
+		boolean isOffHeap = false;
+		if(scheme instanceof MertonJumpDiffusionProcessEulerScheme) {
+			if(isSameTimeDiscretization) observationTimeIndices = ((MertonJumpDiffusionProcessEulerScheme)scheme).getObservationTimeIndices();
+			isCalculatingTangentProcesses = ((MertonJumpDiffusionProcessEulerScheme)scheme).isCalculatingTangentProcesses();
+			isSinglePrecision = ((MertonJumpDiffusionProcessEulerScheme)scheme).isSinglePrecision();
+			isOffHeap = ((MertonJumpDiffusionProcessEulerScheme)scheme).isOffHeap();
+		}
+		return new MertonJumpDiffusionProcessEulerScheme(brownianMotion, compoundPoissonProcess, observationTimeIndices, isCalculatingTangentProcesses,
+				isSinglePrecision, isOffHeap);
+	}
+
+	/**
+	 * Creates a new compound Poisson process with log-normal jumps (with antithetic paths if this model has antithetic paths).
+	 */
+	private PointProcessInterface createCompoundPoissonProcess(TimeDiscretizationInterface timeDiscretization, double poissonIntensity, double jumpMean, double jumpVariance, int seed) {
+		if(isAntithetic()) {
+			return new AntitheticCompoundPoissonProcess(poissonIntensity, new LogNormalJumpSizeDistribution(jumpMean, jumpVariance), timeDiscretization, getNumberOfPaths(), seed);
+		}
+		else {
+			return new CompoundPoissonProcess(poissonIntensity, jumpMean, jumpVariance, timeDiscretization, getNumberOfPaths(), seed, true /* isParallel */);
+		}
+	}
+
+	/**
+	 * Returns the jumps of this model for modified jump parameters, reusing the jump times and sizes of this model:
+	 * <ul>
+	 * 	<li>the jump sizes are transformed by \( \log(1+Y') = \mu' + \frac{\nu'}{\nu} (\log(1+Y) - \mu) \), which maps
+	 * 	the log-normal jumps with parameters \mu, \nu to the log-normal jumps with parameters \mu', \nu',</li>
+	 * 	<li>for a smaller intensity the jumps are thinned, the jump j is kept if \( U_{j} &lt; \lambda' / \lambda \),</li>
+	 * 	<li>for a larger intensity the jumps of an independent compound Poisson process with intensity \( \lambda' - \lambda \) are added.</li>
+	 * </ul>
+	 * The new jumps are derived on first use. If the jumps cannot be derived (a change of \nu for \nu = 0 or a change of the intensity
+	 * for antithetic paths, where thinning would break the pairs), new jumps are created.
+	 */
+	private PointProcessInterface getCompoundPoissonProcessWithModifiedJumps(final double newPoissonIntensity, final double newJumpMean, final double newJumpVariance) {
+		final PointProcessInterface compoundPoissonProcess = getCompoundPoissonProcess();
+		final TimeDiscretizationInterface timeDiscretization = getTimeDiscretization();
+
+		if(compoundPoissonProcess == null || (newJumpVariance != jumpVariance && jumpVariance == 0) || (newPoissonIntensity != poissonIntensity && isAntithetic())) {
+			return createCompoundPoissonProcess(timeDiscretization, newPoissonIntensity, newJumpMean, newJumpVariance, getSeedOfJumps(seed));
+		}
+		if(newPoissonIntensity == poissonIntensity && newJumpMean == jumpMean && newJumpVariance == jumpVariance) {
+			return compoundPoissonProcess;
+		}
+
+		final double jumpSizeScaling	= newJumpVariance == jumpVariance ? 1.0 : newJumpVariance / jumpVariance;
+		final int numberOfPaths			= getNumberOfPaths();
+		final int seedOfThinning			= PathBlocks.getSeedForBlock(PathBlocks.getSeedForBlock(seed, STREAM_OF_THINNING), numberOfJumpDerivations);
+		final int seedOfAdditionalJumps		= PathBlocks.getSeedForBlock(PathBlocks.getSeedForBlock(seed, STREAM_OF_ADDITIONAL_JUMPS), numberOfJumpDerivations);
+		return new JumpEventsPointProcess(() -> {
+			JumpEvents jumpEvents = compoundPoissonProcess.getJumpEvents();
+
+			if(newJumpMean != jumpMean || newJumpVariance != jumpVariance) {
+				jumpEvents = jumpEvents.getJumpEventsWithTransformedSizes(
+						jumpSize -> Math.exp(newJumpMean + jumpSizeScaling * (Math.log(1.0 + jumpSize) - jumpMean)) - 1.0);
+			}
+
+			if(newPoissonIntensity < poissonIntensity) {
+				RandomEngine randomEngine = new MersenneTwister64(seedOfThinning);
+				double[] thinningUniforms = new double[jumpEvents.getNumberOfJumps()];
+				for(int jump=0; jump<thinningUniforms.length; jump++) thinningUniforms[jump] = randomEngine.nextDouble();
+				jumpEvents = jumpEvents.getThinnedJumpEvents(thinningUniforms, newPoissonIntensity / poissonIntensity);
+			}
+			else if(newPoissonIntensity > poissonIntensity) {
+				JumpEvents additionalJumpEvents = new CompoundPoissonProcess(newPoissonIntensity - poissonIntensity, newJumpMean, newJumpVariance,
+						timeDiscretization, numberOfPaths, seedOfAdditionalJumps, true /* isParallel */).getJumpEvents();
+				jumpEvents = JumpEvents.merge(jumpEvents, additionalJumpEvents);
+			}
+
+			return jumpEvents;
+		}, timeDiscretization);
+	}
+
+	/**
+	 * @return The seed of the random numbers of this model (inherited by the clones).
+	 */
+	public int getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns the seed of the compound Poisson process of a model with a given seed.
+	 *
+	 * @param seed The seed of the model.
+	 * @return The seed of its compound Poisson process.
+	 */
+	public static int getSeedOfJumps(int seed) {
+		return PathBlocks.getSeedForBlock(seed, STREAM_OF_JUMPS);
 	}
 
 	/**
@@ -0,0 +1,285 @@
+package projectTest;
+
+import java.util.Arrays;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.stochastic.RandomVariableInterface;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements a multilevel Monte-Carlo estimator for the Merton jump diffusion model using <code>MertonJumpDiffusionProcessEulerScheme</code>.
+ *
+ * Level l uses the uniform time discretization of [0,T] with \( M_{0} 2^{l} \) time steps. The value is the telescoping sum
+ * \[
+ * 	E[P_{L}] = E[P_{0}] + \sum_{l=1}^{L} E[P_{l} - P_{l-1}] \text{,}
+ * \]
+ * where the fine and the coarse value of a sample of level l are calculated on the same paths: the coarse Brownian increments are
+ * the sums of the fine increments (<code>CoarseBrownianMotion</code>) and the coarse compound Poisson process has the same jumps,
+ * mapped to the coarse time steps (<code>JumpEvents.getJumpEventsOnCoarseTimeDiscretization</code>).
+ *
+ * The numbers of paths of the levels are chosen from the observed variances V<sub>l</sub> and costs C<sub>l</sub> of the levels as
+ * \( N_{l} = \lceil 2 \epsilon^{-2} \sqrt{V_{l}/C_{l}} \sum_{k} \sqrt{V_{k} C_{k}} \rceil \), and levels are added until the estimated bias
+ * (weak order 1) is below \( \epsilon / \sqrt{2} \), such that the root mean square error is about \epsilon at a cost of about O(\epsilon<sup>-2</sup>)
+ * instead of O(\epsilon<sup>-3</sup>) for a single time discretization.
+ *
+ * The processes are stored at maturity only, hence the products have to depend on the value of the underlying at maturity only
+ * (e.g. <code>EuropeanOption</code>) and are valued at time 0.
+ * The paths are sampled in batches of at most 10000 paths, each with its own random numbers (the seeds are derived from the level
+ * and the index of the batch). The Brownian increments of a batch are generated time step by time step (<code>StreamingBrownianMotion</code>)
+ * and the processes are stored at maturity only, hence the memory of a batch is proportional to the number of paths of the batch
+ * (plus its jumps), independent of the number of time steps of the level.
+ *
+ * @author A V L
+ * @see MertonJumpDiffusionProcessEulerScheme
+ * @version 1.0
+ */
+public class MultilevelMonteCarloMertonJumpDiffusion {
+
+	/**
+	 * The result of a multilevel Monte-Carlo estimation.
+	 */
+	public static class Estimate {
+		private final int[]		numberOfPaths;
+		private final double[]	means;
+		private final double[]	variances;
+
+		private Estimate(int[] numberOfPaths, double[] means, double[] variances) {
+			this.numberOfPaths = numberOfPaths;
+			this.means = means;
+			this.variances = variances;
+		}
+
+		/**
+		 * @return The value, i.e., the sum of the means of the levels.
+		 */
+		public double getValue() {
+			double value = 0.0;
+			for(double mean : means) value += mean;
+			return value;
+		}
+
+		/**
+		 * @return The standard error of the value.
+		 */
+		public double getStandardError() {
+			double variance = 0.0;
+			for(int level=0; level<means.length; level++) variance += variances[level] / numberOfPaths[level];
+			return Math.sqrt(variance);
+		}
+
+		public int getNumberOfLevels() {
+			return means.length;
+		}
+
+		public int getNumberOfPaths(int level) {
+			return numberOfPaths[level];
+		}
+
+		/**
+		 * @param level The level.
+		 * @return The mean of P<sub>l</sub> - P<sub>l-1</sub> (P<sub>0</sub> for level 0).
+		 */
+		public double getMean(int level) {
+			return means[level];
+		}
+
+		/**
+		 * @param level The level.
+		 * @return The variance of P<sub>l</sub> - P<sub>l-1</sub> (P<sub>0</sub> for level 0).
+		 */
+		public double getVariance(int level) {
+			return variances[level];
+		}
+	}
+
+	private static final int	INITIAL_NUMBER_OF_LEVELS	= 3;
+	private static final int	MAXIMUM_NUMBER_OF_LEVELS	= 12;
+	private static final int	PILOT_NUMBER_OF_PATHS		= 1000;
+	private static final int	MAXIMUM_NUMBER_OF_PATHS_PER_BATCH = 10000;
+
+	private final double	maturity;
+	private final int		numberOfTimeStepsOfCoarsestLevel;
+
+	private final double	initialValue;
+	private final double	riskFreeRate;
+	private final double	volatility;
+	private final double	poissonIntensity;
+	private final double	jumpMean;
+	private final double	jumpVariance;
+
+	private final int		seed = 3141;
+
+	/**
+	 * @param maturity The maturity T, the last time of the time discretizations.
+	 * @param numberOfTimeStepsOfCoarsestLevel The number of time steps M<sub>0</sub> of level 0.
+	 * @param initialValue Spot value.
+	 * @param riskFreeRate The risk free rate.
+	 * @param volatility The log volatility.
+	 * @param poissonIntensity The intensity of the Poisson Process
+	 * @param jumpMean The mean and variance of the jumps
+	 * @param jumpVariance exp (mean + variance * Z) - 1,  Z normally distributed
+	 */
+	public MultilevelMonteCarloMertonJumpDiffusion(
+			double maturity,
+			int numberOfTimeStepsOfCoarsestLevel,
+			double initialValue,
+			double riskFreeRate,
+			double volatility,
+			double poissonIntensity,
+			double jumpMean,
+			double jumpVariance) {
+		super();
+		this.maturity = maturity;
+		this.numberOfTimeStepsOfCoarsestLevel = numberOfTimeStepsOfCoarsestLevel;
+		this.initialValue = initialValue;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+		this.poissonIntensity = poissonIntensity;
+		this.jumpMean = jumpMean;
+		this.jumpVariance = jumpVariance;
+	}
+
+	/**
+	 * Estimates the value of a product with a given root mean square error, choosing the number of levels and the numbers of paths.
+	 *
+	 * @param product The product.
+	 * @param rootMeanSquareError The target root mean square error \epsilon.
+	 * @return The estimate.
+	 * @throws CalculationException Thrown if the valuation fails.
+	 */
+	public Estimate getEstimate(AbstractAssetMonteCarloProduct product, double rootMeanSquareError) throws CalculationException {
+		int[]		numberOfPaths				= new int[MAXIMUM_NUMBER_OF_LEVELS];
+		int[]		numberOfBatches				= new int[MAXIMUM_NUMBER_OF_LEVELS];
+		int[]		numberOfAdditionalPaths		= new int[MAXIMUM_NUMBER_OF_LEVELS];
+		double[]	sums						= new double[MAXIMUM_NUMBER_OF_LEVELS];
+		double[]	sumsOfSquares				= new double[MAXIMUM_NUMBER_OF_LEVELS];
+		double[]	means						= new double[MAXIMUM_NUMBER_OF_LEVELS];
+		double[]	variances					= new double[MAXIMUM_NUMBER_OF_LEVELS];
+
+		int numberOfLevels = INITIAL_NUMBER_OF_LEVELS;
+		for(int level=0; level<numberOfLevels; level++) numberOfAdditionalPaths[level] = PILOT_NUMBER_OF_PATHS;
+
+		while(true) {
+			// Sample the additional paths
+			for(int level=0; level<numberOfLevels; level++) {
+				while(numberOfAdditionalPaths[level] > 0) {
+					int numberOfPathsOfBatch = Math.min(numberOfAdditionalPaths[level], MAXIMUM_NUMBER_OF_PATHS_PER_BATCH);
+					double[] sumAndSumOfSquares = sampleLevel(product, level, numberOfPathsOfBatch, numberOfBatches[level]++);
+					sums[level]				+= sumAndSumOfSquares[0];
+					sumsOfSquares[level]	+= sumAndSumOfSquares[1];
+					numberOfPaths[level]	+= numberOfPathsOfBatch;
+					numberOfAdditionalPaths[level] -= numberOfPathsOfBatch;
+				}
+				means[level]		= sums[level] / numberOfPaths[level];
+				variances[level]	= Math.max(sumsOfSquares[level] / numberOfPaths[level] - means[level] * means[level], 0.0);
+			}
+
+			// Optimal numbers of paths for the observed variances
+			double sumOfSquareRootOfVarianceTimesCost = 0.0;
+			for(int level=0; level<numberOfLevels; level++) sumOfSquareRootOfVarianceTimesCost += Math.sqrt(variances[level] * getCost(level));
+
+			boolean isAdditionalPathsNeeded = false;
+			for(int level=0; level<numberOfLevels; level++) {
+				double optimalNumberOfPaths = 2.0 / (rootMeanSquareError * rootMeanSquareError) * Math.sqrt(variances[level] / getCost(level)) * sumOfSquareRootOfVarianceTimesCost;
+				numberOfAdditionalPaths[level] = (int)Math.max(Math.ceil(optimalNumberOfPaths) - numberOfPaths[level], 0);
+				if(numberOfAdditionalPaths[level] > 0) isAdditionalPathsNeeded = true;
+			}
+			if(isAdditionalPathsNeeded) continue;
+
+			// Bias estimate (weak order 1, refinement factor 2) from the finest two levels
+			double bias = Math.max(Math.abs(means[numberOfLevels-1]), Math.abs(means[numberOfLevels-2]) / 2.0);
+			if(bias <= rootMeanSquareError / Math.sqrt(2.0) || numberOfLevels == MAXIMUM_NUMBER_OF_LEVELS) break;
+
+			numberOfAdditionalPaths[numberOfLevels++] = PILOT_NUMBER_OF_PATHS;
+		}
+
+		return new Estimate(Arrays.copyOf(numberOfPaths, numberOfLevels),
+				Arrays.copyOf(means, numberOfLevels), Arrays.copyOf(variances, numberOfLevels));
+	}
+
+	/**
+	 * Estimates the value of a product with given numbers of paths per level.
+	 *
+	 * @param product The product.
+	 * @param numberOfPathsOfLevels The number of paths of every level.
+	 * @return The estimate.
+	 * @throws CalculationException Thrown if the valuation fails.
+	 */
+	public Estimate getEstimate(AbstractAssetMonteCarloProduct product, int[] numberOfPathsOfLevels) throws CalculationException {
+		final int numberOfLevels = numberOfPathsOfLevels.length;
+		double[] means		= new double[numberOfLevels];
+		double[] variances	= new double[numberOfLevels];
+		for(int level=0; level<numberOfLevels; level++) {
+			double sum = 0.0, sumOfSquares = 0.0;
+			int batch = 0;
+			for(int numberOfPathsSampled = 0; numberOfPathsSampled < numberOfPathsOfLevels[level]; ) {
+				int numberOfPathsOfBatch = Math.min(numberOfPathsOfLevels[level] - numberOfPathsSampled, MAXIMUM_NUMBER_OF_PATHS_PER_BATCH);
+				double[] sumAndSumOfSquares = sampleLevel(product, level, numberOfPathsOfBatch, batch++);
+				sum				+= sumAndSumOfSquares[0];
+				sumOfSquares	+= sumAndSumOfSquares[1];
+				numberOfPathsSampled += numberOfPathsOfBatch;
+			}
+			means[level]		= sum / numberOfPathsOfLevels[level];
+			variances[level]	= Math.max(sumOfSquares / numberOfPathsOfLevels[level] - means[level] * means[level], 0.0);
+		}
+		return new Estimate(numberOfPathsOfLevels.clone(), means, variances);
+	}
+
+	/**
+	 * Samples P<sub>l</sub> - P<sub>l-1</sub> (P<sub>0</sub> for level 0) on a batch of independent paths.
+	 *
+	 * @return The sum and the sum of squares of the samples.
+	 */
+	private double[] sampleLevel(AbstractAssetMonteCarloProduct product, int level, int numberOfPaths, int batch) throws CalculationException {
+		final int batchSeed = PathBlocks.getSeedForBlock(PathBlocks.getSeedForBlock(seed, level), batch);
+
+		TimeDiscretizationInterface timeDiscretization = getTimeDiscretization(level);
+		BrownianMotionInterface brownianMotion = new StreamingBrownianMotion(timeDiscretization, 1 /* numberOfFactors */, numberOfPaths, PathBlocks.getSeedForBlock(batchSeed, 0), true /* isParallel */);
+		CompoundPoissonProcess compoundPoissonProcess = new CompoundPoissonProcess(poissonIntensity, jumpMean, jumpVariance, timeDiscretization, numberOfPaths, PathBlocks.getSeedForBlock(batchSeed, 1), true /* isParallel */);
+
+		RandomVariableInterface valuesOfFineLevel = product.getValue(0.0, getModel(brownianMotion, compoundPoissonProcess));
+
+		RandomVariableInterface valuesOfCoarseLevel = null;
+		if(level > 0) {
+			TimeDiscretizationInterface coarseTimeDiscretization = getTimeDiscretization(level-1);
+			valuesOfCoarseLevel = product.getValue(0.0, getModel(
+					new CoarseBrownianMotion(brownianMotion, coarseTimeDiscretization),
+					new JumpEventsPointProcess(compoundPoissonProcess.getJumpEvents().getJumpEventsOnCoarseTimeDiscretization(2), coarseTimeDiscretization)));
+		}
+
+		double sum = 0.0, sumOfSquares = 0.0;
+		for(int path=0; path<numberOfPaths; path++) {
+			double sample = valuesOfFineLevel.get(path) - (valuesOfCoarseLevel != null ? valuesOfCoarseLevel.get(path) : 0.0);
+			sum				+= sample;
+			sumOfSquares	+= sample * sample;
+		}
+		return new double[] { sum, sumOfSquares };
+	}
+
+	private MonteCarloMertonJumpDiffusionModel getModel(BrownianMotionInterface brownianMotion, PointProcessInterface compoundPoissonProcess) {
+		// Store the process at maturity only
+		int[] observationTimeIndices = new int[] { brownianMotion.getTimeDiscretization().getNumberOfTimeSteps() };
+		return new MonteCarloMertonJumpDiffusionModel(initialValue, riskFreeRate, volatility,
+				new MertonJumpDiffusionProcessEulerScheme(brownianMotion, compoundPoissonProcess, observationTimeIndices),
+				poissonIntensity, jumpMean, jumpVariance);
+	}
+
+	/**
+	 * @param level The level.
+	 * @return The time discretization of the given level.
+	 */
+	public TimeDiscretizationInterface getTimeDiscretization(int level) {
+		int numberOfTimeSteps = numberOfTimeStepsOfCoarsestLevel << level;
+		return new TimeDiscretization(0.0, numberOfTimeSteps, maturity / numberOfTimeSteps);
+	}
+
+	/**
+	 * @return The cost of a sample of the given level, proportional to the number of time steps of the fine and the coarse level.
+	 */
+	private double getCost(int level) {
+		return level == 0 ? numberOfTimeStepsOfCoarsestLevel : 1.5 * (numberOfTimeStepsOfCoarsestLevel << level);
+	}
+}
@@ -0,0 +1,285 @@
+package projectTest;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import net.finmath.stochastic.RandomVariableInterface;
+
+/**
+ * This class implements a matrix of path values (slices of <code>numberOfPaths</code> values) stored outside of the Java heap,
+ * in direct buffers of at most 1 GB (a slice never spans two buffers).
+ *
+ * The memory is allocated in full by the constructor, i.e., a simulation which does not fit into the direct memory
+ * (limited by <code>-XX:MaxDirectMemorySize</code>) fails before it starts, and the size is known up front by <code>getSizeInBytes</code>.
+ * Since the garbage collector neither scans nor copies the buffers, their size does not add to the GC pauses.
+ *
+ * The memory is released by <code>free()</code>; afterwards every access throws an <code>IllegalStateException</code>.
+ * Where the JVM does not allow to release direct buffers explicitly (Java 8), <code>free()</code> drops the buffers and the memory is
+ * released by the garbage collector. Slices are copied into and out of the matrix, no view of the memory is handed out, such that
+ * releasing it cannot invalidate a reference held elsewhere.
+ * Reads and writes of slices use absolute positions only and share a read lock, i.e., they run concurrently
+ * (writes to the same slice have to be ordered by the caller); only <code>free()</code> takes the lock exclusively.
+ *
+ * Values are stored in double precision or, optionally, in single precision (rounded on store and widened on read).
+ *
+ * @author A V L
+ * @see MertonJumpDiffusionProcessEulerScheme
+ * @version 1.0
+ */
+public class OffHeapPathMatrix {
+
+	private static final long MAXIMUM_BUFFER_SIZE = 1L << 30;
+
+	/*
+	 * Releases the memory of a direct buffer (by sun.misc.Unsafe.invokeCleaner, available from Java 9), or does nothing.
+	 */
+	private static final Consumer<ByteBuffer> deallocator = createDeallocator();
+
+	private final int		numberOfSlices;
+	private final int		numberOfPaths;
+	private final boolean	isSinglePrecision;
+	private final int		sliceSize;
+	private final int		slicesPerBuffer;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private ByteBuffer[] buffers;
+
+	/**
+	 * Allocates the matrix.
+	 *
+	 * @param numberOfSlices The number of slices.
+	 * @param numberOfPaths The number of values of a slice.
+	 * @param isSinglePrecision If true, the values are stored in single precision.
+	 * @throws OutOfMemoryError Thrown if the direct memory is exhausted.
+	 */
+	public OffHeapPathMatrix(int numberOfSlices, int numberOfPaths, boolean isSinglePrecision) {
+		super();
+		long sliceSize = (long)numberOfPaths * (isSinglePrecision ? Float.BYTES : Double.BYTES);
+		if(sliceSize > MAXIMUM_BUFFER_SIZE) {
+			throw new IllegalArgumentException("A slice of " + numberOfPaths + " paths exceeds the maximum buffer size.");
+		}
+		this.numberOfSlices		= numberOfSlices;
+		this.numberOfPaths		= numberOfPaths;
+		this.isSinglePrecision	= isSinglePrecision;
+		this.sliceSize			= (int)sliceSize;
+		this.slicesPerBuffer	= (int)Math.max(1, MAXIMUM_BUFFER_SIZE / Math.max(sliceSize, 1));
+
+		buffers = new ByteBuffer[(numberOfSlices + slicesPerBuffer - 1) / slicesPerBuffer];
+		try {
+			for(int buffer=0; buffer<buffers.length; buffer++) {
+				int slicesInBuffer = Math.min(slicesPerBuffer, numberOfSlices - buffer * slicesPerBuffer);
+				buffers[buffer] = ByteBuffer.allocateDirect(slicesInBuffer * this.sliceSize).order(ByteOrder.nativeOrder());
+			}
+		}
+		catch(OutOfMemoryError e) {
+			free();
+			OutOfMemoryError error = new OutOfMemoryError("The allocation of " + getSizeInBytes(numberOfSlices, numberOfPaths, isSinglePrecision)
+			+ " bytes of direct memory for the paths failed (see -XX:MaxDirectMemorySize).");
+			error.initCause(e);
+			throw error;
+		}
+	}
+
+	/**
+	 * @param numberOfSlices The number of slices.
+	 * @param numberOfPaths The number of values of a slice.
+	 * @param isSinglePrecision If true, the values are stored in single precision.
+	 * @return The size of the matrix in bytes.
+	 */
+	public static long getSizeInBytes(int numberOfSlices, int numberOfPaths, boolean isSinglePrecision) {
+		return (long)numberOfSlices * numberOfPaths * (isSinglePrecision ? Float.BYTES : Double.BYTES);
+	}
+
+	/**
+	 * Stores the values of a random variable (a deterministic random variable is stored on all paths).
+	 *
+	 * @param slice The index of the slice.
+	 * @param values The values.
+	 */
+	public void setSlice(int slice, RandomVariableInterface values) {
+		Lock lock = this.lock.readLock();
+		lock.lock();
+		try {
+			ByteBuffer buffer = getBuffer(slice);
+			int offset = getOffset(slice);
+			for(int path=0; path<numberOfPaths; path++) {
+				if(isSinglePrecision)	buffer.putFloat(offset + path * Float.BYTES, (float)values.get(path));
+				else					buffer.putDouble(offset + path * Double.BYTES, values.get(path));
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param slice The index of the slice.
+	 * @param values The values, one for each path.
+	 */
+	public void setSlice(int slice, double[] values) {
+		Lock lock = this.lock.readLock();
+		lock.lock();
+		try {
+			ByteBuffer buffer = getBuffer(slice);
+			if(isSinglePrecision) {
+				int offset = getOffset(slice);
+				for(int path=0; path<numberOfPaths; path++) buffer.putFloat(offset + path * Float.BYTES, (float)values[path]);
+			}
+			else {
+				getView(buffer, slice).asDoubleBuffer().put(values, 0, numberOfPaths);
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param slice The index of the slice.
+	 * @param values The values, one for each path.
+	 */
+	public void setSlice(int slice, float[] values) {
+		Lock lock = this.lock.readLock();
+		lock.lock();
+		try {
+			ByteBuffer buffer = getBuffer(slice);
+			if(isSinglePrecision) {
+				getView(buffer, slice).asFloatBuffer().put(values, 0, numberOfPaths);
+			}
+			else {
+				int offset = getOffset(slice);
+				for(int path=0; path<numberOfPaths; path++) buffer.putDouble(offset + path * Double.BYTES, values[path]);
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param slice The index of the slice.
+	 * @return A copy of the values of the slice (in double precision).
+	 */
+	public double[] getSlice(int slice) {
+		return getSlice(slice, new double[numberOfPaths]);
+	}
+
+	/**
+	 * Copies the values of a slice into a given array.
+	 *
+	 * @param slice The index of the slice.
+	 * @param values The array receiving the values (in double precision), of length at least the number of paths.
+	 * @return The given array.
+	 */
+	public double[] getSlice(int slice, double[] values) {
+		Lock lock = this.lock.readLock();
+		lock.lock();
+		try {
+			ByteBuffer buffer = getBuffer(slice);
+			if(isSinglePrecision) {
+				int offset = getOffset(slice);
+				for(int path=0; path<numberOfPaths; path++) values[path] = buffer.getFloat(offset + path * Float.BYTES);
+			}
+			else {
+				getView(buffer, slice).asDoubleBuffer().get(values, 0, numberOfPaths);
+			}
+			return values;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Releases the memory of the matrix. Calling this method more than once has no effect.
+	 */
+	public void free() {
+		Lock lock = this.lock.writeLock();
+		lock.lock();
+		try {
+			if(buffers == null) return;
+			for(ByteBuffer buffer : buffers) if(buffer != null) deallocator.accept(buffer);
+			buffers = null;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return True if the memory of the matrix has been released.
+	 */
+	public boolean isFreed() {
+		Lock lock = this.lock.readLock();
+		lock.lock();
+		try {
+			return buffers == null;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	public int getNumberOfSlices() {
+		return numberOfSlices;
+	}
+
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	public boolean isSinglePrecision() {
+		return isSinglePrecision;
+	}
+
+	/**
+	 * @return The size of the matrix in bytes.
+	 */
+	public long getSizeInBytes() {
+		return getSizeInBytes(numberOfSlices, numberOfPaths, isSinglePrecision);
+	}
+
+	private ByteBuffer getBuffer(int slice) {
+		if(buffers == null) throw new IllegalStateException("The memory of the matrix has been released.");
+		return buffers[slice / slicesPerBuffer];
+	}
+
+	private int getOffset(int slice) {
+		return (slice % slicesPerBuffer) * sliceSize;
+	}
+
+	private ByteBuffer getView(ByteBuffer buffer, int slice) {
+		ByteBuffer view = buffer.duplicate();
+		view.position(getOffset(slice));
+		view.limit(getOffset(slice) + sliceSize);
+		return view.slice().order(ByteOrder.nativeOrder());
+	}
+
+	private static Consumer<ByteBuffer> createDeallocator() {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			final Object unsafe = theUnsafe.get(null);
+			final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			return buffer -> {
+				try {
+					invokeCleaner.invoke(unsafe, buffer);
+				}
+				catch(ReflectiveOperationException e) {
+					// The memory is released by the garbage collector
+				}
+			};
+		}
+		catch(ReflectiveOperationException | RuntimeException e) {
+			// Java 8 or no access: the memory is released by the garbage collector once the buffer is unreachable
+			return buffer -> {};
+		}
+	}
+}
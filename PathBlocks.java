@@ -0,0 +1,77 @@
+package projectTest;
+
+import java.util.stream.IntStream;
+
+import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
+
+/**
+ * This class splits the paths of a simulation into blocks of fixed size and runs a generator on every block,
+ * either sequentially or in parallel on the common fork-join pool.
+ *
+ * Every block draws from its own <code>MersenneTwister64</code>, seeded from the seed of the simulation and the index of the block.
+ * Since the size of a block does not depend on the number of threads, the generated paths are the same
+ * for sequential and for parallel generation.
+ *
+ * @author A V L
+ * @version 1.0
+ */
+public class PathBlocks {
+
+	/**
+	 * The number of paths sharing one random number stream.
+	 */
+	public static final int NUMBER_OF_PATHS_PER_BLOCK = 1024;
+
+	/**
+	 * A generator of the paths <code>firstPath, ..., lastPath-1</code> of one block.
+	 */
+	public interface BlockGenerator {
+		void generate(int blockIndex, int firstPath, int lastPath, RandomEngine randomEngine);
+	}
+
+	private PathBlocks() {
+	}
+
+	/**
+	 * @param numberOfPaths The number of paths.
+	 * @return The number of blocks needed to cover the given number of paths.
+	 */
+	public static int getNumberOfBlocks(int numberOfPaths) {
+		return (numberOfPaths + NUMBER_OF_PATHS_PER_BLOCK - 1) / NUMBER_OF_PATHS_PER_BLOCK;
+	}
+
+	/**
+	 * Derives the seed of the random number stream of a block from the seed of the simulation (SplitMix64 finalizer).
+	 *
+	 * @param seed The seed of the simulation.
+	 * @param blockIndex The index of the block.
+	 * @return The seed of the random number stream of the block.
+	 */
+	public static int getSeedForBlock(int seed, int blockIndex) {
+		long z = (((long)seed) << 32) + blockIndex + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z = z ^ (z >>> 31);
+		return (int)(z ^ (z >>> 32));
+	}
+
+	/**
+	 * Runs the generator on all blocks of paths.
+	 *
+	 * @param numberOfPaths The number of paths.
+	 * @param seed The seed of the simulation.
+	 * @param isParallel If true, the blocks are generated in parallel on the common fork-join pool.
+	 * @param generator The generator of a block.
+	 */
+	public static void generate(final int numberOfPaths, final int seed, boolean isParallel, final BlockGenerator generator) {
+		IntStream blockIndices = IntStream.range(0, getNumberOfBlocks(numberOfPaths));
+		if(isParallel) blockIndices = blockIndices.parallel();
+
+		blockIndices.forEach(blockIndex -> {
+			int firstPath	= blockIndex * NUMBER_OF_PATHS_PER_BLOCK;
+			int lastPath	= Math.min(firstPath + NUMBER_OF_PATHS_PER_BLOCK, numberOfPaths);
+			generator.generate(blockIndex, firstPath, lastPath, new MersenneTwister64(getSeedForBlock(seed, blockIndex)));
+		});
+	}
+}
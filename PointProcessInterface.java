@@ -8,6 +8,23 @@ public interface PointProcessInterface {
 	
 	public RandomVariableInterface getProcessIncrements(int timeIndex);
 	
+	/**
+	 * Returns the jumps of the process in sparse form, i.e., per path the time indices and the sizes of the jumps.
+	 * 
+	 * @return The jump events of the process.
+	 */
+	public JumpEvents getJumpEvents();
+	
+	/**
+	 * Returns the jumps of the process in a given time step as a sparse column, i.e., the paths which jump and the jump sizes.
+	 * Consumers applying the jumps to a path-wise state should use this view instead of the dense increments.
+	 * 
+	 * @param timeIndex The index of the time step.
+	 * @return The jumps in the given time step.
+	 */
+	public default JumpEvents.TimeStep getJumpsInTimeStep(int timeIndex) {
+		return getJumpEvents().getJumpsInTimeStep(timeIndex);
+	}
 	
 
 }
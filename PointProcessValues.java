@@ -0,0 +1,66 @@
+package projectTest;
+
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
+import net.finmath.stochastic.RandomVariableInterface;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements the values of a point process at the time indices, obtained from its jump events by a running sum.
+ *
+ * The value of the last requested time index is kept. A request for the same time index returns it, a request for a later
+ * time index adds the jumps of the time steps in between (taken from the sparse columns of the jump events) to it.
+ * Only a request for an earlier time index sums the jumps from the start, hence a pass over the time discretization
+ * costs one vector per time index plus the number of jumps, instead of one pass over all jumps per time index.
+ *
+ * @author A V L
+ * @see JumpEvents
+ * @version 1.0
+ */
+public class PointProcessValues {
+
+	private final JumpEvents					jumpEvents;
+	private final TimeDiscretizationInterface	timeDiscretization;
+	private final AbstractRandomVariableFactory	randomVariableFactory;
+
+	private int						lastTimeIndex = -1;
+	private double[]				lastValues;
+	private RandomVariableInterface	lastValue;
+
+	/**
+	 * @param jumpEvents The jump events of the point process.
+	 * @param timeDiscretization The time discretization of the jump events.
+	 * @param randomVariableFactory The factory used to create the values.
+	 */
+	public PointProcessValues(JumpEvents jumpEvents, TimeDiscretizationInterface timeDiscretization, AbstractRandomVariableFactory randomVariableFactory) {
+		super();
+		this.jumpEvents = jumpEvents;
+		this.timeDiscretization = timeDiscretization;
+		this.randomVariableFactory = randomVariableFactory;
+	}
+
+	/**
+	 * @param timeIndex The time index.
+	 * @return The value of the point process at the given time index, i.e., the sum of all jumps before that time.
+	 */
+	public synchronized RandomVariableInterface getValue(int timeIndex) {
+		if(timeIndex == lastTimeIndex) return lastValue;
+
+		// The values handed out are never modified, the next values are built on a copy
+		double[] values;
+		int firstTimeStep;
+		if(timeIndex > lastTimeIndex && lastValues != null) {
+			values = lastValues.clone();
+			firstTimeStep = lastTimeIndex;
+		}
+		else {
+			values = new double[jumpEvents.getNumberOfPaths()];
+			firstTimeStep = 0;
+		}
+		for(int timeStep = firstTimeStep; timeStep < timeIndex; timeStep++) jumpEvents.getJumpsInTimeStep(timeStep).addTo(values);
+
+		lastTimeIndex	= timeIndex;
+		lastValues		= values;
+		lastValue		= randomVariableFactory.createRandomVariable(timeDiscretization.getTime(timeIndex), values);
+		return lastValue;
+	}
+}
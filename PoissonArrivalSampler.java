@@ -0,0 +1,109 @@
+package projectTest;
+
+import java.util.Arrays;
+
+import cern.jet.random.engine.RandomEngine;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class samples the arrivals of a Poisson process with intensity \lambda on one path and maps every arrival to the time step containing it.
+ *
+ * The number of arrivals N(T) until the last time T is drawn by inverse transform from a cached table of the Poisson distribution
+ * function with mean \( \lambda (T - t_{0}) \). Given N(T), the arrival times are independent and uniform on \( (t_{0}, T] \),
+ * so every arrival consumes one uniform number, which is mapped to its time step by a binary search; the time indices are then sorted.
+ * Hence the cost is proportional to the number of arrivals, independent of the number of (empty) time steps, and no logarithm is evaluated.
+ * For a mean beyond the table (<code>PoissonDistributionTable.MAXIMUM_MEAN</code>) exponentially distributed inter-arrival times are used.
+ *
+ * An arrival at time \( \tau \) with \( t_{i} &lt; \tau \leq t_{i+1} \) belongs to the time step with index <code>i</code>.
+ *
+ * An instance keeps the arrivals of the last sampled path and is hence not thread safe. Use one instance per block of paths.
+ *
+ * @author A V L
+ * @see PoissonProcess
+ * @see CompoundPoissonProcess
+ * @see PoissonDistributionTable
+ * @version 1.0
+ */
+public class PoissonArrivalSampler {
+
+	private final double	intensity;
+	private final double[]	times;
+
+	private final PoissonDistributionTable numberOfArrivalsDistribution;
+
+	private int[]	arrivalTimeIndices = new int[16];
+	private int		numberOfArrivals;
+
+	/**
+	 * @param intensity The intensity of the Poisson process.
+	 * @param timeDiscretization The time discretization.
+	 */
+	public PoissonArrivalSampler(double intensity, TimeDiscretizationInterface timeDiscretization) {
+		super();
+		this.intensity = intensity;
+		this.times = new double[timeDiscretization.getNumberOfTimes()];
+		for(int timeIndex=0; timeIndex<times.length; timeIndex++) times[timeIndex] = timeDiscretization.getTime(timeIndex);
+
+		double meanNumberOfArrivals = intensity * (times[times.length-1] - times[0]);
+		this.numberOfArrivalsDistribution = intensity > 0 && meanNumberOfArrivals <= PoissonDistributionTable.MAXIMUM_MEAN ?
+				PoissonDistributionTable.getTable(meanNumberOfArrivals) : null;
+	}
+
+	/**
+	 * Samples the arrivals on one path.
+	 *
+	 * @param randomEngine The random number stream.
+	 * @return The number of arrivals.
+	 */
+	public int sampleArrivals(RandomEngine randomEngine) {
+		numberOfArrivals = 0;
+		if(intensity <= 0) return 0;
+		if(numberOfArrivalsDistribution == null) return sampleArrivalsByInterArrivalTimes(randomEngine);
+
+		numberOfArrivals = numberOfArrivalsDistribution.getInverseDistribution(randomEngine.nextDouble());
+		if(numberOfArrivals > arrivalTimeIndices.length) arrivalTimeIndices = new int[Math.max(numberOfArrivals, 2 * arrivalTimeIndices.length)];
+
+		final double firstTime	= times[0];
+		final double length		= times[times.length-1] - firstTime;
+		for(int arrival=0; arrival<numberOfArrivals; arrival++) {
+			double arrivalTime = firstTime + length * randomEngine.nextDouble();
+
+			// Find the first time index with times[timeIndex] >= arrivalTime
+			int position = Arrays.binarySearch(times, 1, times.length, arrivalTime);
+			int timeIndex = position >= 0 ? position : -position-1;
+			arrivalTimeIndices[arrival] = Math.min(timeIndex, times.length-1)-1;
+		}
+		if(numberOfArrivals > 1) Arrays.sort(arrivalTimeIndices, 0, numberOfArrivals);
+
+		return numberOfArrivals;
+	}
+
+	private int sampleArrivalsByInterArrivalTimes(RandomEngine randomEngine) {
+		final double lastTime = times[times.length-1];
+		double arrivalTime = times[0] + inverseExponentialFunction(randomEngine.nextDouble());
+		int timeIndex = 1;
+		while(arrivalTime <= lastTime) {
+			// Find the first time index with times[timeIndex] >= arrivalTime
+			int position = Arrays.binarySearch(times, timeIndex, times.length, arrivalTime);
+			timeIndex = position >= 0 ? position : -position-1;
+
+			if(numberOfArrivals == arrivalTimeIndices.length) arrivalTimeIndices = Arrays.copyOf(arrivalTimeIndices, 2 * numberOfArrivals);
+			arrivalTimeIndices[numberOfArrivals++] = timeIndex-1;
+
+			arrivalTime += inverseExponentialFunction(randomEngine.nextDouble());
+		}
+		return numberOfArrivals;
+	}
+
+	/**
+	 * @param arrival The index of the arrival on the last sampled path, 0 &le; arrival &lt; number of arrivals.
+	 * @return The index of the time step containing the arrival.
+	 */
+	public int getArrivalTimeIndex(int arrival) {
+		return arrivalTimeIndices[arrival];
+	}
+
+	private double inverseExponentialFunction(double X){
+		return -1.0 / intensity * Math.log(1.0 - X);
+	}
+}
@@ -0,0 +1,102 @@
+package projectTest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class provides the inverse of the distribution function of a Poisson distribution with mean m
+ * by a search in a table of the distribution function.
+ *
+ * The table contains the values P(N &le; n) until they are 1 in double precision and is cached per mean,
+ * such that all blocks of paths (and all processes with the same intensity and time horizon) share it.
+ * The table is computed from the recursion p(n) = p(n-1) m / n, starting at p(0) = exp(-m),
+ * hence it is only available for means for which exp(-m) does not underflow.
+ *
+ * @author A V L
+ * @see PoissonArrivalSampler
+ * @version 1.0
+ */
+public class PoissonDistributionTable {
+
+	/**
+	 * The largest mean for which a table is provided.
+	 */
+	public static final double	MAXIMUM_MEAN				= 600.0;
+
+	private static final int	MAXIMUM_NUMBER_OF_CACHED	= 256;
+
+	private static final Map<Double, PoissonDistributionTable> tableCache = new LinkedHashMap<Double, PoissonDistributionTable>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Double, PoissonDistributionTable> eldest) {
+			return size() > MAXIMUM_NUMBER_OF_CACHED;
+		}
+	};
+
+	private final double	mean;
+	private final double[]	distributionFunction;
+
+	private PoissonDistributionTable(double mean) {
+		super();
+		this.mean = mean;
+
+		double[] values = new double[16];
+		double probability = Math.exp(-mean);
+		double sum = probability;
+		int numberOfValues = 0;
+		values[numberOfValues++] = sum;
+		for(int n=1; sum < 1.0 && (probability > 0 || n <= mean); n++) {
+			probability *= mean / n;
+			sum += probability;
+			if(numberOfValues == values.length) values = Arrays.copyOf(values, 2 * numberOfValues);
+			values[numberOfValues++] = Math.min(sum, 1.0);
+		}
+		values[numberOfValues-1] = 1.0;
+		this.distributionFunction = Arrays.copyOf(values, numberOfValues);
+	}
+
+	/**
+	 * Returns the (cached) table for the given mean.
+	 *
+	 * @param mean The mean of the Poisson distribution, 0 &le; mean &le; <code>MAXIMUM_MEAN</code>.
+	 * @return The table of the distribution function.
+	 */
+	public static PoissonDistributionTable getTable(double mean) {
+		if(mean < 0 || mean > MAXIMUM_MEAN) throw new IllegalArgumentException("The mean of the Poisson distribution has to be in [0," + MAXIMUM_MEAN + "].");
+
+		synchronized(tableCache) {
+			PoissonDistributionTable table = tableCache.get(mean);
+			if(table == null) {
+				table = new PoissonDistributionTable(mean);
+				tableCache.put(mean, table);
+			}
+			return table;
+		}
+	}
+
+	/**
+	 * Returns the smallest n with P(N &le; n) &ge; uniform.
+	 *
+	 * @param uniform A uniform number in (0,1).
+	 * @return A Poisson distributed number.
+	 */
+	public int getInverseDistribution(double uniform) {
+		// Most of the mass is at the start of the table for small means, where a linear search is fastest
+		if(mean < 16.0) {
+			int n = 0;
+			while(distributionFunction[n] < uniform) n++;
+			return n;
+		}
+		int position = Arrays.binarySearch(distributionFunction, uniform);
+		return position >= 0 ? position : -position-1;
+	}
+
+	/**
+	 * @return The mean of the Poisson distribution.
+	 */
+	public double getMean() {
+		return mean;
+	}
+}
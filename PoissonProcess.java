@@ -3,7 +3,7 @@ package projectTest;
 
 import net.finmath.time.TimeDiscretizationInterface;
 import net.finmath.stochastic.RandomVariableInterface;
-import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
 import net.finmath.montecarlo.RandomVariableFactory;
 import net.finmath.montecarlo.AbstractRandomVariableFactory;
 
@@ -13,10 +13,11 @@ public class PoissonProcess implements PointProcessInterface{
 	
 	private double intensity;
 	private TimeDiscretizationInterface timeDiscretization;
-	private RandomVariableInterface[] poissonProcess;
-	private RandomVariableInterface[] poissonProcessIncrements;
+	private JumpEvents jumpEvents;
+	private PointProcessValues values;
 	private int numberOfPaths;
 	private int seed;
+	private boolean isParallel;
 	
 	private final		Object						poissonProcessIncrementsLazyInitLock = new Object();
 
@@ -25,82 +26,91 @@ public class PoissonProcess implements PointProcessInterface{
 			TimeDiscretizationInterface timeDiscretization,
 			int numberOfPaths,
 			int seed) {
+		this(intensity, timeDiscretization, numberOfPaths, seed, false);
+	}
+
+	/**
+	 * @param intensity The intensity of the Poisson Process
+	 * @param timeDiscretization The time discretization of the process
+	 * @param numberOfPaths The number of paths
+	 * @param seed The seed of the random number streams of the blocks of paths
+	 * @param isParallel If true, the blocks of paths are generated in parallel (the paths do not depend on this flag)
+	 * @see PathBlocks
+	 */
+	public PoissonProcess(double intensity,
+			TimeDiscretizationInterface timeDiscretization,
+			int numberOfPaths,
+			int seed,
+			boolean isParallel) {
 		super();
 		this.intensity = intensity;
 		this.timeDiscretization = timeDiscretization;
-		this.poissonProcess = null;
-		this.poissonProcessIncrements = null;
+		this.jumpEvents = null;
 		this.numberOfPaths = numberOfPaths;
 		this.seed = seed;
+		this.isParallel = isParallel;
 	}
 
+	/**
+	 * The increments are created from the jump events on every call; they are not stored.
+	 */
 	public RandomVariableInterface getProcessIncrements(int timeIndex){
-		synchronized(poissonProcessIncrementsLazyInitLock) {
-			if (poissonProcessIncrements == null) doGeneratePoissonProcess();
-		}
-		return poissonProcessIncrements[timeIndex];
+		double time = timeDiscretization.getTime(timeIndex+1);
+		return randomVariableFactory.createRandomVariable(time, getJumpEvents().getIncrements(timeIndex));
+	}
+
+	private synchronized PointProcessValues getValues() {
+		if(values == null) values = new PointProcessValues(getJumpEvents(), timeDiscretization, randomVariableFactory);
+		return values;
 	}
 	
+	/**
+	 * The values are a running sum of the jumps, the value of the last requested time index is kept.
+	 */
 	public RandomVariableInterface getProcess(int timeIndex){
+		return getValues().getValue(timeIndex);
+	}
+
+	/**
+	 * Returns the arrivals of the Poisson process, every jump having size 1.
+	 */
+	public JumpEvents getJumpEvents(){
+		// A thread waiting for the generation by another thread records its lock wait time (with no paths)
+		SimulationMetrics.Measurement measurement = jumpEvents == null ? SimulationMetrics.start(SimulationMetrics.Phase.POISSON_PROCESS) : SimulationMetrics.NO_MEASUREMENT;
+		boolean isGenerated = false;
 		synchronized(poissonProcessIncrementsLazyInitLock) {
-			if (poissonProcess == null) doGeneratePoissonProcess();
+			if (jumpEvents == null) {
+				doGeneratePoissonProcess();
+				isGenerated = true;
+			}
 		}
-		return poissonProcess[timeIndex];
+		measurement.stop(isGenerated ? numberOfPaths : 0);
+		return jumpEvents;
 	}
 	
 	private void doGeneratePoissonProcess(){
-		if (poissonProcess != null) return;
+		if (jumpEvents != null) return;
 		
-		MersenneTwister64		mersenneTwister		= new MersenneTwister64(seed);
-		
-		double PoissonProcessArray[][] = new double[timeDiscretization.getNumberOfTimes()][numberOfPaths];
-		double PoissonProcessIncrementsArray[][] = new double[timeDiscretization.getNumberOfTimeSteps()][numberOfPaths];
-
+		final JumpEvents[] jumpEventsOfBlocks = new JumpEvents[PathBlocks.getNumberOfBlocks(numberOfPaths)];
 
-		for (int path = 0; path<numberOfPaths; path++){
-			double sum = inverseExponentialFunction(mersenneTwister.nextDouble());
-			PoissonProcessArray[0][path] = 0.0;
-			for (int timeIndex = 1; timeIndex < timeDiscretization.getNumberOfTimes();timeIndex++){
-				PoissonProcessArray[timeIndex][path] = PoissonProcessArray[timeIndex-1][path];
-				while (timeDiscretization.getTime(timeIndex) >= sum) {
-					//System.out.println("sum "+ sum + "    time " + timeDiscretization.getTime(timeIndex) + "  " + timeIndex + "  " + path);
-					double uniformIncrement = mersenneTwister.nextDouble();
-					double exponentialIncrement = inverseExponentialFunction(uniformIncrement);
-					sum += exponentialIncrement;
-					PoissonProcessArray[timeIndex][path] +=1;
-					//System.out.println(PoissonProcessArray[timeIndex][path]);
-					
-				} 
+		// Every block of paths draws from its own random number stream, hence the blocks may be generated in parallel
+		PathBlocks.generate(numberOfPaths, seed, isParallel, new PathBlocks.BlockGenerator() {
+			@Override
+			public void generate(int blockIndex, int firstPath, int lastPath, RandomEngine randomEngine) {
+				PoissonArrivalSampler arrivalSampler = new PoissonArrivalSampler(intensity, timeDiscretization);
+				JumpEvents.Builder jumpEventsOfBlock = new JumpEvents.Builder(timeDiscretization.getNumberOfTimeSteps());
+				for (int path = firstPath; path<lastPath; path++){
+					int numberOfArrivals = arrivalSampler.sampleArrivals(randomEngine);
+					for (int arrival = 0; arrival < numberOfArrivals; arrival++){
+						jumpEventsOfBlock.addJump(arrivalSampler.getArrivalTimeIndex(arrival), 1.0);
+					}
+					jumpEventsOfBlock.endPath();
+				}
+				jumpEventsOfBlocks[blockIndex] = jumpEventsOfBlock.build();
 			}
-		}
-		
-		for (int path = 0; path<numberOfPaths;path++){
-			for (int timeIncrements = 0; timeIncrements < timeDiscretization.getNumberOfTimeSteps();timeIncrements++){
-				PoissonProcessIncrementsArray[timeIncrements][path] = 
-						PoissonProcessArray[timeIncrements+1][path]
-								- PoissonProcessArray[timeIncrements][path];
-			}	
-		}
-		
-		poissonProcess = new RandomVariableInterface[timeDiscretization.getNumberOfTimes()];
-		poissonProcessIncrements = new RandomVariableInterface[timeDiscretization.getNumberOfTimeSteps()];
+		});
 		
-		for(int timeIndex=0; timeIndex<timeDiscretization.getNumberOfTimeSteps(); timeIndex++) {
-			double time = timeDiscretization.getTime(timeIndex+1);	
-			poissonProcessIncrements[timeIndex] =
-					randomVariableFactory.createRandomVariable(time, PoissonProcessIncrementsArray[timeIndex]);		
-		}
-		
-		for(int timeIndex=0; timeIndex<timeDiscretization.getNumberOfTimes();timeIndex++){
-			double time = timeDiscretization.getTime(timeIndex);
-			poissonProcess[timeIndex]=
-					randomVariableFactory.createRandomVariable(time, PoissonProcessArray[timeIndex]);
-					
-		}
-	}
-	
-	private double inverseExponentialFunction(double X){
-		return -1.0 / intensity * Math.log(1.0 - X);
+		jumpEvents = JumpEvents.concatenate(jumpEventsOfBlocks);
 	}
 	
 	
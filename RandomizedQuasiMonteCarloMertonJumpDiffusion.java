@@ -0,0 +1,174 @@
+package projectTest;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.products.AbstractAssetMonteCarloProduct;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements a randomized quasi Monte-Carlo valuation in the Merton jump diffusion model.
+ *
+ * Each replicate is a <code>MonteCarloMertonJumpDiffusionModel</code> using the exact scheme <code>MertonJumpDiffusionProcessExactScheme</code>,
+ * driven by one Sobol sequence with an independent random digital shift per replicate:
+ * the first dimensions drive the Brownian bridge <code>BrownianBridgeSobolBrownianMotion</code>,
+ * the following dimensions the jumps <code>SobolCompoundPoissonProcess</code>.
+ * The value is the average over the replicates and the standard error is estimated from the (independent) replicates.
+ *
+ * Since the scheme is exact, the time discretization only needs to contain the event dates of the products,
+ * which keeps the number of dimensions (and the effective dimension) small. For smooth payoffs, such as European options,
+ * the error decays almost like 1/numberOfPaths, such that far less paths are needed than with pseudo random numbers.
+ *
+ * @author A V L
+ * @see SobolSequence
+ * @version 1.0
+ */
+public class RandomizedQuasiMonteCarloMertonJumpDiffusion {
+
+	private final TimeDiscretizationInterface timeDiscretization;
+	private final int		numberOfPaths;
+	private final int		numberOfReplicates;
+
+	private final double	initialValue;
+	private final double	riskFreeRate;
+	private final double	volatility;
+	private final double	poissonIntensity;
+	private final double	jumpMean;
+	private final double	jumpVariance;
+
+	private final int		numberOfQuasiRandomJumps;
+	private final int		seed = 3141;
+
+	private final MonteCarloMertonJumpDiffusionModel[] models;
+
+	/**
+	 * @param timeDiscretization The time discretization, containing the event dates of the products.
+	 * @param numberOfPaths The number of paths per replicate (preferably a power of 2).
+	 * @param numberOfReplicates The number of replicates.
+	 * @param initialValue Spot value.
+	 * @param riskFreeRate The risk free rate.
+	 * @param volatility The log volatility.
+	 * @param poissonIntensity The intensity of the Poisson Process
+	 * @param jumpMean The mean and variance of the jumps
+	 * @param jumpVariance exp (mean + variance * Z) - 1,  Z normally distributed
+	 */
+	public RandomizedQuasiMonteCarloMertonJumpDiffusion(
+			TimeDiscretizationInterface timeDiscretization,
+			int numberOfPaths,
+			int numberOfReplicates,
+			double initialValue,
+			double riskFreeRate,
+			double volatility,
+			double poissonIntensity,
+			double jumpMean,
+			double jumpVariance) {
+		super();
+		this.timeDiscretization = timeDiscretization;
+		this.numberOfPaths = numberOfPaths;
+		this.numberOfReplicates = numberOfReplicates;
+		this.initialValue = initialValue;
+		this.riskFreeRate = riskFreeRate;
+		this.volatility = volatility;
+		this.poissonIntensity = poissonIntensity;
+		this.jumpMean = jumpMean;
+		this.jumpVariance = jumpVariance;
+
+		// Quasi random numbers for the jumps up to about the mean plus three standard deviations of the number of jumps
+		double meanNumberOfJumps = poissonIntensity * (timeDiscretization.getTime(timeDiscretization.getNumberOfTimeSteps()) - timeDiscretization.getTime(0));
+		this.numberOfQuasiRandomJumps = (int)Math.ceil(meanNumberOfJumps + 3.0 * Math.sqrt(meanNumberOfJumps)) + 1;
+
+		this.models = new MonteCarloMertonJumpDiffusionModel[numberOfReplicates];
+	}
+
+	/**
+	 * Returns the model of a replicate. The models are created on first use and kept, such that all products are valued on the same paths.
+	 *
+	 * @param replicate The index of the replicate.
+	 * @return The model of the replicate.
+	 */
+	public synchronized MonteCarloMertonJumpDiffusionModel getModel(int replicate) {
+		if(models[replicate] == null) {
+			final int numberOfDimensionsOfBrownianMotion = timeDiscretization.getNumberOfTimeSteps();
+			SobolSequence sobolSequence = new SobolSequence(
+					numberOfDimensionsOfBrownianMotion + SobolCompoundPoissonProcess.getNumberOfDimensions(numberOfQuasiRandomJumps),
+					seed + replicate);
+
+			MertonJumpDiffusionProcessExactScheme process = new MertonJumpDiffusionProcessExactScheme(
+					new BrownianBridgeSobolBrownianMotion(timeDiscretization, 1 /* numberOfFactors */, numberOfPaths, sobolSequence, 0),
+					new SobolCompoundPoissonProcess(poissonIntensity, new LogNormalJumpSizeDistribution(jumpMean, jumpVariance),
+							timeDiscretization, numberOfPaths, sobolSequence, numberOfDimensionsOfBrownianMotion, numberOfQuasiRandomJumps, seed + 300 + replicate));
+
+			models[replicate] = new MonteCarloMertonJumpDiffusionModel(initialValue, riskFreeRate, volatility, process, poissonIntensity, jumpMean, jumpVariance);
+		}
+		return models[replicate];
+	}
+
+	/**
+	 * @param product The product.
+	 * @return The value of the product in every replicate.
+	 * @throws CalculationException Thrown if the valuation fails.
+	 */
+	public double[] getValues(AbstractAssetMonteCarloProduct product) throws CalculationException {
+		double[] values = new double[numberOfReplicates];
+		for(int replicate=0; replicate<numberOfReplicates; replicate++) values[replicate] = product.getValue(getModel(replicate));
+		return values;
+	}
+
+	/**
+	 * @param product The product.
+	 * @return An array containing the value of the product (the average over the replicates) and its standard error.
+	 * @throws CalculationException Thrown if the valuation fails.
+	 */
+	public double[] getValueAndStandardError(AbstractAssetMonteCarloProduct product) throws CalculationException {
+		double[] values = getValues(product);
+
+		double sum = 0.0, sumOfSquares = 0.0;
+		for(double value : values) {
+			sum				+= value;
+			sumOfSquares	+= value * value;
+		}
+		double mean		= sum / numberOfReplicates;
+		double variance	= numberOfReplicates > 1 ? (sumOfSquares - sum * mean) / (numberOfReplicates - 1) : 0.0;
+
+		return new double[] { mean, Math.sqrt(Math.max(variance, 0.0) / numberOfReplicates) };
+	}
+
+	/**
+	 * @param strikeGrid The options on a grid of strikes.
+	 * @return An array containing the values (the averages over the replicates) and an array containing the standard errors, one for each strike.
+	 * @throws CalculationException Thrown if the valuation fails.
+	 */
+	public double[][] getValuesAndStandardErrors(EuropeanOptionStrikeGrid strikeGrid) throws CalculationException {
+		final int numberOfStrikes = strikeGrid.getStrikes().length;
+		double[] sums			= new double[numberOfStrikes];
+		double[] sumsOfSquares	= new double[numberOfStrikes];
+		for(int replicate=0; replicate<numberOfReplicates; replicate++) {
+			double[] values = strikeGrid.getValues(getModel(replicate));
+			for(int strikeIndex=0; strikeIndex<numberOfStrikes; strikeIndex++) {
+				sums[strikeIndex]			+= values[strikeIndex];
+				sumsOfSquares[strikeIndex]	+= values[strikeIndex] * values[strikeIndex];
+			}
+		}
+
+		double[] means			= new double[numberOfStrikes];
+		double[] standardErrors	= new double[numberOfStrikes];
+		for(int strikeIndex=0; strikeIndex<numberOfStrikes; strikeIndex++) {
+			means[strikeIndex] = sums[strikeIndex] / numberOfReplicates;
+			double variance = numberOfReplicates > 1 ? (sumsOfSquares[strikeIndex] - sums[strikeIndex] * means[strikeIndex]) / (numberOfReplicates - 1) : 0.0;
+			standardErrors[strikeIndex] = Math.sqrt(Math.max(variance, 0.0) / numberOfReplicates);
+		}
+		return new double[][] { means, standardErrors };
+	}
+
+	/**
+	 * @return The number of replicates.
+	 */
+	public int getNumberOfReplicates() {
+		return numberOfReplicates;
+	}
+
+	/**
+	 * @return The number of paths per replicate.
+	 */
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+}
@@ -0,0 +1,143 @@
+package projectTest;
+
+import java.util.Map;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.IndependentIncrementsInterface;
+import net.finmath.montecarlo.model.AbstractModelInterface;
+import net.finmath.montecarlo.process.AbstractProcess;
+import net.finmath.montecarlo.process.AbstractProcessInterface;
+import net.finmath.stochastic.RandomVariableInterface;
+
+/**
+ * This class implements the paths of a jump diffusion with a modified initial value by rescaling the paths of another process.
+ *
+ * The Merton jump diffusion
+ * \[
+ * 	dS = r S dt + \sigma S dW + S dJ
+ * \]
+ * is linear in S, and so are its Euler and exact schemes. Hence the paths with initial value S'<sub>0</sub> are
+ * the paths with initial value S<sub>0</sub> multiplied by S'<sub>0</sub> / S<sub>0</sub>, for the same Brownian increments and jumps.
+ * The paths of the original process are generated (at most) once and shared; the rescaled values are created on every call
+ * (they are not stored), such that this process holds no second copy of the paths.
+ *
+ * The Monte-Carlo weights, the Brownian motion and the compound Poisson process are those of the original process.
+ *
+ * @author A V L
+ * @see MonteCarloMertonJumpDiffusionModel#getCloneWithModifiedData(java.util.Map)
+ * @version 1.0
+ */
+public class RescaledJumpDiffusionProcess extends AbstractProcess implements JumpDiffusionProcessInterface {
+
+	private final AbstractProcess	process;
+	private final double			scalingFactor;
+
+	private MonteCarloMertonJumpDiffusionModel model;
+
+	/**
+	 * @param process The process providing the paths, linked to its model.
+	 * @param scalingFactor The factor applied to the paths, i.e., the ratio of the initial values.
+	 */
+	public RescaledJumpDiffusionProcess(AbstractProcess process, double scalingFactor) {
+		super(process.getTimeDiscretization());
+		// Rescaling a rescaled process rescales the original paths
+		if(process instanceof RescaledJumpDiffusionProcess) {
+			this.process		= ((RescaledJumpDiffusionProcess)process).process;
+			this.scalingFactor	= ((RescaledJumpDiffusionProcess)process).scalingFactor * scalingFactor;
+		}
+		else {
+			this.process		= process;
+			this.scalingFactor	= scalingFactor;
+		}
+	}
+
+	@Override
+	public void setModel(AbstractModelInterface model) {
+		super.setModel(model);
+		this.model = model instanceof MonteCarloMertonJumpDiffusionModel ? (MonteCarloMertonJumpDiffusionModel)model : null;
+	}
+
+	/**
+	 * @return The process providing the paths.
+	 */
+	public AbstractProcess getUnderlyingProcess() {
+		return process;
+	}
+
+	/**
+	 * @return The factor applied to the paths.
+	 */
+	public double getScalingFactor() {
+		return scalingFactor;
+	}
+
+	/**
+	 * The rescaled values are created on every call; they are not stored.
+	 */
+	@Override
+	public RandomVariableInterface getProcessValue(int timeIndex, int componentIndex) throws CalculationException {
+		return process.getProcessValue(timeIndex, componentIndex).mult(scalingFactor);
+	}
+
+	@Override
+	public RandomVariableInterface getMonteCarloWeights(int timeIndex) throws CalculationException {
+		return process.getMonteCarloWeights(timeIndex);
+	}
+
+	@Override
+	public int getNumberOfPaths() {
+		return process.getNumberOfPaths();
+	}
+
+	@Override
+	public int getNumberOfFactors() {
+		return process.getNumberOfFactors();
+	}
+
+	@Override
+	public BrownianMotionInterface getBrownianMotion() {
+		return process.getBrownianMotion();
+	}
+
+	@Override
+	public IndependentIncrementsInterface getStochasticDriver() {
+		return getBrownianMotion();
+	}
+
+	@Override
+	public PointProcessInterface getCompoundPoissonProcess() {
+		return process instanceof JumpDiffusionProcessInterface ? ((JumpDiffusionProcessInterface)process).getCompoundPoissonProcess() : null;
+	}
+
+	/* (non-Javadoc)
+	 * @see net.finmath.montecarlo.process.AbstractProcess#clone()
+	 */
+	@Override
+	public RescaledJumpDiffusionProcess clone() {
+		return new RescaledJumpDiffusionProcess(process, scalingFactor);
+	}
+
+	/* (non-Javadoc)
+	 * @see net.finmath.montecarlo.process.AbstractProcess#getCloneWithModifiedSeed(int)
+	 */
+	@Override
+	public Object getCloneWithModifiedSeed(int seed) {
+		return new RescaledJumpDiffusionProcess(process, scalingFactor);
+	}
+
+	/**
+	 * Returns the process of the model with modified data (see <code>MonteCarloMertonJumpDiffusionModel.getCloneWithModifiedData</code>).
+	 *
+	 * @param dataModified Key-value-map of parameters to modify.
+	 * @return The process of the model with the modified data.
+	 * @throws IllegalStateException Thrown if the process is not linked to a <code>MonteCarloMertonJumpDiffusionModel</code>.
+	 */
+	@Override
+	public AbstractProcessInterface getCloneWithModifiedData(Map<String, Object> dataModified) {
+		if(model == null) {
+			throw new IllegalStateException("The process is not linked to a MonteCarloMertonJumpDiffusionModel.");
+		}
+		return model.getCloneWithModifiedData(dataModified).getProcess();
+	}
+}
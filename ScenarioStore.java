@@ -0,0 +1,271 @@
+package projectTest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.stochastic.RandomVariableInterface;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements a persistent store of the scenarios of <code>MonteCarloMertonJumpDiffusionModel</code>, such that repeated runs
+ * (and concurrent processes) share the paths instead of generating them again.
+ *
+ * The scenarios of the model with the given time discretization, number of paths and parameters (and the seed 3141 of the model,
+ * with the Brownian increments of <code>StreamingBrownianMotion</code>) are stored in the file <code>merton-&lt;key&gt;.scenarios</code> of the directory of the store, where the key is a 64 bit hash of
+ * the parameters, the times, the number of paths, the seed and the file format. A missing file is generated by the Euler scheme time step
+ * by time step and written to a temporary file, which is then atomically renamed, i.e., a reader never sees an incomplete file and concurrent writers write the same
+ * file. The file is read through memory mapped buffers (see <code>MappedScenarios</code> for the layout).
+ *
+ * The file holds the values of the Euler scheme at every time, the Brownian increments and the jumps. The process of the returned model is a
+ * <code>MappedJumpDiffusionProcess</code>, clones with modified data evolve a new Euler scheme on the stored random numbers.
+ *
+ * @author A V L
+ * @see MappedScenarios
+ * @version 1.0
+ */
+public class ScenarioStore {
+
+	/**
+	 * The seed of the scenarios, which is the default seed of <code>MonteCarloMertonJumpDiffusionModel</code>.
+	 */
+	public static final int SEED = MonteCarloMertonJumpDiffusionModel.DEFAULT_SEED;
+
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	private final Path directory;
+
+	/**
+	 * @param directory The directory of the scenario files, created if missing.
+	 * @throws IOException Thrown if the directory cannot be created.
+	 */
+	public ScenarioStore(Path directory) throws IOException {
+		super();
+		this.directory = Files.createDirectories(directory);
+	}
+
+	/**
+	 * Returns the model with the scenarios of the store, generating and storing them if they are not in the store.
+	 *
+	 * @param timeDiscretization The time discretization.
+	 * @param numberOfPaths The number of Monte-Carlo path to be used.
+	 * @param initialValue Spot value.
+	 * @param riskFreeRate The risk free rate.
+	 * @param volatility The log volatility.
+	 * @param poissonIntensity The intensity of the Poisson Process
+	 * @param jumpMean The mean of the log jump sizes.
+	 * @param jumpVariance The standard deviation of the log jump sizes.
+	 * @return The model.
+	 * @throws IOException Thrown if the scenario file cannot be written or read.
+	 */
+	public MonteCarloMertonJumpDiffusionModel getModel(
+			TimeDiscretizationInterface timeDiscretization,
+			int numberOfPaths,
+			double initialValue,
+			double riskFreeRate,
+			double volatility,
+			double poissonIntensity,
+			double jumpMean,
+			double jumpVariance) throws IOException {
+		double[] times = getTimes(timeDiscretization);
+		double[] parameters = { initialValue, riskFreeRate, volatility, poissonIntensity, jumpMean, jumpVariance };
+		long key = getKey(times, numberOfPaths, parameters);
+
+		Path file = getFile(key);
+		if(!Files.exists(file)) {
+			write(timeDiscretization, numberOfPaths, parameters, key, file);
+		}
+
+		MappedScenarios scenarios = MappedScenarios.open(file);
+		if(scenarios.getKey() != key || scenarios.getNumberOfPaths() != numberOfPaths
+				|| !Arrays.equals(scenarios.getParameters(), parameters) || !Arrays.equals(getTimes(scenarios.getTimeDiscretization()), times)) {
+			scenarios.close();
+			throw new IOException("The scenario file " + file + " does not hold the scenarios of its key.");
+		}
+
+		return new MonteCarloMertonJumpDiffusionModel(initialValue, riskFreeRate, volatility, new MappedJumpDiffusionProcess(scenarios),
+				poissonIntensity, jumpMean, jumpVariance, SEED);
+	}
+
+	/**
+	 * @param key The key of the scenarios.
+	 * @return The scenario file of the key.
+	 */
+	public Path getFile(long key) {
+		return directory.resolve(String.format("merton-%016x.scenarios", key));
+	}
+
+	/**
+	 * Returns the key of the scenarios, a 64 bit hash (with the finalizer of SplitMix64 as mixing function) of the file format, the seed,
+	 * the number of paths, the times and the parameters.
+	 */
+	static long getKey(double[] times, int numberOfPaths, double[] parameters) {
+		long hash = mix(MappedScenarios.MAGIC_NUMBER ^ MappedScenarios.FORMAT_VERSION);
+		hash = mix(hash ^ SEED);
+		hash = mix(hash ^ numberOfPaths);
+		hash = mix(hash ^ times.length);
+		for(double time : times)			hash = mix(hash ^ Double.doubleToLongBits(time));
+		for(double parameter : parameters)	hash = mix(hash ^ Double.doubleToLongBits(parameter));
+		return hash;
+	}
+
+	private static double[] getTimes(TimeDiscretizationInterface timeDiscretization) {
+		double[] times = new double[timeDiscretization.getNumberOfTimes()];
+		for(int timeIndex=0; timeIndex<times.length; timeIndex++) times[timeIndex] = timeDiscretization.getTime(timeIndex);
+		return times;
+	}
+
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+
+	/**
+	 * Writes the scenarios to a temporary file and renames it to the given file.
+	 *
+	 * The Euler scheme of <code>MertonJumpDiffusionProcessEulerScheme</code> is evolved time step by time step on a
+	 * <code>StreamingBrownianMotion</code>, the values and the Brownian increments of a time step are written to their blocks
+	 * in the file (positional writes) before the next time step is generated, such that the memory is proportional to the number of paths
+	 * (plus the jump events) instead of the number of paths times the number of time steps.
+	 */
+	private void write(TimeDiscretizationInterface timeDiscretization, int numberOfPaths, double[] parameters, long key, Path file) throws IOException {
+		final int		numberOfTimes	= timeDiscretization.getNumberOfTimes();
+		final double	riskFreeRate	= parameters[1];
+		final double	volatility		= parameters[2];
+		final BrownianMotionInterface brownianMotion = new StreamingBrownianMotion(timeDiscretization, 1 /* numberOfFactors */, numberOfPaths, SEED, true /* isParallel */);
+		final JumpEvents jumpEvents = new CompoundPoissonProcess(parameters[3], parameters[4], parameters[5], timeDiscretization, numberOfPaths,
+				MonteCarloMertonJumpDiffusionModel.getSeedOfJumps(SEED), true /* isParallel */).getJumpEvents();
+
+		final long blockSize				= 8L * numberOfPaths;
+		final long processOffset			= MappedScenarios.HEADER_SIZE + 8L * numberOfTimes;
+		final long brownianIncrementOffset	= processOffset + numberOfTimes * blockSize;
+		final long jumpEventsOffset			= brownianIncrementOffset + (numberOfTimes - 1) * blockSize;
+
+		Path temporaryFile = Files.createTempFile(directory, "merton-", ".tmp");
+		try {
+			try(FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+				// Header
+				buffer.putLong(MappedScenarios.MAGIC_NUMBER).putInt(MappedScenarios.FORMAT_VERSION).putInt(numberOfPaths).putInt(numberOfTimes)
+				.putInt(SEED).putLong(key).putLong(jumpEvents.getNumberOfJumps());
+				for(double parameter : parameters) buffer.putDouble(parameter);
+				buffer.position(MappedScenarios.HEADER_SIZE);
+
+				// Times
+				for(int timeIndex=0; timeIndex<numberOfTimes; timeIndex++) putDouble(channel, buffer, timeDiscretization.getTime(timeIndex));
+				flush(channel, buffer);
+
+				// Process and Brownian increments, one block per time index, evolved by the Euler step S + r S dt + sigma S dW + sum of S Y
+				double[] value		= new double[numberOfPaths];
+				double[] nextValue	= new double[numberOfPaths];
+				Arrays.fill(value, parameters[0]);
+				writeBlock(channel, buffer, processOffset, value);
+				for(int timeIndex=1; timeIndex<numberOfTimes; timeIndex++) {
+					final double deltaT = timeDiscretization.getTime(timeIndex) - timeDiscretization.getTime(timeIndex - 1);
+					final RandomVariableInterface brownianIncrement = brownianMotion.getBrownianIncrement(timeIndex - 1, 0);
+					for(int path=0; path<numberOfPaths; path++) {
+						nextValue[path] = value[path] + riskFreeRate * value[path] * deltaT;
+						nextValue[path] += volatility * value[path] * brownianIncrement.get(path);
+					}
+					final JumpEvents.TimeStep jumpsInTimeStep = jumpEvents.getJumpsInTimeStep(timeIndex - 1);
+					for(int jump=0; jump<jumpsInTimeStep.getNumberOfJumps(); jump++) {
+						int path = jumpsInTimeStep.getPath(jump);
+						nextValue[path] += value[path] * jumpsInTimeStep.getSize(jump);
+					}
+
+					writeBlock(channel, buffer, processOffset + timeIndex * blockSize, nextValue);
+					writeBlock(channel, buffer, brownianIncrementOffset + (timeIndex - 1) * blockSize, brownianIncrement);
+
+					double[] swap = value;
+					value = nextValue;
+					nextValue = swap;
+				}
+
+				// Jump events
+				channel.position(jumpEventsOffset);
+				for(int path=0; path<numberOfPaths; path++) {
+					for(int jump=0; jump<jumpEvents.getNumberOfJumpsOnPath(path); jump++) putDouble(channel, buffer, jumpEvents.getJumpSize(path, jump));
+				}
+				int firstJumpOfPath = 0;
+				for(int path=0; path<numberOfPaths; path++) {
+					putInt(channel, buffer, firstJumpOfPath);
+					firstJumpOfPath += jumpEvents.getNumberOfJumpsOnPath(path);
+				}
+				putInt(channel, buffer, firstJumpOfPath);
+				for(int path=0; path<numberOfPaths; path++) {
+					for(int jump=0; jump<jumpEvents.getNumberOfJumpsOnPath(path); jump++) putInt(channel, buffer, jumpEvents.getJumpTimeIndex(path, jump));
+				}
+
+				flush(channel, buffer);
+				channel.force(false);
+			}
+
+			try {
+				Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch(AtomicMoveNotSupportedException e) {
+				Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+	/**
+	 * Writes a block of doubles at the given position of the file, through the (empty) buffer.
+	 */
+	private static void writeBlock(FileChannel channel, ByteBuffer buffer, long position, double[] values) throws IOException {
+		for(int path=0; path<values.length; path++) {
+			if(buffer.remaining() < Double.BYTES) position = flush(channel, buffer, position);
+			buffer.putDouble(values[path]);
+		}
+		flush(channel, buffer, position);
+	}
+
+	private static void writeBlock(FileChannel channel, ByteBuffer buffer, long position, RandomVariableInterface values) throws IOException {
+		for(int path=0; path<values.size(); path++) {
+			if(buffer.remaining() < Double.BYTES) position = flush(channel, buffer, position);
+			buffer.putDouble(values.get(path));
+		}
+		flush(channel, buffer, position);
+	}
+
+	private static void putDouble(FileChannel channel, ByteBuffer buffer, double value) throws IOException {
+		if(buffer.remaining() < Double.BYTES) flush(channel, buffer);
+		buffer.putDouble(value);
+	}
+
+	private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+		if(buffer.remaining() < Integer.BYTES) flush(channel, buffer);
+		buffer.putInt(value);
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the buffer at the given position of the file (without moving the position of the channel).
+	 *
+	 * @return The position after the written bytes.
+	 */
+	private static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) position += channel.write(buffer, position);
+		buffer.clear();
+		return position;
+	}
+}
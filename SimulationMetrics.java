@@ -0,0 +1,275 @@
+package projectTest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * This class implements a lightweight instrumentation of the phases of a simulation (random numbers, Poisson and compound Poisson
+ * generation, Euler evolution, delta hedge, statistics).
+ *
+ * For every phase it accumulates the number of runs, the wall time, the number of paths, the bytes allocated and the time the thread
+ * was blocked on or waiting for a lock. Every run is also emitted as the JFR event <code>projectTest.SimulationPhase</code>,
+ * recorded when a flight recording is running (e.g. with <code>-XX:StartFlightRecording</code>). The event is the class
+ * <code>SimulationPhaseEvent</code>, which is loaded reflectively, such that this class does not depend on <code>jdk.jfr</code>
+ * and runs without events where JFR is not available.
+ * A snapshot of the accumulated metrics is available by <code>getSnapshot()</code>.
+ *
+ * The instrumentation is enabled by the system property <code>projectTest.metrics=true</code>. Since the flag is a
+ * <code>static final</code> constant, a disabled instrumentation is removed by the JIT compiler and costs nothing; a measurement is then
+ * the shared <code>NO_MEASUREMENT</code>, which records nothing.
+ *
+ * The allocated bytes and the lock wait times are those of the thread running the phase (measured by the <code>ThreadMXBean</code>),
+ * i.e., a phase which generates its paths on the fork-join pool reports the allocations of the calling thread only. The lock wait times
+ * are measured in milliseconds by the JVM.
+ *
+ * @author A V L
+ * @version 1.0
+ */
+public final class SimulationMetrics {
+
+	public enum Phase {
+		RANDOM_NUMBERS,
+		POISSON_PROCESS,
+		COMPOUND_POISSON_PROCESS,
+		EULER_SCHEME,
+		DELTA_HEDGE,
+		STATISTICS
+	}
+
+	private static final boolean isEnabled = Boolean.getBoolean("projectTest.metrics");
+
+	private static final ThreadMXBean threadMXBean = isEnabled ? ManagementFactory.getThreadMXBean() : null;
+
+	/**
+	 * The JFR event of a run of a phase (see <code>SimulationPhaseEvent</code>).
+	 */
+	interface PhaseEvent {
+		void start();
+
+		void record(String phase, long numberOfPaths, long allocatedBytes, long lockWaitTime);
+	}
+
+	private static final PhaseEvent NO_EVENT = new PhaseEvent() {
+		@Override
+		public void start() {
+		}
+
+		@Override
+		public void record(String phase, long numberOfPaths, long allocatedBytes, long lockWaitTime) {
+		}
+	};
+
+	private static final Supplier<PhaseEvent> eventFactory = isEnabled ? createEventFactory() : null;
+
+	private static final int NUMBER_OF_PHASES = Phase.values().length;
+	private static final LongAdder[] counts			= createAdders();
+	private static final LongAdder[] wallTimes		= createAdders();
+	private static final LongAdder[] numbersOfPaths	= createAdders();
+	private static final LongAdder[] allocatedBytes	= createAdders();
+	private static final LongAdder[] lockWaitTimes	= createAdders();
+
+	/**
+	 * The measurement returned if the instrumentation is disabled.
+	 */
+	public static final Measurement NO_MEASUREMENT = new Measurement(null);
+
+	static {
+		if(isEnabled && threadMXBean.isThreadContentionMonitoringSupported()) threadMXBean.setThreadContentionMonitoringEnabled(true);
+	}
+
+	private SimulationMetrics() {
+	}
+
+	/**
+	 * @return True if the instrumentation is enabled (by the system property <code>projectTest.metrics=true</code>).
+	 */
+	public static boolean isEnabled() {
+		return isEnabled;
+	}
+
+	/**
+	 * Starts the measurement of a run of a phase on the current thread.
+	 *
+	 * @param phase The phase.
+	 * @return The measurement, to be stopped by the same thread.
+	 */
+	public static Measurement start(Phase phase) {
+		return isEnabled ? new Measurement(phase) : NO_MEASUREMENT;
+	}
+
+	/**
+	 * @return A snapshot of the metrics accumulated since the start or the last reset.
+	 */
+	public static Snapshot getSnapshot() {
+		long[][] values = new long[5][NUMBER_OF_PHASES];
+		for(int phase=0; phase<NUMBER_OF_PHASES; phase++) {
+			values[0][phase] = counts[phase].sum();
+			values[1][phase] = wallTimes[phase].sum();
+			values[2][phase] = numbersOfPaths[phase].sum();
+			values[3][phase] = allocatedBytes[phase].sum();
+			values[4][phase] = lockWaitTimes[phase].sum();
+		}
+		return new Snapshot(values[0], values[1], values[2], values[3], values[4]);
+	}
+
+	/**
+	 * Resets the accumulated metrics.
+	 */
+	public static void reset() {
+		for(int phase=0; phase<NUMBER_OF_PHASES; phase++) {
+			counts[phase].reset();
+			wallTimes[phase].reset();
+			numbersOfPaths[phase].reset();
+			allocatedBytes[phase].reset();
+			lockWaitTimes[phase].reset();
+		}
+	}
+
+	/*
+	 * Loads the JFR event, which fails (with a linkage error) if jdk.jfr is not available or the event has not been compiled.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Supplier<PhaseEvent> createEventFactory() {
+		try {
+			Supplier<PhaseEvent> factory = (Supplier<PhaseEvent>)Class.forName("projectTest.SimulationPhaseEvent$Factory").getDeclaredConstructor().newInstance();
+			factory.get();
+			return factory;
+		}
+		catch(ReflectiveOperationException | LinkageError e) {
+			return () -> NO_EVENT;
+		}
+	}
+
+	private static LongAdder[] createAdders() {
+		LongAdder[] adders = new LongAdder[NUMBER_OF_PHASES];
+		for(int phase=0; phase<NUMBER_OF_PHASES; phase++) adders[phase] = new LongAdder();
+		return adders;
+	}
+
+	private static long getAllocatedBytes() {
+		return threadMXBean instanceof com.sun.management.ThreadMXBean ? ((com.sun.management.ThreadMXBean)threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+	}
+
+	private static long getLockWaitTime() {
+		if(!threadMXBean.isThreadContentionMonitoringEnabled()) return 0;
+		ThreadInfo threadInfo = threadMXBean.getThreadInfo(Thread.currentThread().getId());
+		return threadInfo != null ? 1000000L * (threadInfo.getBlockedTime() + threadInfo.getWaitedTime()) : 0;
+	}
+
+	/**
+	 * The measurement of a run of a phase.
+	 */
+	public static final class Measurement {
+		private final Phase					phase;
+		private final PhaseEvent			event;
+		private final long					startTime;
+		private final long					startAllocatedBytes;
+		private final long					startLockWaitTime;
+
+		private Measurement(Phase phase) {
+			this.phase = phase;
+			if(phase != null) {
+				event = eventFactory.get();
+				event.start();
+				startAllocatedBytes	= getAllocatedBytes();
+				startLockWaitTime	= getLockWaitTime();
+				startTime			= System.nanoTime();
+			}
+			else {
+				event = null;
+				startAllocatedBytes = startLockWaitTime = startTime = 0;
+			}
+		}
+
+		/**
+		 * Stops the measurement and adds it to the metrics of its phase.
+		 *
+		 * @param numberOfPaths The number of paths processed by the run.
+		 */
+		public void stop(int numberOfPaths) {
+			if(phase == null) return;
+
+			long wallTime			= System.nanoTime() - startTime;
+			long allocated			= getAllocatedBytes() - startAllocatedBytes;
+			long lockWaitTime		= getLockWaitTime() - startLockWaitTime;
+
+			int index = phase.ordinal();
+			counts[index].increment();
+			wallTimes[index].add(wallTime);
+			numbersOfPaths[index].add(numberOfPaths);
+			allocatedBytes[index].add(allocated);
+			lockWaitTimes[index].add(lockWaitTime);
+
+			event.record(phase.name(), numberOfPaths, allocated, lockWaitTime);
+		}
+	}
+
+	/**
+	 * The metrics of all phases at the time of the snapshot.
+	 */
+	public static final class Snapshot {
+		private final long[] counts;
+		private final long[] wallTimes;
+		private final long[] numbersOfPaths;
+		private final long[] allocatedBytes;
+		private final long[] lockWaitTimes;
+
+		private Snapshot(long[] counts, long[] wallTimes, long[] numbersOfPaths, long[] allocatedBytes, long[] lockWaitTimes) {
+			this.counts = counts;
+			this.wallTimes = wallTimes;
+			this.numbersOfPaths = numbersOfPaths;
+			this.allocatedBytes = allocatedBytes;
+			this.lockWaitTimes = lockWaitTimes;
+		}
+
+		public long getCount(Phase phase) {
+			return counts[phase.ordinal()];
+		}
+
+		/**
+		 * @param phase The phase.
+		 * @return The wall time of all runs of the phase in nanoseconds.
+		 */
+		public long getWallTime(Phase phase) {
+			return wallTimes[phase.ordinal()];
+		}
+
+		public long getNumberOfPaths(Phase phase) {
+			return numbersOfPaths[phase.ordinal()];
+		}
+
+		/**
+		 * @param phase The phase.
+		 * @return The number of paths processed per second of wall time.
+		 */
+		public double getPathsPerSecond(Phase phase) {
+			return wallTimes[phase.ordinal()] > 0 ? numbersOfPaths[phase.ordinal()] * 1E9 / wallTimes[phase.ordinal()] : 0.0;
+		}
+
+		public long getAllocatedBytes(Phase phase) {
+			return allocatedBytes[phase.ordinal()];
+		}
+
+		/**
+		 * @param phase The phase.
+		 * @return The time the threads of the phase were blocked on or waiting for a lock in nanoseconds.
+		 */
+		public long getLockWaitTime(Phase phase) {
+			return lockWaitTimes[phase.ordinal()];
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder table = new StringBuilder(String.format("%-26s %8s %14s %16s %16s %14s%n", "phase", "runs", "wall time [ms]", "paths per second", "allocated [MB]", "lock wait [ms]"));
+			for(Phase phase : Phase.values()) {
+				if(getCount(phase) == 0) continue;
+				table.append(String.format("%-26s %8d %14.1f %16.0f %16.1f %14.1f%n", phase.name(), getCount(phase), getWallTime(phase) / 1E6,
+						getPathsPerSecond(phase), getAllocatedBytes(phase) / 1048576.0, getLockWaitTime(phase) / 1E6));
+			}
+			return table.toString();
+		}
+	}
+}
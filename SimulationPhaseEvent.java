@@ -0,0 +1,70 @@
+package projectTest;
+
+import java.util.function.Supplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * This class implements the JFR event of a run of a phase of <code>SimulationMetrics</code>.
+ *
+ * It is the only class referring to <code>jdk.jfr</code>. <code>SimulationMetrics</code> loads it reflectively (by its <code>Factory</code>)
+ * and records no events if it cannot be loaded, e.g. on a JVM without JFR or if it has been excluded from the build (see the profile
+ * <code>no-jfr</code> of the benchmarks).
+ *
+ * @author A V L
+ * @see SimulationMetrics
+ * @version 1.0
+ */
+@Name("projectTest.SimulationPhase")
+@Label("Simulation Phase")
+@Category("Simulation")
+@Description("A run of a phase of a Monte-Carlo simulation")
+final class SimulationPhaseEvent extends Event implements SimulationMetrics.PhaseEvent {
+
+	@Label("Phase")
+	String phase;
+
+	@Label("Number of Paths")
+	long numberOfPaths;
+
+	@Label("Allocated Bytes")
+	@DataAmount
+	long allocatedBytes;
+
+	@Label("Lock Wait Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long lockWaitTime;
+
+	@Override
+	public void start() {
+		begin();
+	}
+
+	@Override
+	public void record(String phase, long numberOfPaths, long allocatedBytes, long lockWaitTime) {
+		end();
+		if(shouldCommit()) {
+			this.phase			= phase;
+			this.numberOfPaths	= numberOfPaths;
+			this.allocatedBytes	= allocatedBytes;
+			this.lockWaitTime	= lockWaitTime;
+			commit();
+		}
+	}
+
+	/**
+	 * Creates the events, loaded reflectively by <code>SimulationMetrics</code>.
+	 */
+	static final class Factory implements Supplier<SimulationMetrics.PhaseEvent> {
+		@Override
+		public SimulationMetrics.PhaseEvent get() {
+			return new SimulationPhaseEvent();
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package projectTest;
+
+import java.util.Arrays;
+
+import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.stochastic.RandomVariableInterface;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * This class implements a compound Poisson process driven by a (digitally shifted) Sobol sequence.
+ *
+ * The process uses dedicated dimensions of the sequence, starting at <code>firstDimension</code>:
+ * <ul>
+ * 	<li>one dimension for the number of jumps N(T) until the last time, by inverse transform of the Poisson distribution,</li>
+ * 	<li>two dimensions for each of the first <code>numberOfQuasiRandomJumps</code> jumps of a path: the (uniform) time of the jump and its size,
+ * 	by inverse transform of the jump size distribution.</li>
+ * </ul>
+ * The further jumps of a path (which are rare for a suitable numberOfQuasiRandomJumps) are drawn from a <code>MersenneTwister64</code>.
+ * Since the jumps of a path are exchangeable, the sizes are assigned in the order of the jumps and the time indices are sorted.
+ *
+ * @author A V L
+ * @see SobolSequence
+ * @see CompoundPoissonProcess
+ * @version 1.0
+ */
+public class SobolCompoundPoissonProcess implements PointProcessInterface {
+
+	private final AbstractRandomVariableFactory randomVariableFactory = new RandomVariableFactory();
+
+	private final double						intensity;
+	private final JumpSizeDistributionInterface	jumpSizeDistribution;
+	private final TimeDiscretizationInterface	timeDiscretization;
+	private final int							numberOfPaths;
+	private final SobolSequence					sobolSequence;
+	private final int							firstDimension;
+	private final int							numberOfQuasiRandomJumps;
+	private final int							seed;
+
+	private JumpEvents		jumpEvents;
+	private final Object	jumpEventsLazyInitLock = new Object();
+
+	/**
+	 * @param intensity The intensity of the Poisson process.
+	 * @param jumpSizeDistribution The distribution of the jump-height.
+	 * @param timeDiscretization The time discretization.
+	 * @param numberOfPaths The number of paths.
+	 * @param sobolSequence The Sobol sequence, with at least firstDimension + <code>getNumberOfDimensions(numberOfQuasiRandomJumps)</code> dimensions.
+	 * @param firstDimension The first dimension of the Sobol sequence used by this process.
+	 * @param numberOfQuasiRandomJumps The number of jumps per path drawn from the Sobol sequence.
+	 * @param seed The seed of the pseudo random numbers for the further jumps.
+	 */
+	public SobolCompoundPoissonProcess(double intensity, JumpSizeDistributionInterface jumpSizeDistribution,
+			TimeDiscretizationInterface timeDiscretization, int numberOfPaths,
+			SobolSequence sobolSequence, int firstDimension, int numberOfQuasiRandomJumps, int seed) {
+		super();
+		if(firstDimension + getNumberOfDimensions(numberOfQuasiRandomJumps) > sobolSequence.getNumberOfDimensions()) {
+			throw new IllegalArgumentException("The Sobol sequence requires " + (firstDimension + getNumberOfDimensions(numberOfQuasiRandomJumps)) + " dimensions.");
+		}
+		this.intensity = intensity;
+		this.jumpSizeDistribution = jumpSizeDistribution;
+		this.timeDiscretization = timeDiscretization;
+		this.numberOfPaths = numberOfPaths;
+		this.sobolSequence = sobolSequence;
+		this.firstDimension = firstDimension;
+		this.numberOfQuasiRandomJumps = numberOfQuasiRandomJumps;
+		this.seed = seed;
+	}
+
+	/**
+	 * @param numberOfQuasiRandomJumps The number of jumps per path drawn from the Sobol sequence.
+	 * @return The number of dimensions of the Sobol sequence used by the process.
+	 */
+	public static int getNumberOfDimensions(int numberOfQuasiRandomJumps) {
+		return 1 + 2 * numberOfQuasiRandomJumps;
+	}
+
+	/**
+	 * The values are created from the jump events on every call; they are not stored.
+	 */
+	@Override
+	public RandomVariableInterface getProcess(int timeIndex) {
+		double time = timeDiscretization.getTime(timeIndex);
+		return randomVariableFactory.createRandomVariable(time, getJumpEvents().getValues(timeIndex));
+	}
+
+	/**
+	 * The increments are created from the jump events on every call; they are not stored.
+	 */
+	@Override
+	public RandomVariableInterface getProcessIncrements(int timeIndex) {
+		double time = timeDiscretization.getTime(timeIndex+1);
+		return randomVariableFactory.createRandomVariable(time, getJumpEvents().getIncrements(timeIndex));
+	}
+
+	@Override
+	public JumpEvents getJumpEvents() {
+		synchronized(jumpEventsLazyInitLock) {
+			if(jumpEvents == null) doGenerateCompoundPoissonProcess();
+		}
+		return jumpEvents;
+	}
+
+	private void doGenerateCompoundPoissonProcess() {
+		final double[] times = new double[timeDiscretization.getNumberOfTimes()];
+		for(int timeIndex=0; timeIndex<times.length; timeIndex++) times[timeIndex] = timeDiscretization.getTime(timeIndex);
+		final double firstTime	= times[0];
+		final double length		= times[times.length-1] - firstTime;
+
+		// Number of jumps per path
+		int[] numberOfJumpsOnPath = new int[numberOfPaths];
+		int maximumNumberOfJumps = 0;
+		if(intensity > 0) {
+			PoissonDistributionTable numberOfJumpsDistribution = PoissonDistributionTable.getTable(intensity * length);
+			double[] uniforms = sobolSequence.getPoints(firstDimension, numberOfPaths);
+			for(int path=0; path<numberOfPaths; path++) {
+				numberOfJumpsOnPath[path] = numberOfJumpsDistribution.getInverseDistribution(uniforms[path]);
+				maximumNumberOfJumps = Math.max(maximumNumberOfJumps, numberOfJumpsOnPath[path]);
+			}
+		}
+
+		int[] firstJumpOfPath = new int[numberOfPaths+1];
+		for(int path=0; path<numberOfPaths; path++) firstJumpOfPath[path+1] = firstJumpOfPath[path] + numberOfJumpsOnPath[path];
+		int[]		jumpTimeIndices	= new int[firstJumpOfPath[numberOfPaths]];
+		double[]	jumpSizes		= new double[firstJumpOfPath[numberOfPaths]];
+
+		// The first jumps of every path, one pair of dimensions per jump
+		for(int jump=0; jump<Math.min(maximumNumberOfJumps, numberOfQuasiRandomJumps); jump++) {
+			double[] uniformsOfTime = sobolSequence.getPoints(firstDimension + 1 + 2 * jump, numberOfPaths);
+			double[] uniformsOfSize = sobolSequence.getPoints(firstDimension + 2 + 2 * jump, numberOfPaths);
+			for(int path=0; path<numberOfPaths; path++) {
+				if(jump >= numberOfJumpsOnPath[path]) continue;
+				jumpTimeIndices[firstJumpOfPath[path] + jump]	= getTimeIndex(times, firstTime + length * uniformsOfTime[path]);
+				jumpSizes[firstJumpOfPath[path] + jump]			= jumpSizeDistribution.getJumpSize(uniformsOfSize[path]);
+			}
+		}
+
+		// The further jumps
+		if(maximumNumberOfJumps > numberOfQuasiRandomJumps) {
+			RandomEngine randomEngine = new MersenneTwister64(seed);
+			for(int path=0; path<numberOfPaths; path++) {
+				for(int jump=numberOfQuasiRandomJumps; jump<numberOfJumpsOnPath[path]; jump++) {
+					jumpTimeIndices[firstJumpOfPath[path] + jump]	= getTimeIndex(times, firstTime + length * randomEngine.nextDouble());
+					jumpSizes[firstJumpOfPath[path] + jump]			= jumpSizeDistribution.getJumpSize(randomEngine.nextDouble());
+				}
+			}
+		}
+
+		for(int path=0; path<numberOfPaths; path++) {
+			if(numberOfJumpsOnPath[path] > 1) Arrays.sort(jumpTimeIndices, firstJumpOfPath[path], firstJumpOfPath[path+1]);
+		}
+
+		jumpEvents = new JumpEvents(timeDiscretization.getNumberOfTimeSteps(), firstJumpOfPath, jumpTimeIndices, jumpSizes);
+	}
+
+	/**
+	 * @return The index i of the time step with \( t_{i} &lt; time \leq t_{i+1} \).
+	 */
+	private static int getTimeIndex(double[] times, double time) {
+		int position = Arrays.binarySearch(times, 1, times.length, time);
+		int timeIndex = position >= 0 ? position : -position-1;
+		return Math.min(timeIndex, times.length-1)-1;
+	}
+
+	/**
+	 * @return The distribution of the jump-height.
+	 */
+	public JumpSizeDistributionInterface getJumpSizeDistribution() {
+		return jumpSizeDistribution;
+	}
+}
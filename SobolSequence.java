@@ -0,0 +1,181 @@
+package projectTest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
+
+/**
+ * This class implements a Sobol sequence with a random digital shift.
+ *
+ * Dimension 0 is the van der Corput sequence in base 2. Dimension d &ge; 1 uses the primitive polynomial and the initial
+ * direction numbers of dimension d+1 of the table new-joe-kuo-6.21201 of S. Joe and F. Y. Kuo, "Constructing Sobol sequences
+ * with better two-dimensional projections" (2008), in the version with 1000 dimensions shipped with commons-math3
+ * (see <code>org.apache.commons.math3.random.SobolSequenceGenerator</code>), hence the number of dimensions is at most 1000.
+ *
+ * The points are randomized by a digital shift: every coordinate is XORed with a random 32 bit integer of its dimension,
+ * drawn from the given seed. The shifted points are uniform on (0,1) and different seeds give independent replicates of the sequence,
+ * from which the error of the quasi Monte-Carlo estimator can be estimated.
+ *
+ * The coordinates are generated dimension by dimension in Gray code order, i.e., <code>getPoints(dimension, numberOfPoints)</code>
+ * returns the given coordinate of the first numberOfPoints points.
+ *
+ * @author A V L
+ * @see BrownianBridgeSobolBrownianMotion
+ * @version 1.0
+ */
+public class SobolSequence {
+
+	private static final int		NUMBER_OF_BITS			= 32;
+	private static final String		RESOURCE_OF_DIRECTION_NUMBERS	= "/assets/org/apache/commons/math3/random/new-joe-kuo-6.1000";
+
+	/**
+	 * The maximum number of dimensions, given by the table of direction numbers.
+	 */
+	public static final int MAX_NUMBER_OF_DIMENSIONS = 1000;
+
+	/*
+	 * The direction numbers of the table, read on the first use and shared by all instances.
+	 */
+	private static long[][] directionNumbersOfDimension;
+
+	private final int		numberOfDimensions;
+	private final int		seed;
+	private final long[]	digitalShift;
+
+	/**
+	 * @param numberOfDimensions The number of dimensions.
+	 * @param seed The seed of the random digital shift.
+	 */
+	public SobolSequence(int numberOfDimensions, int seed) {
+		super();
+		if(numberOfDimensions < 1 || numberOfDimensions > MAX_NUMBER_OF_DIMENSIONS) throw new IllegalArgumentException("Number of dimensions " + numberOfDimensions + " is not in [1," + MAX_NUMBER_OF_DIMENSIONS + "].");
+		this.numberOfDimensions = numberOfDimensions;
+		this.seed = seed;
+
+		RandomEngine randomEngine = new MersenneTwister64(seed);
+		this.digitalShift = new long[numberOfDimensions];
+		for(int dimension=0; dimension<numberOfDimensions; dimension++) digitalShift[dimension] = randomEngine.nextInt() & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Returns the given coordinate of the first points of the sequence.
+	 *
+	 * @param dimension The dimension (coordinate), 0 &le; dimension &lt; numberOfDimensions.
+	 * @param numberOfPoints The number of points.
+	 * @return The array of length numberOfPoints with the coordinate of the points, in (0,1).
+	 */
+	public double[] getPoints(int dimension, int numberOfPoints) {
+		if(dimension < 0 || dimension >= numberOfDimensions) throw new IllegalArgumentException("Dimension " + dimension + " is not in [0," + numberOfDimensions + ").");
+
+		final long[]	directionNumbers	= getDirectionNumbers(dimension);
+		final long		shift				= digitalShift[dimension];
+		final double	scale				= 1.0 / (1L << NUMBER_OF_BITS);
+
+		double[] points = new double[numberOfPoints];
+		long point = 0;
+		for(int index=0; index<numberOfPoints; index++) {
+			// Shift by 0.5 such that the point is in the open interval (0,1)
+			points[index] = ((point ^ shift) + 0.5) * scale;
+			point ^= directionNumbers[Long.numberOfTrailingZeros(index+1)];
+		}
+		return points;
+	}
+
+	/**
+	 * @return The number of dimensions.
+	 */
+	public int getNumberOfDimensions() {
+		return numberOfDimensions;
+	}
+
+	/**
+	 * @return The seed of the random digital shift.
+	 */
+	public int getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns the same sequence with a different digital shift.
+	 *
+	 * @param seed The seed of the random digital shift.
+	 * @return The sequence with the digital shift of the given seed.
+	 */
+	public SobolSequence getCloneWithModifiedSeed(int seed) {
+		return new SobolSequence(numberOfDimensions, seed);
+	}
+
+	/**
+	 * Returns the direction numbers v<sub>k</sub> = m<sub>k</sub> 2<sup>32-k</sup>, k = 1,...,32, of the given dimension.
+	 */
+	private static long[] getDirectionNumbers(int dimension) {
+		synchronized(SobolSequence.class) {
+			if(directionNumbersOfDimension == null) directionNumbersOfDimension = readDirectionNumbers();
+			return directionNumbersOfDimension[dimension];
+		}
+	}
+
+	/**
+	 * Reads the table of Joe and Kuo, one line "d s a m_1 ... m_s" per dimension d = 2,...,1000, and calculates the direction numbers.
+	 */
+	private static long[][] readDirectionNumbers() {
+		long[][] directionNumbers = new long[MAX_NUMBER_OF_DIMENSIONS][];
+		directionNumbers[0] = calculateDirectionNumbers(0, 0, new long[0]);
+
+		InputStream table = SobolSequence.class.getResourceAsStream(RESOURCE_OF_DIRECTION_NUMBERS);
+		if(table == null) throw new IllegalStateException("The table of direction numbers " + RESOURCE_OF_DIRECTION_NUMBERS + " was not found on the class path (commons-math3).");
+
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(table, StandardCharsets.US_ASCII))) {
+			// Skip the header
+			reader.readLine();
+
+			int dimension = 1;
+			for(String line = reader.readLine(); line != null && dimension < MAX_NUMBER_OF_DIMENSIONS; line = reader.readLine()) {
+				String[] fields = line.trim().split("\\s+");
+				if(fields.length < 3) continue;
+
+				final int	degree		= Integer.parseInt(fields[1]);
+				final int	coefficients	= Integer.parseInt(fields[2]);
+				long[] initialDirectionNumbers = new long[degree];
+				for(int k=0; k<degree; k++) initialDirectionNumbers[k] = Long.parseLong(fields[3+k]);
+
+				directionNumbers[dimension++] = calculateDirectionNumbers(degree, coefficients, initialDirectionNumbers);
+			}
+			if(dimension < MAX_NUMBER_OF_DIMENSIONS) throw new IllegalStateException("The table of direction numbers has only " + dimension + " dimensions.");
+		}
+		catch(IOException e) {
+			throw new IllegalStateException("The table of direction numbers could not be read.", e);
+		}
+		return directionNumbers;
+	}
+
+	/**
+	 * Calculates the direction numbers for the primitive polynomial of the given degree (0 for the van der Corput sequence).
+	 *
+	 * @param degree The degree s of the polynomial.
+	 * @param coefficients The inner coefficients a<sub>1</sub>,...,a<sub>s-1</sub> of the polynomial, a<sub>1</sub> being the most significant bit.
+	 * @param initialDirectionNumbers The initial direction numbers m<sub>1</sub>,...,m<sub>s</sub>.
+	 */
+	private static long[] calculateDirectionNumbers(int degree, int coefficients, long[] initialDirectionNumbers) {
+		long[] directionNumbers = new long[NUMBER_OF_BITS];
+		if(degree == 0) {
+			for(int k=0; k<NUMBER_OF_BITS; k++) directionNumbers[k] = 1L << (NUMBER_OF_BITS-1-k);
+			return directionNumbers;
+		}
+
+		for(int k=1; k<=Math.min(degree, NUMBER_OF_BITS); k++) directionNumbers[k-1] = initialDirectionNumbers[k-1] << (NUMBER_OF_BITS-k);
+		for(int k=degree+1; k<=NUMBER_OF_BITS; k++) {
+			long value = directionNumbers[k-1-degree] ^ (directionNumbers[k-1-degree] >>> degree);
+			for(int j=1; j<degree; j++) {
+				if(((coefficients >>> (degree-1-j)) & 1) != 0) value ^= directionNumbers[k-1-j];
+			}
+			directionNumbers[k-1] = value;
+		}
+		return directionNumbers;
+	}
+}
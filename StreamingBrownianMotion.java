@@ -0,0 +1,144 @@
+package projectTest;
+
+import net.finmath.functions.NormalDistribution;
+import net.finmath.montecarlo.AbstractRandomVariableFactory;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.montecarlo.RandomVariableFactory;
+import net.finmath.stochastic.RandomVariableInterface;
+import net.finmath.time.TimeDiscretizationInterface;
+import cern.jet.random.engine.RandomEngine;
+
+/**
+ * This class implements a Brownian motion which generates its increments time step by time step instead of storing all of them.
+ *
+ * The increments of a time step are drawn from the random number streams of the blocks of paths (see <code>PathBlocks</code>),
+ * seeded from the seed of the Brownian motion and the time index. Hence every time step can be generated on its own, in any order,
+ * and the paths do not depend on the order of the requests or on parallel generation.
+ * Only the increments of the last requested time step are kept, such that the memory is proportional to the number of paths
+ * (times the number of factors) instead of the number of paths times the number of time steps.
+ * A forward pass over the time discretization (e.g. the Euler scheme in streaming mode) generates every time step once,
+ * a request for an earlier time step generates it again.
+ *
+ * The paths differ from those of <code>net.finmath.montecarlo.BrownianMotion</code> with the same seed.
+ *
+ * @author A V L
+ * @see MertonJumpDiffusionProcessEulerScheme
+ * @see PathBlocks
+ * @version 1.0
+ */
+public class StreamingBrownianMotion implements BrownianMotionInterface {
+
+	private final TimeDiscretizationInterface	timeDiscretization;
+	private final int							numberOfFactors;
+	private final int							numberOfPaths;
+	private final int							seed;
+	private final boolean						isParallel;
+
+	private final AbstractRandomVariableFactory randomVariableFactory = new RandomVariableFactory();
+
+	private int							lastTimeIndex = -1;
+	private RandomVariableInterface[]	lastBrownianIncrements;
+
+	/**
+	 * @param timeDiscretization The time discretization of the Brownian motion.
+	 * @param numberOfFactors The number of factors.
+	 * @param numberOfPaths The number of paths.
+	 * @param seed The seed of the random number streams.
+	 */
+	public StreamingBrownianMotion(TimeDiscretizationInterface timeDiscretization, int numberOfFactors, int numberOfPaths, int seed) {
+		this(timeDiscretization, numberOfFactors, numberOfPaths, seed, false);
+	}
+
+	/**
+	 * @param timeDiscretization The time discretization of the Brownian motion.
+	 * @param numberOfFactors The number of factors.
+	 * @param numberOfPaths The number of paths.
+	 * @param seed The seed of the random number streams.
+	 * @param isParallel If true, the blocks of paths of a time step are generated in parallel (the paths do not depend on this flag).
+	 */
+	public StreamingBrownianMotion(TimeDiscretizationInterface timeDiscretization, int numberOfFactors, int numberOfPaths, int seed, boolean isParallel) {
+		super();
+		this.timeDiscretization = timeDiscretization;
+		this.numberOfFactors = numberOfFactors;
+		this.numberOfPaths = numberOfPaths;
+		this.seed = seed;
+		this.isParallel = isParallel;
+	}
+
+	/**
+	 * The increments of the last requested time step are kept, other time steps are generated on the call.
+	 */
+	@Override
+	public synchronized RandomVariableInterface getBrownianIncrement(int timeIndex, int factor) {
+		if(timeIndex != lastTimeIndex) {
+			lastBrownianIncrements	= generateBrownianIncrements(timeIndex);
+			lastTimeIndex			= timeIndex;
+		}
+		return lastBrownianIncrements[factor];
+	}
+
+	@Override
+	public RandomVariableInterface getIncrement(int timeIndex, int factor) {
+		return getBrownianIncrement(timeIndex, factor);
+	}
+
+	private RandomVariableInterface[] generateBrownianIncrements(int timeIndex) {
+		final double sqrtOfTimeStep = Math.sqrt(timeDiscretization.getTimeStep(timeIndex));
+		final double[][] increments = new double[numberOfFactors][numberOfPaths];
+
+		// The blocks of paths of a time step draw from the streams seeded from the seed of the time step
+		PathBlocks.generate(numberOfPaths, PathBlocks.getSeedForBlock(seed, timeIndex), isParallel, new PathBlocks.BlockGenerator() {
+			@Override
+			public void generate(int blockIndex, int firstPath, int lastPath, RandomEngine randomEngine) {
+				for(int path = firstPath; path < lastPath; path++) {
+					for(int factor = 0; factor < numberOfFactors; factor++) {
+						increments[factor][path] = NormalDistribution.inverseCumulativeDistribution(randomEngine.nextDouble()) * sqrtOfTimeStep;
+					}
+				}
+			}
+		});
+
+		RandomVariableInterface[] brownianIncrements = new RandomVariableInterface[numberOfFactors];
+		for(int factor = 0; factor < numberOfFactors; factor++) {
+			brownianIncrements[factor] = randomVariableFactory.createRandomVariable(timeDiscretization.getTime(timeIndex+1), increments[factor]);
+		}
+		return brownianIncrements;
+	}
+
+	/**
+	 * @return The seed of the random number streams.
+	 */
+	public int getSeed() {
+		return seed;
+	}
+
+	@Override
+	public TimeDiscretizationInterface getTimeDiscretization() {
+		return timeDiscretization;
+	}
+
+	@Override
+	public int getNumberOfFactors() {
+		return numberOfFactors;
+	}
+
+	@Override
+	public int getNumberOfPaths() {
+		return numberOfPaths;
+	}
+
+	@Override
+	public RandomVariableInterface getRandomVariableForConstant(double value) {
+		return randomVariableFactory.createRandomVariable(value);
+	}
+
+	@Override
+	public BrownianMotionInterface getCloneWithModifiedSeed(int seed) {
+		return new StreamingBrownianMotion(timeDiscretization, numberOfFactors, numberOfPaths, seed, isParallel);
+	}
+
+	@Override
+	public BrownianMotionInterface getCloneWithModifiedTimeDiscretization(TimeDiscretizationInterface newTimeDiscretization) {
+		return new StreamingBrownianMotion(newTimeDiscretization, numberOfFactors, numberOfPaths, seed, isParallel);
+	}
+}
@@ -0,0 +1,68 @@
+package projectTest.benchmarks;
+
+import net.finmath.montecarlo.BrownianMotion;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationInterface;
+import projectTest.CompoundPoissonProcess;
+import projectTest.MonteCarloMertonJumpDiffusionModel;
+
+/**
+ * The model parameters of the benchmarks (those of <code>Exercise06</code>) and the construction of their random drivers.
+ *
+ * @author A V L
+ * @version 1.0
+ */
+final class BenchmarkModels {
+
+	static final double INITIAL_VALUE	= 100.0;
+	static final double RISK_FREE_RATE	= 0.05;
+	static final double VOLATILITY		= 0.3;
+	static final double JUMP_VARIANCE	= 0.15;
+	static final double JUMP_MEAN		= -0.5 * JUMP_VARIANCE * JUMP_VARIANCE;
+
+	static final double MATURITY		= 2.0;
+	static final double STRIKE			= 100.0;
+
+	static final int SEED = 3141;
+
+	private BenchmarkModels() {
+	}
+
+	static TimeDiscretizationInterface createTimeDiscretization(int numberOfTimeSteps) {
+		return new TimeDiscretization(0.0, numberOfTimeSteps, MATURITY / numberOfTimeSteps);
+	}
+
+	/**
+	 * @return A Brownian motion with all increments generated.
+	 */
+	static BrownianMotionInterface createBrownianMotion(TimeDiscretizationInterface timeDiscretization, int numberOfPaths) {
+		BrownianMotionInterface brownianMotion = new BrownianMotion(timeDiscretization, 1, numberOfPaths, SEED);
+		brownianMotion.getBrownianIncrement(0, 0);
+		return brownianMotion;
+	}
+
+	/**
+	 * @return A compound Poisson process with all jumps generated.
+	 */
+	static CompoundPoissonProcess createCompoundPoissonProcess(TimeDiscretizationInterface timeDiscretization, int numberOfPaths, double intensity) {
+		CompoundPoissonProcess compoundPoissonProcess = new CompoundPoissonProcess(intensity, JUMP_MEAN, JUMP_VARIANCE, timeDiscretization, numberOfPaths, SEED + 300, true /* isParallel */);
+		compoundPoissonProcess.getJumpEvents();
+		return compoundPoissonProcess;
+	}
+
+	/**
+	 * @return A model with the paths generated until maturity.
+	 */
+	static MonteCarloMertonJumpDiffusionModel createModel(TimeDiscretizationInterface timeDiscretization, int numberOfPaths, double intensity) {
+		MonteCarloMertonJumpDiffusionModel model = new MonteCarloMertonJumpDiffusionModel(timeDiscretization, numberOfPaths,
+				INITIAL_VALUE, RISK_FREE_RATE, VOLATILITY, intensity, JUMP_MEAN, JUMP_VARIANCE);
+		try {
+			model.getAssetValue(MATURITY, 0);
+		}
+		catch(Exception e) {
+			throw new IllegalStateException("Generation of the paths failed.", e);
+		}
+		return model;
+	}
+}
@@ -0,0 +1,33 @@
+package projectTest.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, such that every result reports the allocation rate
+ * (<code>gc.alloc.rate</code> and <code>gc.alloc.rate.norm</code>, the bytes allocated per operation) next to the time.
+ *
+ * The arguments are the command line options of JMH, e.g. a benchmark name pattern or <code>-p numberOfPaths=100000</code>
+ * to restrict the parameters; without a pattern all benchmarks of this package are run.
+ *
+ * @author A V L
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+		OptionsBuilder optionsBuilder = new OptionsBuilder();
+		optionsBuilder.parent(commandLineOptions);
+		if(commandLineOptions.getIncludes().isEmpty()) optionsBuilder.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+		Options options = optionsBuilder.addProfiler(GCProfiler.class).build();
+
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,108 @@
+package projectTest.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.BrownianMotionInterface;
+import net.finmath.stochastic.RandomVariableInterface;
+import net.finmath.time.TimeDiscretizationInterface;
+import projectTest.CompoundPoissonProcess;
+import projectTest.MertonJumpDiffusionProcessEulerScheme;
+import projectTest.MonteCarloMertonJumpDiffusionModel;
+import projectTest.StreamingBrownianMotion;
+
+/**
+ * Benchmarks <code>MertonJumpDiffusionProcessEulerScheme.doPrecalculateProcess</code>, i.e., the evolution of the paths
+ * on Brownian increments and jumps which have been generated in the setup (storing every time index in double or single precision,
+ * on or off the heap, or, in streaming mode, the maturity only). The benchmark <code>eulerSchemeStreamingBrownianMotion</code>
+ * generates the Brownian increments within the measurement, time step by time step, such that its memory does not grow with the
+ * number of time steps. The off-heap benchmark does the same, such that it keeps neither the increments nor the paths on the heap.
+ *
+ * For 100000 paths and 2000 time steps the Brownian increments and the paths take 1.6 GB each, hence the heap of the fork is 8 GB.
+ *
+ * @author A V L
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class EulerSchemeBenchmark {
+
+	@Param({ "10000", "100000" })
+	public int numberOfPaths;
+
+	@Param({ "100", "2000" })
+	public int numberOfTimeSteps;
+
+	@Param({ "0.4", "5.0" })
+	public double intensity;
+
+	private BrownianMotionInterface	brownianMotion;
+	private CompoundPoissonProcess	compoundPoissonProcess;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		TimeDiscretizationInterface timeDiscretization = BenchmarkModels.createTimeDiscretization(numberOfTimeSteps);
+		brownianMotion			= BenchmarkModels.createBrownianMotion(timeDiscretization, numberOfPaths);
+		compoundPoissonProcess	= BenchmarkModels.createCompoundPoissonProcess(timeDiscretization, numberOfPaths, intensity);
+	}
+
+	@Benchmark
+	public RandomVariableInterface eulerScheme() throws CalculationException {
+		return getValueAtMaturity(new MertonJumpDiffusionProcessEulerScheme(brownianMotion, compoundPoissonProcess));
+	}
+
+	@Benchmark
+	public RandomVariableInterface eulerSchemeSinglePrecision() throws CalculationException {
+		return getValueAtMaturity(new MertonJumpDiffusionProcessEulerScheme(brownianMotion, compoundPoissonProcess, null, false, true /* isSinglePrecision */));
+	}
+
+	@Benchmark
+	public RandomVariableInterface eulerSchemeOffHeap() throws CalculationException {
+		// The Brownian increments are generated time step by time step, such that neither they nor the paths are held on the heap
+		BrownianMotionInterface streamingBrownianMotion = new StreamingBrownianMotion(brownianMotion.getTimeDiscretization(), 1 /* numberOfFactors */,
+				numberOfPaths, BenchmarkModels.SEED, true /* isParallel */);
+		MertonJumpDiffusionProcessEulerScheme process = new MertonJumpDiffusionProcessEulerScheme(streamingBrownianMotion, compoundPoissonProcess, null, false, false, true /* isOffHeap */);
+		try {
+			return getValueAtMaturity(process);
+		}
+		finally {
+			process.free();
+		}
+	}
+
+	@Benchmark
+	public RandomVariableInterface eulerSchemeStreaming() throws CalculationException {
+		return getValueAtMaturity(new MertonJumpDiffusionProcessEulerScheme(brownianMotion, compoundPoissonProcess, new int[] { numberOfTimeSteps }));
+	}
+
+	@Benchmark
+	public RandomVariableInterface eulerSchemeStreamingBrownianMotion() throws CalculationException {
+		BrownianMotionInterface streamingBrownianMotion = new StreamingBrownianMotion(brownianMotion.getTimeDiscretization(), 1 /* numberOfFactors */,
+				numberOfPaths, BenchmarkModels.SEED, true /* isParallel */);
+		return getValueAtMaturity(new MertonJumpDiffusionProcessEulerScheme(streamingBrownianMotion, compoundPoissonProcess, new int[] { numberOfTimeSteps }));
+	}
+
+	private RandomVariableInterface getValueAtMaturity(MertonJumpDiffusionProcessEulerScheme process) throws CalculationException {
+		MonteCarloMertonJumpDiffusionModel model = new MonteCarloMertonJumpDiffusionModel(
+				BenchmarkModels.INITIAL_VALUE, BenchmarkModels.RISK_FREE_RATE, BenchmarkModels.VOLATILITY, process,
+				intensity, BenchmarkModels.JUMP_MEAN, BenchmarkModels.JUMP_VARIANCE);
+		return model.getAssetValue(numberOfTimeSteps, 0);
+	}
+}
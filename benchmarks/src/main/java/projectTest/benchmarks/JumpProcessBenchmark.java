@@ -0,0 +1,67 @@
+package projectTest.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.finmath.time.TimeDiscretizationInterface;
+import projectTest.CompoundPoissonProcess;
+import projectTest.JumpEvents;
+import projectTest.PoissonProcess;
+
+/**
+ * Benchmarks the generation of the paths of <code>PoissonProcess</code> and <code>CompoundPoissonProcess</code>
+ * (the generation runs on the first request of the jump events of a new process).
+ *
+ * @author A V L
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class JumpProcessBenchmark {
+
+	@Param({ "10000", "100000" })
+	public int numberOfPaths;
+
+	@Param({ "100", "2000" })
+	public int numberOfTimeSteps;
+
+	@Param({ "0.4", "5.0" })
+	public double intensity;
+
+	@Param({ "false", "true" })
+	public boolean isParallel;
+
+	private TimeDiscretizationInterface timeDiscretization;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		timeDiscretization = BenchmarkModels.createTimeDiscretization(numberOfTimeSteps);
+	}
+
+	@Benchmark
+	public JumpEvents poissonProcess() {
+		return new PoissonProcess(intensity, timeDiscretization, numberOfPaths, BenchmarkModels.SEED, isParallel).getJumpEvents();
+	}
+
+	@Benchmark
+	public JumpEvents compoundPoissonProcess() {
+		return new CompoundPoissonProcess(intensity, BenchmarkModels.JUMP_MEAN, BenchmarkModels.JUMP_VARIANCE,
+				timeDiscretization, numberOfPaths, BenchmarkModels.SEED + 300, isParallel).getJumpEvents();
+	}
+}
@@ -0,0 +1,74 @@
+package projectTest.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
+import net.finmath.stochastic.RandomVariableInterface;
+import projectTest.BlackScholesHedgedPortfolioWithModifiedTimeDiscretization;
+import projectTest.MonteCarloMertonJumpDiffusionModel;
+
+/**
+ * Benchmarks the valuation of a European option and the full sweep of the delta hedge of
+ * <code>BlackScholesHedgedPortfolioWithModifiedTimeDiscretization</code> (rebalancing on every time step)
+ * on a <code>MonteCarloMertonJumpDiffusionModel</code> whose paths have been generated in the setup.
+ *
+ * For 100000 paths and 2000 time steps the Brownian increments and the paths take 1.6 GB each, hence the heap of the fork is 8 GB.
+ *
+ * @author A V L
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ValuationBenchmark {
+
+	@Param({ "10000", "100000" })
+	public int numberOfPaths;
+
+	@Param({ "100", "2000" })
+	public int numberOfTimeSteps;
+
+	@Param({ "0.4", "5.0" })
+	public double intensity;
+
+	private MonteCarloMertonJumpDiffusionModel model;
+
+	private EuropeanOption europeanOption;
+	private BlackScholesHedgedPortfolioWithModifiedTimeDiscretization hedgedPortfolio;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		model = BenchmarkModels.createModel(BenchmarkModels.createTimeDiscretization(numberOfTimeSteps), numberOfPaths, intensity);
+
+		europeanOption = new EuropeanOption(BenchmarkModels.MATURITY, BenchmarkModels.STRIKE);
+		hedgedPortfolio = new BlackScholesHedgedPortfolioWithModifiedTimeDiscretization(BenchmarkModels.MATURITY, BenchmarkModels.STRIKE,
+				BenchmarkModels.RISK_FREE_RATE, BenchmarkModels.VOLATILITY, numberOfTimeSteps);
+	}
+
+	@Benchmark
+	public RandomVariableInterface europeanOption() throws CalculationException {
+		return europeanOption.getValue(0.0, model);
+	}
+
+	@Benchmark
+	public RandomVariableInterface hedgedPortfolio() throws CalculationException {
+		return hedgedPortfolio.getValue(BenchmarkModels.MATURITY, model);
+	}
+}
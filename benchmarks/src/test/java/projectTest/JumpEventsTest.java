@@ -0,0 +1,263 @@
+package projectTest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * Tests the sparse jump events against a dense matrix of the same jumps: the row and the column views, the running sums
+ * of <code>PointProcessValues</code>, the transformations (concatenation, coarse time discretization, thinning, merging)
+ * and the round trip through a scenario file.
+ *
+ * @author A V L
+ * @see JumpEvents
+ * @version 1.0
+ */
+public class JumpEventsTest {
+
+	private static final int NUMBER_OF_PATHS		= 200;
+	private static final int NUMBER_OF_TIME_STEPS	= 60;
+
+	private static final double TOLERANCE = 1E-12;
+
+	/**
+	 * The jumps of a path in the order of time, with several jumps in the same time step on some paths.
+	 */
+	private static final class DenseJumps {
+		final int[][]		timeIndices	= new int[NUMBER_OF_PATHS][];
+		final double[][]	sizes		= new double[NUMBER_OF_PATHS][];
+
+		DenseJumps(long seed) {
+			Random random = new Random(seed);
+			for(int path=0; path<NUMBER_OF_PATHS; path++) {
+				int numberOfJumps = random.nextInt(5);
+				timeIndices[path]	= new int[numberOfJumps];
+				sizes[path]			= new double[numberOfJumps];
+				for(int jump=0; jump<numberOfJumps; jump++) {
+					// Non-decreasing time indices, a repeated time index is a second jump in the same time step
+					int previousTimeIndex = jump > 0 ? timeIndices[path][jump-1] : 0;
+					timeIndices[path][jump]	= previousTimeIndex + random.nextInt(Math.max(1, (NUMBER_OF_TIME_STEPS - previousTimeIndex) / 2));
+					sizes[path][jump]		= random.nextGaussian();
+				}
+			}
+		}
+
+		JumpEvents build() {
+			JumpEvents.Builder builder = new JumpEvents.Builder(NUMBER_OF_TIME_STEPS);
+			for(int path=0; path<NUMBER_OF_PATHS; path++) {
+				for(int jump=0; jump<timeIndices[path].length; jump++) builder.addJump(timeIndices[path][jump], sizes[path][jump]);
+				builder.endPath();
+			}
+			return builder.build();
+		}
+
+		double[][] getIncrements() {
+			double[][] increments = new double[NUMBER_OF_TIME_STEPS][NUMBER_OF_PATHS];
+			for(int path=0; path<NUMBER_OF_PATHS; path++) {
+				for(int jump=0; jump<timeIndices[path].length; jump++) increments[timeIndices[path][jump]][path] += sizes[path][jump];
+			}
+			return increments;
+		}
+
+		double[][] getValues() {
+			double[][] increments = getIncrements();
+			double[][] values = new double[NUMBER_OF_TIME_STEPS+1][NUMBER_OF_PATHS];
+			for(int timeIndex=1; timeIndex<=NUMBER_OF_TIME_STEPS; timeIndex++) {
+				for(int path=0; path<NUMBER_OF_PATHS; path++) values[timeIndex][path] = values[timeIndex-1][path] + increments[timeIndex-1][path];
+			}
+			return values;
+		}
+	}
+
+	@Test
+	public void testRowViewOfBuilder() {
+		DenseJumps denseJumps = new DenseJumps(3141);
+		JumpEvents jumpEvents = denseJumps.build();
+
+		assertEquals(NUMBER_OF_PATHS, jumpEvents.getNumberOfPaths());
+		assertEquals(NUMBER_OF_TIME_STEPS, jumpEvents.getNumberOfTimeSteps());
+		int numberOfJumps = 0;
+		for(int path=0; path<NUMBER_OF_PATHS; path++) {
+			assertEquals(denseJumps.timeIndices[path].length, jumpEvents.getNumberOfJumpsOnPath(path));
+			for(int jump=0; jump<jumpEvents.getNumberOfJumpsOnPath(path); jump++) {
+				assertEquals(denseJumps.timeIndices[path][jump], jumpEvents.getJumpTimeIndex(path, jump));
+				assertEquals(denseJumps.sizes[path][jump], jumpEvents.getJumpSize(path, jump), 0.0);
+			}
+			numberOfJumps += denseJumps.timeIndices[path].length;
+		}
+		assertEquals(numberOfJumps, jumpEvents.getNumberOfJumps());
+	}
+
+	@Test
+	public void testColumnViewAgainstDenseIncrements() {
+		DenseJumps denseJumps = new DenseJumps(3141);
+		JumpEvents jumpEvents = denseJumps.build();
+		double[][] increments = denseJumps.getIncrements();
+
+		int numberOfJumps = 0;
+		for(int timeIndex=0; timeIndex<NUMBER_OF_TIME_STEPS; timeIndex++) {
+			assertArrayEquals("Increments of time step " + timeIndex, increments[timeIndex], jumpEvents.getIncrements(timeIndex), TOLERANCE);
+
+			JumpEvents.TimeStep jumpsInTimeStep = jumpEvents.getJumpsInTimeStep(timeIndex);
+			assertEquals(jumpEvents.getNumberOfJumpsInTimeStep(timeIndex), jumpsInTimeStep.getNumberOfJumps());
+			double[] increment = new double[NUMBER_OF_PATHS];
+			for(int jump=0; jump<jumpsInTimeStep.getNumberOfJumps(); jump++) {
+				assertEquals(jumpEvents.getPathOfJumpInTimeStep(timeIndex, jump), jumpsInTimeStep.getPath(jump));
+				assertEquals(jumpEvents.getSizeOfJumpInTimeStep(timeIndex, jump), jumpsInTimeStep.getSize(jump), 0.0);
+				increment[jumpsInTimeStep.getPath(jump)] += jumpsInTimeStep.getSize(jump);
+			}
+			assertArrayEquals("Sparse column of time step " + timeIndex, increments[timeIndex], increment, TOLERANCE);
+
+			double[] addedIncrement = new double[NUMBER_OF_PATHS];
+			jumpsInTimeStep.addTo(addedIncrement);
+			assertArrayEquals(increments[timeIndex], addedIncrement, TOLERANCE);
+
+			numberOfJumps += jumpsInTimeStep.getNumberOfJumps();
+		}
+		assertEquals(jumpEvents.getNumberOfJumps(), numberOfJumps);
+	}
+
+	@Test
+	public void testRunningValuesInAnyOrder() {
+		DenseJumps denseJumps = new DenseJumps(3141);
+		JumpEvents jumpEvents = denseJumps.build();
+		double[][] values = denseJumps.getValues();
+
+		TimeDiscretizationInterface timeDiscretization = new TimeDiscretization(0.0, NUMBER_OF_TIME_STEPS, 1.0 / NUMBER_OF_TIME_STEPS);
+		PointProcessInterface pointProcess = new JumpEventsPointProcess(jumpEvents, timeDiscretization);
+
+		// Forward, repeated, backward and random requests
+		Random random = new Random(17);
+		int[] timeIndices = new int[3 * (NUMBER_OF_TIME_STEPS+1)];
+		for(int index=0; index<=NUMBER_OF_TIME_STEPS; index++) {
+			timeIndices[index]								= index;
+			timeIndices[NUMBER_OF_TIME_STEPS+1 + index]		= NUMBER_OF_TIME_STEPS - index;
+			timeIndices[2*(NUMBER_OF_TIME_STEPS+1) + index]	= random.nextInt(NUMBER_OF_TIME_STEPS+1);
+		}
+		for(int timeIndex : timeIndices) {
+			assertArrayEquals("Values at time index " + timeIndex, values[timeIndex], jumpEvents.getValues(timeIndex), TOLERANCE);
+			assertArrayEquals("Running values at time index " + timeIndex, values[timeIndex], pointProcess.getProcess(timeIndex).getRealizations(), TOLERANCE);
+		}
+	}
+
+	@Test
+	public void testConcatenationOfBlocks() {
+		DenseJumps denseJumps = new DenseJumps(3141);
+		JumpEvents jumpEvents = denseJumps.build();
+
+		// Split into blocks of 64 paths (the last one shorter) and concatenate them again
+		int numberOfBlocks = (NUMBER_OF_PATHS + 63) / 64;
+		JumpEvents[] blocks = new JumpEvents[numberOfBlocks];
+		for(int block=0; block<numberOfBlocks; block++) {
+			JumpEvents.Builder builder = new JumpEvents.Builder(NUMBER_OF_TIME_STEPS);
+			for(int path=64*block; path<Math.min(64*(block+1), NUMBER_OF_PATHS); path++) {
+				for(int jump=0; jump<jumpEvents.getNumberOfJumpsOnPath(path); jump++) builder.addJump(jumpEvents.getJumpTimeIndex(path, jump), jumpEvents.getJumpSize(path, jump));
+				builder.endPath();
+			}
+			blocks[block] = builder.build();
+		}
+		assertSameJumps(jumpEvents, JumpEvents.concatenate(blocks));
+	}
+
+	@Test
+	public void testCoarseTimeDiscretization() {
+		DenseJumps denseJumps = new DenseJumps(3141);
+		JumpEvents jumpEvents = denseJumps.build();
+		double[][] increments = denseJumps.getIncrements();
+
+		final int numberOfTimeStepsPerCoarseTimeStep = 4;
+		JumpEvents coarseJumpEvents = jumpEvents.getJumpEventsOnCoarseTimeDiscretization(numberOfTimeStepsPerCoarseTimeStep);
+		assertEquals(NUMBER_OF_TIME_STEPS / numberOfTimeStepsPerCoarseTimeStep, coarseJumpEvents.getNumberOfTimeSteps());
+		assertEquals(jumpEvents.getNumberOfJumps(), coarseJumpEvents.getNumberOfJumps());
+		for(int coarseTimeIndex=0; coarseTimeIndex<coarseJumpEvents.getNumberOfTimeSteps(); coarseTimeIndex++) {
+			double[] coarseIncrement = new double[NUMBER_OF_PATHS];
+			for(int timeIndex=coarseTimeIndex*numberOfTimeStepsPerCoarseTimeStep; timeIndex<(coarseTimeIndex+1)*numberOfTimeStepsPerCoarseTimeStep; timeIndex++) {
+				for(int path=0; path<NUMBER_OF_PATHS; path++) coarseIncrement[path] += increments[timeIndex][path];
+			}
+			assertArrayEquals(coarseIncrement, coarseJumpEvents.getIncrements(coarseTimeIndex), TOLERANCE);
+		}
+		assertArrayEquals(jumpEvents.getValues(NUMBER_OF_TIME_STEPS), coarseJumpEvents.getValues(coarseJumpEvents.getNumberOfTimeSteps()), TOLERANCE);
+	}
+
+	@Test
+	public void testThinningAndMerging() {
+		JumpEvents jumpEvents		= new DenseJumps(3141).build();
+		JumpEvents otherJumpEvents	= new DenseJumps(2718).build();
+
+		// Thinning with probability 1 keeps all jumps, with probability 0 none
+		double[] uniforms = new double[jumpEvents.getNumberOfJumps()];
+		Random random = new Random(17);
+		for(int jump=0; jump<uniforms.length; jump++) uniforms[jump] = random.nextDouble();
+		assertSameJumps(jumpEvents, jumpEvents.getThinnedJumpEvents(uniforms, 1.0));
+		assertEquals(0, jumpEvents.getThinnedJumpEvents(uniforms, 0.0).getNumberOfJumps());
+
+		// The jumps kept and the jumps removed by a thinning merge to the original jumps
+		JumpEvents keptJumpEvents		= jumpEvents.getThinnedJumpEvents(uniforms, 0.5);
+		double[] complementaryUniforms	= new double[uniforms.length];
+		for(int jump=0; jump<uniforms.length; jump++) complementaryUniforms[jump] = uniforms[jump] < 0.5 ? 1.0 : 0.0;
+		JumpEvents removedJumpEvents	= jumpEvents.getThinnedJumpEvents(complementaryUniforms, 0.5);
+		assertEquals(jumpEvents.getNumberOfJumps(), keptJumpEvents.getNumberOfJumps() + removedJumpEvents.getNumberOfJumps());
+		JumpEvents mergedJumpEvents = JumpEvents.merge(keptJumpEvents, removedJumpEvents);
+		for(int timeIndex=0; timeIndex<NUMBER_OF_TIME_STEPS; timeIndex++) {
+			assertArrayEquals(jumpEvents.getIncrements(timeIndex), mergedJumpEvents.getIncrements(timeIndex), TOLERANCE);
+		}
+
+		// Merging two processes adds their values, the merged jumps of a path are ordered by time
+		JumpEvents superposition = JumpEvents.merge(jumpEvents, otherJumpEvents);
+		assertEquals(jumpEvents.getNumberOfJumps() + otherJumpEvents.getNumberOfJumps(), superposition.getNumberOfJumps());
+		for(int timeIndex=0; timeIndex<=NUMBER_OF_TIME_STEPS; timeIndex++) {
+			double[] values			= jumpEvents.getValues(timeIndex);
+			double[] otherValues	= otherJumpEvents.getValues(timeIndex);
+			for(int path=0; path<NUMBER_OF_PATHS; path++) values[path] += otherValues[path];
+			assertArrayEquals(values, superposition.getValues(timeIndex), TOLERANCE);
+		}
+		for(int path=0; path<NUMBER_OF_PATHS; path++) {
+			for(int jump=1; jump<superposition.getNumberOfJumpsOnPath(path); jump++) {
+				assertTrue(superposition.getJumpTimeIndex(path, jump-1) <= superposition.getJumpTimeIndex(path, jump));
+			}
+		}
+	}
+
+	@Test
+	public void testRoundTripThroughScenarioFile() throws IOException {
+		TimeDiscretizationInterface timeDiscretization = new TimeDiscretization(0.0, NUMBER_OF_TIME_STEPS, 1.0 / NUMBER_OF_TIME_STEPS);
+		JumpEvents jumpEvents = new CompoundPoissonProcess(2.0, -0.05, 0.2, timeDiscretization, NUMBER_OF_PATHS,
+				MonteCarloMertonJumpDiffusionModel.getSeedOfJumps(ScenarioStore.SEED), true /* isParallel */).getJumpEvents();
+
+		Path directory = Files.createTempDirectory("scenarios");
+		try {
+			MonteCarloMertonJumpDiffusionModel model = new ScenarioStore(directory).getModel(timeDiscretization, NUMBER_OF_PATHS, 100.0, 0.05, 0.3, 2.0, -0.05, 0.2);
+			assertSameJumps(jumpEvents, model.getCompoundPoissonProcess().getJumpEvents());
+		}
+		finally {
+			try(DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+				for(Path file : files) Files.delete(file);
+			}
+			Files.delete(directory);
+		}
+	}
+
+	private static void assertSameJumps(JumpEvents expected, JumpEvents actual) {
+		assertEquals(expected.getNumberOfPaths(), actual.getNumberOfPaths());
+		assertEquals(expected.getNumberOfTimeSteps(), actual.getNumberOfTimeSteps());
+		assertEquals(expected.getNumberOfJumps(), actual.getNumberOfJumps());
+		for(int path=0; path<expected.getNumberOfPaths(); path++) {
+			assertEquals(expected.getNumberOfJumpsOnPath(path), actual.getNumberOfJumpsOnPath(path));
+			for(int jump=0; jump<expected.getNumberOfJumpsOnPath(path); jump++) {
+				assertEquals(expected.getJumpTimeIndex(path, jump), actual.getJumpTimeIndex(path, jump));
+				assertEquals(expected.getJumpSize(path, jump), actual.getJumpSize(path, jump), 0.0);
+			}
+		}
+	}
+}
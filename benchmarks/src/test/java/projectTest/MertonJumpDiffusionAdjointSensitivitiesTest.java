@@ -0,0 +1,122 @@
+package projectTest;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationInterface;
+
+import projectTest.MertonJumpDiffusionAdjointSensitivities.Input;
+import projectTest.MertonJumpDiffusionAdjointSensitivities.Output;
+import projectTest.MertonJumpDiffusionAdjointSensitivities.Sensitivities;
+
+/**
+ * Tests the adjoint derivatives of the option value and of the hedge profit and loss against finite differences.
+ *
+ * The adjoint derivatives are the derivatives of the Monte-Carlo values on fixed paths, hence they are compared with central finite
+ * differences of the Monte-Carlo values with the same seeds (common random numbers): the models with the shifted parameters draw the same
+ * Brownian increments, jump times and normal jump sizes. The delta and vega of the option value are also compared with the pathwise
+ * sensitivities, which differentiate the same Euler scheme.
+ *
+ * @author A V L
+ * @see MertonJumpDiffusionAdjointSensitivities
+ * @version 1.0
+ */
+public class MertonJumpDiffusionAdjointSensitivitiesTest {
+
+	private static final double INITIAL_VALUE			= 100.0;
+	private static final double RISK_FREE_RATE			= 0.05;
+	private static final double VOLATILITY				= 0.3;
+	private static final double INTENSITY				= 0.4;
+	private static final double JUMP_MEAN				= -0.1;
+	private static final double JUMP_VARIANCE			= 0.15;
+	private static final double HEDGE_RISK_FREE_RATE	= 0.05;
+	private static final double HEDGE_VOLATILITY		= 0.3;
+
+	private static final double MATURITY				= 1.0;
+	private static final double STRIKE					= 100.0;
+	private static final double NUMBER_OF_HEDGING_TIMES	= 50;
+
+	private static final int NUMBER_OF_PATHS	= 20000;
+	private static final int SEED				= 3141;
+
+	/**
+	 * The values of the inputs, in the order of {@link Input}.
+	 */
+	private static final double[] INPUTS = { INITIAL_VALUE, RISK_FREE_RATE, VOLATILITY, JUMP_MEAN, JUMP_VARIANCE, HEDGE_RISK_FREE_RATE, HEDGE_VOLATILITY };
+
+	private final TimeDiscretizationInterface timeDiscretization = new TimeDiscretization(0.0, 100, 0.01);
+
+	@Test
+	public void testDerivativesAgainstFiniteDifferencesOnSamePaths() {
+		final double shift = 1E-5;
+		Sensitivities sensitivities = getSensitivities(INPUTS);
+
+		for(Input input : Input.values()) {
+			double[] inputsUp	= INPUTS.clone();
+			double[] inputsDown	= INPUTS.clone();
+			inputsUp[input.ordinal()]	+= shift;
+			inputsDown[input.ordinal()]	-= shift;
+			Sensitivities sensitivitiesUp	= getSensitivities(inputsUp);
+			Sensitivities sensitivitiesDown	= getSensitivities(inputsDown);
+
+			for(Output output : Output.values()) {
+				double finiteDifference = (sensitivitiesUp.getValue(output) - sensitivitiesDown.getValue(output)) / (2 * shift);
+				assertEquals(output + " by " + input, finiteDifference, sensitivities.getDerivative(output, input), 1E-6 * Math.max(Math.abs(finiteDifference), 1.0));
+			}
+		}
+
+		// The option value does not depend on the assumptions of the hedge
+		assertEquals(0.0, sensitivities.getDerivative(Output.OPTION_VALUE, Input.HEDGE_RISK_FREE_RATE), 0.0);
+		assertEquals(0.0, sensitivities.getDerivative(Output.OPTION_VALUE, Input.HEDGE_VOLATILITY), 0.0);
+	}
+
+	@Test
+	public void testVolatilityBucketsAddUpToVolatilityDerivative() {
+		Sensitivities sensitivities = getSensitivities(INPUTS);
+		for(Output output : Output.values()) {
+			double[] bucketDerivatives = sensitivities.getVolatilityBucketDerivatives(output);
+			assertEquals(timeDiscretization.getNumberOfTimeSteps(), bucketDerivatives.length);
+
+			double sum = 0.0;
+			for(double bucketDerivative : bucketDerivatives) {
+				sum += bucketDerivative;
+			}
+			double derivative = sensitivities.getDerivative(output, Input.VOLATILITY);
+			assertEquals(output.name(), derivative, sum, 1E-10 * Math.abs(derivative));
+		}
+	}
+
+	@Test
+	public void testOptionValueDerivativesAgainstPathwiseGreeks() throws CalculationException {
+		Sensitivities sensitivities = getSensitivities(INPUTS);
+		double[] values = new MertonJumpDiffusionGreeks(MATURITY, STRIKE).getValues(getModel(INPUTS));
+
+		double value = values[MertonJumpDiffusionGreeks.Greek.VALUE.ordinal()];
+		double delta = values[MertonJumpDiffusionGreeks.Greek.DELTA.ordinal()];
+		double vega = values[MertonJumpDiffusionGreeks.Greek.VEGA.ordinal()];
+		assertEquals(value, sensitivities.getValue(Output.OPTION_VALUE), 1E-10 * value);
+		assertEquals(delta, sensitivities.getDerivative(Output.OPTION_VALUE, Input.INITIAL_VALUE), 1E-10 * delta);
+		assertEquals(vega, sensitivities.getDerivative(Output.OPTION_VALUE, Input.VOLATILITY), 1E-10 * vega);
+	}
+
+	/**
+	 * @param inputs The values of the inputs, in the order of {@link Input}.
+	 */
+	private MonteCarloMertonJumpDiffusionModel getModel(double[] inputs) {
+		return new MonteCarloMertonJumpDiffusionModel(timeDiscretization, NUMBER_OF_PATHS,
+				inputs[Input.INITIAL_VALUE.ordinal()], inputs[Input.RISK_FREE_RATE.ordinal()], inputs[Input.VOLATILITY.ordinal()],
+				INTENSITY, inputs[Input.JUMP_MEAN.ordinal()], inputs[Input.JUMP_VARIANCE.ordinal()], false /* isAntithetic */, SEED);
+	}
+
+	/**
+	 * @param inputs The values of the inputs, in the order of {@link Input}.
+	 */
+	private Sensitivities getSensitivities(double[] inputs) {
+		return new MertonJumpDiffusionAdjointSensitivities(MATURITY, STRIKE,
+				inputs[Input.HEDGE_RISK_FREE_RATE.ordinal()], inputs[Input.HEDGE_VOLATILITY.ordinal()], NUMBER_OF_HEDGING_TIMES, true /* isParallel */)
+				.getSensitivities(getModel(inputs));
+	}
+}
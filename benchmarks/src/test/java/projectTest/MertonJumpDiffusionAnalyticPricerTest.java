@@ -0,0 +1,86 @@
+package projectTest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import net.finmath.functions.AnalyticFormulas;
+
+/**
+ * Tests the analytic valuation of European options under the Merton jump diffusion model against reference values,
+ * the Black-Scholes value without jumps, the put-call parity and finite differences of the value.
+ *
+ * The reference values were obtained by integrating the payoff against the density of log S(T), i.e., the Poisson mixture of
+ * normal densities, with Simpson's rule on the exercise region (independent of the Black-Scholes formula used by the pricer).
+ *
+ * @author A V L
+ * @see MertonJumpDiffusionAnalyticPricer
+ * @version 1.0
+ */
+public class MertonJumpDiffusionAnalyticPricerTest {
+
+	private static final double TOLERANCE = 1E-8;
+
+	@Test
+	public void testCallAndPutValuesAgainstReferenceValues() {
+		// S0 = 100, r = 0.05, sigma = 0.2, lambda = 1, mu = -0.1, nu = 0.15, T = 1
+		MertonJumpDiffusionAnalyticPricer pricer = new MertonJumpDiffusionAnalyticPricer(100.0, 0.05, 0.2, 1.0, -0.1, 0.15);
+		double[] strikes		= { 80.0, 100.0, 120.0 };
+		double[] callValues		= { 18.9997160593, 7.9909928139, 2.6707710294 };
+		double[] putValues		= { 3.2400155339, 11.2558807785, 24.9602474840 };
+		for(int strikeIndex=0; strikeIndex<strikes.length; strikeIndex++) {
+			assertEquals("Call with strike " + strikes[strikeIndex], callValues[strikeIndex], pricer.getCallValue(1.0, strikes[strikeIndex]), TOLERANCE);
+			assertEquals("Put with strike " + strikes[strikeIndex], putValues[strikeIndex], pricer.getPutValue(1.0, strikes[strikeIndex]), TOLERANCE);
+		}
+		assertArrayEquals(callValues, pricer.getCallValues(1.0, strikes), TOLERANCE);
+
+		// A martingale jump (mu = -nu^2/2), S0 = 100, r = 0.02, sigma = 0.3, lambda = 0.4, nu = 0.15, T = 2
+		MertonJumpDiffusionAnalyticPricer martingaleJumpPricer = new MertonJumpDiffusionAnalyticPricer(100.0, 0.02, 0.3, 0.4, -0.5 * 0.15 * 0.15, 0.15);
+		assertEquals(24.0141798094, martingaleJumpPricer.getCallValue(2.0, 90.0), TOLERANCE);
+		assertEquals(15.3784656796, martingaleJumpPricer.getCallValue(2.0, 110.0), TOLERANCE);
+	}
+
+	@Test
+	public void testBlackScholesValueWithoutJumps() {
+		MertonJumpDiffusionAnalyticPricer pricer = new MertonJumpDiffusionAnalyticPricer(100.0, 0.05, 0.2, 0.0 /* poissonIntensity */, -0.1, 0.15);
+
+		// The Black-Scholes value of the at-the-money call for S0 = 100, r = 0.05, sigma = 0.2, T = 1
+		assertEquals(10.4505835722, pricer.getCallValue(1.0, 100.0), TOLERANCE);
+		for(double strike = 60.0; strike <= 160.0; strike += 20.0) {
+			assertEquals(AnalyticFormulas.blackScholesOptionValue(100.0, 0.05, 0.2, 1.0, strike), pricer.getCallValue(1.0, strike), TOLERANCE);
+		}
+	}
+
+	@Test
+	public void testPutCallParity() {
+		final double initialValue = 100.0, riskFreeRate = 0.05, poissonIntensity = 1.0, jumpMean = -0.1, jumpVariance = 0.15;
+		MertonJumpDiffusionAnalyticPricer pricer = new MertonJumpDiffusionAnalyticPricer(initialValue, riskFreeRate, 0.2, poissonIntensity, jumpMean, jumpVariance);
+
+		// E(S(T)) = S0 exp(r T) exp(lambda k T) with the mean relative jump k = exp(mu + nu^2/2) - 1
+		final double meanRelativeJump = Math.exp(jumpMean + 0.5 * jumpVariance * jumpVariance) - 1.0;
+		for(double maturity : new double[] { 0.25, 1.0, 5.0 }) {
+			for(double strike = 50.0; strike <= 200.0; strike += 25.0) {
+				double forwardValue = initialValue * Math.exp(poissonIntensity * meanRelativeJump * maturity) - strike * Math.exp(-riskFreeRate * maturity);
+				assertEquals("Maturity " + maturity + ", strike " + strike, forwardValue, pricer.getCallValue(maturity, strike) - pricer.getPutValue(maturity, strike), TOLERANCE);
+			}
+		}
+	}
+
+	@Test
+	public void testDeltaAndGammaAgainstFiniteDifferences() {
+		final double initialValue = 100.0, shift = 1E-2;
+		MertonJumpDiffusionAnalyticPricer pricer		= new MertonJumpDiffusionAnalyticPricer(initialValue, 0.05, 0.2, 1.0, -0.1, 0.15);
+		MertonJumpDiffusionAnalyticPricer pricerUp		= new MertonJumpDiffusionAnalyticPricer(initialValue + shift, 0.05, 0.2, 1.0, -0.1, 0.15);
+		MertonJumpDiffusionAnalyticPricer pricerDown	= new MertonJumpDiffusionAnalyticPricer(initialValue - shift, 0.05, 0.2, 1.0, -0.1, 0.15);
+		for(double strike = 60.0; strike <= 140.0; strike += 20.0) {
+			double callValue = pricer.getCallValue(1.0, strike);
+			double callDelta = (pricerUp.getCallValue(1.0, strike) - pricerDown.getCallValue(1.0, strike)) / (2 * shift);
+			double putDelta	= (pricerUp.getPutValue(1.0, strike) - pricerDown.getPutValue(1.0, strike)) / (2 * shift);
+			double gamma	= (pricerUp.getCallValue(1.0, strike) - 2 * callValue + pricerDown.getCallValue(1.0, strike)) / (shift * shift);
+			assertEquals("Call delta, strike " + strike, callDelta, pricer.getCallDelta(1.0, strike), 1E-6);
+			assertEquals("Put delta, strike " + strike, putDelta, pricer.getPutDelta(1.0, strike), 1E-6);
+			assertEquals("Gamma, strike " + strike, gamma, pricer.getGamma(1.0, strike), 1E-4);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package projectTest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.finmath.optimizer.SolverException;
+
+/**
+ * Tests that the calibration recovers the parameters of the Merton jump diffusion model from the implied volatilities of its own
+ * analytic prices, and that a recalibration to the same quotes starts from the calibrated parameters.
+ *
+ * @author A V L
+ * @see MertonJumpDiffusionCalibration
+ * @version 1.0
+ */
+public class MertonJumpDiffusionCalibrationTest {
+
+	private static final double INITIAL_VALUE	= 100.0;
+	private static final double RISK_FREE_RATE	= 0.05;
+
+	/*
+	 * The parameters to be recovered: volatility, poissonIntensity, jumpMean, jumpVariance. With the jump mean -jumpVariance^2/2 the
+	 * mean relative jump is 0, i.e., the forward of the model is the Black-Scholes forward and every quote has an implied volatility.
+	 */
+	private static final double[] PARAMETERS = { 0.2, 0.5, -0.5 * 0.25 * 0.25, 0.25 };
+
+	@Test
+	public void testCalibrationRecoversParameters() throws SolverException {
+		double[] maturities	= { 0.25, 0.5, 1.0, 2.0 };
+		double[] strikes	= { 70.0, 80.0, 90.0, 100.0, 110.0, 120.0, 130.0 };
+
+		double[] maturitiesOfQuotes	= new double[maturities.length * strikes.length];
+		double[] strikesOfQuotes	= new double[maturities.length * strikes.length];
+		for(int maturityIndex=0; maturityIndex<maturities.length; maturityIndex++) {
+			for(int strikeIndex=0; strikeIndex<strikes.length; strikeIndex++) {
+				maturitiesOfQuotes[maturityIndex * strikes.length + strikeIndex]	= maturities[maturityIndex];
+				strikesOfQuotes[maturityIndex * strikes.length + strikeIndex]		= strikes[strikeIndex];
+			}
+		}
+
+		// The market smile consists of the implied volatilities of the model with the parameters to be recovered
+		MertonJumpDiffusionCalibration model = new MertonJumpDiffusionCalibration(INITIAL_VALUE, RISK_FREE_RATE,
+				PARAMETERS[0], PARAMETERS[1], PARAMETERS[2], PARAMETERS[3]);
+		double[] impliedVolatilities = model.getImpliedVolatilities(maturitiesOfQuotes, strikesOfQuotes);
+
+		MertonJumpDiffusionCalibration calibration = new MertonJumpDiffusionCalibration(INITIAL_VALUE, RISK_FREE_RATE, 0.3, 0.2, 0.0, 0.2);
+		double[] calibratedParameters = calibration.calibrate(maturitiesOfQuotes, strikesOfQuotes, impliedVolatilities);
+
+		assertArrayEquals(PARAMETERS, calibratedParameters, 1E-8);
+		assertTrue("Root mean squared error " + calibration.getRootMeanSquaredError(), calibration.getRootMeanSquaredError() < 1E-10);
+		assertArrayEquals(impliedVolatilities, calibration.getImpliedVolatilities(maturitiesOfQuotes, strikesOfQuotes), 1E-10);
+
+		// The recalibration to the same quotes starts from the calibrated parameters
+		int numberOfIterations = calibration.getNumberOfIterations();
+		assertArrayEquals(calibratedParameters, calibration.calibrate(maturitiesOfQuotes, strikesOfQuotes, impliedVolatilities), 1E-8);
+		assertTrue("Iterations of the recalibration " + calibration.getNumberOfIterations(), calibration.getNumberOfIterations() < numberOfIterations);
+	}
+}
@@ -0,0 +1,101 @@
+package projectTest;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.time.TimeDiscretization;
+import net.finmath.time.TimeDiscretizationInterface;
+
+/**
+ * Tests the pathwise and the likelihood ratio sensitivities of a European call against finite differences.
+ *
+ * The pathwise delta and vega are the derivatives of the Monte-Carlo value on fixed paths, hence they are compared with central finite
+ * differences of the Monte-Carlo value with the same seeds (common random numbers) to a tight tolerance. The likelihood ratio
+ * sensitivities (gamma and the jump parameters) are unbiased estimators of the derivative of the value, hence they are compared with
+ * central finite differences of the analytic value within four standard errors.
+ *
+ * @author A V L
+ * @see MertonJumpDiffusionGreeks
+ * @version 1.0
+ */
+public class MertonJumpDiffusionGreeksTest {
+
+	private static final double INITIAL_VALUE	= 100.0;
+	private static final double RISK_FREE_RATE	= 0.05;
+	private static final double VOLATILITY		= 0.3;
+	private static final double INTENSITY		= 0.4;
+	private static final double JUMP_MEAN		= -0.1;
+	private static final double JUMP_VARIANCE	= 0.15;
+
+	private static final double MATURITY	= 1.0;
+	private static final double STRIKE		= 100.0;
+
+	private static final int NUMBER_OF_PATHS	= 50000;
+	private static final int SEED				= 3141;
+
+	private final TimeDiscretizationInterface timeDiscretization = new TimeDiscretization(0.0, 100, 0.01);
+
+	private final MertonJumpDiffusionGreeks greeks = new MertonJumpDiffusionGreeks(MATURITY, STRIKE);
+
+	@Test
+	public void testPathwiseGreeksAgainstFiniteDifferencesOnSamePaths() throws CalculationException {
+		final double shift = 1E-3;
+		double[] values = greeks.getValues(getModel(INITIAL_VALUE, VOLATILITY));
+
+		double delta = (getValue(INITIAL_VALUE + shift, VOLATILITY) - getValue(INITIAL_VALUE - shift, VOLATILITY)) / (2 * shift);
+		double vega = (getValue(INITIAL_VALUE, VOLATILITY + shift) - getValue(INITIAL_VALUE, VOLATILITY - shift)) / (2 * shift);
+
+		assertEquals(delta, values[MertonJumpDiffusionGreeks.Greek.DELTA.ordinal()], 1E-4 * Math.abs(delta));
+		assertEquals(vega, values[MertonJumpDiffusionGreeks.Greek.VEGA.ordinal()], 1E-4 * Math.abs(vega));
+	}
+
+	@Test
+	public void testGreeksAgainstFiniteDifferencesOfAnalyticValue() throws CalculationException {
+		final double shift = 1E-4;
+		double[][] valuesAndStandardErrors = greeks.getValuesAndStandardErrors(getModel(INITIAL_VALUE, VOLATILITY));
+
+		MertonJumpDiffusionAnalyticPricer pricer = new MertonJumpDiffusionAnalyticPricer(INITIAL_VALUE, RISK_FREE_RATE, VOLATILITY, INTENSITY, JUMP_MEAN, JUMP_VARIANCE);
+		double[] parameters = { INITIAL_VALUE, VOLATILITY, INTENSITY, JUMP_MEAN, JUMP_VARIANCE };
+		MertonJumpDiffusionGreeks.Greek[] greeksOfParameters = {
+				MertonJumpDiffusionGreeks.Greek.DELTA,
+				MertonJumpDiffusionGreeks.Greek.VEGA,
+				MertonJumpDiffusionGreeks.Greek.POISSON_INTENSITY,
+				MertonJumpDiffusionGreeks.Greek.JUMP_MEAN,
+				MertonJumpDiffusionGreeks.Greek.JUMP_VARIANCE
+		};
+		for(int parameter=0; parameter<parameters.length; parameter++) {
+			double[] parametersUp	= parameters.clone();
+			double[] parametersDown	= parameters.clone();
+			parametersUp[parameter]		+= shift;
+			parametersDown[parameter]	-= shift;
+			double finiteDifference = (getAnalyticValue(parametersUp) - getAnalyticValue(parametersDown)) / (2 * shift);
+
+			int greek = greeksOfParameters[parameter].ordinal();
+			assertEquals(greeksOfParameters[parameter].name(), finiteDifference, valuesAndStandardErrors[0][greek], 4 * valuesAndStandardErrors[1][greek]);
+		}
+
+		int value = MertonJumpDiffusionGreeks.Greek.VALUE.ordinal();
+		int gamma = MertonJumpDiffusionGreeks.Greek.GAMMA.ordinal();
+		assertEquals("VALUE", pricer.getCallValue(MATURITY, STRIKE), valuesAndStandardErrors[0][value], 4 * valuesAndStandardErrors[1][value]);
+		assertEquals("GAMMA", pricer.getGamma(MATURITY, STRIKE), valuesAndStandardErrors[0][gamma], 4 * valuesAndStandardErrors[1][gamma]);
+	}
+
+	private MonteCarloMertonJumpDiffusionModel getModel(double initialValue, double volatility) {
+		return new MonteCarloMertonJumpDiffusionModel(timeDiscretization, NUMBER_OF_PATHS, initialValue, RISK_FREE_RATE, volatility,
+				INTENSITY, JUMP_MEAN, JUMP_VARIANCE, false /* isAntithetic */, SEED);
+	}
+
+	private double getValue(double initialValue, double volatility) throws CalculationException {
+		return greeks.getValues(getModel(initialValue, volatility))[MertonJumpDiffusionGreeks.Greek.VALUE.ordinal()];
+	}
+
+	/**
+	 * @param parameters The parameters S<sub>0</sub>, \sigma, \lambda, \mu, \nu.
+	 */
+	private static double getAnalyticValue(double[] parameters) {
+		return new MertonJumpDiffusionAnalyticPricer(parameters[0], RISK_FREE_RATE, parameters[1], parameters[2], parameters[3], parameters[4])
+				.getCallValue(MATURITY, STRIKE);
+	}
+}
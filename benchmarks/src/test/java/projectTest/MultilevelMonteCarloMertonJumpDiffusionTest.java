@@ -0,0 +1,65 @@
+package projectTest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import net.finmath.exception.CalculationException;
+import net.finmath.montecarlo.assetderivativevaluation.products.EuropeanOption;
+
+/**
+ * Tests the bias of the multilevel Monte-Carlo estimator against the analytic value of a European option and the coupling of
+ * the fine and the coarse level (the variances of the level corrections decrease with the level).
+ *
+ * @author A V L
+ * @see MultilevelMonteCarloMertonJumpDiffusion
+ * @version 1.0
+ */
+public class MultilevelMonteCarloMertonJumpDiffusionTest {
+
+	private static final double INITIAL_VALUE	= 100.0;
+	private static final double RISK_FREE_RATE	= 0.05;
+	private static final double VOLATILITY		= 0.3;
+	private static final double INTENSITY		= 0.4;
+	private static final double JUMP_VARIANCE	= 0.15;
+	private static final double JUMP_MEAN		= -0.5 * JUMP_VARIANCE * JUMP_VARIANCE;
+
+	private static final double MATURITY	= 2.0;
+	private static final double STRIKE		= 100.0;
+
+	private final MultilevelMonteCarloMertonJumpDiffusion multilevelMonteCarlo = new MultilevelMonteCarloMertonJumpDiffusion(
+			MATURITY, 2 /* numberOfTimeStepsOfCoarsestLevel */, INITIAL_VALUE, RISK_FREE_RATE, VOLATILITY, INTENSITY, JUMP_MEAN, JUMP_VARIANCE);
+
+	private final double analyticValue = new MertonJumpDiffusionAnalyticPricer(INITIAL_VALUE, RISK_FREE_RATE, VOLATILITY, INTENSITY, JUMP_MEAN, JUMP_VARIANCE)
+			.getCallValue(MATURITY, STRIKE);
+
+	@Test
+	public void testEstimateWithTargetErrorAgainstAnalyticValue() throws CalculationException {
+		final double rootMeanSquareError = 0.1;
+		MultilevelMonteCarloMertonJumpDiffusion.Estimate estimate = multilevelMonteCarlo.getEstimate(new EuropeanOption(MATURITY, STRIKE), rootMeanSquareError);
+
+		// The statistical error is below the target (up to the rounding of the numbers of paths), bias and statistical error within three times the target
+		assertTrue("Standard error " + estimate.getStandardError(), estimate.getStandardError() <= rootMeanSquareError / Math.sqrt(2.0) * 1.01);
+		assertEquals(analyticValue, estimate.getValue(), 3 * rootMeanSquareError);
+	}
+
+	@Test
+	public void testBiasAndVariancesOfLevels() throws CalculationException {
+		final int numberOfLevels = 6;
+		int[] numberOfPaths = new int[numberOfLevels];
+		Arrays.fill(numberOfPaths, 20000);
+		MultilevelMonteCarloMertonJumpDiffusion.Estimate estimate = multilevelMonteCarlo.getEstimate(new EuropeanOption(MATURITY, STRIKE), numberOfPaths);
+
+		// With 128 time steps on the finest level the bias is small compared to the standard error
+		assertEquals(analyticValue, estimate.getValue(), 4 * estimate.getStandardError());
+
+		// The fine and the coarse level are calculated on the same paths: the corrections have a small variance, decreasing with the level (strong order 1/2)
+		assertTrue("Variance of level 1 " + estimate.getVariance(1), estimate.getVariance(1) < 0.05 * estimate.getVariance(0));
+		for(int level=2; level<numberOfLevels; level++) {
+			assertTrue("Variance of level " + level + " " + estimate.getVariance(level), estimate.getVariance(level) < 0.75 * estimate.getVariance(level-1));
+		}
+	}
+}